@@ -0,0 +1,307 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class scores all possible moves of a position in the background
+ * (multi-PV). It deepens the search one depth at a time; at each depth the
+ * threads take the moves one after the other, each on its own copy of the
+ * board, and share one transposition table. When all moves of a depth are
+ * scored, the ranking is published to the listener and the next depth
+ * searches the moves in the order of this ranking. The analysis ends at the
+ * time budget, at the end of the game or when it is cancelled.
+ * @author Florian Mueller
+ */
+public class Analysis {
+
+	/** size of the transposition table in megabytes */
+	private static final int TABLE_SIZE = 16;
+
+	/** metric of the completed depths */
+	private static final Metric DEPTH_METRIC = Metrics.get("analysis.depth", true);
+
+	/** color of the player to move */
+	private final char color;
+
+	/** cells of the possible moves in the order of the last ranking */
+	private final int[] cells;
+
+	/** own copy of the board of each thread */
+	private final Board[] boards;
+
+	/** searches of the threads, the first one runs on the analysis thread */
+	private final Search[] searches;
+
+	/** pool of the other threads, null for a single thread */
+	private final ExecutorService helpers;
+
+	/** thread which deepens the search and publishes the rankings */
+	private final Thread thread;
+
+	/** listener of the rankings, null for none */
+	private final AnalysisListener listener;
+
+	/** maximum depth of the analysis */
+	private final int maxDepth;
+
+	/** time in nanoseconds to stop the analysis */
+	private final long deadline;
+
+	/** signal to stop all threads */
+	private final AtomicBoolean signal;
+
+	/** released when the analysis has ended */
+	private final CountDownLatch finished;
+
+	/** ranking of the last completed depth, empty before the first one */
+	private volatile List<SearchResult> ranking;
+
+	/** error which ended the analysis, null if there was none */
+	private volatile RuntimeException failure;
+
+	/**
+	 * Constructs a new analysis of the position. The board is copied, so
+	 * the game can go on while the analysis runs.
+	 * @param board board to analyze
+	 * @param color color of the player to move
+	 * @param threads number of threads
+	 * @param milliseconds time budget of the analysis
+	 * @param maxDepth maximum depth of the analysis
+	 * @param listener listener of the rankings, null for none
+	 * @param stopSignal signal of the owner which stops the analysis like
+	 *        {@link #cancel()}, null for none
+	 */
+	Analysis(Board board, char color, int threads, long milliseconds, int maxDepth,
+			AnalysisListener listener, AtomicBoolean stopSignal) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		} else if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		} else if (threads < 1 || threads > ParallelSearch.MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		} else if (milliseconds < 1) {
+			throw new IllegalArgumentException("Error! Invalid search budget.");
+		} else if (maxDepth < 1 || maxDepth > Search.MAX_DEPTH) {
+			throw new IllegalArgumentException("Error! Invalid search depth.");
+		}
+
+		int[] moves = new int[board.getLines() * board.getColumns()];
+		int count = board.listMoves(color, moves);
+		this.cells = new int[count];
+		System.arraycopy(moves, 0, this.cells, 0, count);
+
+		this.color = color;
+		this.listener = listener;
+		this.maxDepth = Math.max(1, Math.min(maxDepth, board.countEmpty()));
+		this.deadline = System.nanoTime() + milliseconds * 1000000L;
+		this.signal = new AtomicBoolean(false);
+		this.finished = new CountDownLatch(1);
+		this.ranking = Collections.emptyList();
+
+		TranspositionTable table = new TranspositionTable(TABLE_SIZE);
+		int workers = Math.max(1, Math.min(threads, count));
+		this.boards = new Board[workers];
+		this.searches = new Search[workers];
+		for (int i = 0; i < workers; i++) {
+			boards[i] = new Board(board);
+			searches[i] = new Search(table);
+			searches[i].setStopSignal(stopSignal);
+		}
+
+		ExecutorService pool = null;
+		if (workers > 1) {
+			pool = Executors.newFixedThreadPool(workers - 1, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "analysis-helper");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		this.helpers = pool;
+		this.thread = new Thread(new Runnable() {
+			public void run() {
+				Analysis.this.run();
+			}
+		}, "analysis");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts the analysis on its own thread.
+	 */
+	void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops the analysis. The threads stop within a few thousand nodes; the
+	 * ranking of the last completed depth is kept.
+	 */
+	public void cancel() {
+		signal.set(true);
+	}
+
+	/**
+	 * Check whether the analysis has ended.
+	 * @return {@code true} if it has ended, {@code false} otherwise
+	 */
+	public boolean isDone() {
+		return finished.getCount() == 0;
+	}
+
+	/**
+	 * Returns the ranking of the last completed depth without waiting.
+	 * @return results of all possible moves, the best move first, empty
+	 *         before the first depth is completed
+	 */
+	public List<SearchResult> getRanking() {
+		return this.ranking;
+	}
+
+	/**
+	 * Waits for the end of the analysis.
+	 * @return ranking of the last completed depth, empty if there are no
+	 *         possible moves
+	 */
+	public List<SearchResult> await() {
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Error! Analysis was interrupted.", e);
+		}
+		if (failure != null) {
+			throw new IllegalStateException("Error! Analysis failed.", failure);
+		}
+		return this.ranking;
+	}
+
+	/**
+	 * Deepens the search until the budget is spent, the maximum depth is
+	 * reached or the analysis is cancelled.
+	 */
+	private void run() {
+		try {
+			boolean complete = cells.length > 0;
+			for (int depth = 1; depth <= maxDepth && complete && !signal.get(); depth++) {
+				long started = Metrics.start();
+				long allocated = Metrics.allocated();
+				SearchResult[] results = this.searchDepth(depth);
+				for (int i = 0; i < results.length && complete; i++) {
+					complete = results[i] != null && results[i].getDepth() == depth;
+				}
+				if (complete) {
+					this.publish(results);
+					DEPTH_METRIC.record(started, allocated);
+				}
+			}
+		} catch (RuntimeException e) {
+			this.failure = e;
+		} finally {
+			signal.set(true);
+			if (helpers != null) {
+				helpers.shutdownNow();
+			}
+			finished.countDown();
+		}
+	}
+
+	/**
+	 * Scores all possible moves to the depth with all threads.
+	 * @param depth depth of the search
+	 * @return result of each move in the order of the cells, null for a
+	 *         move which was not searched
+	 */
+	private SearchResult[] searchDepth(final int depth) {
+		final SearchResult[] result = new SearchResult[cells.length];
+		final AtomicInteger next = new AtomicInteger();
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (int i = 1; i < searches.length; i++) {
+			final int number = i;
+			futures.add(helpers.submit(new Callable<Object>() {
+				public Object call() {
+					Analysis.this.scoreMoves(number, depth, next, result);
+					return null;
+				}
+			}));
+		}
+
+		this.scoreMoves(0, depth, next, result);
+		for (Future<Object> future : futures) {
+			this.await(future);
+		}
+		return result;
+	}
+
+	/**
+	 * Scores the next moves which are not taken by another thread.
+	 * @param number number of the thread
+	 * @param depth depth of the search
+	 * @param next index of the next move
+	 * @param results result of each move
+	 */
+	private void scoreMoves(int number, int depth, AtomicInteger next, SearchResult[] results) {
+		boolean searching = true;
+		while (searching) {
+			int index = next.getAndIncrement();
+			if (index < cells.length && !signal.get()) {
+				results[index] = searches[number].scoreMove(boards[number], color,
+						cells[index], depth, deadline, signal);
+			} else {
+				searching = false;
+			}
+		}
+	}
+
+	/**
+	 * Ranks the results of a completed depth, publishes the ranking and
+	 * orders the cells for the next depth.
+	 * @param results result of each move
+	 */
+	private void publish(SearchResult[] results) {
+		List<SearchResult> sorted = new ArrayList<SearchResult>();
+		Collections.addAll(sorted, results);
+		Collections.sort(sorted, new Comparator<SearchResult>() {
+			public int compare(SearchResult one, SearchResult two) {
+				return Integer.compare(two.getScore(), one.getScore());
+			}
+		});
+		for (int i = 0; i < cells.length; i++) {
+			PossibleMove move = sorted.get(i).getMove();
+			cells[i] = boards[0].cellIndex(move.getColumn(), move.getLine());
+		}
+
+		this.ranking = Collections.unmodifiableList(sorted);
+		if (listener != null) {
+			listener.ranked(this.ranking);
+		}
+	}
+
+	/**
+	 * Waits for a helper thread.
+	 * @param future result of the helper
+	 */
+	private void await(Future<Object> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Error! Analysis was interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error! Helper search failed.", e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+import java.util.List;
+
+/**
+ * This interface receives the rankings of the possible moves of an
+ * {@link Analysis} as it searches deeper.
+ * @author Florian Mueller
+ */
+public interface AnalysisListener {
+
+	/**
+	 * Receives the ranking of a completed depth. It is called on the thread
+	 * of the analysis, which searches on after it returns.
+	 * @param ranking results of all possible moves at the same depth, the
+	 *        best move first
+	 */
+	void ranked(List<SearchResult> ranking);
+
+}
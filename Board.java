@@ -1,19 +1,181 @@
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * This class represents the board of the Othello game. It stores and
- * administers the board settings and moves.
+ * administers the board settings and moves. The cells are stored in bitboards
+ * (one bit per cell, numbered line by line) which span as many {@code long}
+ * words as the board size needs.
  * @author Florian Mueller
  */
 public class Board {
 
-	/** playBoard for the othello game */
-	private char[][] playBoard;
+	/** cell of a pass in {@link #makeMove(int, char)} */
+	public static final int PASS = -1;
 
-	/** list of possible moves for the next round */
-	private List<PossibleMove> possibleMoves;
+	/** cell bits of a move record, all set for a pass */
+	private static final long RECORD_CELL = 0xFFFL;
+
+	/** color bit of a move record, set for white */
+	private static final long RECORD_WHITE = 1L << 12;
+
+	/** position of the flip count of each direction in a move record */
+	private static final int[] RECORD_SHIFT = {13, 18, 25, 30, 35, 40, 47, 52};
+
+	/** mask of the flip count of each direction in a move record */
+	private static final long[] RECORD_COUNT = {0x1FL, 0x7FL, 0x1FL, 0x1FL, 0x1FL, 0x7FL, 0x1FL, 0x1FL};
+
+	/** maximum number of cells of a board */
+	private static final int MAX_CELLS = 98 * 26;
+
+	/** hash keys of a black stone on each cell */
+	private static final long[] BLACK_KEYS = new long[MAX_CELLS];
+
+	/** hash keys of a white stone on each cell */
+	private static final long[] WHITE_KEYS = new long[MAX_CELLS];
+
+	/** hash keys of a hole on each cell */
+	private static final long[] HOLE_KEYS = new long[MAX_CELLS];
+
+	/** hash keys of the line lengths */
+	private static final long[] LINE_KEYS = new long[99];
+
+	/** hash keys of the column lengths */
+	private static final long[] COLUMN_KEYS = new long[27];
+
+	/** hash key of white to move */
+	private static final long WHITE_TO_MOVE;
+
+	static {
+		SplittableRandom random = new SplittableRandom(0x5EED0F0711E110L);
+		for (int i = 0; i < MAX_CELLS; i++) {
+			BLACK_KEYS[i] = random.nextLong();
+			WHITE_KEYS[i] = random.nextLong();
+			HOLE_KEYS[i] = random.nextLong();
+		}
+		for (int i = 0; i < LINE_KEYS.length; i++) {
+			LINE_KEYS[i] = random.nextLong();
+		}
+		for (int i = 0; i < COLUMN_KEYS.length; i++) {
+			COLUMN_KEYS[i] = random.nextLong();
+		}
+		WHITE_TO_MOVE = random.nextLong();
+	}
+
+	/** cell contents of the packed values */
+	private static final char[] CELL_NAMES = {'-', 'B', 'W', '#'};
+
+	/** status of a valid notation */
+	static final int NOTATION_VALID = 0;
+
+	/** status of a notation with a character which is no cell or comma */
+	static final int NOTATION_CHARACTER = 1;
+
+	/** status of a notation with a line of another column length */
+	static final int NOTATION_COLUMNS = 2;
+
+	/** status of a notation with another line length */
+	static final int NOTATION_LINES = 3;
+
+	/** line offsets of the eight directions */
+	private static final int[] DIRECTION_LINE = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+	/** column offsets of the eight directions */
+	private static final int[] DIRECTION_COLUMN = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+	/** metric of {@link #getPossibleMoves(char)} */
+	private static final Metric POSSIBLE_MOVES_METRIC = Metrics.get("board.getPossibleMoves", false);
+
+	/** metric of {@link #fillMoves(char, MoveList)} */
+	private static final Metric FILL_MOVES_METRIC = Metrics.get("board.fillMoves", false);
+
+	/** metric of {@link #moveStone(char, int, char)} */
+	private static final Metric MOVE_STONE_METRIC = Metrics.get("board.moveStone", false);
+
+	/** number of lines of the board */
+	private int lines;
+
+	/** number of columns of the board */
+	private int columns;
+
+	/** number of long words of a bitboard */
+	private int words;
+
+	/** bitboard of the black stones */
+	private long[] black;
+
+	/** bitboard of the white stones */
+	private long[] white;
+
+	/** bitboard of the holes */
+	private long[] holes;
+
+	/** Zobrist hash of the stones, holes and board size */
+	private long hash;
+
+	/** number of black stones */
+	private int blackStones;
+
+	/** number of white stones */
+	private int whiteStones;
+
+	/** number of holes */
+	private int holeCount;
+
+	/** bitboard of the possible moves of black */
+	private long[] blackMoves;
+
+	/** bitboard of the possible moves of white */
+	private long[] whiteMoves;
+
+	/** bitboard of all cells of the board */
+	private long[] cells;
+
+	/** bitboard of all cells except the first column */
+	private long[] notFirstColumn;
+
+	/** bitboard of all cells except the last column */
+	private long[] notLastColumn;
+
+	/** bit shift of each of the eight directions */
+	private int[] directionShift;
+
+	/**
+	 * number of cells of each ray up to the edge or the first hole, at the
+	 * index of the cell times eight plus the direction, null until the first
+	 * move after the holes have changed
+	 */
+	private byte[] rays;
+
+	/** bitboard of the holes the rays were computed for */
+	private long[] rayHoles;
+
+	/** scratch bitboard with the stones to be shifted */
+	private long[] frontier;
+
+	/** scratch bitboard with the shifted stones */
+	private long[] shifted;
+
+	/** scratch bitboard with possible moves which are not maintained */
+	private long[] found;
+
+	/** scratch bitboard with the empty cells whose moves have to be checked */
+	private long[] dirty;
+
+	/** scratch with the number of flipped stones of each direction */
+	private int[] flips;
+
+	/** scratch with the position of each column in a move list */
+	private int[] columnStart;
+
+	/** number of moves made and not yet taken back */
+	private int madeMoves;
+
+	/** number of made moves the possible moves belong to, -1 if outdated */
+	private int movesValidAt;
 
 	/**
 	 * Constructs a new Board with line length and column length. Optionally,
@@ -31,7 +193,7 @@ public class Board {
 		} else if (board != null) {
 
 			for (String s : board) {
-				if (!s.matches("[W,B,#,,-]+")) {
+				if (!isBoardString(s)) {
 					throw new IllegalArgumentException(
 							"Error! Invalid board parameters.");
 				} else if (s.length() != columns) {
@@ -46,18 +208,141 @@ public class Board {
 			}
 		}
 
-		this.playBoard = new char[lines][columns];
-		this.possibleMoves = new ArrayList<PossibleMove>();
-
+		this.allocate(lines, columns);
 		if (board == null) {
 			this.init();
 		} else {
-			for (int i = 0; i < playBoard.length; i++) {
-				for (int j = 0; j < playBoard[0].length; j++) {
-					playBoard[i][j] = board.get(i).charAt(j);
+			for (int i = 0; i < lines; i++) {
+				for (int j = 0; j < columns; j++) {
+					this.setCell(this.index(i, j), board.get(i).charAt(j));
 				}
 			}
 		}
+		this.resetMoves();
+	}
+
+	/**
+	 * Constructs a new Board from cells packed by {@link #pack(ByteBuffer)}.
+	 * The cells are read from the buffer at its position.
+	 * @param cells buffer with the packed cells
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 */
+	private Board(ByteBuffer cells, int lines, int columns) {
+		if (lines % 2 != 0 || lines < 2 || lines > 98) {
+			throw new IllegalArgumentException("Error! Line length is invalid.");
+		} else if (columns % 2 != 0 || columns < 2 || columns > 26) {
+			throw new IllegalArgumentException(
+					"Error! Column length is invalid.");
+		} else if (cells.remaining() < packedSize(lines, columns)) {
+			throw new IllegalArgumentException("Error! Invalid board parameters.");
+		}
+
+		this.allocate(lines, columns);
+		this.readCells(cells);
+	}
+
+	/**
+	 * Constructs a new Board from a notation of {@link #parse(CharSequence,
+	 * int, int)}.
+	 * @param notation the notation
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 */
+	private Board(CharSequence notation, int lines, int columns) {
+		if (lines % 2 != 0 || lines < 2 || lines > 98) {
+			throw new IllegalArgumentException("Error! Line length is invalid.");
+		} else if (columns % 2 != 0 || columns < 2 || columns > 26) {
+			throw new IllegalArgumentException(
+					"Error! Column length is invalid.");
+		}
+
+		this.allocate(lines, columns);
+		this.readNotation(notation, 0, notation.length());
+	}
+
+	/**
+	 * Reads the packed cells and finds the possible moves of both colors.
+	 * @param cells buffer with the packed cells
+	 */
+	private void readCells(ByteBuffer cells) {
+		int value = 0;
+		for (int i = 0; i < lines * columns; i++) {
+			if ((i & 3) == 0) {
+				value = cells.get();
+			}
+			this.setCell(i, CELL_NAMES[value & 3]);
+			value >>>= 2;
+		}
+		this.resetMoves();
+	}
+
+	/**
+	 * Allocates the bitboards and scratch arrays and initializes the masks of
+	 * an empty board.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 */
+	private void allocate(int lines, int columns) {
+		this.lines = lines;
+		this.columns = columns;
+		this.hash = LINE_KEYS[lines] ^ COLUMN_KEYS[columns];
+		this.words = (lines * columns + 63) / 64;
+		this.black = new long[words];
+		this.white = new long[words];
+		this.holes = new long[words];
+		this.cells = new long[words];
+		this.notFirstColumn = new long[words];
+		this.notLastColumn = new long[words];
+		this.frontier = new long[words];
+		this.shifted = new long[words];
+		this.blackMoves = new long[words];
+		this.whiteMoves = new long[words];
+		this.found = new long[words];
+		this.dirty = new long[words];
+		this.flips = new int[8];
+		this.columnStart = new int[columns];
+		this.initMasks();
+	}
+
+	/**
+	 * Constructs a copy of the board, for example for a search on another
+	 * thread. The copy has no moves to take back.
+	 * @param board board to copy
+	 */
+	public Board(Board board) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		}
+
+		this.lines = board.lines;
+		this.columns = board.columns;
+		this.words = board.words;
+		this.hash = board.hash;
+		this.blackStones = board.blackStones;
+		this.whiteStones = board.whiteStones;
+		this.holeCount = board.holeCount;
+		this.black = board.black.clone();
+		this.white = board.white.clone();
+		this.holes = board.holes.clone();
+		this.cells = board.cells;
+		this.notFirstColumn = board.notFirstColumn;
+		this.notLastColumn = board.notLastColumn;
+		this.directionShift = board.directionShift;
+		this.rays = board.rays;
+		this.rayHoles = board.rayHoles;
+		this.frontier = new long[words];
+		this.shifted = new long[words];
+		this.blackMoves = board.blackMoves.clone();
+		this.whiteMoves = board.whiteMoves.clone();
+		this.found = new long[words];
+		this.dirty = new long[words];
+		this.flips = new int[8];
+		this.columnStart = new int[columns];
+		this.movesValidAt = -1;
+		if (board.movesValidAt == board.madeMoves) {
+			this.movesValidAt = 0;
+		}
 	}
 
 	/**
@@ -85,13 +370,14 @@ public class Board {
 		int colOne = this.getColumn(columnOne);
 		int colTwo = this.getColumn(columnTwo);
 
-		for (int i = 0; i < lineTwo - lineOne + 1; i++) {
-			for (int j = 0; j < colTwo - colOne + 1; j++) {
-				playBoard[lineOne + i - 1][colOne + j] = '#';
+		for (int i = lineOne - 1; i < lineTwo; i++) {
+			for (int j = colOne; j <= colTwo; j++) {
+				this.setCell(this.index(i, j), '#');
 			}
 		}
+		this.resetMoves();
 	}
-	
+
 	/**
 	 * Check if hole is allowed at this position.
 	 * @param columnOne column of the first position
@@ -104,15 +390,14 @@ public class Board {
 		boolean allowed = true;
 		int colOne = this.getColumn(columnOne);
 		int colTwo = this.getColumn(columnTwo);
-		
+
 		if (this.containsPoint(columnOne, lineOne)) {
 			if (this.containsPoint(columnTwo, lineTwo)) {
 				if (this.isRectangle(columnOne, lineOne, columnTwo, lineTwo)) {
-					for (int i = 0; i < lineTwo - lineOne + 1 && allowed; i++) {
-						for (int j = 0; j < colTwo - colOne + 1 && allowed; j++) {
-							if (playBoard[lineOne + i - 1][colOne + j] == 'W') {
-								allowed = false;
-							} else if (playBoard[lineOne + i - 1][colOne + j] == 'B') {
+					for (int i = lineOne - 1; i < lineTwo && allowed; i++) {
+						for (int j = colOne; j <= colTwo && allowed; j++) {
+							int index = this.index(i, j);
+							if (isSet(black, index) || isSet(white, index)) {
 								allowed = false;
 							}
 						}
@@ -135,18 +420,87 @@ public class Board {
 	 * @return list of all possible moves
 	 */
 	public List<PossibleMove> getPossibleMoves(char color) {
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		MoveList posMoves = new MoveList(0);
+		this.fillMoves(color, posMoves);
+		List<PossibleMove> result = posMoves.toList();
+		POSSIBLE_MOVES_METRIC.record(started, allocated);
+		return result;
+	}
+
+	/**
+	 * Fills the list with all possible moves for the current player, ordered
+	 * by descending column and then by descending line like
+	 * {@link #getPossibleMoves(char)}. Nothing is allocated once the list is
+	 * large enough.
+	 * @param color color of the current player
+	 * @param list list for the possible moves, its moves are replaced
+	 */
+	public void fillMoves(char color, MoveList list) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		} else if (list == null) {
+			throw new IllegalArgumentException("Error! Move list is missing.");
+		}
+
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		long[] moves = this.possibleMoves(color);
+		int counter = 0;
+		for (int j = 0; j < columns; j++) {
+			columnStart[j] = 0;
+		}
+		for (int i = 0; i < words; i++) {
+			long bits = moves[i];
+			while (bits != 0L) {
+				columnStart[((i << 6) + Long.numberOfTrailingZeros(bits)) % columns]++;
+				bits &= bits - 1;
+				counter++;
+			}
+		}
+		int start = 0;
+		for (int j = columns - 1; j >= 0; j--) {
+			int count = columnStart[j];
+			columnStart[j] = start;
+			start += count;
+		}
+
+		list.setSize(counter);
+		for (int i = words - 1; i >= 0; i--) {
+			long bits = moves[i];
+			while (bits != 0L) {
+				int bit = 63 - Long.numberOfLeadingZeros(bits);
+				int cell = (i << 6) + bit;
+				int column = cell % columns;
+				list.set(columnStart[column], cell / columns, column);
+				columnStart[column]++;
+				bits &= ~(1L << bit);
+			}
+		}
+		FILL_MOVES_METRIC.record(started, allocated);
+	}
+
+	/**
+	 * Check whether the player can move to the position.
+	 * @param column column of the position
+	 * @param line line of the position
+	 * @param color color of the current player
+	 * @return {@code true} if the move is possible, {@code false} otherwise
+	 */
+	public boolean isPossibleMove(char column, int line, char color) {
 		if (color != 'B' && color != 'W') {
 			throw new IllegalArgumentException(
 					"Error! Invalid color. Expected B or W.");
 		}
 
-		List<PossibleMove> posMoves = new ArrayList<PossibleMove>();
-		this.findPossibleMoves(color);
-		Collections.sort(possibleMoves);
-		for (PossibleMove p : possibleMoves) {
-			posMoves.add(new PossibleMove(p.getColumn(), p.getLine()));
+		boolean result = false;
+		if (this.containsPoint(column, line)) {
+			result = isSet(this.possibleMoves(color),
+					this.index(line - 1, this.getColumn(column)));
 		}
-		return posMoves;
+		return result;
 	}
 
 	/**
@@ -163,9 +517,199 @@ public class Board {
 					"Error! Invalid color. Expected B or W.");
 		}
 
-		boolean move = true;
-		playBoard[line - 1][this.getColumn(column)] = color;
-		this.vectorMoveRoutine(line - 1, this.getColumn(column), color, move);
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		int index = this.index(line - 1, this.getColumn(column));
+		if (rays == null) {
+			this.computeRays();
+		}
+		this.setCell(index, color);
+		for (int direction = 0; direction < 8; direction++) {
+			flips[direction] = this.flipStones(index, color, direction);
+		}
+		if (movesValidAt == madeMoves) {
+			this.updatePossibleMoves(index);
+		} else {
+			movesValidAt = -1;
+		}
+		MOVE_STONE_METRIC.record(started, allocated);
+	}
+
+	/**
+	 * Returns the index of a cell which is used by {@link #makeMove(int, char)}.
+	 * @param column column of the position
+	 * @param line line of the position
+	 * @return index of the cell
+	 */
+	public int cellIndex(char column, int line) {
+		if (!this.containsPoint(column, line)) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		}
+
+		return this.index(line - 1, this.getColumn(column));
+	}
+
+	/**
+	 * Returns the content of a cell by its index.
+	 * @param cell index of the cell
+	 * @return {@code 'B'} or {@code 'W'} for a stone, {@code '#'} for a hole
+	 *         and {@code '-'} for an empty cell
+	 */
+	public char getCell(int cell) {
+		if (cell < 0 || cell >= lines * columns) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		}
+
+		return this.cellAt(cell);
+	}
+
+	/**
+	 * Moves a stone of the player to the cell and returns a record of the move
+	 * which restores the board with {@link #unmakeMove(long)}. The move is not
+	 * checked. The record packs the cell in the bits 0-11, the color in bit 12
+	 * and the number of flipped stones of each direction above. A pass is made
+	 * with the cell {@link #PASS} and leaves the stones as they are.
+	 * @param cell index of the cell or {@link #PASS}
+	 * @param color color of the current player
+	 * @return record of the move
+	 */
+	public long makeMove(int cell, char color) {
+		if (cell != PASS && (cell < 0 || cell >= lines * columns)) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		} else if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		long record = RECORD_CELL;
+		if (color == 'W') {
+			record |= RECORD_WHITE;
+		}
+		if (cell != PASS) {
+			if (rays == null) {
+				this.computeRays();
+			}
+			long[] own = this.stones(color);
+			own[cell >>> 6] |= 1L << cell;
+			hash ^= stoneKeys(color)[cell];
+			this.addStones(color, 1);
+			record &= ~RECORD_CELL;
+			record |= cell;
+			for (int direction = 0; direction < 8; direction++) {
+				long counter = this.flipStones(cell, color, direction);
+				record |= counter << RECORD_SHIFT[direction];
+			}
+		}
+		madeMoves++;
+		return record;
+	}
+
+	/**
+	 * Takes back the move of the record which was the last made move.
+	 * @param record record of the move from {@link #makeMove(int, char)}
+	 */
+	public void unmakeMove(long record) {
+		if (madeMoves == 0) {
+			throw new IllegalArgumentException("Error! No move to take back.");
+		}
+
+		int cell = (int) (record & RECORD_CELL);
+		if (cell != RECORD_CELL) {
+			char color = 'B';
+			long[] own = black;
+			long[] opponent = white;
+			long[] keys = BLACK_KEYS;
+			if ((record & RECORD_WHITE) != 0L) {
+				color = 'W';
+				own = white;
+				opponent = black;
+				keys = WHITE_KEYS;
+			}
+			own[cell >>> 6] &= ~(1L << cell);
+			hash ^= keys[cell];
+			int flipped = 0;
+			for (int direction = 0; direction < 8; direction++) {
+				int counter = (int) ((record >>> RECORD_SHIFT[direction]) & RECORD_COUNT[direction]);
+				int index = cell;
+				for (int k = 0; k < counter; k++) {
+					index += directionShift[direction];
+					own[index >>> 6] &= ~(1L << index);
+					opponent[index >>> 6] |= 1L << index;
+					hash ^= BLACK_KEYS[index] ^ WHITE_KEYS[index];
+				}
+				flipped += counter;
+			}
+			this.addStones(color, -1 - flipped);
+			this.addStones(this.invertColor(color), flipped);
+		}
+		if (movesValidAt >= madeMoves) {
+			movesValidAt = -1;
+		}
+		madeMoves--;
+	}
+
+	/**
+	 * Returns the number of stones a move has flipped. A move without
+	 * flipped stones was not possible and has to be taken back.
+	 * @param record record of the move from {@link #makeMove(int, char)}
+	 * @return number of flipped stones
+	 */
+	public static int countFlipped(long record) {
+		int result = 0;
+		for (int direction = 0; direction < 8; direction++) {
+			result += (int) ((record >>> RECORD_SHIFT[direction]) & RECORD_COUNT[direction]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cell of a move.
+	 * @param record record of the move from {@link #makeMove(int, char)}
+	 * @return index of the cell or {@link #PASS}
+	 */
+	public static int recordCell(long record) {
+		int result = (int) (record & RECORD_CELL);
+		if (result == RECORD_CELL) {
+			result = PASS;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the color of a move.
+	 * @param record record of the move from {@link #makeMove(int, char)}
+	 * @return {@code 'B'} or {@code 'W'}
+	 */
+	public static char recordColor(long record) {
+		char result = 'B';
+		if ((record & RECORD_WHITE) != 0L) {
+			result = 'W';
+		}
+		return result;
+	}
+
+	/**
+	 * Lists the cells of the stones a move has flipped.
+	 * @param record record of the move from {@link #makeMove(int, char)}
+	 * @param cells buffer for the cell indices, at least as long as the
+	 *        number of flipped stones
+	 * @return number of flipped stones
+	 */
+	public int listFlipped(long record, int[] cells) {
+		int cell = (int) (record & RECORD_CELL);
+		int result = 0;
+		if (cell != RECORD_CELL) {
+			for (int direction = 0; direction < 8; direction++) {
+				int counter = (int) ((record >>> RECORD_SHIFT[direction]) & RECORD_COUNT[direction]);
+				int index = cell;
+				for (int k = 0; k < counter; k++) {
+					index += directionShift[direction];
+					cells[result] = index;
+					result++;
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -197,9 +741,9 @@ public class Board {
 	public boolean containsPoint(char columnName, int line) {
 		int column = this.getColumn(columnName);
 		boolean result = true;
-		if (line - 1 < 0 || line > playBoard.length) {
+		if (line - 1 < 0 || line > lines) {
 			result = false;
-		} else if (column < 0 || column > playBoard[0].length) {
+		} else if (column < 0 || column >= columns) {
 			result = false;
 		}
 		return result;
@@ -210,189 +754,979 @@ public class Board {
 	 * @return the fields of the board to print
 	 */
 	public List<String> getField() {
-		List<String> field = new ArrayList<String>();
-		String line = null;
-		for (int i = 0; i < playBoard.length; i++) {
-			for (int j = 0; j < playBoard[0].length; j++) {
-				if (j == 0) {
-					line = String.valueOf(playBoard[i][j]);
-				} else {
-					line = line + playBoard[i][j];
-				}
+		List<String> field = new ArrayList<String>(lines);
+		char[] line = new char[columns];
+		for (int i = 0; i < lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				line[j] = this.cellAt(this.index(i, j));
 			}
-			field.add(line);
-			line = null;
+			field.add(new String(line));
 		}
 		return field;
 	}
 
 	/**
-	 * Count the stones of the specified color.
-	 * @param color color of the player
-	 * @return number of stones, with the color which are on the board
+	 * Packs the cells of the board with two bits per cell, four cells per
+	 * byte starting with the low bits: 0 is empty, 1 black, 2 white and 3 a
+	 * hole. The bytes are written to the buffer at its position.
+	 * @param buffer buffer for the packed cells
 	 */
-	public int countStones(char color) {
-		if (color != 'B' && color != 'W') {
-			throw new IllegalArgumentException(
-					"Error! Invalid color. Expected B or W.");
+	public void pack(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("Error! Buffer is missing.");
+		} else if (buffer.remaining() < packedSize(lines, columns)) {
+			throw new IllegalArgumentException("Error! Buffer is too small.");
 		}
 
-		int counter = 0;
-		for (int i = 0; i < playBoard.length; i++) {
-			for (int j = 0; j < playBoard[0].length; j++) {
-				if (playBoard[i][j] == color) {
-					counter++;
-				}
+		int value = 0;
+		for (int i = 0; i < lines * columns; i++) {
+			int word = i >>> 6;
+			long bit = 1L << i;
+			int cell = 0;
+			if ((black[word] & bit) != 0L) {
+				cell = 1;
+			} else if ((white[word] & bit) != 0L) {
+				cell = 2;
+			} else if ((holes[word] & bit) != 0L) {
+				cell = 3;
+			}
+			value |= cell << ((i & 3) << 1);
+			if ((i & 3) == 3) {
+				buffer.put((byte) value);
+				value = 0;
 			}
 		}
-		return counter;
+		if ((lines * columns & 3) != 0) {
+			buffer.put((byte) value);
+		}
 	}
 
 	/**
-	 * Searches for all possible moves.
-	 * @param color color of the player
+	 * Constructs a board from cells packed by {@link #pack(ByteBuffer)}. The
+	 * cells are read from the buffer at its position without a copy.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param cells buffer with the packed cells
+	 * @return new board
 	 */
-	private void findPossibleMoves(char color) {
-		assert color == 'B' || color == 'W';
-
-		this.possibleMoves.clear();
-		for (int i = 0; i < playBoard.length; i++) {
-			for (int j = 0; j < playBoard[0].length; j++) {
-				if (playBoard[i][j] == color) {
-					findPossibleMovesAt(i, j, color);
-				}
-			}
+	public static Board unpack(int lines, int columns, ByteBuffer cells) {
+		if (cells == null) {
+			throw new IllegalArgumentException("Error! Buffer is missing.");
 		}
+		return new Board(cells, lines, columns);
 	}
 
 	/**
-	 * Searches for all possible moves from the point.
-	 * @param line line of the point
-	 * @param column column of the point
-	 * @param color color of the player
+	 * Replaces the cells of the board by cells packed by
+	 * {@link #pack(ByteBuffer)} from a board of the same size, so that one
+	 * board can be reused for many games. The cells are read from the buffer
+	 * at its position and no moves are left to take back.
+	 * @param cells buffer with the packed cells
 	 */
-	private void findPossibleMovesAt(int line, int column, char color) {
-		assert color == 'B' || color == 'W';
-		assert line >= 0 && line < playBoard.length;
-		assert column >= 0 && column < playBoard[0].length;
+	public void unpack(ByteBuffer cells) {
+		if (cells == null) {
+			throw new IllegalArgumentException("Error! Buffer is missing.");
+		} else if (cells.remaining() < packedSize(lines, columns)) {
+			throw new IllegalArgumentException("Error! Invalid board parameters.");
+		}
 
-		boolean move = false;
-		this.vectorMoveRoutine(line, column, color, move);
+		this.madeMoves = 0;
+		this.readCells(cells);
 	}
 
 	/**
-	 * Vector routine in which all eight vectors point from which to be tested.
-	 * @param line line of the point
-	 * @param column column of the point
-	 * @param color color of the player
-	 * @param move true if it is a move, false otherwise
+	 * Constructs a board from its notation: the lines from the top, separated
+	 * by commas, with one character per cell as {@link #getField()} prints
+	 * them. Commas at the end are ignored. The notation is checked in the
+	 * same pass which fills the cells, without a regular expression and
+	 * without a string per line.
+	 * @param notation the notation
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @return new board
 	 */
-	private void vectorMoveRoutine(int line, int column, char color, boolean move) {
-		assert color == 'B' || color == 'W';
-		assert line >= 0 && line < playBoard.length;
-		assert column >= 0 && column < playBoard[0].length;
-
-		this.vectorMove(line, column, color, -1, -1, move);
-		this.vectorMove(line, column, color, -1, 0, move);
-		this.vectorMove(line, column, color, -1, 1, move);
-		this.vectorMove(line, column, color, 0, 1, move);
-		this.vectorMove(line, column, color, 1, 1, move);
-		this.vectorMove(line, column, color, 1, 0, move);
-		this.vectorMove(line, column, color, 1, -1, move);
-		this.vectorMove(line, column, color, 0, -1, move);
+	public static Board parse(CharSequence notation, int lines, int columns) {
+		if (notation == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		}
+		return new Board(notation, lines, columns);
 	}
 
 	/**
-	 * Vector movement in all eight directions from a point of.
-	 * @param line line of the point
-	 * @param column column of the point
-	 * @param color color of the player
-	 * @param vectorL vertical vector
-	 * @param vectorC horizontal vector
-	 * @param move true if it is a move, false otherwise
+	 * Replaces the cells of the board by the cells of a notation of a board of
+	 * the same size, so that one board can be reused for many positions. No
+	 * moves are left to take back. If the notation is invalid, the cells are
+	 * undefined.
+	 * @param notation text with the notation
+	 * @param start index of the first character of the notation
+	 * @param end index after the last character of the notation
 	 */
-	private void vectorMove(int line, int column, char color, int vectorL, int vectorC, boolean move) {
-		assert line >= 0 && line < playBoard.length;
-		assert column >= 0 && column < playBoard[0].length;
-		assert color == 'B' || color == 'W';
-		assert vectorL == 1 || vectorL == 0 || vectorL == -1;
-		assert vectorC == 1 || vectorC == 0 || vectorC == -1;
-
-		int counter = 2;
-		if (line + vectorL * 2 < playBoard.length
-				&& column + vectorC * 2 < playBoard[0].length) {
-			if (line + vectorL * 2 >= 0 && column + vectorC * 2 >= 0) {
-				if (playBoard[line + vectorL][column + vectorC] == this.invertColor(color)) {
-					counter = this.incVector(line, column, color, vectorL, vectorC);
-					if (!move) {
-						if (playBoard[line + vectorL * counter][column + vectorC * counter] == '-') {
-							PossibleMove posMov = new PossibleMove(
-									this.getColumnName(column + vectorC	
-											* counter), line + vectorL
-											* counter + 1);
-							this.addMove(posMov);
-						}
-					} else if (playBoard[line + vectorL * counter][column + vectorC * counter] == color) {
-						playBoard[line + vectorL][column + vectorC] = color;
-						while (counter > 2) {
-							playBoard[line + vectorL * (counter - 1)][column + vectorC * (counter - 1)] = color;
-							counter--;
-						}
-					}
-				}
-			}
+	public void readNotation(CharSequence notation, int start, int end) {
+		if (notation == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		} else if (start < 0 || start > end || end > notation.length()) {
+			throw new IllegalArgumentException("Error! Invalid board parameters.");
 		}
+
+		int status = scanNotation(notation, start, end, lines, columns, this);
+		if (status == NOTATION_CHARACTER) {
+			throw new IllegalArgumentException("Error! Invalid board parameters.");
+		} else if (status == NOTATION_COLUMNS) {
+			throw new IllegalArgumentException(
+					"Error! Board columns not equal to columns.");
+		} else if (status == NOTATION_LINES) {
+			throw new IllegalArgumentException(
+					"Error! Board lines not equal to lines.");
+		}
+		this.madeMoves = 0;
+		this.resetMoves();
 	}
 
 	/**
-	 * Increments the vector to get the possible moves.
-	 * @param line line of the point
-	 * @param column column of the point
-	 * @param color color of the player
-	 * @param vectorL vertical vector
-	 * @param vectorC horizontal vector
-	 * @return counter with number of possible increments
+	 * Checks a notation of {@link #parse(CharSequence, int, int)} without a
+	 * board. A wrong character is found before a line of another length and
+	 * that before another number of lines.
+	 * @param notation the notation
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @return {@link #NOTATION_VALID} or the status of the first error
 	 */
-	private int incVector(int line, int column, char color, int vectorL, int vectorC) {
-		assert line >= 0 && line < playBoard.length;
-		assert column >= 0 && column < playBoard[0].length;
-		assert color == 'B' || color == 'W';
-		assert vectorL == 1 || vectorL == 0 || vectorL == -1;
-		assert vectorC == 1 || vectorC == 0 || vectorC == -1;
-
-		boolean stop = false;
-		int counter = 1;
-		while (!stop
-				&& playBoard[line + vectorL * counter][column + vectorC
-						* counter] == this.invertColor(color)) {
-			counter++;
-			if (line + vectorL * (counter + 1) >= playBoard.length
-					|| column + vectorC * (counter + 1) >= playBoard[0].length) {
-				stop = true;
-			} else if (line + vectorL * (counter + 1) < 0
-					|| column + vectorC * (counter + 1) < 0) {
-				stop = true;
-			}
-		}
-		return counter;
+	static int checkNotation(CharSequence notation, int lines, int columns) {
+		return scanNotation(notation, 0, notation.length(), lines, columns, null);
 	}
 
 	/**
-	 * Adds a move to the board.
-	 * @param posMov possible move of the current player
+	 * Returns the column length of a notation, the length of its first line.
+	 * @param notation the notation
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the column length
 	 */
-	private void addMove(PossibleMove posMov) {
-		assert posMov != null;
-
-		boolean uniqueMove = true;
-		for (PossibleMove p : possibleMoves) {
-			if (p.equals(posMov)) {
-				uniqueMove = false;
-			}
-		}
-		if (uniqueMove) {
-			possibleMoves.add(posMov);
+	static int notationColumns(CharSequence notation, int start, int end) {
+		int result = 0;
+		while (start + result < end && notation.charAt(start + result) != ',') {
+			result++;
 		}
+		return result;
+	}
+
+	/**
+	 * Returns the line length of a notation whose lines all have the length
+	 * of the first line.
+	 * @param notation the notation
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the line length
+	 */
+	static int notationLines(CharSequence notation, int start, int end) {
+		int last = end;
+		while (last > start && notation.charAt(last - 1) == ',') {
+			last--;
+		}
+		return (last - start + 1) / (notationColumns(notation, start, end) + 1);
+	}
+
+	/**
+	 * Returns the notation of the board, the lines of {@link #getField()}
+	 * separated by commas.
+	 * @return the notation
+	 */
+	public String toNotation() {
+		StringBuilder result = new StringBuilder(lines * (columns + 1));
+		for (int i = 0; i < lines * columns; i++) {
+			if (i > 0 && i % columns == 0) {
+				result.append(',');
+			}
+			result.append(this.cellAt(i));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the number of bytes of the packed cells of a board.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @return number of bytes
+	 */
+	public static int packedSize(int lines, int columns) {
+		return (lines * columns + 3) / 4;
+	}
+
+	/**
+	 * Count the stones of the specified color.
+	 * @param color color of the player
+	 * @return number of stones, with the color which are on the board
+	 */
+	public int countStones(char color) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		int counter = this.blackStones;
+		if (color == 'W') {
+			counter = this.whiteStones;
+		}
+		return counter;
+	}
+
+	/**
+	 * Count the empty cells.
+	 * @return number of cells without stone or hole
+	 */
+	public int countEmpty() {
+		return lines * columns - blackStones - whiteStones - holeCount;
+	}
+
+	/**
+	 * Count the holes.
+	 * @return number of holes on the board
+	 */
+	public int countHoles() {
+		return this.holeCount;
+	}
+
+	/**
+	 * Returns the stones of the color as one word. On a board with at most 64
+	 * cells the word holds all stones, so that a solver can work on the raw
+	 * bitboard without the board.
+	 * @param color color of the player
+	 * @return bitboard of the stones
+	 */
+	long stoneWord(char color) {
+		assert words == 1;
+		return this.stones(color)[0];
+	}
+
+	/**
+	 * Returns the holes as one word. On a board with at most 64 cells the word
+	 * holds all holes.
+	 * @return bitboard of the holes
+	 */
+	long holeWord() {
+		assert words == 1;
+		return this.holes[0];
+	}
+
+	/**
+	 * Returns the Zobrist hash of the position with the player to move. The
+	 * hash is kept up to date with each change of the board.
+	 * @param color color of the player to move
+	 * @return hash of the position
+	 */
+	public long getHash(char color) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		long result = hash;
+		if (color == 'W') {
+			result ^= WHITE_TO_MOVE;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of symmetries of the board: the identity, the
+	 * horizontal and the vertical mirror and both together, and on a square
+	 * board also the same four transposed.
+	 * @return 8 for a square board, 4 otherwise
+	 */
+	public int countSymmetries() {
+		int result = 4;
+		if (lines == columns) {
+			result = 8;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cell of the board a cell is moved to by a symmetry. Bit 0
+	 * of the symmetry mirrors the columns, bit 1 the lines and bit 2
+	 * transposes the board afterwards.
+	 * @param cell index of the cell
+	 * @param symmetry symmetry between 0 and {@link #countSymmetries()} - 1
+	 * @return index of the moved cell
+	 */
+	public int symmetricCell(int cell, int symmetry) {
+		if (cell < 0 || cell >= lines * columns) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		} else if (symmetry < 0 || symmetry >= this.countSymmetries()) {
+			throw new IllegalArgumentException("Error! Invalid symmetry.");
+		}
+
+		return this.moveCell(cell, symmetry);
+	}
+
+	/**
+	 * Returns the symmetry which takes back a symmetry.
+	 * @param symmetry symmetry between 0 and 7
+	 * @return the inverse symmetry
+	 */
+	public static int inverseSymmetry(int symmetry) {
+		if (symmetry < 0 || symmetry > 7) {
+			throw new IllegalArgumentException("Error! Invalid symmetry.");
+		}
+
+		int result = symmetry;
+		if (symmetry >= 4) {
+			result = 4 | ((symmetry & 1) << 1) | ((symmetry & 2) >>> 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the hash of the position after a symmetry, so that all
+	 * symmetric positions can share one key.
+	 * @param color color of the player to move
+	 * @param symmetry symmetry between 0 and {@link #countSymmetries()} - 1
+	 * @return hash of the moved position
+	 */
+	public long getHash(char color, int symmetry) {
+		if (symmetry < 0 || symmetry >= this.countSymmetries()) {
+			throw new IllegalArgumentException("Error! Invalid symmetry.");
+		}
+
+		long result = this.getHash(color);
+		if (symmetry != 0) {
+			result ^= hash ^ LINE_KEYS[lines] ^ COLUMN_KEYS[columns];
+			result ^= this.symmetricKeys(black, BLACK_KEYS, symmetry);
+			result ^= this.symmetricKeys(white, WHITE_KEYS, symmetry);
+			result ^= this.symmetricKeys(holes, HOLE_KEYS, symmetry);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the line length of the board.
+	 * @return the line length of the board
+	 */
+	public int getLines() {
+		return this.lines;
+	}
+
+	/**
+	 * Returns the column length of the board.
+	 * @return the column length of the board
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Writes the cells of all possible moves of the player in ascending order
+	 * to the array. Nothing is allocated, so this is meant for searches which
+	 * make and take back moves.
+	 * @param color color of the player
+	 * @param cells array for the cells, at least as long as the board
+	 * @return number of possible moves
+	 */
+	public int listMoves(char color, int[] cells) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		long[] moves = this.currentMoves(color);
+		int counter = 0;
+		for (int i = 0; i < words; i++) {
+			long bits = moves[i];
+			while (bits != 0L) {
+				cells[counter] = (i << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				counter++;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Check whether the player has a possible move. Unlike
+	 * {@link #countMoves(char)} the possible moves of both colors are kept,
+	 * so that the next move of either color is checked without a search.
+	 * @param color color of the player
+	 * @return {@code true} if the player can move, {@code false} otherwise
+	 */
+	public boolean hasMoves(char color) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		long[] moves = this.possibleMoves(color);
+		boolean result = false;
+		for (int i = 0; i < words && !result; i++) {
+			result = moves[i] != 0L;
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the possible moves of the player.
+	 * @param color color of the player
+	 * @return number of possible moves
+	 */
+	public int countMoves(char color) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		long[] moves = this.currentMoves(color);
+		int counter = 0;
+		for (int i = 0; i < words; i++) {
+			counter += Long.bitCount(moves[i]);
+		}
+		return counter;
+	}
+
+	/**
+	 * Sums up the weights of the cells with a stone of the player.
+	 * @param color color of the player
+	 * @param weights weight of each cell
+	 * @return sum of the weights
+	 */
+	public int weightStones(char color, int[] weights) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		long[] stones = this.stones(color);
+		int sum = 0;
+		for (int i = 0; i < words; i++) {
+			long bits = stones[i];
+			while (bits != 0L) {
+				sum += weights[(i << 6) + Long.numberOfTrailingZeros(bits)];
+				bits &= bits - 1;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Finds the possible moves of both colors from scratch, after the cells
+	 * were set, and drops the rays if the holes have changed. The rays are
+	 * computed again by the first move, so that setting many holes one by one
+	 * computes them once.
+	 */
+	private void resetMoves() {
+		if (rays != null && !Arrays.equals(holes, rayHoles)) {
+			this.rays = null;
+		}
+		this.findPossibleMoves('B', blackMoves);
+		this.findPossibleMoves('W', whiteMoves);
+		this.movesValidAt = madeMoves;
+	}
+
+	/**
+	 * Computes the ray of each cell in each direction: the number of cells up
+	 * to the edge or the first hole. The ray of a cell is one cell longer than
+	 * the ray of its neighbor in the direction, so the cells are visited with
+	 * the neighbor first. The rays are built into new arrays, so that copies
+	 * of the board can share them.
+	 */
+	private void computeRays() {
+		byte[] result = new byte[lines * columns * 8];
+		for (int direction = 0; direction < 8; direction++) {
+			int step = directionShift[direction];
+			for (int k = 0; k < lines * columns; k++) {
+				int cell = k;
+				if (step > 0) {
+					cell = lines * columns - 1 - k;
+				}
+				int line = cell / columns + DIRECTION_LINE[direction];
+				int column = cell % columns + DIRECTION_COLUMN[direction];
+				if (line >= 0 && line < lines && column >= 0 && column < columns
+						&& !isSet(holes, cell + step)) {
+					result[(cell << 3) + direction] = (byte) (result[((cell + step) << 3) + direction] + 1);
+				}
+			}
+		}
+		this.rays = result;
+		this.rayHoles = holes.clone();
+	}
+
+	/**
+	 * Searches for all possible moves and stores them in the possible moves
+	 * bitboard. For each direction the own stones are shifted over runs of
+	 * opponent stones until they reach an empty cell.
+	 * @param color color of the player
+	 * @param moves bitboard for the possible moves
+	 */
+	private void findPossibleMoves(char color, long[] moves) {
+		assert color == 'B' || color == 'W';
+
+		long[] own = this.stones(color);
+		long[] opponent = this.stones(this.invertColor(color));
+		for (int i = 0; i < words; i++) {
+			moves[i] = 0L;
+		}
+
+		for (int direction = 0; direction < 8; direction++) {
+			boolean running = this.shift(own, direction, frontier);
+			if (running) {
+				running = false;
+				for (int i = 0; i < words; i++) {
+					frontier[i] &= opponent[i];
+					running |= frontier[i] != 0L;
+				}
+			}
+			while (running) {
+				this.shift(frontier, direction, shifted);
+				running = false;
+				for (int i = 0; i < words; i++) {
+					moves[i] |= shifted[i] & ~(black[i] | white[i] | holes[i]);
+					frontier[i] = shifted[i] & opponent[i];
+					running |= frontier[i] != 0L;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the possible moves of both players after a stone was placed and
+	 * the stones of the flips scratch were flipped. Only the empty cells at the
+	 * end of a stone run through one of the changed stones can change, so just
+	 * these cells are checked again.
+	 * @param index index of the placed stone
+	 */
+	private void updatePossibleMoves(int index) {
+		assert index >= 0 && index < lines * columns;
+
+		blackMoves[index >>> 6] &= ~(1L << index);
+		whiteMoves[index >>> 6] &= ~(1L << index);
+		for (int i = 0; i < words; i++) {
+			dirty[i] = 0L;
+		}
+
+		this.markDirty(index);
+		for (int direction = 0; direction < 8; direction++) {
+			int flipped = index;
+			for (int k = 1; k <= flips[direction]; k++) {
+				flipped += directionShift[direction];
+				this.markDirty(flipped);
+			}
+		}
+
+		for (int i = 0; i < words; i++) {
+			long bits = dirty[i];
+			while (bits != 0L) {
+				int cell = (i << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				long bit = 1L << cell;
+				if (this.canFlip(cell, black, white)) {
+					blackMoves[i] |= bit;
+				} else {
+					blackMoves[i] &= ~bit;
+				}
+				if (this.canFlip(cell, white, black)) {
+					whiteMoves[i] |= bit;
+				} else {
+					whiteMoves[i] &= ~bit;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Marks the empty cells at the end of the stone runs through a changed
+	 * stone in the dirty scratch. The runs follow the rays, so they end at
+	 * the edge or a hole without a check.
+	 * @param cell index of the changed stone
+	 */
+	private void markDirty(int cell) {
+		assert cell >= 0 && cell < lines * columns;
+
+		for (int direction = 0; direction < 8; direction++) {
+			int length = rays[(cell << 3) + direction];
+			int step = directionShift[direction];
+			int index = cell + step;
+			int k = 0;
+			while (k < length && (isSet(black, index) || isSet(white, index))) {
+				index += step;
+				k++;
+			}
+			if (k < length) {
+				dirty[index >>> 6] |= 1L << index;
+			}
+		}
+	}
+
+	/**
+	 * Check whether a stone placed on the empty cell would flip stones. Rays
+	 * of less than two cells can flip nothing and are skipped.
+	 * @param cell index of the cell
+	 * @param own bitboard of the player
+	 * @param opponent bitboard of the opponent
+	 * @return {@code true} if at least one stone would flip, {@code false} otherwise
+	 */
+	private boolean canFlip(int cell, long[] own, long[] opponent) {
+		boolean result = false;
+		for (int direction = 0; direction < 8 && !result; direction++) {
+			result = rays[(cell << 3) + direction] > 1
+					&& this.countFlips(cell, own, opponent, direction) > 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Shifts all stones of a bitboard one step into the direction. Stones
+	 * which leave the board are dropped.
+	 * @param source bitboard to shift
+	 * @param direction index of the direction
+	 * @param target bitboard for the shifted stones
+	 * @return {@code true} if a stone is left after the shift, {@code false} otherwise
+	 */
+	private boolean shift(long[] source, int direction, long[] target) {
+		assert direction >= 0 && direction < 8;
+
+		int shift = directionShift[direction];
+		long[] mask = cells;
+		if (DIRECTION_COLUMN[direction] == 1) {
+			mask = notFirstColumn;
+		} else if (DIRECTION_COLUMN[direction] == -1) {
+			mask = notLastColumn;
+		}
+
+		boolean result = false;
+		if (shift > 0) {
+			for (int i = words - 1; i > 0; i--) {
+				target[i] = ((source[i] << shift) | (source[i - 1] >>> (64 - shift))) & mask[i];
+				result |= target[i] != 0L;
+			}
+			target[0] = (source[0] << shift) & mask[0];
+		} else {
+			shift = -shift;
+			for (int i = 0; i < words - 1; i++) {
+				target[i] = ((source[i] >>> shift) | (source[i + 1] << (64 - shift))) & mask[i];
+				result |= target[i] != 0L;
+			}
+			target[words - 1] = (source[words - 1] >>> shift) & mask[words - 1];
+		}
+		return result || target[0] != 0L || target[words - 1] != 0L;
+	}
+
+	/**
+	 * Counts the opponent stones in one direction which are enclosed by the
+	 * cell and another stone of the player. The stones are searched along the
+	 * ray of the cell, so the edge and the holes need no check.
+	 * @param cell index of the cell
+	 * @param own bitboard of the player
+	 * @param opponent bitboard of the opponent
+	 * @param direction index of the direction
+	 * @return number of enclosed stones, 0 if there are none
+	 */
+	private int countFlips(int cell, long[] own, long[] opponent, int direction) {
+		assert cell >= 0 && cell < lines * columns;
+		assert direction >= 0 && direction < 8;
+
+		int length = rays[(cell << 3) + direction];
+		int step = directionShift[direction];
+		int counter = 0;
+		int index = cell + step;
+
+		while (counter < length && isSet(opponent, index)) {
+			index += step;
+			counter++;
+		}
+		if (counter == length || !isSet(own, index)) {
+			counter = 0;
+		}
+		return counter;
+	}
+
+	/**
+	 * Flips the opponent stones in one direction if they are enclosed by the
+	 * placed stone and another stone of the player.
+	 * @param cell index of the placed stone
+	 * @param color color of the player
+	 * @param direction index of the direction
+	 * @return number of flipped stones
+	 */
+	private int flipStones(int cell, char color, int direction) {
+		assert color == 'B' || color == 'W';
+
+		long[] own = this.stones(color);
+		long[] opponent = this.stones(this.invertColor(color));
+		int counter = this.countFlips(cell, own, opponent, direction);
+		int index = cell;
+		for (int k = 0; k < counter; k++) {
+			index += directionShift[direction];
+			own[index >>> 6] |= 1L << index;
+			opponent[index >>> 6] &= ~(1L << index);
+			hash ^= BLACK_KEYS[index] ^ WHITE_KEYS[index];
+		}
+		this.addStones(color, counter);
+		this.addStones(this.invertColor(color), -counter);
+		return counter;
+	}
+
+	/**
+	 * Adds to the number of stones of the player.
+	 * @param color color of the player
+	 * @param count number of added stones, negative for removed stones
+	 */
+	private void addStones(char color, int count) {
+		assert color == 'B' || color == 'W';
+		if (color == 'B') {
+			blackStones += count;
+		} else {
+			whiteStones += count;
+		}
+	}
+
+	/**
+	 * Sets a cell of the board.
+	 * @param index index of the cell
+	 * @param value stone color, hole or empty
+	 */
+	private void setCell(int index, char value) {
+		long bit = 1L << index;
+		int word = index >>> 6;
+		char old = this.cellAt(index);
+		if (old == 'B') {
+			hash ^= BLACK_KEYS[index];
+			blackStones--;
+		} else if (old == 'W') {
+			hash ^= WHITE_KEYS[index];
+			whiteStones--;
+		} else if (old == '#') {
+			hash ^= HOLE_KEYS[index];
+			holeCount--;
+		}
+
+		black[word] &= ~bit;
+		white[word] &= ~bit;
+		holes[word] &= ~bit;
+		if (value == 'B') {
+			black[word] |= bit;
+			hash ^= BLACK_KEYS[index];
+			blackStones++;
+		} else if (value == 'W') {
+			white[word] |= bit;
+			hash ^= WHITE_KEYS[index];
+			whiteStones++;
+		} else if (value == '#') {
+			holes[word] |= bit;
+			hash ^= HOLE_KEYS[index];
+			holeCount++;
+		}
+	}
+
+	/**
+	 * Scans a notation in one pass. Empty lines between other lines have
+	 * another column length, empty lines at the end are ignored.
+	 * @param notation the notation
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param target board whose cells are filled, null to only check
+	 * @return {@link #NOTATION_VALID} or the status of the first error
+	 */
+	private static int scanNotation(CharSequence notation, int start, int end, int lines,
+			int columns, Board target) {
+		boolean wrongColumns = false;
+		boolean wrongCharacter = false;
+		int line = 0;
+		int column = 0;
+		int emptyLines = 0;
+		for (int i = start; i <= end && !wrongCharacter; i++) {
+			char c = ',';
+			if (i < end) {
+				c = notation.charAt(i);
+			}
+			if (c == ',') {
+				if (column == 0) {
+					emptyLines++;
+				} else {
+					if (emptyLines > 0 || column != columns) {
+						wrongColumns = true;
+					}
+					line += emptyLines + 1;
+					emptyLines = 0;
+					column = 0;
+				}
+			} else if (c == 'B' || c == 'W' || c == '#' || c == '-') {
+				if (target != null && line + emptyLines < lines && column < columns) {
+					target.setCell(target.index(line + emptyLines, column), c);
+				}
+				column++;
+			} else {
+				wrongCharacter = true;
+			}
+		}
+
+		int result = NOTATION_VALID;
+		if (wrongCharacter) {
+			result = NOTATION_CHARACTER;
+		} else if (wrongColumns) {
+			result = NOTATION_COLUMNS;
+		} else if (line != lines) {
+			result = NOTATION_LINES;
+		}
+		return result;
+	}
+
+	/**
+	 * Check whether a line of a board has only cells and commas.
+	 * @param line line of the board
+	 * @return {@code true} if it has only cells and commas, {@code false}
+	 *         otherwise
+	 */
+	private static boolean isBoardString(String line) {
+		boolean result = !line.isEmpty();
+		for (int i = 0; i < line.length() && result; i++) {
+			char c = line.charAt(i);
+			result = c == 'B' || c == 'W' || c == '#' || c == '-' || c == ',';
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the content of a cell of the board.
+	 * @param index index of the cell
+	 * @return stone color, hole or empty
+	 */
+	private char cellAt(int index) {
+		char result = '-';
+		if (isSet(black, index)) {
+			result = 'B';
+		} else if (isSet(white, index)) {
+			result = 'W';
+		} else if (isSet(holes, index)) {
+			result = '#';
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bitboard of the stones of the color.
+	 * @param color color of the player
+	 * @return bitboard of the stones
+	 */
+	private long[] stones(char color) {
+		assert color == 'B' || color == 'W';
+		long[] result = white;
+		if (color == 'B') {
+			result = black;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the hash keys of the stones of the color.
+	 * @param color color of the player
+	 * @return hash keys of the stones
+	 */
+	private static long[] stoneKeys(char color) {
+		assert color == 'B' || color == 'W';
+		long[] result = WHITE_KEYS;
+		if (color == 'B') {
+			result = BLACK_KEYS;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bitboard of the possible moves of the color. The moves are
+	 * searched again if they are outdated by made or taken back moves.
+	 * @param color color of the player
+	 * @return bitboard of the possible moves
+	 */
+	private long[] possibleMoves(char color) {
+		assert color == 'B' || color == 'W';
+		if (movesValidAt != madeMoves) {
+			this.findPossibleMoves('B', blackMoves);
+			this.findPossibleMoves('W', whiteMoves);
+			movesValidAt = madeMoves;
+		}
+		long[] result = whiteMoves;
+		if (color == 'B') {
+			result = blackMoves;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bitboard of the possible moves of the color. Unlike
+	 * {@link #possibleMoves(char)} outdated moves are searched into a scratch
+	 * bitboard for this color only and are not kept.
+	 * @param color color of the player
+	 * @return bitboard of the possible moves
+	 */
+	private long[] currentMoves(char color) {
+		assert color == 'B' || color == 'W';
+		long[] result = found;
+		if (movesValidAt == madeMoves) {
+			result = this.possibleMoves(color);
+		} else {
+			this.findPossibleMoves(color, found);
+		}
+		return result;
+	}
+
+	/**
+	 * Moves a cell by a symmetry.
+	 * @param cell index of the cell
+	 * @param symmetry symmetry of {@link #symmetricCell(int, int)}
+	 * @return index of the moved cell
+	 */
+	private int moveCell(int cell, int symmetry) {
+		int line = cell / columns;
+		int column = cell - line * columns;
+		if ((symmetry & 1) != 0) {
+			column = columns - 1 - column;
+		}
+		if ((symmetry & 2) != 0) {
+			line = lines - 1 - line;
+		}
+		int result = this.index(line, column);
+		if ((symmetry & 4) != 0) {
+			result = this.index(column, line);
+		}
+		return result;
+	}
+
+	/**
+	 * Combines the hash keys of the cells of a bitboard after a symmetry.
+	 * @param bitboard bitboard of the cells
+	 * @param keys hash keys of the cells
+	 * @param symmetry symmetry of {@link #symmetricCell(int, int)}
+	 * @return combined hash keys
+	 */
+	private long symmetricKeys(long[] bitboard, long[] keys, int symmetry) {
+		long result = 0L;
+		for (int i = 0; i < words; i++) {
+			long bits = bitboard[i];
+			while (bits != 0L) {
+				result ^= keys[this.moveCell((i << 6) + Long.numberOfTrailingZeros(bits), symmetry)];
+				bits &= bits - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of a cell in the bitboards.
+	 * @param line line of the cell, starting with 0
+	 * @param column column of the cell, starting with 0
+	 * @return index of the cell
+	 */
+	private int index(int line, int column) {
+		return line * columns + column;
+	}
+
+	/**
+	 * Check whether a bit of the bitboard is set.
+	 * @param bitboard bitboard to check
+	 * @param index index of the cell
+	 * @return {@code true} if the bit is set, {@code false} otherwise
+	 */
+	private static boolean isSet(long[] bitboard, int index) {
+		return (bitboard[index >>> 6] & (1L << index)) != 0L;
 	}
 
 	/**
@@ -423,33 +1757,41 @@ public class Board {
 	}
 
 	/**
-	 * Gets the column identifiers from the column
-	 * @param column on the board
-	 * @return column identifiers
+	 * Initializes the masks of the board cells and the shifts of the
+	 * directions.
 	 */
-	private char getColumnName(int column) {
-		char result = '0';
-		if (column >= 0 && column <= playBoard[0].length) {
-			result = (char) (column + 65);
+	private void initMasks() {
+		for (int i = 0; i < lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				int index = this.index(i, j);
+				long bit = 1L << index;
+				cells[index >>> 6] |= bit;
+				if (j != 0) {
+					notFirstColumn[index >>> 6] |= bit;
+				}
+				if (j != columns - 1) {
+					notLastColumn[index >>> 6] |= bit;
+				}
+			}
+		}
+
+		this.directionShift = new int[8];
+		for (int direction = 0; direction < 8; direction++) {
+			directionShift[direction] = DIRECTION_LINE[direction] * columns
+					+ DIRECTION_COLUMN[direction];
 		}
-		return result;
 	}
 
 	/**
 	 * Initializes the board if there are no optional settings available.
 	 */
 	private void init() {
-		int linePos = this.playBoard.length / 2;
-		int columnPos = this.playBoard[0].length / 2;
-		for (int i = 0; i < playBoard.length; i++) {
-			for (int j = 0; j < playBoard[0].length; j++) {
-				playBoard[i][j] = '-';
-			}
-		}
-		playBoard[linePos - 1][columnPos - 1] = 'W';
-		playBoard[linePos - 1][columnPos] = 'B';
-		playBoard[linePos][columnPos] = 'W';
-		playBoard[linePos][columnPos - 1] = 'B';
+		int linePos = lines / 2;
+		int columnPos = columns / 2;
+		this.setCell(this.index(linePos - 1, columnPos - 1), 'W');
+		this.setCell(this.index(linePos - 1, columnPos), 'B');
+		this.setCell(this.index(linePos, columnPos), 'W');
+		this.setCell(this.index(linePos, columnPos - 1), 'B');
 	}
 
 }
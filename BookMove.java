@@ -0,0 +1,82 @@
+/**
+ * This class represents a move of the opening book with the statistics of
+ * the games in which it was played.
+ * @author Florian Mueller
+ */
+public class BookMove {
+
+	/** the move */
+	private PossibleMove move;
+
+	/** number of games with the move */
+	private int count;
+
+	/** points of the player with the move, 2 for a win and 1 for a draw */
+	private int points;
+
+	/** sum of the stone differences at the end of the games for the player */
+	private long discs;
+
+	/**
+	 * Constructs a new book move.
+	 * @param move the move
+	 * @param count number of games with the move
+	 * @param points points of the player, 2 for a win and 1 for a draw
+	 * @param discs sum of the stone differences at the end of the games
+	 */
+	public BookMove(PossibleMove move, int count, int points, long discs) {
+		if (move == null) {
+			throw new IllegalArgumentException("Error! Move is missing.");
+		} else if (count < 1) {
+			throw new IllegalArgumentException("Error! Invalid number of games.");
+		}
+
+		this.move = move;
+		this.count = count;
+		this.points = points;
+		this.discs = discs;
+	}
+
+	/**
+	 * Returns the move.
+	 * @return the move
+	 */
+	public PossibleMove getMove() {
+		return this.move;
+	}
+
+	/**
+	 * Returns the number of games with the move.
+	 * @return the number of games
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the share of the won games, a draw counts half.
+	 * @return win rate between 0 and 1
+	 */
+	public double getWinRate() {
+		return this.points / (2.0 * this.count);
+	}
+
+	/**
+	 * Returns the average stone difference at the end of the games.
+	 * @return average score for the player
+	 */
+	public double getScore() {
+		return (double) this.discs / this.count;
+	}
+
+	/**
+	 * Returns the move with its statistics.
+	 * @return the move with its statistics
+	 */
+	public String toString() {
+		return move.toString() + " (" + Integer.toString(count) + " games, win "
+				+ String.format("%.1f", 100 * this.getWinRate()) + "%, score "
+				+ String.format("%+.1f", this.getScore()) + ")";
+	}
+
+}
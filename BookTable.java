@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class collects the entries of an opening book while it is built. The
+ * entries are kept in an open addressed hash table of primitive arrays, so
+ * that millions of games add no object per entry, and are written sorted by
+ * key.
+ * @author Florian Mueller
+ */
+class BookTable {
+
+	/** keys of the entries */
+	private long[] keys;
+
+	/** number of games of the entries, 0 for a free slot */
+	private int[] counts;
+
+	/** points of the entries */
+	private int[] points;
+
+	/** sums of the stone differences of the entries */
+	private long[] discs;
+
+	/** number of entries */
+	private int size;
+
+	/**
+	 * Constructs a new empty table.
+	 */
+	BookTable() {
+		this.allocate(1 << 16);
+	}
+
+	/**
+	 * Adds a game to an entry.
+	 * @param key key of the entry
+	 * @param points points of the game, 2 for a win and 1 for a draw
+	 * @param discs stone difference at the end of the game
+	 */
+	void add(long key, int points, int discs) {
+		if (2 * (size + 1) > keys.length) {
+			this.grow();
+		}
+
+		int slot = this.find(key);
+		if (counts[slot] == 0) {
+			keys[slot] = key;
+			size++;
+		}
+		counts[slot]++;
+		this.points[slot] += points;
+		this.discs[slot] += discs;
+	}
+
+	/**
+	 * Writes the entries with enough games sorted by key.
+	 * @param file file of the book
+	 * @param minCount minimum number of games of an entry
+	 * @return number of written entries
+	 * @throws IOException if the file cannot be written
+	 */
+	int write(Path file, int minCount) throws IOException {
+		long[] sorted = new long[size];
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (counts[i] >= minCount) {
+				sorted[count] = keys[i];
+				count++;
+			}
+		}
+		Arrays.sort(sorted, 0, count);
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+			buffer.put(OpeningBook.MAGIC[0]).put(OpeningBook.MAGIC[1]);
+			buffer.put(OpeningBook.VERSION).put((byte) 0);
+			for (int i = 0; i < count; i++) {
+				if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+					write(channel, buffer);
+				}
+				int slot = this.find(sorted[i]);
+				buffer.putLong(keys[slot]).putInt(counts[slot]).putInt(points[slot]);
+				buffer.putLong(discs[slot]);
+			}
+			write(channel, buffer);
+		} finally {
+			channel.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the slot of a key or the free slot where it belongs.
+	 * @param key key of the entry
+	 * @return index of the slot
+	 */
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) (key ^ (key >>> 32)) * 0x9E3779B9 & mask;
+		while (counts[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Doubles the capacity of the table.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		int[] oldPoints = points;
+		long[] oldDiscs = discs;
+		this.allocate(2 * oldKeys.length);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldCounts[i] != 0) {
+				int slot = this.find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+				points[slot] = oldPoints[i];
+				discs[slot] = oldDiscs[i];
+			}
+		}
+	}
+
+	/**
+	 * Allocates an empty table.
+	 * @param capacity number of slots, a power of two
+	 */
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.counts = new int[capacity];
+		this.points = new int[capacity];
+		this.discs = new long[capacity];
+	}
+
+	/**
+	 * Writes the buffer to the channel.
+	 * @param channel channel of the file
+	 * @param buffer buffer to write
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
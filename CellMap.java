@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * This class maps cells of a board to small values. The cells and values are
+ * stored in two primitive arrays with open addressing and linear probing, so
+ * no object is created per cell and the memory follows the number of mapped
+ * cells and not the size of the board. The value 0 stands for a cell which
+ * is not mapped. The slots can be walked with {@link #capacity()},
+ * {@link #cellAt(int)} and {@link #valueAt(int)}; changing the value of a
+ * mapped cell keeps its slot, so this can be done while walking.
+ * @author Florian Mueller
+ */
+public class CellMap {
+
+	/** initial number of slots */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** multiplier which spreads the cells over the slots */
+	private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+	/** cells of the slots */
+	private long[] cells;
+
+	/** values of the slots, 0 for a free slot */
+	private byte[] values;
+
+	/** number of mapped cells */
+	private int size;
+
+	/** bit shift from a spread cell to its slot */
+	private int shift;
+
+	/**
+	 * Constructs a new empty map.
+	 */
+	public CellMap() {
+		this.allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the value of a cell.
+	 * @param cell the cell
+	 * @return value of the cell, 0 if it is not mapped
+	 */
+	public byte get(long cell) {
+		int mask = values.length - 1;
+		int slot = this.slot(cell);
+		while (values[slot] != 0 && cells[slot] != cell) {
+			slot = (slot + 1) & mask;
+		}
+		return values[slot];
+	}
+
+	/**
+	 * Maps a cell to a value.
+	 * @param cell the cell
+	 * @param value the value, not 0
+	 */
+	public void put(long cell, byte value) {
+		if (value == 0) {
+			throw new IllegalArgumentException("Error! Invalid value.");
+		}
+
+		if (2 * (size + 1) > values.length) {
+			this.grow();
+		}
+		int mask = values.length - 1;
+		int slot = this.slot(cell);
+		while (values[slot] != 0 && cells[slot] != cell) {
+			slot = (slot + 1) & mask;
+		}
+		if (values[slot] == 0) {
+			size++;
+		}
+		cells[slot] = cell;
+		values[slot] = value;
+	}
+
+	/**
+	 * Removes a cell. The following cells of its run are moved back, so that
+	 * no slot is marked as removed.
+	 * @param cell the cell
+	 * @return former value of the cell, 0 if it was not mapped
+	 */
+	public byte remove(long cell) {
+		int mask = values.length - 1;
+		int slot = this.slot(cell);
+		while (values[slot] != 0 && cells[slot] != cell) {
+			slot = (slot + 1) & mask;
+		}
+		byte result = values[slot];
+		if (result != 0) {
+			int free = slot;
+			int next = (slot + 1) & mask;
+			while (values[next] != 0) {
+				int home = this.slot(cells[next]);
+				if (((next - home) & mask) >= ((next - free) & mask)) {
+					cells[free] = cells[next];
+					values[free] = values[next];
+					free = next;
+				}
+				next = (next + 1) & mask;
+			}
+			values[free] = 0;
+			size--;
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all cells. The slots are kept.
+	 */
+	public void clear() {
+		Arrays.fill(values, (byte) 0);
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the number of mapped cells.
+	 * @return the number of mapped cells
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of slots.
+	 * @return the number of slots
+	 */
+	public int capacity() {
+		return this.values.length;
+	}
+
+	/**
+	 * Returns the cell of a slot.
+	 * @param slot index of the slot
+	 * @return the cell, undefined for a free slot
+	 */
+	public long cellAt(int slot) {
+		return this.cells[slot];
+	}
+
+	/**
+	 * Returns the value of a slot.
+	 * @param slot index of the slot
+	 * @return the value, 0 for a free slot
+	 */
+	public byte valueAt(int slot) {
+		return this.values[slot];
+	}
+
+	/**
+	 * Returns the home slot of a cell.
+	 * @param cell the cell
+	 * @return index of the slot
+	 */
+	private int slot(long cell) {
+		return (int) ((cell * SPREAD) >>> shift);
+	}
+
+	/**
+	 * Doubles the slots and maps all cells again.
+	 */
+	private void grow() {
+		long[] oldCells = this.cells;
+		byte[] oldValues = this.values;
+		this.allocate(oldValues.length * 2);
+		int mask = values.length - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = this.slot(oldCells[i]);
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				cells[slot] = oldCells[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Allocates empty slots.
+	 * @param capacity number of slots, a power of two
+	 */
+	private void allocate(int capacity) {
+		this.cells = new long[capacity];
+		this.values = new byte[capacity];
+		this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+	}
+
+}
@@ -0,0 +1,1143 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class solves the end of a game exactly. It is a negamax alpha-beta
+ * search to the end of the game, so the score is the exact stone difference
+ * of the final position. The score is narrowed down from a guess by searches
+ * with a null window (MTD(f)), which share the transposition table. The moves
+ * whose position is already refuted in the table come first (enhanced
+ * transposition cutoff), the other moves are ordered fastest first: the move
+ * which leaves the opponent the fewest possible moves comes first, on a
+ * small board those into a cell which can never be flipped counting twice.
+ * The empty cells are split into regions of connected cells, which holes
+ * make more frequent, and moves into a region with an odd number of empty
+ * cells come first (parity), as the player who moves last in a region
+ * mostly gains there. With at most six empty cells the moves are tried
+ * straight from a list of the empty cells by parity alone, packed into one
+ * number on a small board, without a move generation. A board with at most
+ * 64 cells is solved on two words, the stones of the player and of the
+ * opponent, whose moves and flips are found by shifts, so that the board is
+ * not changed at all. There a position is not searched if the stable stones
+ * of the opponent, which it keeps to the end, already bound the score below
+ * the window (stability cutoff).
+ * @author Florian Mueller
+ */
+public class EndgameSolver {
+
+	/** maximum number of empty cells of a position to solve */
+	public static final int MAX_EMPTIES = 64;
+
+	/** number of empty cells up to which the moves are tried from the list of empty cells */
+	private static final int SHALLOW_EMPTIES = 6;
+
+	/** number of empty cells from which the transposition table is used */
+	private static final int TABLE_EMPTIES = 6;
+
+	/** number of nodes between two checks of the time */
+	private static final int CHECK_INTERVAL = 4096;
+
+	/** order score of a move for each possible move of the opponent */
+	private static final int MOBILITY_WEIGHT = 1024;
+
+	/** order score of a move into a region with an odd number of empty cells */
+	private static final int PARITY_WEIGHT = 256;
+
+	/** score above all stone differences */
+	private static final int INFINITY = 100000;
+
+	/** maximum number of cells of a board which is solved on words */
+	private static final int WORD_CELLS = 64;
+
+	/** number of empty cells from which the moves into cut off positions of the table are tried first */
+	private static final int ETC_EMPTIES = 10;
+
+	/** metric of the solved positions */
+	private static final Metric SOLVE_METRIC = Metrics.get("solver.solve", true);
+
+	/** transposition table of the solver */
+	private TranspositionTable table;
+
+	/** board to solve */
+	private Board board;
+
+	/** next empty cell of each cell in the list, the number of cells ends the list */
+	private int[] next;
+
+	/** previous empty cell of each cell in the list */
+	private int[] previous;
+
+	/** region of each empty cell */
+	private int[] region;
+
+	/** number of empty cells of each region */
+	private int[] regionEmpties;
+
+	/** possible moves of each ply */
+	private int[][] moves;
+
+	/** order scores of the possible moves of each ply */
+	private int[][] orders;
+
+	/** weights of the cells for the move order */
+	private int[] weights;
+
+	/** flag whether the board is solved on words */
+	private boolean word;
+
+	/** cells of the board without the holes as word */
+	private long free;
+
+	/** bit shift of the four directions which shift to higher cells */
+	private int[] shifts;
+
+	/** cells which the four directions reach when shifted to higher cells */
+	private long[] forward;
+
+	/** cells which the four directions reach when shifted to lower cells */
+	private long[] backward;
+
+	/** cells of the rays to higher cells up to the edge or a hole, four per cell */
+	private long[] upRays;
+
+	/** cells of the rays to lower cells up to the edge or a hole, four per cell */
+	private long[] downRays;
+
+	/** cells whose next cell to higher cells is the edge or a hole, for the four directions */
+	private long[] upWalls;
+
+	/** cells whose next cell to lower cells is the edge or a hole, for the four directions */
+	private long[] downWalls;
+
+	/** number of cells of the board without the holes */
+	private int playable;
+
+	/** cells which are closed by the edge or a hole on all four lines through them */
+	private long corners;
+
+	/** buffer for the cells of the full lines of the four directions */
+	private long[] full;
+
+	/** number of empty cells */
+	private int empties;
+
+	/** number of solved nodes */
+	private long nodes;
+
+	/** time in nanoseconds to stop the solver */
+	private long deadline;
+
+	/** flag if the solver has been stopped */
+	private boolean stopped;
+
+	/** signal of the owner to stop the solver, null if there is none */
+	private AtomicBoolean stopSignal;
+
+	/** best move of the root */
+	private int rootMove;
+
+	/**
+	 * Constructs a new solver with its own transposition table.
+	 */
+	public EndgameSolver() {
+		this(new TranspositionTable(16));
+	}
+
+	/**
+	 * Constructs a new solver with the transposition table.
+	 * @param table transposition table of the solver
+	 */
+	public EndgameSolver(TranspositionTable table) {
+		if (table == null) {
+			throw new IllegalArgumentException(
+					"Error! Transposition table is missing.");
+		}
+
+		this.table = table;
+		this.moves = new int[0][0];
+		this.orders = new int[0][0];
+		this.shifts = new int[4];
+		this.forward = new long[4];
+		this.backward = new long[4];
+		this.upWalls = new long[4];
+		this.downWalls = new long[4];
+		this.full = new long[4];
+	}
+
+	/**
+	 * Sets the signal of the owner which stops the solver, for example when
+	 * the client of the game disconnects.
+	 * @param stopSignal signal to stop the solver, null for none
+	 */
+	void setStopSignal(AtomicBoolean stopSignal) {
+		this.stopSignal = stopSignal;
+	}
+
+	/**
+	 * Solves the position exactly. The board is changed during the solving,
+	 * but is the same again afterwards.
+	 * @param board board to solve
+	 * @param color color of the player to move
+	 * @param milliseconds time budget
+	 * @return result with the best move and the final stone difference for
+	 *         the player, null if the position is not solved within the time
+	 */
+	public SearchResult solve(Board board, char color, long milliseconds) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		} else if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		} else if (milliseconds < 1) {
+			throw new IllegalArgumentException("Error! Invalid search budget.");
+		} else if (board.countEmpty() > MAX_EMPTIES) {
+			throw new IllegalArgumentException("Error! Too many empty cells to solve.");
+		}
+
+		long start = System.nanoTime();
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		this.prepare(board);
+		this.deadline = start + milliseconds * 1000000L;
+		this.nodes = 0;
+		this.stopped = false;
+		this.rootMove = TranspositionTable.NO_MOVE;
+		table.newSearch();
+
+		int score = 0;
+		int lower = -INFINITY;
+		int upper = INFINITY;
+		while (lower < upper && !stopped) {
+			int bound = score;
+			if (score == lower) {
+				bound = score + 1;
+			}
+			if (word) {
+				score = this.solveWords(board.stoneWord(color), board.stoneWord(invertColor(color)),
+						bound - 1, bound, color, 0);
+			} else {
+				score = this.solveDeep(bound - 1, bound, color, 0);
+			}
+			if (score < bound) {
+				upper = score;
+			} else {
+				lower = score;
+			}
+		}
+		long time = (System.nanoTime() - start) / 1000000L;
+		SearchResult result = null;
+		if (!stopped) {
+			PossibleMove move = null;
+			if (rootMove != TranspositionTable.NO_MOVE) {
+				int columns = board.getColumns();
+				move = new PossibleMove((char) ('A' + rootMove % columns), rootMove / columns + 1);
+			}
+			result = new SearchResult(move, score, empties, nodes, time);
+		}
+		SOLVE_METRIC.record(started, allocated);
+		return result;
+	}
+
+	/**
+	 * Clears the transposition table.
+	 */
+	public void clear() {
+		table.clear();
+	}
+
+	/**
+	 * Solves a position with move generation, fastest first order and the
+	 * transposition table. As in the Othello game, black passes if it cannot
+	 * move, and the game is over if white cannot move.
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param color color of the player to move
+	 * @param ply distance to the root
+	 * @return final stone difference for the player to move
+	 */
+	private int solveDeep(int alpha, int beta, char color, int ply) {
+		assert alpha < beta;
+
+		this.countNode();
+		int result = 0;
+		if (stopped) {
+			result = 0;
+		} else if (empties <= SHALLOW_EMPTIES && ply > 0) {
+			result = this.solveShallow(alpha, beta, color);
+		} else {
+			long key = board.getHash(color);
+			long entry = this.probe(key);
+			if (ply > 0 && isCutoff(entry, alpha, beta)) {
+				result = TranspositionTable.score(entry);
+			} else {
+				result = this.solveMoves(alpha, beta, color, ply, key, hashMove(entry));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Solves all possible moves of a position, the first with the full window
+	 * and the others with a null window.
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param color color of the player to move
+	 * @param ply distance to the root
+	 * @param key hash of the position
+	 * @param hashMove move of the transposition table
+	 * @return final stone difference for the player to move
+	 */
+	private int solveMoves(int alpha, int beta, char color, int ply, long key, int hashMove) {
+		int[] cells = moves[ply];
+		int count = board.listMoves(color, cells);
+		int best = -INFINITY;
+
+		if (count == 0) {
+			if (color == 'W') {
+				best = this.finalScore(color);
+			} else {
+				long record = board.makeMove(Board.PASS, color);
+				best = -this.solveDeep(-beta, -alpha, 'W', ply + 1);
+				board.unmakeMove(record);
+			}
+		} else {
+			char opponent = invertColor(color);
+			this.orderMoves(cells, count, ply, color, opponent, hashMove);
+			int bestMove = TranspositionTable.NO_MOVE;
+			int low = alpha;
+			for (int i = 0; i < count && low < beta && !stopped; i++) {
+				int cell = this.nextMove(cells, orders[ply], i, count);
+				long record = this.play(cell, color);
+				int score;
+				if (i == 0) {
+					score = -this.solveDeep(-beta, -low, opponent, ply + 1);
+				} else {
+					score = -this.solveDeep(-low - 1, -low, opponent, ply + 1);
+					if (score > low && score < beta && !stopped) {
+						score = -this.solveDeep(-beta, -low, opponent, ply + 1);
+					}
+				}
+				this.takeBack(cell, record);
+
+				if (!stopped && score > best) {
+					best = score;
+					bestMove = cell;
+					if (score > low) {
+						low = score;
+						if (ply == 0) {
+							rootMove = cell;
+						}
+					}
+				}
+			}
+
+			this.store(key, bestMove, best, alpha, beta);
+		}
+		return best;
+	}
+
+	/**
+	 * Solves a position on words with move generation, fastest first order
+	 * and the transposition table, like {@link #solveDeep(int, int, char, int)}.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param color color of the player to move
+	 * @param ply distance to the root
+	 * @return final stone difference for the player to move
+	 */
+	private int solveWords(long player, long opponent, int alpha, int beta, char color, int ply) {
+		assert alpha < beta;
+
+		this.countNode();
+		int result = 0;
+		if (stopped) {
+			result = 0;
+		} else if (empties <= SHALLOW_EMPTIES && ply > 0) {
+			result = this.solveWordsShallow(player, opponent, alpha, beta, color,
+					this.packEmpties(), empties);
+		} else {
+			int upper = INFINITY;
+			if (ply > 0) {
+				upper = this.stableUpper(player, opponent, alpha);
+			}
+			if (upper <= alpha) {
+				result = upper;
+			} else {
+				long key = wordKey(player, opponent, color);
+				long entry = this.probe(key);
+				if (ply > 0 && isCutoff(entry, alpha, beta)) {
+					result = TranspositionTable.score(entry);
+				} else {
+					result = this.solveWordMoves(player, opponent, alpha, beta, color, ply, key,
+							hashMove(entry));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Solves all possible moves of a position on words, the first with the
+	 * full window and the others with a null window.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param color color of the player to move
+	 * @param ply distance to the root
+	 * @param key hash of the position
+	 * @param hashMove move of the transposition table
+	 * @return final stone difference for the player to move
+	 */
+	private int solveWordMoves(long player, long opponent, int alpha, int beta, char color,
+			int ply, long key, int hashMove) {
+		long possible = this.moveWord(player, opponent);
+		int best = -INFINITY;
+
+		if (possible == 0L) {
+			if (color == 'W') {
+				best = Long.bitCount(player) - Long.bitCount(opponent);
+			} else {
+				best = -this.solveWords(opponent, player, -beta, -alpha, 'W', ply + 1);
+			}
+		} else {
+			char next = invertColor(color);
+			int[] cells = moves[ply];
+			int count = this.orderWordMoves(player, opponent, possible, next, ply, beta, hashMove);
+			int bestMove = TranspositionTable.NO_MOVE;
+			int low = alpha;
+			for (int i = 0; i < count && low < beta && !stopped; i++) {
+				int cell = this.nextMove(cells, orders[ply], i, count);
+				long flipped = this.flipWord(cell, player, opponent);
+				long stones = player | flipped | (1L << cell);
+				long others = opponent ^ flipped;
+				this.remove(cell);
+				int score;
+				if (i == 0) {
+					score = -this.solveWords(others, stones, -beta, -low, next, ply + 1);
+				} else {
+					score = -this.solveWords(others, stones, -low - 1, -low, next, ply + 1);
+					if (score > low && score < beta && !stopped) {
+						score = -this.solveWords(others, stones, -beta, -low, next, ply + 1);
+					}
+				}
+				this.restore(cell);
+
+				if (!stopped && score > best) {
+					best = score;
+					bestMove = cell;
+					if (score > low) {
+						low = score;
+						if (ply == 0) {
+							rootMove = cell;
+						}
+					}
+				}
+			}
+
+			this.store(key, bestMove, best, alpha, beta);
+		}
+		return best;
+	}
+
+	/**
+	 * Solves a position on words near the end. The empty cells are packed
+	 * into a long, six bits per cell, and are tried in this order, so that
+	 * neither the list of the empty cells nor a move generation is needed.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param color color of the player to move
+	 * @param cells empty cells, the first in the lowest six bits
+	 * @param count number of empty cells
+	 * @return final stone difference for the player to move
+	 */
+	private int solveWordsShallow(long player, long opponent, int alpha, int beta, char color,
+			long cells, int count) {
+		nodes++;
+
+		int best = -INFINITY;
+		if (count == 0) {
+			best = Long.bitCount(player) - Long.bitCount(opponent);
+		} else if (count == 1) {
+			best = this.solveLastWord(player, opponent, color, (int) cells);
+		} else {
+			char next = invertColor(color);
+			int low = alpha;
+			for (int i = 0; i < count && low < beta; i++) {
+				int cell = (int) (cells >>> (6 * i)) & 63;
+				long flipped = this.flipWord(cell, player, opponent);
+				if (flipped != 0L) {
+					long rest = (cells & ((1L << (6 * i)) - 1)) | ((cells >>> (6 * i + 6)) << (6 * i));
+					int score = -this.solveWordsShallow(opponent ^ flipped,
+							player | flipped | (1L << cell), -beta, -low, next, rest, count - 1);
+					if (score > best) {
+						best = score;
+						if (score > low) {
+							low = score;
+						}
+					}
+				}
+			}
+
+			if (best == -INFINITY) {
+				if (color == 'W') {
+					best = Long.bitCount(player) - Long.bitCount(opponent);
+				} else {
+					best = -this.solveWordsShallow(opponent, player, -beta, -alpha, 'W', cells,
+							count);
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Packs the empty cells into a long, six bits per cell, the cells in
+	 * regions with an odd number of empty cells first.
+	 * @return packed empty cells
+	 */
+	private long packEmpties() {
+		long result = 0L;
+		int shift = 0;
+		int end = board.getLines() * board.getColumns();
+		for (int parity = 1; parity >= 0; parity--) {
+			for (int cell = next[end]; cell != end; cell = next[cell]) {
+				if ((regionEmpties[region[cell]] & 1) == parity) {
+					result |= (long) cell << shift;
+					shift += 6;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Solves a position on words with one empty cell without a recursion.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param color color of the player to move
+	 * @param cell the empty cell
+	 * @return final stone difference for the player to move
+	 */
+	private int solveLastWord(long player, long opponent, char color, int cell) {
+		int result = Long.bitCount(player) - Long.bitCount(opponent);
+		long flipped = this.flipWord(cell, player, opponent);
+		if (flipped != 0L) {
+			result += 2 * Long.bitCount(flipped) + 1;
+		} else if (color == 'B') {
+			nodes++;
+			flipped = this.flipWord(cell, opponent, player);
+			if (flipped != 0L) {
+				result -= 2 * Long.bitCount(flipped) + 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the possible moves of a position on words to the moves of the
+	 * ply and gives each an order score like
+	 * {@link #orderMoves(int[], int, int, char, char, int)}. With enough empty
+	 * cells a move comes first if the transposition table already shows that
+	 * it cuts off (enhanced transposition cutoff), so that it is not searched
+	 * any further.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param possible possible moves of the player
+	 * @param next color of the opponent
+	 * @param ply distance to the root
+	 * @param beta upper bound of the score
+	 * @param hashMove move of the transposition table
+	 * @return number of possible moves
+	 */
+	private int orderWordMoves(long player, long opponent, long possible, char next, int ply,
+			int beta, int hashMove) {
+		int[] cells = moves[ply];
+		int[] order = orders[ply];
+		int count = 0;
+		long bits = possible;
+		while (bits != 0L) {
+			int cell = Long.numberOfTrailingZeros(bits);
+			bits &= bits - 1;
+			long flipped = this.flipWord(cell, player, opponent);
+			long stones = player | flipped | (1L << cell);
+			long others = opponent ^ flipped;
+			cells[count] = cell;
+			if (empties >= ETC_EMPTIES && cutsOff(table.probe(wordKey(others, stones, next)), beta)) {
+				order[count] = (1 << 30) + 1;
+			} else if (cell == hashMove) {
+				order[count] = 1 << 30;
+			} else {
+				long replies = this.moveWord(others, stones);
+				order[count] = weights[cell] - MOBILITY_WEIGHT
+						* (Long.bitCount(replies) + Long.bitCount(replies & corners));
+				if ((regionEmpties[region[cell]] & 1) != 0) {
+					order[count] += PARITY_WEIGHT;
+				}
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Check whether an entry of the transposition table of a position after a
+	 * move shows that the move cuts off.
+	 * @param entry data of the entry, 0 if there is no entry
+	 * @param beta upper bound of the score before the move
+	 * @return {@code true} if the move cuts off, {@code false} otherwise
+	 */
+	private static boolean cutsOff(long entry, int beta) {
+		boolean result = false;
+		if (entry != 0L) {
+			int flag = TranspositionTable.flag(entry);
+			result = (flag == TranspositionTable.EXACT || flag == TranspositionTable.UPPER)
+					&& -TranspositionTable.score(entry) >= beta;
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the possible moves of the player on words. In each direction the
+	 * lines of stones of the opponent next to the stones of the player are
+	 * grown until they stop, the empty cells behind them are possible moves.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @return possible moves of the player
+	 */
+	private long moveWord(long player, long opponent) {
+		long empty = free & ~(player | opponent);
+		long result = 0L;
+		for (int direction = 0; direction < 4; direction++) {
+			int shift = shifts[direction];
+			long up = opponent & forward[direction];
+			long down = opponent & backward[direction];
+			long upLine = (player << shift) & up;
+			long downLine = (player >>> shift) & down;
+			long grown;
+			do {
+				grown = upLine | downLine;
+				upLine |= (upLine << shift) & up;
+				downLine |= (downLine >>> shift) & down;
+			} while ((upLine | downLine) != grown);
+			result |= (upLine << shift) & forward[direction];
+			result |= (downLine >>> shift) & backward[direction];
+		}
+		return result & empty;
+	}
+
+	/**
+	 * Finds the stones of the opponent which a move on words flips. On each
+	 * ray the first cell without a stone of the opponent ends the line; the
+	 * line is flipped if that cell has a stone of the player.
+	 * @param cell cell of the move
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @return flipped stones, 0 if the move is not possible
+	 */
+	private long flipWord(int cell, long player, long opponent) {
+		long result = 0L;
+		int index = cell << 2;
+		for (int direction = 0; direction < 4; direction++) {
+			long ray = upRays[index + direction];
+			long end = ray & ~opponent;
+			end &= -end;
+			if ((end & player) != 0L) {
+				result |= ray & (end - 1);
+			}
+
+			ray = downRays[index + direction];
+			end = Long.highestOneBit(ray & ~opponent);
+			if ((end & player) != 0L) {
+				result |= ray & -(end << 1);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an upper bound of the score of a position on words from the
+	 * stable stones of the opponent, which it keeps to the end. The stable
+	 * stones are only searched if the bound can cut off at all, that is if
+	 * it would cut off with all stones of the opponent stable.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param alpha lower bound of the score
+	 * @return upper bound of the final stone difference for the player to move,
+	 *         {@link #INFINITY} if the stable stones cannot cut off
+	 */
+	private int stableUpper(long player, long opponent, int alpha) {
+		int result = INFINITY;
+		if (playable - 2 * Long.bitCount(opponent) <= alpha) {
+			result = playable - 2 * Long.bitCount(this.stableWord(opponent, player));
+		}
+		return result;
+	}
+
+	/**
+	 * Finds stones on words which can never be flipped. A stone is stable if
+	 * on each of the four axes its line is full, or its next cell on one side
+	 * is the edge, a hole or a stable stone of the same color. The full lines
+	 * are grown from the walls in both directions, the stable stones from
+	 * the walls and the full lines.
+	 * @param stones stones of the player
+	 * @param others stones of the opponent
+	 * @return stable stones of the player
+	 */
+	private long stableWord(long stones, long others) {
+		long filled = stones | others;
+		long[] full = this.full;
+		for (int direction = 0; direction < 4; direction++) {
+			int shift = shifts[direction];
+			long up = filled & upWalls[direction];
+			long down = filled & downWalls[direction];
+			long grown;
+			do {
+				grown = up | down;
+				up |= filled & ((up & forward[direction]) >>> shift);
+				down |= filled & ((down & backward[direction]) << shift);
+			} while ((up | down) != grown);
+			full[direction] = up & down;
+		}
+
+		long result = 0L;
+		long previous;
+		do {
+			previous = result;
+			long stable = stones;
+			for (int direction = 0; direction < 4; direction++) {
+				int shift = shifts[direction];
+				stable &= full[direction] | upWalls[direction] | downWalls[direction]
+						| ((result & forward[direction]) >>> shift)
+						| ((result & backward[direction]) << shift);
+			}
+			result = stable;
+		} while (result != previous);
+		return result;
+	}
+
+	/**
+	 * Returns the hash of a position on words for the transposition table.
+	 * @param player stones of the player to move
+	 * @param opponent stones of the opponent
+	 * @param color color of the player to move
+	 * @return hash of the position
+	 */
+	private static long wordKey(long player, long opponent, char color) {
+		long result = player * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opponent * 0xC2B2AE3D27D4EB4FL, 31);
+		result = (result ^ (result >>> 29)) * 0xBF58476D1CE4E5B9L;
+		result ^= result >>> 32;
+		if (color == 'W') {
+			result = ~result;
+		}
+		return result;
+	}
+
+	/**
+	 * Counts a node and checks every few nodes whether the time is up or the
+	 * owner has stopped the solver.
+	 */
+	private void countNode() {
+		nodes++;
+		if ((nodes & (CHECK_INTERVAL - 1)) == 0 && (System.nanoTime() > deadline
+				|| (stopSignal != null && stopSignal.get()))) {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * Returns the entry of the transposition table of a position with enough
+	 * empty cells.
+	 * @param key hash of the position
+	 * @return data of the entry, 0 if there is no entry
+	 */
+	private long probe(long key) {
+		long result = 0L;
+		if (empties >= TABLE_EMPTIES) {
+			result = table.probe(key);
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the result of a solved position with enough empty cells, unless
+	 * the solver has been stopped.
+	 * @param key hash of the position
+	 * @param bestMove best move cell
+	 * @param best final stone difference
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 */
+	private void store(long key, int bestMove, int best, int alpha, int beta) {
+		if (!stopped && empties >= TABLE_EMPTIES) {
+			int flag = TranspositionTable.EXACT;
+			if (best >= beta) {
+				flag = TranspositionTable.LOWER;
+			} else if (best <= alpha) {
+				flag = TranspositionTable.UPPER;
+			}
+			table.store(key, bestMove, Math.min(empties, 255), flag, best);
+		}
+	}
+
+	/**
+	 * Check whether an entry of the transposition table ends the search of
+	 * the position.
+	 * @param entry data of the entry, 0 if there is no entry
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @return {@code true} if the score of the entry is the result,
+	 *         {@code false} otherwise
+	 */
+	private static boolean isCutoff(long entry, int alpha, int beta) {
+		boolean result = false;
+		if (entry != 0L) {
+			int score = TranspositionTable.score(entry);
+			int flag = TranspositionTable.flag(entry);
+			result = flag == TranspositionTable.EXACT
+					|| (flag == TranspositionTable.LOWER && score >= beta)
+					|| (flag == TranspositionTable.UPPER && score <= alpha);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the move of an entry of the transposition table.
+	 * @param entry data of the entry, 0 if there is no entry
+	 * @return best move cell, {@link TranspositionTable#NO_MOVE} if there is none
+	 */
+	private static int hashMove(long entry) {
+		int result = TranspositionTable.NO_MOVE;
+		if (entry != 0L) {
+			result = TranspositionTable.move(entry);
+		}
+		return result;
+	}
+
+	/**
+	 * Solves a position near the end. The moves are tried in the list of the
+	 * empty cells, first into the regions with an odd number of empty cells.
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param color color of the player to move
+	 * @return final stone difference for the player to move
+	 */
+	private int solveShallow(int alpha, int beta, char color) {
+		nodes++;
+
+		int best = -INFINITY;
+		if (empties == 0) {
+			best = this.finalScore(color);
+		} else {
+			char opponent = invertColor(color);
+			int low = alpha;
+			int end = board.getLines() * board.getColumns();
+			for (int parity = 1; parity >= 0 && low < beta; parity--) {
+				int cell = next[end];
+				while (cell != end && low < beta) {
+					int following = next[cell];
+					if ((regionEmpties[region[cell]] & 1) == parity) {
+						long record = board.makeMove(cell, color);
+						if (Board.countFlipped(record) == 0) {
+							board.unmakeMove(record);
+						} else {
+							this.remove(cell);
+							int score = -this.solveShallow(-beta, -low, opponent);
+							this.takeBack(cell, record);
+							if (score > best) {
+								best = score;
+								if (score > low) {
+									low = score;
+								}
+							}
+						}
+					}
+					cell = following;
+				}
+			}
+
+			if (best == -INFINITY) {
+				if (color == 'W') {
+					best = this.finalScore(color);
+				} else {
+					long record = board.makeMove(Board.PASS, color);
+					best = -this.solveShallow(-beta, -alpha, 'W');
+					board.unmakeMove(record);
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gives each move an order score. The move of the transposition table
+	 * comes first, then the moves by the fewest possible moves of the
+	 * opponent, the parity of their region and the weight of their cell.
+	 * @param cells possible moves
+	 * @param count number of possible moves
+	 * @param ply distance to the root
+	 * @param color color of the player to move
+	 * @param opponent color of the opponent
+	 * @param hashMove move of the transposition table
+	 */
+	private void orderMoves(int[] cells, int count, int ply, char color, char opponent,
+			int hashMove) {
+		int[] order = orders[ply];
+		for (int i = 0; i < count; i++) {
+			int cell = cells[i];
+			if (cell == hashMove) {
+				order[i] = 1 << 30;
+			} else {
+				long record = board.makeMove(cell, color);
+				order[i] = weights[cell] - MOBILITY_WEIGHT * board.countMoves(opponent);
+				board.unmakeMove(record);
+				if ((regionEmpties[region[cell]] & 1) != 0) {
+					order[i] += PARITY_WEIGHT;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the move with the highest order score of the remaining moves to
+	 * the index.
+	 * @param cells possible moves
+	 * @param order order scores of the possible moves
+	 * @param index index of the next move
+	 * @param count number of possible moves
+	 * @return cell of the next move
+	 */
+	private int nextMove(int[] cells, int[] order, int index, int count) {
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (order[i] > order[best]) {
+				best = i;
+			}
+		}
+		int cell = cells[best];
+		int score = order[best];
+		cells[best] = cells[index];
+		order[best] = order[index];
+		cells[index] = cell;
+		order[index] = score;
+		return cell;
+	}
+
+	/**
+	 * Makes a move and removes its cell from the empty cells.
+	 * @param cell cell of the move
+	 * @param color color of the player
+	 * @return record of the move
+	 */
+	private long play(int cell, char color) {
+		long record = board.makeMove(cell, color);
+		this.remove(cell);
+		return record;
+	}
+
+	/**
+	 * Takes back a move and adds its cell to the empty cells again.
+	 * @param cell cell of the move
+	 * @param record record of the move
+	 */
+	private void takeBack(int cell, long record) {
+		board.unmakeMove(record);
+		this.restore(cell);
+	}
+
+	/**
+	 * Adds a removed cell to the list of the empty cells again.
+	 * @param cell cell to add
+	 */
+	private void restore(int cell) {
+		next[previous[cell]] = cell;
+		previous[next[cell]] = cell;
+		regionEmpties[region[cell]]++;
+		empties++;
+	}
+
+	/**
+	 * Removes a cell from the list of the empty cells. The cell keeps its
+	 * neighbours, so it is added again at the same place.
+	 * @param cell cell to remove
+	 */
+	private void remove(int cell) {
+		next[previous[cell]] = next[cell];
+		previous[next[cell]] = previous[cell];
+		regionEmpties[region[cell]]--;
+		empties--;
+	}
+
+	/**
+	 * Returns the final stone difference for the player.
+	 * @param color color of the player
+	 * @return final stone difference
+	 */
+	private int finalScore(char color) {
+		return board.countStones(color) - board.countStones(invertColor(color));
+	}
+
+	/**
+	 * Prepares the buffers, the list of the empty cells ordered by their
+	 * weight and the regions of the board.
+	 * @param board board to solve
+	 */
+	private void prepare(Board board) {
+		int lines = board.getLines();
+		int columns = board.getColumns();
+		int cells = lines * columns;
+		List<String> field = board.getField();
+		this.board = board;
+		this.empties = board.countEmpty();
+		this.weights = Search.cellWeights(board);
+		int plies = 2 * empties + 2;
+		if (moves.length < plies || (plies > 0 && moves[0].length < cells)) {
+			this.moves = new int[plies][cells];
+			this.orders = new int[plies][cells];
+		}
+
+		this.next = new int[cells + 1];
+		this.previous = new int[cells + 1];
+		this.region = new int[cells];
+		this.regionEmpties = new int[empties + 1];
+		int[] sorted = new int[empties];
+		int count = 0;
+		for (int i = 0; i < cells; i++) {
+			region[i] = -1;
+			if (field.get(i / columns).charAt(i % columns) == '-') {
+				int position = count;
+				while (position > 0 && weights[sorted[position - 1]] < weights[i]) {
+					sorted[position] = sorted[position - 1];
+					position--;
+				}
+				sorted[position] = i;
+				count++;
+			}
+		}
+		int last = cells;
+		for (int i = 0; i < count; i++) {
+			next[last] = sorted[i];
+			previous[sorted[i]] = last;
+			last = sorted[i];
+		}
+		next[last] = cells;
+		previous[cells] = last;
+		this.prepareWords(board);
+
+		int regions = 0;
+		int[] stack = new int[empties];
+		for (int i = 0; i < count; i++) {
+			if (region[sorted[i]] < 0) {
+				int size = 0;
+				region[sorted[i]] = regions;
+				stack[size] = sorted[i];
+				size++;
+				while (size > 0) {
+					size--;
+					int cell = stack[size];
+					regionEmpties[regions]++;
+					for (int k = -1; k <= 1; k++) {
+						for (int l = -1; l <= 1; l++) {
+							int line = cell / columns + k;
+							int column = cell % columns + l;
+							if (line >= 0 && line < lines && column >= 0 && column < columns
+									&& field.get(line).charAt(column) == '-'
+									&& region[line * columns + column] < 0) {
+								region[line * columns + column] = regions;
+								stack[size] = line * columns + column;
+								size++;
+							}
+						}
+					}
+				}
+				regions++;
+			}
+		}
+	}
+
+	/**
+	 * Prepares the shifts and the masks of the directions, if the board is
+	 * solved on words.
+	 * @param board board to solve
+	 */
+	private void prepareWords(Board board) {
+		int columns = board.getColumns();
+		int cells = board.getLines() * columns;
+		this.word = cells <= WORD_CELLS;
+		if (word) {
+			long all = -1L;
+			if (cells < WORD_CELLS) {
+				all = (1L << cells) - 1;
+			}
+			long firstColumn = 0L;
+			for (int i = 0; i < cells; i += columns) {
+				firstColumn |= 1L << i;
+			}
+			long notFirst = all & ~firstColumn;
+			long notLast = all & ~(firstColumn << (columns - 1));
+			this.free = all & ~board.holeWord();
+			this.playable = Long.bitCount(free);
+
+			shifts[0] = 1;
+			forward[0] = notFirst;
+			backward[0] = notLast;
+			shifts[1] = columns - 1;
+			forward[1] = notLast;
+			backward[1] = notFirst;
+			shifts[2] = columns;
+			forward[2] = all;
+			backward[2] = all;
+			shifts[3] = columns + 1;
+			forward[3] = notFirst;
+			backward[3] = notLast;
+			this.corners = free;
+			for (int direction = 0; direction < 4; direction++) {
+				upWalls[direction] = free & ~((free & forward[direction]) >>> shifts[direction]);
+				downWalls[direction] = free & ~((free & backward[direction]) << shifts[direction]);
+				corners &= upWalls[direction] | downWalls[direction];
+			}
+
+			if (upRays == null) {
+				this.upRays = new long[4 * WORD_CELLS];
+				this.downRays = new long[4 * WORD_CELLS];
+			}
+			for (int cell = 0; cell < cells; cell++) {
+				for (int direction = 0; direction < 4; direction++) {
+					long ray = 0L;
+					long bit = ((1L << cell) << shifts[direction]) & forward[direction] & free;
+					while (bit != 0L) {
+						ray |= bit;
+						bit = (bit << shifts[direction]) & forward[direction] & free;
+					}
+					upRays[(cell << 2) + direction] = ray;
+
+					ray = 0L;
+					bit = ((1L << cell) >>> shifts[direction]) & backward[direction] & free;
+					while (bit != 0L) {
+						ray |= bit;
+						bit = (bit >>> shifts[direction]) & backward[direction] & free;
+					}
+					downRays[(cell << 2) + direction] = ray;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inverts the color of the player
+	 * @param color of the player
+	 * @return inverted color of the player
+	 */
+	private static char invertColor(char color) {
+		char invertedColor = 'W';
+		if (color == 'W') {
+			invertedColor = 'B';
+		}
+		return invertedColor;
+	}
+
+}
@@ -0,0 +1,118 @@
+/**
+ * This class represents the settings of an engine in a tournament. It stores
+ * the search budget of each move.
+ * @author Florian Mueller
+ */
+public class EngineSettings {
+
+	/** name of the engine */
+	private String name;
+
+	/** node budget of each move */
+	private long nodes;
+
+	/** maximum search depth of each move */
+	private int depth;
+
+	/** time budget of each move in milliseconds */
+	private long milliseconds;
+
+	/**
+	 * Constructs new engine settings.
+	 * @param name name of the engine
+	 * @param nodes node budget of each move
+	 * @param depth maximum search depth of each move
+	 * @param milliseconds time budget of each move
+	 */
+	public EngineSettings(String name, long nodes, int depth, long milliseconds) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Error! Engine name is missing.");
+		} else if (nodes < 1 || milliseconds < 1) {
+			throw new IllegalArgumentException("Error! Invalid search budget.");
+		} else if (depth < 1 || depth > Search.MAX_DEPTH) {
+			throw new IllegalArgumentException("Error! Invalid search depth.");
+		}
+
+		this.name = name;
+		this.nodes = nodes;
+		this.depth = depth;
+		this.milliseconds = milliseconds;
+	}
+
+	/**
+	 * Parses engine settings of the form {@code nodes[:depth[:milliseconds]]}.
+	 * A missing depth is the maximum depth, a missing time is one hour, so
+	 * that the node budget decides and the games can be repeated.
+	 * @param name name of the engine
+	 * @param settings settings to parse
+	 * @return the parsed settings
+	 */
+	public static EngineSettings parse(String name, String settings) {
+		if (settings == null) {
+			throw new IllegalArgumentException("Error! Engine settings are missing.");
+		}
+
+		String[] parts = settings.split(":");
+		EngineSettings result;
+		try {
+			long nodes = Long.parseLong(parts[0]);
+			int depth = Search.MAX_DEPTH;
+			long milliseconds = 3600000L;
+			if (parts.length > 1) {
+				depth = Integer.parseInt(parts[1]);
+			}
+			if (parts.length > 2) {
+				milliseconds = Long.parseLong(parts[2]);
+			}
+			if (parts.length > 3) {
+				throw new IllegalArgumentException("Error! Invalid engine settings.");
+			}
+			result = new EngineSettings(name, nodes, depth, milliseconds);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Error! Invalid engine settings.");
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the name of the engine.
+	 * @return the name of the engine
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the node budget of each move.
+	 * @return the node budget of each move
+	 */
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Returns the maximum search depth of each move.
+	 * @return the maximum search depth of each move
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Returns the time budget of each move.
+	 * @return the time budget of each move in milliseconds
+	 */
+	public long getMilliseconds() {
+		return this.milliseconds;
+	}
+
+	/**
+	 * Returns the settings of the engine.
+	 * @return the settings of the engine
+	 */
+	public String toString() {
+		return name + " (" + Long.toString(nodes) + " nodes, depth " + Integer.toString(depth)
+				+ ", " + Long.toString(milliseconds) + " ms)";
+	}
+
+}
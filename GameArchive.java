@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class appends finished games to an archive file. The file starts with
+ * the bytes {@code 'O', 'A'} and the format version. Each game follows as the
+ * line length, the column length, a flag byte with white to move first in
+ * bit 0, the number of moves as two bytes and the start position with two
+ * bits per cell, so the holes are part of it. Then each move is the index of
+ * its cell, one byte below 128 and two bytes with the high bit set
+ * otherwise. Passes are not stored, the moves are replayed by
+ * {@link GameArchiveReader}. The writer is shared by many games and buffers
+ * the games before they are written.
+ * @author Florian Mueller
+ */
+public class GameArchive {
+
+	/** first bytes of an archive */
+	static final byte[] MAGIC = {'O', 'A'};
+
+	/** format version of an archive */
+	static final byte VERSION = 1;
+
+	/** number of bytes of the archive header */
+	static final int FILE_HEADER = 3;
+
+	/** number of bytes of a game before the start position */
+	static final int GAME_HEADER = 5;
+
+	/** position of the move counter in a game */
+	static final int MOVE_COUNTER = 3;
+
+	/** flag of a game if white moves first */
+	static final int FLAG_WHITE = 1;
+
+	/** maximum number of bytes of one game */
+	static final int MAX_GAME = GAME_HEADER + Board.packedSize(98, 26) + 2 * 98 * 26;
+
+	/** number of bytes which are buffered before they are written */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** channel of the archive file */
+	private final FileChannel channel;
+
+	/** buffer of the games which are not written yet */
+	private final ByteBuffer buffer;
+
+	/** number of appended games */
+	private long games;
+
+	/**
+	 * Opens an archive to append games. A new file is created if there is
+	 * none.
+	 * @param file archive file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public GameArchive(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("Error! Archive file is missing.");
+		}
+
+		this.channel = FileChannel.open(file, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		try {
+			if (channel.size() == 0) {
+				buffer.put(MAGIC[0]).put(MAGIC[1]).put(VERSION);
+			} else {
+				ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+				while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+					// reads until the header is complete
+				}
+				if (header.hasRemaining() || header.get(0) != MAGIC[0]
+						|| header.get(1) != MAGIC[1] || header.get(2) != VERSION) {
+					throw new IllegalArgumentException("Error! File is no game archive.");
+				}
+				channel.position(channel.size());
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		} catch (IllegalArgumentException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Appends a game which was recorded by {@link #begin(ByteBuffer, Board, char)}
+	 * and {@link #addMove(ByteBuffer, int)}. The game is read from the
+	 * position to the limit of the buffer.
+	 * @param game buffer with the game
+	 * @throws IOException if the archive cannot be written
+	 */
+	public synchronized void append(ByteBuffer game) throws IOException {
+		if (game == null) {
+			throw new IllegalArgumentException("Error! Game is missing.");
+		} else if (game.remaining() < GAME_HEADER || game.remaining() > MAX_GAME) {
+			throw new IllegalArgumentException("Error! Invalid game.");
+		}
+
+		if (buffer.remaining() < game.remaining()) {
+			this.write();
+		}
+		buffer.put(game);
+		games++;
+	}
+
+	/**
+	 * Writes the buffered games to the file.
+	 * @throws IOException if the archive cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		this.write();
+		channel.force(false);
+	}
+
+	/**
+	 * Writes the buffered games and closes the archive.
+	 * @throws IOException if the archive cannot be written
+	 */
+	public synchronized void close() throws IOException {
+		try {
+			this.write();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the number of games which were appended since the archive was
+	 * opened.
+	 * @return number of games
+	 */
+	public synchronized long getGames() {
+		return this.games;
+	}
+
+	/**
+	 * Starts to record a game at the position of the buffer with the start
+	 * position and the color which moves first.
+	 * @param game buffer of at least {@link #MAX_GAME} bytes for the game
+	 * @param board start position
+	 * @param color color which moves first
+	 */
+	static void begin(ByteBuffer game, Board board, char color) {
+		assert game.remaining() >= MAX_GAME;
+		assert color == 'B' || color == 'W';
+
+		int flags = 0;
+		if (color == 'W') {
+			flags |= FLAG_WHITE;
+		}
+		game.put((byte) board.getLines());
+		game.put((byte) board.getColumns());
+		game.put((byte) flags);
+		game.putShort((short) 0);
+		board.pack(game);
+	}
+
+	/**
+	 * Records a move of a game which was started by
+	 * {@link #begin(ByteBuffer, Board, char)} at the start of the buffer.
+	 * @param game buffer of the game
+	 * @param cell index of the cell of the move
+	 */
+	static void addMove(ByteBuffer game, int cell) {
+		assert cell >= 0 && cell < 98 * 26;
+
+		if (cell < 0x80) {
+			game.put((byte) cell);
+		} else {
+			game.put((byte) (0x80 | (cell >>> 8)));
+			game.put((byte) cell);
+		}
+		game.putShort(MOVE_COUNTER, (short) (game.getShort(MOVE_COUNTER) + 1));
+	}
+
+	/**
+	 * Writes the buffer to the file.
+	 * @throws IOException if the archive cannot be written
+	 */
+	private void write() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
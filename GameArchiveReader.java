@@ -0,0 +1,355 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class streams the games of an archive written by {@link GameArchive}.
+ * The file is mapped into memory in windows, so it is never loaded into the
+ * heap, and the games are replayed on one board which is reused as long as
+ * the board size stays the same. No object is built per game or move:
+ * {@link #next()} moves to the next game, {@link #nextMove()} plays its next
+ * move and the getters describe the current state.
+ * @author Florian Mueller
+ */
+public class GameArchiveReader {
+
+	/** number of bytes of a mapped window */
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	/** channel of the archive file */
+	private final FileChannel channel;
+
+	/** number of bytes of the file */
+	private final long size;
+
+	/** mapped window of the file */
+	private MappedByteBuffer window;
+
+	/** position of the window in the file */
+	private long windowStart;
+
+	/** position of the next game in the window */
+	private int nextGame;
+
+	/** position of the next move in the window */
+	private int nextMove;
+
+	/** position of the current game in the window */
+	private int currentGame;
+
+	/** board of the current game, null before the first game */
+	private Board board;
+
+	/** number of moves of the current game */
+	private int moveCount;
+
+	/** number of played moves of the current game */
+	private int playedMoves;
+
+	/** color of the active player, 0 if the game is over */
+	private char activeColor;
+
+	/** color of the last move */
+	private char moveColor;
+
+	/** cell index of the last move */
+	private int moveCell;
+
+	/** number of games read so far */
+	private long games;
+
+	/**
+	 * Opens an archive to read its games.
+	 * @param file archive file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public GameArchiveReader(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("Error! Archive file is missing.");
+		}
+
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			this.size = channel.size();
+			this.map(0);
+			if (size < GameArchive.FILE_HEADER || window.get(0) != GameArchive.MAGIC[0]
+					|| window.get(1) != GameArchive.MAGIC[1]
+					|| window.get(2) != GameArchive.VERSION) {
+				throw new IllegalArgumentException("Error! File is no game archive.");
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		} catch (IllegalArgumentException e) {
+			channel.close();
+			throw e;
+		}
+		this.nextGame = GameArchive.FILE_HEADER;
+	}
+
+	/**
+	 * Moves to the next game and sets up its start position. The moves which
+	 * were not played of the current game are skipped.
+	 * @return {@code true} if there is a next game, {@code false} at the end
+	 *         of the archive
+	 * @throws IOException if the archive cannot be mapped
+	 */
+	public boolean next() throws IOException {
+		if (windowStart + nextGame < size && window.limit() - nextGame < GameArchive.MAX_GAME
+				&& windowStart + window.limit() < size) {
+			this.map(windowStart + nextGame);
+			this.nextGame = 0;
+		}
+
+		boolean result = nextGame < window.limit();
+		if (result) {
+			if (window.limit() - nextGame < GameArchive.GAME_HEADER) {
+				throw new IllegalArgumentException("Error! Archive is truncated.");
+			}
+			int lines = window.get(nextGame) & 0xFF;
+			int columns = window.get(nextGame + 1) & 0xFF;
+			int flags = window.get(nextGame + 2);
+			this.moveCount = window.getShort(nextGame + GameArchive.MOVE_COUNTER) & 0xFFFF;
+			if ((flags & ~GameArchive.FLAG_WHITE) != 0 || moveCount > lines * columns) {
+				throw new IllegalArgumentException("Error! Invalid archive.");
+			}
+
+			if (window.limit() - nextGame < GameArchive.GAME_HEADER + Board.packedSize(lines, columns)) {
+				throw new IllegalArgumentException("Error! Archive is truncated.");
+			}
+			window.position(nextGame + GameArchive.GAME_HEADER);
+			if (board != null && board.getLines() == lines && board.getColumns() == columns) {
+				board.unpack(window);
+			} else {
+				this.board = Board.unpack(lines, columns, window);
+			}
+			this.currentGame = nextGame;
+			this.nextGame = this.skipMoves(window.position(), moveCount);
+			this.start();
+			games++;
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the current game back to its start position, so that it can be
+	 * replayed once its result is known.
+	 */
+	public void restart() {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! No current game.");
+		}
+
+		window.position(currentGame + GameArchive.GAME_HEADER);
+		board.unpack(window);
+		this.start();
+	}
+
+	/**
+	 * Plays the next move of the current game. A player without a possible
+	 * move passes as in {@link Othello}.
+	 * @return {@code true} if a move was played, {@code false} if all moves
+	 *         of the game are played
+	 */
+	public boolean nextMove() {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! No current game.");
+		}
+
+		boolean result = playedMoves < moveCount;
+		if (result) {
+			int cell = window.get(nextMove) & 0xFF;
+			nextMove++;
+			if (cell >= 0x80) {
+				cell = ((cell & 0x7F) << 8) | (window.get(nextMove) & 0xFF);
+				nextMove++;
+			}
+			int columns = board.getColumns();
+			char column = (char) ('A' + cell % columns);
+			int line = cell / columns + 1;
+			if (activeColor == 0 || cell >= board.getLines() * columns
+					|| !board.isPossibleMove(column, line, activeColor)) {
+				throw new IllegalArgumentException("Error! Invalid archive.");
+			}
+
+			board.makeMove(cell, activeColor);
+			this.moveCell = cell;
+			this.moveColor = activeColor;
+			this.activeColor = 'B';
+			if (moveColor == 'B') {
+				this.activeColor = 'W';
+			}
+			if (!board.hasMoves(activeColor)) {
+				this.activeColor = 'W';
+				if (!board.hasMoves(activeColor)) {
+					this.activeColor = 0;
+				}
+			}
+			playedMoves++;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the board of the current game with the moves played so far.
+	 * The board is reused for the next game of the same size.
+	 * @return the board of the current game
+	 */
+	public Board getBoard() {
+		return this.board;
+	}
+
+	/**
+	 * Returns the number of moves of the current game.
+	 * @return the number of moves
+	 */
+	public int getMoveCount() {
+		return this.moveCount;
+	}
+
+	/**
+	 * Returns the number of moves of the current game played so far.
+	 * @return the number of played moves
+	 */
+	public int getPlayedMoves() {
+		return this.playedMoves;
+	}
+
+	/**
+	 * Returns the color of the active player of the current game.
+	 * @return {@code 'B'} or {@code 'W'}, 0 if no one can move
+	 */
+	public char getActiveColor() {
+		return this.activeColor;
+	}
+
+	/**
+	 * Returns the color of the last played move.
+	 * @return {@code 'B'} or {@code 'W'}, 0 before the first move
+	 */
+	public char getMoveColor() {
+		return this.moveColor;
+	}
+
+	/**
+	 * Returns the cell index of the last played move.
+	 * @return the cell index, -1 before the first move
+	 */
+	public int getMoveCell() {
+		return this.moveCell;
+	}
+
+	/**
+	 * Returns the number of games read so far.
+	 * @return the number of games
+	 */
+	public long getGames() {
+		return this.games;
+	}
+
+	/**
+	 * Closes the archive.
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Sets the state to the start of the current game, whose cells were just
+	 * unpacked.
+	 */
+	private void start() {
+		this.nextMove = window.position();
+		this.playedMoves = 0;
+		this.moveCell = -1;
+		this.moveColor = 0;
+		this.activeColor = 'B';
+		if ((window.get(currentGame + 2) & GameArchive.FLAG_WHITE) != 0) {
+			this.activeColor = 'W';
+		}
+	}
+
+	/**
+	 * Maps the window which starts at the position of the file.
+	 * @param start position in the file
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private void map(long start) throws IOException {
+		this.windowStart = start;
+		this.window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+				Math.min(WINDOW_SIZE, size - start));
+		window.order(ByteOrder.BIG_ENDIAN);
+	}
+
+	/**
+	 * Finds the end of the moves of a game.
+	 * @param position position of the first move in the window
+	 * @param count number of moves
+	 * @return position after the last move
+	 */
+	private int skipMoves(int position, int count) {
+		int result = position;
+		for (int i = 0; i < count; i++) {
+			if (result >= window.limit()) {
+				throw new IllegalArgumentException("Error! Archive is truncated.");
+			}
+			if ((window.get(result) & 0x80) != 0) {
+				result++;
+			}
+			result++;
+		}
+		if (result > window.limit()) {
+			throw new IllegalArgumentException("Error! Archive is truncated.");
+		}
+		return result;
+	}
+
+	/**
+	 * main method - replays all games of an archive and prints the results
+	 * @param args archive file
+	 */
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.out.println("Error! Archive file expected.");
+		} else {
+			try {
+				long start = System.nanoTime();
+				long moves = 0;
+				long[] results = new long[3];
+				GameArchiveReader reader = new GameArchiveReader(Paths.get(args[0]));
+				try {
+					while (reader.next()) {
+						while (reader.nextMove()) {
+							moves++;
+						}
+						int black = reader.getBoard().countStones('B');
+						int white = reader.getBoard().countStones('W');
+						if (black > white) {
+							results[0]++;
+						} else if (black < white) {
+							results[2]++;
+						} else {
+							results[1]++;
+						}
+					}
+				} finally {
+					reader.close();
+				}
+				double seconds = Math.max(1e-3, (System.nanoTime() - start) / 1e9);
+				System.out.println(String.format("%d games, %d moves, black %d, draws %d, white %d",
+						reader.getGames(), moves, results[0], results[1], results[2]));
+				System.out.println(String.format("%.0f games/s", reader.getGames() / seconds));
+			} catch (IOException e) {
+				System.out.println("Error! " + e.getMessage());
+			} catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage());
+			}
+		}
+	}
+
+}
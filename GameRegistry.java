@@ -0,0 +1,240 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class maps game ids to Othello sessions, so that one process can host
+ * many games. There is no global lock: the map is concurrent and each session
+ * has its own lock, so only actions on the same game wait for each other.
+ * Sessions which are not accessed for some time are evicted to a compact
+ * snapshot and restored when they are accessed again.
+ * @author Florian Mueller
+ */
+public class GameRegistry {
+
+	/** metric of the actions on the sessions */
+	private static final Metric EXECUTE_METRIC = Metrics.get("registry.execute", true);
+
+	/** sessions by game id */
+	private final ConcurrentHashMap<String, GameSession> sessions;
+
+	/** number of the next generated game id */
+	private final AtomicLong nextId;
+
+	/** thread of the periodic eviction, null if it is not started */
+	private ScheduledExecutorService evictor;
+
+	/**
+	 * Constructs a new empty registry.
+	 */
+	public GameRegistry() {
+		this.sessions = new ConcurrentHashMap<String, GameSession>();
+		this.nextId = new AtomicLong(1);
+	}
+
+	/**
+	 * Creates a new session with a generated id.
+	 * @return id of the new session
+	 */
+	public String create() {
+		String id = "game-" + Long.toString(nextId.getAndIncrement());
+		while (sessions.putIfAbsent(id, new GameSession()) != null) {
+			id = "game-" + Long.toString(nextId.getAndIncrement());
+		}
+		return id;
+	}
+
+	/**
+	 * Creates a new session with the id.
+	 * @param id id of the new session
+	 */
+	public void create(String id) {
+		if (id == null || id.isEmpty()) {
+			throw new IllegalArgumentException("Error! Game id is missing.");
+		} else if (sessions.putIfAbsent(id, new GameSession()) != null) {
+			throw new IllegalArgumentException("Error! Game already exists: " + id);
+		}
+	}
+
+	/**
+	 * Runs an action on the game of a session. The session is locked during
+	 * the action and restored first if it is evicted.
+	 * @param <T> type of the result
+	 * @param id id of the session
+	 * @param action action on the game
+	 * @return result of the action
+	 */
+	public <T> T execute(String id, Function<Othello, T> action) {
+		if (action == null) {
+			throw new IllegalArgumentException("Error! Action is missing.");
+		}
+
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		GameSession session = this.find(id);
+		T result;
+		session.lock();
+		try {
+			if (session.isRemoved()) {
+				throw new IllegalArgumentException("Error! Unknown game: " + id);
+			}
+			result = action.apply(session.open());
+		} finally {
+			session.unlock();
+		}
+		EXECUTE_METRIC.record(started, allocated);
+		return result;
+	}
+
+	/**
+	 * Stops the searches of the game of a session without waiting for its
+	 * lock, so that an action which searches ends soon. The searches stay
+	 * stopped until the game is resumed by {@link Othello#resume()}.
+	 * @param id id of the session
+	 */
+	public void stop(String id) {
+		this.find(id).stop();
+	}
+
+	/**
+	 * Removes a session.
+	 * @param id id of the session
+	 */
+	public void remove(String id) {
+		GameSession session = this.find(id);
+		session.lock();
+		try {
+			session.remove();
+			sessions.remove(id, session);
+		} finally {
+			session.unlock();
+		}
+	}
+
+	/**
+	 * Check whether there is a session with the id.
+	 * @param id id of the session
+	 * @return {@code true} if the session exists, {@code false} otherwise
+	 */
+	public boolean contains(String id) {
+		return id != null && sessions.containsKey(id);
+	}
+
+	/**
+	 * Returns the number of sessions.
+	 * @return the number of sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Counts the sessions whose game is live. The sessions are not locked, so
+	 * the count is only a hint while they are in use.
+	 * @return number of live sessions
+	 */
+	public int countLive() {
+		int counter = 0;
+		for (GameSession session : sessions.values()) {
+			if (session.isLive()) {
+				counter++;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Evicts the sessions which were not accessed for the time. Sessions
+	 * which are in use are skipped, so the eviction never waits for a game.
+	 * @param milliseconds idle time of the evicted sessions
+	 * @return number of evicted sessions
+	 */
+	public int evictIdle(long milliseconds) {
+		if (milliseconds < 0) {
+			throw new IllegalArgumentException("Error! Invalid idle time.");
+		}
+
+		long idle = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+		long now = System.nanoTime();
+		int counter = 0;
+		for (GameSession session : sessions.values()) {
+			if (session.tryLock()) {
+				try {
+					if (session.evict(now, idle)) {
+						counter++;
+					}
+				} finally {
+					session.unlock();
+				}
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Starts to evict the idle sessions periodically on a background thread.
+	 * @param milliseconds idle time of the evicted sessions
+	 * @param period time between two evictions in milliseconds
+	 */
+	public synchronized void startEviction(final long milliseconds, long period) {
+		if (milliseconds < 0) {
+			throw new IllegalArgumentException("Error! Invalid idle time.");
+		} else if (period < 1) {
+			throw new IllegalArgumentException("Error! Invalid eviction period.");
+		} else if (evictor != null) {
+			throw new IllegalArgumentException("Error! Eviction is already started.");
+		}
+
+		this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "game-evictor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		evictor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				evictIdle(milliseconds);
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the periodic eviction and the search threads of all sessions.
+	 */
+	public synchronized void shutdown() {
+		if (evictor != null) {
+			evictor.shutdownNow();
+			this.evictor = null;
+		}
+		for (GameSession session : sessions.values()) {
+			session.lock();
+			try {
+				session.evict(System.nanoTime(), 0);
+			} finally {
+				session.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Finds a session.
+	 * @param id id of the session
+	 * @return the session
+	 */
+	private GameSession find(String id) {
+		GameSession session = null;
+		if (id != null) {
+			session = sessions.get(id);
+		}
+		if (session == null) {
+			throw new IllegalArgumentException("Error! Unknown game: " + id);
+		}
+		return session;
+	}
+
+}
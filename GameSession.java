@@ -0,0 +1,181 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class represents a game session of the registry. The session is either
+ * live with its Othello game or evicted to a snapshot. All methods except
+ * {@link #lock()}, {@link #tryLock()} and {@link #stop()} must be called
+ * with the lock held.
+ * @author Florian Mueller
+ */
+class GameSession {
+
+	/** lock of the session */
+	private final ReentrantLock lock;
+
+	/** live game, null if the session is evicted */
+	private volatile Othello game;
+
+	/** snapshot of the evicted active game, null if there is none */
+	private GameSnapshot snapshot;
+
+	/** number of search threads of the game */
+	private int threads;
+
+	/** flag if the evicted game ponders */
+	private boolean pondering;
+
+	/** archive of the finished games of the evicted game, null if there is none */
+	private GameArchive archive;
+
+	/** opening book of the evicted game, null if there is none */
+	private OpeningBook book;
+
+	/** flag if the searches of the evicted game are stopped */
+	private volatile boolean stopped;
+
+	/** time of the last access in nanoseconds */
+	private long lastAccess;
+
+	/** flag if the session is removed from the registry */
+	private boolean removed;
+
+	/**
+	 * Constructs a new live session without an active game.
+	 */
+	GameSession() {
+		this.lock = new ReentrantLock();
+		this.game = new Othello();
+		this.threads = 1;
+		this.lastAccess = System.nanoTime();
+	}
+
+	/**
+	 * Locks the session.
+	 */
+	void lock() {
+		lock.lock();
+	}
+
+	/**
+	 * Locks the session if it is free.
+	 * @return {@code true} if the session is locked, {@code false} otherwise
+	 */
+	boolean tryLock() {
+		return lock.tryLock();
+	}
+
+	/**
+	 * Unlocks the session.
+	 */
+	void unlock() {
+		lock.unlock();
+	}
+
+	/**
+	 * Returns the live game and restores it first if it is evicted.
+	 * @return the live game
+	 */
+	Othello open() {
+		assert lock.isHeldByCurrentThread();
+
+		if (game == null) {
+			this.game = new Othello();
+			if (stopped) {
+				game.stop();
+				this.stopped = false;
+			}
+			game.setThreads(threads);
+			game.setArchive(archive);
+			game.setBook(book);
+			if (snapshot != null) {
+				game.restore(snapshot);
+				this.snapshot = null;
+			}
+			game.setPonder(pondering);
+			this.book = null;
+		}
+		this.lastAccess = System.nanoTime();
+		return this.game;
+	}
+
+	/**
+	 * Evicts the live game to a snapshot if it was not accessed for the time.
+	 * The number of search threads, the ponder flag, the stop signal, the
+	 * archive and the opening book are kept with the snapshot, which holds
+	 * the moves recorded for the archive. The restored game ponders again,
+	 * its counts of the predictions start anew. A game on a sparse board has
+	 * no snapshot, so it stays live.
+	 * @param now current time in nanoseconds
+	 * @param idle idle time in nanoseconds
+	 * @return {@code true} if the game is evicted, {@code false} otherwise
+	 */
+	boolean evict(long now, long idle) {
+		assert lock.isHeldByCurrentThread();
+
+		boolean result = false;
+		if (game != null && !removed && now - lastAccess >= idle && !game.gameIsSparse()) {
+			if (game.gameIsActive()) {
+				this.snapshot = game.snapshot();
+			}
+			this.threads = game.getThreads();
+			this.pondering = game.isPondering();
+			this.archive = game.getArchive();
+			this.book = game.getBook();
+			this.stopped = game.isStopped();
+			game.release();
+			this.game = null;
+			result = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the searches of the game without the lock, so that the thread
+	 * which holds the lock ends its search. The stop of an evicted game is
+	 * kept until the game is restored. The game is read again after the stop
+	 * is kept, because it may be restored meanwhile.
+	 */
+	void stop() {
+		Othello live = this.game;
+		if (live == null) {
+			this.stopped = true;
+			live = this.game;
+		}
+		if (live != null) {
+			live.stop();
+		}
+	}
+
+	/**
+	 * Removes the session and stops its search threads.
+	 */
+	void remove() {
+		assert lock.isHeldByCurrentThread();
+
+		if (game != null) {
+			game.release();
+		}
+		this.game = null;
+		this.snapshot = null;
+		this.archive = null;
+		this.book = null;
+		this.removed = true;
+	}
+
+	/**
+	 * Check whether the session is removed from the registry.
+	 * @return {@code true} if the session is removed, {@code false} otherwise
+	 */
+	boolean isRemoved() {
+		return this.removed;
+	}
+
+	/**
+	 * Check whether the game of the session is live.
+	 * @return {@code true} if the game is live, {@code false} if it is evicted
+	 */
+	boolean isLive() {
+		return game != null;
+	}
+
+}
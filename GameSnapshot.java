@@ -0,0 +1,74 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents the compact state of an active game. It holds the
+ * game as saved by {@link Othello#save(ByteBuffer)} with two bits per cell,
+ * so an idle game needs only a small part of the memory of its board, and
+ * the moves which are recorded for the archive but not archived yet.
+ * @author Florian Mueller
+ */
+public final class GameSnapshot {
+
+	/** saved game */
+	private final byte[] data;
+
+	/** recorded moves of the game which are not archived yet */
+	private final byte[] record;
+
+	/**
+	 * Constructs a new game snapshot without recorded moves.
+	 * @param data game saved by {@link Othello#save(ByteBuffer)}
+	 */
+	public GameSnapshot(byte[] data) {
+		this(data, new byte[0]);
+	}
+
+	/**
+	 * Constructs a new game snapshot.
+	 * @param data game saved by {@link Othello#save(ByteBuffer)}
+	 * @param record recorded moves of the game which are not archived yet
+	 */
+	GameSnapshot(byte[] data, byte[] record) {
+		if (data == null) {
+			throw new IllegalArgumentException("Error! Saved game is missing.");
+		} else if (record == null) {
+			throw new IllegalArgumentException("Error! Recorded moves are missing.");
+		}
+
+		this.data = data.clone();
+		this.record = record.clone();
+	}
+
+	/**
+	 * Returns the number of bytes of the saved game.
+	 * @return the number of bytes
+	 */
+	public int size() {
+		return data.length;
+	}
+
+	/**
+	 * Returns the saved game.
+	 * @return copy of the saved game
+	 */
+	public byte[] getData() {
+		return this.data.clone();
+	}
+
+	/**
+	 * Returns a read-only buffer of the saved game without a copy.
+	 * @return buffer of the saved game
+	 */
+	ByteBuffer buffer() {
+		return ByteBuffer.wrap(data).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns a read-only buffer of the recorded moves without a copy.
+	 * @return buffer of the recorded moves, empty if there are none
+	 */
+	ByteBuffer record() {
+		return ByteBuffer.wrap(record).asReadOnlyBuffer();
+	}
+
+}
@@ -0,0 +1,156 @@
+/**
+ * This class counts latencies in a histogram of fixed size, so that millions
+ * of values take no more memory than a few. The buckets are log-linear:
+ * each power of two is split into sixteen buckets, so a percentile is off
+ * by at most one sixteenth of its value.
+ * @author Florian Mueller
+ */
+public class LatencyHistogram {
+
+	/** number of bits of the buckets within a power of two */
+	private static final int SUB_BITS = 4;
+
+	/** number of buckets within a power of two */
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** number of buckets */
+	static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	/** number of values of each bucket */
+	private final long[] buckets;
+
+	/** number of values */
+	private long count;
+
+	/** sum of the values */
+	private long sum;
+
+	/** largest value */
+	private long max;
+
+	/**
+	 * Constructs a new empty histogram.
+	 */
+	public LatencyHistogram() {
+		this.buckets = new long[BUCKETS];
+	}
+
+	/**
+	 * Constructs a histogram from the counts of its buckets, for example to
+	 * read a histogram which is counted by several threads.
+	 * @param buckets number of values of each bucket, which are copied
+	 * @param sum sum of the values
+	 * @param max largest value
+	 */
+	LatencyHistogram(long[] buckets, long sum, long max) {
+		assert buckets.length == BUCKETS;
+
+		this.buckets = buckets.clone();
+		for (long bucket : buckets) {
+			count += bucket;
+		}
+		this.sum = sum;
+		this.max = max;
+	}
+
+	/**
+	 * Adds a value.
+	 * @param nanos latency in nanoseconds, at least 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		buckets[bucket(value)]++;
+		count++;
+		sum += value;
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Returns the number of values.
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the largest value.
+	 * @return the largest value, 0 if there is none
+	 */
+	public long getMax() {
+		return this.max;
+	}
+
+	/**
+	 * Returns the mean of the values.
+	 * @return the mean, 0 if there is none
+	 */
+	public double getMean() {
+		return (double) sum / Math.max(1, count);
+	}
+
+	/**
+	 * Returns the value below which a share of the values lies.
+	 * @param share share of the values between 0 and 1
+	 * @return lowest value of the bucket of the percentile, 0 if there is none
+	 */
+	public long getPercentile(double share) {
+		if (share < 0 || share > 1) {
+			throw new IllegalArgumentException("Error! Invalid percentile.");
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(share * count));
+		long seen = 0;
+		int index = 0;
+		while (index < buckets.length - 1 && seen + buckets[index] < rank) {
+			seen += buckets[index];
+			index++;
+		}
+		long result = 0;
+		if (count > 0) {
+			result = Math.min(max, lowest(index));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the mean, the percentiles and the maximum in microseconds.
+	 * @return mean, percentiles and maximum of the values
+	 */
+	public String toString() {
+		return String.format("mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, "
+				+ "p99.9 %.1f us, max %.1f us", this.getMean() / 1e3,
+				this.getPercentile(0.5) / 1e3, this.getPercentile(0.9) / 1e3,
+				this.getPercentile(0.99) / 1e3, this.getPercentile(0.999) / 1e3, max / 1e3);
+	}
+
+	/**
+	 * Returns the bucket of a value.
+	 * @param value value at least 0
+	 * @return index of the bucket
+	 */
+	static int bucket(long value) {
+		int result = (int) value;
+		if (value >= SUB_BUCKETS) {
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+			result = (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the lowest value of a bucket.
+	 * @param bucket index of the bucket
+	 * @return lowest value of the bucket
+	 */
+	private static long lowest(int bucket) {
+		long result = bucket;
+		if (bucket >= SUB_BUCKETS) {
+			int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+			result = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,202 @@
+/**
+ * This class collects the results of a match between two engines. It
+ * estimates the Elo difference and runs a sequential probability ratio test
+ * (SPRT) of the hypotheses that the first engine is elo0 or elo1 points
+ * stronger. The log-likelihood ratio uses the normal approximation of the
+ * score of the wins, draws and losses.
+ * @author Florian Mueller
+ */
+public class MatchStatistics {
+
+	/** quantile of the normal distribution for the 95% interval */
+	private static final double QUANTILE = 1.959964;
+
+	/** Elo difference of the null hypothesis */
+	private double elo0;
+
+	/** Elo difference of the alternative hypothesis */
+	private double elo1;
+
+	/** lower bound of the log-likelihood ratio, H0 is accepted below */
+	private double lowerBound;
+
+	/** upper bound of the log-likelihood ratio, H1 is accepted above */
+	private double upperBound;
+
+	/** number of wins of the first engine */
+	private int wins;
+
+	/** number of draws */
+	private int draws;
+
+	/** number of losses of the first engine */
+	private int losses;
+
+	/**
+	 * Constructs new match statistics.
+	 * @param elo0 Elo difference of the null hypothesis
+	 * @param elo1 Elo difference of the alternative hypothesis
+	 * @param alpha probability of a false positive
+	 * @param beta probability of a false negative
+	 */
+	public MatchStatistics(double elo0, double elo1, double alpha, double beta) {
+		if (elo0 >= elo1) {
+			throw new IllegalArgumentException("Error! Elo0 must be below elo1.");
+		} else if (alpha <= 0 || alpha >= 0.5 || beta <= 0 || beta >= 0.5) {
+			throw new IllegalArgumentException("Error! Invalid error probabilities.");
+		}
+
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.lowerBound = Math.log(beta / (1 - alpha));
+		this.upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 * Adds the result of a game.
+	 * @param score score of the first engine, 1 for a win, 0.5 for a draw
+	 *        and 0 for a loss
+	 */
+	public synchronized void add(double score) {
+		if (score == 1) {
+			wins++;
+		} else if (score == 0.5) {
+			draws++;
+		} else if (score == 0) {
+			losses++;
+		} else {
+			throw new IllegalArgumentException("Error! Invalid game score.");
+		}
+	}
+
+	/**
+	 * Returns the number of games.
+	 * @return the number of games
+	 */
+	public synchronized int getGames() {
+		return wins + draws + losses;
+	}
+
+	/**
+	 * Returns the mean score of the first engine.
+	 * @return the mean score of the first engine, 0.5 without games
+	 */
+	public synchronized double getScore() {
+		double result = 0.5;
+		int games = this.getGames();
+		if (games > 0) {
+			result = (wins + draws / 2.0) / games;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the estimated Elo difference of the first engine.
+	 * @return the estimated Elo difference
+	 */
+	public synchronized double getElo() {
+		return toElo(this.getScore());
+	}
+
+	/**
+	 * Returns the half width of the 95% interval of the Elo difference.
+	 * @return the error of the Elo difference
+	 */
+	public synchronized double getEloError() {
+		double result = 0;
+		int games = this.getGames();
+		if (games > 0) {
+			double score = this.getScore();
+			double deviation = Math.sqrt(this.variance(score) / games);
+			result = (toElo(score + QUANTILE * deviation) - toElo(score - QUANTILE * deviation)) / 2;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the log-likelihood ratio of the hypotheses.
+	 * @return the log-likelihood ratio, 0 without games or variance
+	 */
+	public synchronized double getLlr() {
+		double result = 0;
+		int games = this.getGames();
+		double score = this.getScore();
+		double variance = this.variance(score);
+		if (games > 0 && variance > 0) {
+			double score0 = toScore(elo0);
+			double score1 = toScore(elo1);
+			result = games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the decision of the test.
+	 * @return {@code H1} if the first engine is stronger by elo1, {@code H0}
+	 *         if it is at most elo0 stronger, null if there is no decision yet
+	 */
+	public synchronized String getDecision() {
+		String result = null;
+		double llr = this.getLlr();
+		if (llr >= upperBound) {
+			result = "H1";
+		} else if (llr <= lowerBound) {
+			result = "H0";
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statistics of the match.
+	 * @return the statistics of the match
+	 */
+	public synchronized String toString() {
+		String decision = this.getDecision();
+		if (decision == null) {
+			decision = "running";
+		} else {
+			decision = decision + " accepted";
+		}
+		return "Games: " + Integer.toString(this.getGames()) + " (+" + Integer.toString(wins)
+				+ " =" + Integer.toString(draws) + " -" + Integer.toString(losses)
+				+ "), Elo: " + String.format("%.1f +- %.1f", this.getElo(), this.getEloError())
+				+ ", LLR: " + String.format("%.2f [%.2f, %.2f]", this.getLlr(), lowerBound, upperBound)
+				+ ", " + decision;
+	}
+
+	/**
+	 * Returns the variance of the score of one game.
+	 * @param score mean score
+	 * @return variance of the score
+	 */
+	private double variance(double score) {
+		double result = 0;
+		int games = this.getGames();
+		if (games > 0) {
+			result = (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+					+ losses * score * score) / games;
+		}
+		return result;
+	}
+
+	/**
+	 * Converts a score to an Elo difference. The score is limited, so that
+	 * the difference stays finite.
+	 * @param score mean score
+	 * @return Elo difference
+	 */
+	private static double toElo(double score) {
+		double limited = Math.max(0.001, Math.min(0.999, score));
+		return -400 * Math.log10(1 / limited - 1);
+	}
+
+	/**
+	 * Converts an Elo difference to the expected score.
+	 * @param elo Elo difference
+	 * @return expected score
+	 */
+	private static double toScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+}
@@ -0,0 +1,128 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts the calls of one operation for the {@link Metrics}: their
+ * number, their latencies and the bytes they allocate. Many threads can count
+ * at once without a lock: the sums are {@link LongAdder}s and the latencies
+ * go to atomic buckets of the layout of the {@link LatencyHistogram}. Calls
+ * of an operation with events which take at least
+ * {@link Metrics#EVENT_THRESHOLD} are written to a running flight recording
+ * as {@link OperationEvent}.
+ * @author Florian Mueller
+ */
+public class Metric {
+
+	/** name of the operation */
+	private final String name;
+
+	/** flag whether long calls are written as events */
+	private final boolean events;
+
+	/** number of calls */
+	private final LongAdder calls;
+
+	/** sum of the latencies in nanoseconds */
+	private final LongAdder nanos;
+
+	/** sum of the allocated bytes */
+	private final LongAdder bytes;
+
+	/** largest latency in nanoseconds */
+	private final AtomicLong max;
+
+	/** number of calls of each latency bucket */
+	private final AtomicLongArray buckets;
+
+	/**
+	 * Constructs a new metric without calls.
+	 * @param name name of the operation
+	 * @param events flag whether long calls are written as events
+	 */
+	Metric(String name, boolean events) {
+		this.name = name;
+		this.events = events;
+		this.calls = new LongAdder();
+		this.nanos = new LongAdder();
+		this.bytes = new LongAdder();
+		this.max = new AtomicLong();
+		this.buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+	}
+
+	/**
+	 * Returns the name of the operation.
+	 * @return the name of the operation
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Counts a call which is finished now. Nothing is counted if the metrics
+	 * were off when the call started.
+	 * @param start time of the start of {@link Metrics#start()}
+	 * @param allocated allocated bytes at the start of
+	 *        {@link Metrics#allocated()}
+	 */
+	public void record(long start, long allocated) {
+		if (start != Metrics.OFF) {
+			long latency = Math.max(0, System.nanoTime() - start);
+			long allocation = Math.max(0, Metrics.allocated() - allocated);
+			calls.increment();
+			nanos.add(latency);
+			bytes.add(allocation);
+			buckets.incrementAndGet(LatencyHistogram.bucket(latency));
+			long current = max.get();
+			while (latency > current && !max.compareAndSet(current, latency)) {
+				current = max.get();
+			}
+			if (events && latency >= Metrics.EVENT_THRESHOLD) {
+				OperationEvent event = new OperationEvent();
+				if (event.isEnabled()) {
+					event.operation = name;
+					event.latency = latency;
+					event.allocated = allocation;
+					event.commit();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of calls.
+	 * @return the number of calls
+	 */
+	public long getCalls() {
+		return this.calls.sum();
+	}
+
+	/**
+	 * Reads the counts. Calls which are counted meanwhile may be part of some
+	 * counts only.
+	 * @param seconds length of the interval of the counts
+	 * @return snapshot of the counts
+	 */
+	MetricSnapshot snapshot(double seconds) {
+		long[] counts = new long[LatencyHistogram.BUCKETS];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return new MetricSnapshot(name, new LatencyHistogram(counts, nanos.sum(), max.get()),
+				bytes.sum(), seconds);
+	}
+
+	/**
+	 * Removes all counts.
+	 */
+	void reset() {
+		calls.reset();
+		nanos.reset();
+		bytes.reset();
+		max.set(0);
+		for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+	}
+
+}
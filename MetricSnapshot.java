@@ -0,0 +1,95 @@
+/**
+ * This class holds the counts of one operation of the {@link Metrics} at one
+ * time: the number of calls per second, the latencies and the allocation
+ * rate over the interval since the metrics were reset.
+ * @author Florian Mueller
+ */
+public class MetricSnapshot {
+
+	/** name of the operation */
+	private final String name;
+
+	/** latencies of the calls */
+	private final LatencyHistogram latencies;
+
+	/** sum of the allocated bytes */
+	private final long bytes;
+
+	/** length of the interval in seconds */
+	private final double seconds;
+
+	/**
+	 * Constructs a new snapshot.
+	 * @param name name of the operation
+	 * @param latencies latencies of the calls
+	 * @param bytes sum of the allocated bytes
+	 * @param seconds length of the interval in seconds
+	 */
+	MetricSnapshot(String name, LatencyHistogram latencies, long bytes, double seconds) {
+		this.name = name;
+		this.latencies = latencies;
+		this.bytes = bytes;
+		this.seconds = Math.max(1e-9, seconds);
+	}
+
+	/**
+	 * Returns the name of the operation.
+	 * @return the name of the operation
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the number of calls.
+	 * @return the number of calls
+	 */
+	public long getCalls() {
+		return this.latencies.getCount();
+	}
+
+	/**
+	 * Returns the number of calls per second of the interval.
+	 * @return calls per second
+	 */
+	public double getCallsPerSecond() {
+		return latencies.getCount() / seconds;
+	}
+
+	/**
+	 * Returns the latencies of the calls.
+	 * @return histogram of the latencies in nanoseconds
+	 */
+	public LatencyHistogram getLatencies() {
+		return this.latencies;
+	}
+
+	/**
+	 * Returns the bytes allocated per call.
+	 * @return mean of the allocated bytes, 0 without calls
+	 */
+	public double getBytesPerCall() {
+		return (double) bytes / Math.max(1, latencies.getCount());
+	}
+
+	/**
+	 * Returns the bytes allocated by the calls per second of the interval.
+	 * @return allocation rate in bytes per second
+	 */
+	public double getBytesPerSecond() {
+		return bytes / seconds;
+	}
+
+	/**
+	 * Returns the counts as one line with the latencies in microseconds.
+	 * @return name, calls, calls per second, percentiles, maximum and allocation
+	 */
+	public String toString() {
+		return String.format("%-24s %10d calls %12.1f/s  p50 %.1f us, p99 %.1f us, p99.9 %.1f us, "
+				+ "max %.1f us, %.0f B/call, %.1f MB/s", name, this.getCalls(),
+				this.getCallsPerSecond(), latencies.getPercentile(0.5) / 1e3,
+				latencies.getPercentile(0.99) / 1e3, latencies.getPercentile(0.999) / 1e3,
+				latencies.getMax() / 1e3, this.getBytesPerCall(), this.getBytesPerSecond() / 1e6);
+	}
+
+}
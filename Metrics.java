@@ -0,0 +1,186 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is the registry of the {@link Metric}s of the hot paths of the
+ * board, the game, the search and the shell. An operation is counted like
+ * this:
+ * <pre>
+ * long started = Metrics.start();
+ * long allocated = Metrics.allocated();
+ * ...
+ * METRIC.record(started, allocated);
+ * </pre>
+ * The metrics are off unless the system property {@code othello.metrics} is
+ * {@code true} or they are switched on. While they are off an operation
+ * costs one read of a volatile flag and nothing is counted. The counts
+ * cover the interval since the last reset and are read with
+ * {@link #snapshot()}.
+ * @author Florian Mueller
+ */
+public final class Metrics {
+
+	/** start time of a call while the metrics are off */
+	static final long OFF = Long.MIN_VALUE;
+
+	/** latency in nanoseconds from which a call is written as flight recorder event */
+	static final long EVENT_THRESHOLD = 1000000L;
+
+	/** metrics by the name of their operation */
+	private static final ConcurrentHashMap<String, Metric> METRICS =
+			new ConcurrentHashMap<String, Metric>();
+
+	/**
+	 * counter of the allocated bytes of the threads, null until the metrics
+	 * are switched on or if there is none
+	 */
+	private static com.sun.management.ThreadMXBean threads;
+
+	/** flag whether the metrics count, set after the counter of the bytes */
+	private static volatile boolean enabled;
+
+	/** time of the last reset in nanoseconds */
+	private static volatile long since = System.nanoTime();
+
+	/** time in nanoseconds when the metrics were switched off */
+	private static volatile long stopped = since;
+
+	static {
+		setEnabled(Boolean.getBoolean("othello.metrics"));
+	}
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private Metrics() {
+	}
+
+	/**
+	 * Returns the metric of an operation and registers it first if it is
+	 * new.
+	 * @param name name of the operation
+	 * @param events flag whether long calls are written as flight recorder
+	 *        events, only used when the metric is registered
+	 * @return the metric of the operation
+	 */
+	public static Metric get(String name, boolean events) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Error! Metric name is missing.");
+		}
+
+		Metric result = METRICS.get(name);
+		if (result == null) {
+			METRICS.putIfAbsent(name, new Metric(name, events));
+			result = METRICS.get(name);
+		}
+		return result;
+	}
+
+	/**
+	 * Switches the metrics on or off. Switching them on starts a new
+	 * interval with empty counts.
+	 * @param on {@code true} to count, {@code false} to stop counting
+	 */
+	public static synchronized void setEnabled(boolean on) {
+		if (on && !enabled) {
+			if (threads == null) {
+				threads = allocationCounter();
+			}
+			reset();
+		} else if (!on && enabled) {
+			stopped = System.nanoTime();
+		}
+		enabled = on;
+	}
+
+	/**
+	 * Check whether the metrics count.
+	 * @return {@code true} if they count, {@code false} otherwise
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Removes all counts and starts a new interval.
+	 */
+	public static void reset() {
+		for (Metric metric : METRICS.values()) {
+			metric.reset();
+		}
+		since = System.nanoTime();
+		stopped = since;
+	}
+
+	/**
+	 * Returns the start time of a call.
+	 * @return current time in nanoseconds, {@link #OFF} if the metrics are off
+	 */
+	public static long start() {
+		long result = OFF;
+		if (enabled) {
+			result = System.nanoTime();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bytes the current thread has allocated so far.
+	 * @return allocated bytes, 0 if the metrics are off or the counter is
+	 *         not supported
+	 */
+	public static long allocated() {
+		long result = 0;
+		if (enabled && threads != null) {
+			result = threads.getCurrentThreadAllocatedBytes();
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the counts of all operations with calls in the interval. The
+	 * interval ends now, or when the metrics were switched off.
+	 * @return snapshots ordered by the name of the operation
+	 */
+	public static List<MetricSnapshot> snapshot() {
+		long end = stopped;
+		if (enabled) {
+			end = System.nanoTime();
+		}
+		double seconds = (end - since) / 1e9;
+		List<MetricSnapshot> result = new ArrayList<MetricSnapshot>();
+		for (Metric metric : METRICS.values()) {
+			if (metric.getCalls() > 0) {
+				result.add(metric.snapshot(seconds));
+			}
+		}
+		Collections.sort(result, new Comparator<MetricSnapshot>() {
+			public int compare(MetricSnapshot one, MetricSnapshot two) {
+				return one.getName().compareTo(two.getName());
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Returns the counter of the allocated bytes of the threads.
+	 * @return the counter, null if it is not supported
+	 */
+	private static com.sun.management.ThreadMXBean allocationCounter() {
+		com.sun.management.ThreadMXBean result = null;
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean =
+					(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+				result = bean;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a reusable list of possible moves. The moves are
+ * stored as line and column packed into one {@code int}, so filling the list
+ * again allocates nothing. {@link PossibleMove} objects are only built on
+ * demand by {@link #toList()}.
+ * @author Florian Mueller
+ */
+public class MoveList {
+
+	/** bit shift of the line in a packed move */
+	private static final int LINE_SHIFT = 16;
+
+	/** mask of the column in a packed move */
+	private static final int COLUMN_MASK = 0xFFFF;
+
+	/** packed moves, line and column counted from 0 */
+	private int[] moves;
+
+	/** number of moves in the list */
+	private int size;
+
+	/**
+	 * Constructs a new empty move list.
+	 * @param capacity initial number of moves the list can hold
+	 */
+	public MoveList(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Error! Invalid capacity.");
+		}
+
+		this.moves = new int[capacity];
+	}
+
+	/**
+	 * Returns the number of moves.
+	 * @return the number of moves
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Check whether the list is empty.
+	 * @return {@code true} if there is no move, {@code false} otherwise
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the column of a move.
+	 * @param index index of the move
+	 * @return the column of the move
+	 */
+	public char getColumn(int index) {
+		this.checkIndex(index);
+		return (char) ('A' + (moves[index] & COLUMN_MASK));
+	}
+
+	/**
+	 * Returns the line of a move.
+	 * @param index index of the move
+	 * @return the line of the move
+	 */
+	public int getLine(int index) {
+		this.checkIndex(index);
+		return (moves[index] >>> LINE_SHIFT) + 1;
+	}
+
+	/**
+	 * Check whether the list contains the move.
+	 * @param column column of the move
+	 * @param line line of the move
+	 * @return {@code true} if the list contains the move, {@code false} otherwise
+	 */
+	public boolean contains(char column, int line) {
+		boolean result = false;
+		int move = pack(line - 1, column - 'A');
+		for (int i = 0; i < size && !result; i++) {
+			result = moves[i] == move;
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all moves.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * Sets the number of moves, the moves themselves are set afterwards.
+	 * @param size number of moves
+	 */
+	void setSize(int size) {
+		assert size >= 0;
+
+		if (size > moves.length) {
+			this.moves = Arrays.copyOf(moves, Math.max(size, moves.length * 2));
+		}
+		this.size = size;
+	}
+
+	/**
+	 * Sets a move.
+	 * @param index index of the move
+	 * @param line line of the move, counted from 0
+	 * @param column column of the move, counted from 0
+	 */
+	void set(int index, int line, int column) {
+		assert index >= 0 && index < size;
+		assert line >= 0 && column >= 0 && column <= COLUMN_MASK;
+
+		moves[index] = pack(line, column);
+	}
+
+	/**
+	 * Builds a list of possible move objects in the order of this list.
+	 * @return new list of the moves
+	 */
+	public List<PossibleMove> toList() {
+		List<PossibleMove> result = new ArrayList<PossibleMove>(size);
+		for (int i = 0; i < size; i++) {
+			result.add(new PossibleMove(this.getColumn(i), this.getLine(i)));
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the index of a move.
+	 * @param index index of the move
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Error! Invalid move index.");
+		}
+	}
+
+	/**
+	 * Packs line and column into one move.
+	 * @param line line of the move, counted from 0
+	 * @param column column of the move, counted from 0
+	 * @return packed move
+	 */
+	private static int pack(int line, int column) {
+		return (line << LINE_SHIFT) | column;
+	}
+
+}
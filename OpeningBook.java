@@ -0,0 +1,327 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class implements an opening book which is built from a game archive.
+ * The book is a table of entries sorted by key, mapped into memory and
+ * searched binary, so it takes no heap. The key of an entry is the hash of
+ * the position with the cell of the move in its low twelve bits. Symmetric
+ * positions share their entries: the position is keyed in the symmetry with
+ * the lowest hash and the move is stored in that symmetry. Each entry
+ * stores the number of games, the points and the sum of the stone
+ * differences of the player with the move. A closed book releases its
+ * mapping at once instead of at the next garbage collection.
+ * @author Florian Mueller
+ */
+public class OpeningBook implements Closeable {
+
+	/** default number of plies of a game which are added to the book */
+	public static final int DEFAULT_PLIES = 20;
+
+	/** first bytes of a book */
+	static final byte[] MAGIC = {'O', 'B'};
+
+	/** format version of a book */
+	static final byte VERSION = 1;
+
+	/** number of bytes of the book header */
+	static final int HEADER = 4;
+
+	/** number of bytes of an entry: key, count, points and stone differences */
+	static final int ENTRY_SIZE = 24;
+
+	/** mask of the cell of the move in a key */
+	private static final long CELL_MASK = 0xFFFL;
+
+	/** mapped table of the entries, null if the book is closed */
+	private MappedByteBuffer table;
+
+	/** number of entries */
+	private final int entries;
+
+	/**
+	 * Opens a book.
+	 * @param file book file
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public OpeningBook(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("Error! Book file is missing.");
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER || (size - HEADER) % ENTRY_SIZE != 0
+					|| size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Error! File is no opening book.");
+			}
+			this.table = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} finally {
+			channel.close();
+		}
+		if (table.get(0) != MAGIC[0] || table.get(1) != MAGIC[1] || table.get(2) != VERSION) {
+			this.close();
+			throw new IllegalArgumentException("Error! File is no opening book.");
+		}
+		this.entries = (table.capacity() - HEADER) / ENTRY_SIZE;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 * @return the number of entries
+	 */
+	public int size() {
+		return this.entries;
+	}
+
+	/**
+	 * Looks up the moves of a position, the most played move first.
+	 * @param board the position
+	 * @param color color of the player to move
+	 * @return moves of the book, empty if the position is not in the book
+	 */
+	public synchronized List<BookMove> lookup(Board board, char color) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		} else if (table == null) {
+			throw new IllegalArgumentException("Error! Opening book is closed.");
+		}
+
+		long hash = canonicalHash(board, color);
+		int symmetry = Board.inverseSymmetry(Integer.numberOfTrailingZeros(
+				canonicalSymmetries(board, color, hash)));
+		long prefix = hash & ~CELL_MASK;
+		List<BookMove> result = new ArrayList<BookMove>();
+		for (int i = this.search(prefix); i < entries && (this.key(i) & ~CELL_MASK) == prefix; i++) {
+			int position = HEADER + i * ENTRY_SIZE;
+			int cell = (int) (table.getLong(position) & CELL_MASK);
+			if (cell < board.getLines() * board.getColumns()) {
+				cell = board.symmetricCell(cell, symmetry);
+				PossibleMove move = new PossibleMove((char) ('A' + cell % board.getColumns()),
+						cell / board.getColumns() + 1);
+				result.add(new BookMove(move, table.getInt(position + 8),
+						table.getInt(position + 12), table.getLong(position + 16)));
+			}
+		}
+		Collections.sort(result, new Comparator<BookMove>() {
+			public int compare(BookMove one, BookMove two) {
+				int order = Integer.compare(two.getCount(), one.getCount());
+				if (order == 0) {
+					order = Double.compare(two.getWinRate(), one.getWinRate());
+				}
+				return order;
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Closes the book and releases its mapping. The book cannot be used
+	 * afterwards.
+	 */
+	public synchronized void close() {
+		if (table != null) {
+			unmap(table);
+			this.table = null;
+		}
+	}
+
+	/**
+	 * Releases a mapping with the cleaner of the JDK. If the cleaner is not
+	 * accessible, the mapping is released by the garbage collector.
+	 * @param buffer mapping to release
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			type.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+		} catch (ReflectiveOperationException e) {
+			// the garbage collector releases the mapping
+		} catch (RuntimeException e) {
+			// the garbage collector releases the mapping
+		}
+	}
+
+	/**
+	 * Builds a book from the first plies of the games of an archive.
+	 * @param archive archive of the games
+	 * @param book file of the new book
+	 * @param plies number of plies of each game which are added
+	 * @param minCount minimum number of games of an entry
+	 * @return number of entries of the book
+	 * @throws IOException if the archive cannot be read or the book cannot be
+	 *         written
+	 */
+	public static int build(Path archive, Path book, int plies, int minCount) throws IOException {
+		if (archive == null || book == null) {
+			throw new IllegalArgumentException("Error! File is missing.");
+		} else if (plies < 1) {
+			throw new IllegalArgumentException("Error! Invalid number of plies.");
+		} else if (minCount < 1) {
+			throw new IllegalArgumentException("Error! Invalid number of games.");
+		}
+
+		BookTable entries = new BookTable();
+		long[] keys = new long[plies];
+		char[] colors = new char[plies];
+		GameArchiveReader reader = new GameArchiveReader(archive);
+		try {
+			while (reader.next()) {
+				Board board = reader.getBoard();
+				int count = 0;
+				while (count < plies && reader.getActiveColor() != 0
+						&& reader.getPlayedMoves() < reader.getMoveCount()) {
+					char color = reader.getActiveColor();
+					long hash = canonicalHash(board, color);
+					int symmetries = canonicalSymmetries(board, color, hash);
+					reader.nextMove();
+					keys[count] = (hash & ~CELL_MASK)
+							| canonicalCell(board, symmetries, reader.getMoveCell());
+					colors[count] = color;
+					count++;
+				}
+				while (reader.nextMove()) {
+					// plays the game to its end
+				}
+				int difference = board.countStones('B') - board.countStones('W');
+				for (int i = 0; i < count; i++) {
+					int sign = 1;
+					if (colors[i] == 'W') {
+						sign = -1;
+					}
+					entries.add(keys[i], Integer.signum(sign * difference) + 1, sign * difference);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return entries.write(book, minCount);
+	}
+
+	/**
+	 * Returns the lowest hash of the symmetric positions.
+	 * @param board the position
+	 * @param color color of the player to move
+	 * @return the lowest hash
+	 */
+	private static long canonicalHash(Board board, char color) {
+		long result = board.getHash(color, 0);
+		for (int i = 1; i < board.countSymmetries(); i++) {
+			result = Math.min(result, board.getHash(color, i));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the symmetries whose positions have the lowest hash, more than
+	 * one if the position is symmetric.
+	 * @param board the position
+	 * @param color color of the player to move
+	 * @param hash the lowest hash
+	 * @return one bit for each of the symmetries
+	 */
+	private static int canonicalSymmetries(Board board, char color, long hash) {
+		int result = 0;
+		for (int i = 0; i < board.countSymmetries(); i++) {
+			if (board.getHash(color, i) == hash) {
+				result |= 1 << i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cell of a move in the symmetry of the lowest hash. If the
+	 * position is symmetric, the lowest of the equivalent cells is taken, so
+	 * that the equivalent moves share their entry.
+	 * @param board board of the game
+	 * @param symmetries symmetries of {@link #canonicalSymmetries(Board, char, long)}
+	 * @param cell cell of the move
+	 * @return cell of the move in the symmetry
+	 */
+	private static int canonicalCell(Board board, int symmetries, int cell) {
+		int result = Integer.MAX_VALUE;
+		for (int i = 0; i < board.countSymmetries(); i++) {
+			if ((symmetries & (1 << i)) != 0) {
+				result = Math.min(result, board.symmetricCell(cell, i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the key of an entry.
+	 * @param index index of the entry
+	 * @return key of the entry
+	 */
+	private long key(int index) {
+		return table.getLong(HEADER + index * ENTRY_SIZE);
+	}
+
+	/**
+	 * Searches the first entry whose key is not lower than the key.
+	 * @param key key to search
+	 * @return index of the entry, the number of entries if there is none
+	 */
+	private int search(long key) {
+		int low = 0;
+		int high = entries;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.key(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * main method - builds a book with arguments like {@code games.oa book.ob
+	 * 20 2}
+	 * @param args archive, book, optional number of plies and minimum number
+	 *        of games of an entry
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2 || args.length > 4) {
+			System.out.println("Error! Expected archive, book, plies and minimum count.");
+		} else {
+			try {
+				int plies = DEFAULT_PLIES;
+				int minCount = 1;
+				if (args.length > 2) {
+					plies = Integer.parseInt(args[2]);
+				}
+				if (args.length > 3) {
+					minCount = Integer.parseInt(args[3]);
+				}
+				long start = System.nanoTime();
+				int count = build(Paths.get(args[0]), Paths.get(args[1]), plies, minCount);
+				System.out.println(String.format("%d entries in %.1f s", count,
+						(System.nanoTime() - start) / 1e9));
+			} catch (NumberFormatException e) {
+				System.out.println("Error! Invalid number: " + e.getMessage());
+			} catch (IOException e) {
+				System.out.println("Error! " + e.getMessage());
+			} catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * This class is the flight recorder event of a long call of an operation
+ * which is counted by the {@link Metrics}. The event is committed when the
+ * call is finished, so its latency is a field and not the duration of the
+ * event.
+ * @author Florian Mueller
+ */
+@Name("othello.Operation")
+@Label("Othello Operation")
+@Category("Othello")
+@Description("Call of an operation which took at least the event threshold of the metrics")
+@StackTrace(false)
+class OperationEvent extends Event {
+
+	/** name of the operation */
+	@Label("Operation")
+	String operation;
+
+	/** latency of the call */
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+
+	/** bytes allocated by the call */
+	@Label("Allocated")
+	@DataAmount(DataAmount.BYTES)
+	long allocated;
+
+}
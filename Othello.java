@@ -1,4 +1,9 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class represents the Othello game itself. It stores and administers the
@@ -7,9 +12,36 @@ import java.util.List;
  */
 public class Othello {
 
+	/** number of empty cells up to which the best move is solved exactly */
+	private static final int SOLVE_EMPTIES = 14;
+
+	/** first bytes of a saved game */
+	private static final byte[] SAVE_MAGIC = {'O', 'G'};
+
+	/** format version of a saved game */
+	private static final byte SAVE_VERSION = 1;
+
+	/** number of bytes of a saved game before the cells */
+	private static final int SAVE_HEADER = 6;
+
+	/** flag of a saved game if white is the active player */
+	private static final int FLAG_WHITE = 1;
+
+	/** flag of a saved game if the game has started */
+	private static final int FLAG_STARTED = 2;
+
+	/** size of the transposition table of the engine in megabytes */
+	private static final int TABLE_SIZE = 64;
+
+	/** metric of {@link #move(char, int)} */
+	private static final Metric MOVE_METRIC = Metrics.get("othello.move", true);
+
 	/** Othello playing board */
 	private Board board;
 
+	/** playing board of a game beyond the size of the board, null if there is none */
+	private SparseBoard sparseBoard;
+
 	/** player one of the Othello game */
 	private Player playerOne;
 
@@ -23,7 +55,52 @@ public class Othello {
 	private boolean gameStarted;
 
 	/** list of possible moves of the active player */
-	private List<PossibleMove> possibleMoves;
+	private MoveList possibleMoves;
+
+	/** search engine for the best move */
+	private ParallelSearch engine;
+
+	/** number of search threads */
+	private int threads = 1;
+
+	/** archive of the finished games, null if the games are not archived */
+	private GameArchive archive;
+
+	/** moves of the current game which are not archived yet */
+	private ByteBuffer record;
+
+	/** opening book for the best move, null if there is none */
+	private OpeningBook book;
+
+	/** solver of the end of the game */
+	private EndgameSolver solver;
+
+	/** transposition table of the engine and the ponder search */
+	private TranspositionTable table;
+
+	/** flag whether the position is searched while waiting for a move */
+	private boolean pondering;
+
+	/** search of the background thread while waiting for a move */
+	private Search ponderSearch;
+
+	/** running ponder search, null if there is none */
+	private Ponder ponder;
+
+	/** number of ponder searches with a predicted reply */
+	private int ponderPredictions;
+
+	/** number of predicted replies which were played */
+	private int ponderHits;
+
+	/** signal to stop the searches, raised until the game is resumed */
+	private final AtomicBoolean stopSignal = new AtomicBoolean(false);
+
+	/** stones of black at the end of the last game, -1 if no game has ended */
+	private int finalBlack = -1;
+
+	/** stones of white at the end of the last game, -1 if no game has ended */
+	private int finalWhite = -1;
 
 	/**
 	 * Othello standard constructor.
@@ -47,39 +124,253 @@ public class Othello {
 		} else if (this.gameIsActive()) {
 			throw new IllegalArgumentException(
 					"Error! There is already an active game.");
-		} else if (playBoard != null) {
-
-			for (String s : playBoard) {
-				if (!s.matches("[W,B,#,,-]+")) {
-					throw new IllegalArgumentException(
-							"Error! Invalid board parameters.");
-				} else if (s.length() != columns) {
-					throw new IllegalArgumentException(
-							"Error! Board columns not equal to columns.");
-				}
-			}
+		}
 
-			if (playBoard.size() != lines) {
-				throw new IllegalArgumentException(
-						"Error! Board lines not equal to lines.");
-			}
+		return this.start(new Board(lines, columns, playBoard), 'B');
+	}
+
+	/**
+	 * Starts a new Othello game on a board in the notation of
+	 * {@link Board#parse(CharSequence, int, int)}.
+	 * @param lines line length of the new playing board
+	 * @param columns column length of the new playing board
+	 * @param notation notation of the playing board
+	 * @param color color of the player to move
+	 * @return message if one or both players can make no move
+	 */
+	public String newGame(int lines, int columns, CharSequence notation, char color) {
+		if (this.gameIsActive()) {
+			throw new IllegalArgumentException(
+					"Error! There is already an active game.");
+		} else if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		return this.start(Board.parse(notation, lines, columns), color);
+	}
+
+	/**
+	 * Starts a new Othello game at a position of {@link #getPosition()}. The
+	 * size of the board is taken from the notation.
+	 * @param position notation of the board, a space and the color of the
+	 *        player to move
+	 * @return message if one or both players can make no move
+	 */
+	public String newGame(String position) {
+		if (position == null) {
+			throw new IllegalArgumentException("Error! Position is missing.");
+		}
+
+		int space = position.indexOf(' ');
+		if (space < 0 || space != position.length() - 2) {
+			throw new IllegalArgumentException("Error! Invalid position.");
+		}
+		return this.newGame(Board.notationLines(position, 0, space),
+				Board.notationColumns(position, 0, space), position.subSequence(0, space),
+				position.charAt(space + 1));
+	}
+
+	/**
+	 * Starts a new Othello game on a {@link SparseBoard}, for boards beyond
+	 * 98 lines and 26 columns. Such a game can be played, printed and
+	 * aborted, and holes can be set, but the search, the solver, the saving
+	 * and the archive need the dense board.
+	 * @param lines line length of the new playing board
+	 * @param columns column length of the new playing board
+	 * @return message if one or both players can make no move
+	 */
+	public String newSparseGame(int lines, int columns) {
+		if (this.gameIsActive()) {
+			throw new IllegalArgumentException(
+					"Error! There is already an active game.");
 		}
 
+		SparseBoard sparse = new SparseBoard(lines, columns);
 		this.playerOne = new Player("Black", 'B');
 		this.playerTwo = new Player("White", 'W');
 		this.activePlayer = playerOne;
-		this.board = new Board(lines, columns, playBoard);
+		this.sparseBoard = sparse;
 		this.gameStarted = false;
-		this.possibleMoves = board.getPossibleMoves(this.activePlayer.getColor());
+		this.possibleMoves = new MoveList(0);
+		if (this.record != null) {
+			record.clear();
+		}
 		return this.checkPossibleMoves();
 	}
 
+	/**
+	 * Returns the position of the active game: the notation of the board of
+	 * {@link Board#toNotation()}, a space and the color of the player to
+	 * move.
+	 * @return the position
+	 */
+	public String getPosition() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		return board.toNotation() + " " + this.activePlayer.getColor();
+	}
+
+	/**
+	 * Returns the number of bytes of a saved game.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @return number of bytes
+	 */
+	public static int savedSize(int lines, int columns) {
+		return SAVE_HEADER + Board.packedSize(lines, columns);
+	}
+
+	/**
+	 * Returns the number of bytes of the active game when it is saved.
+	 * @return number of bytes
+	 */
+	public int savedSize() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+		return savedSize(board.getLines(), board.getColumns());
+	}
+
+	/**
+	 * Saves the active game to the buffer at its position. The game is saved
+	 * as the bytes {@code 'O', 'G'}, the format version, the line length, the
+	 * column length, the flags of the active player and the start and the
+	 * cells with two bits each.
+	 * @param buffer buffer for the saved game
+	 */
+	public void save(ByteBuffer buffer) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		} else if (buffer == null) {
+			throw new IllegalArgumentException("Error! Buffer is missing.");
+		} else if (buffer.remaining() < savedSize(board.getLines(), board.getColumns())) {
+			throw new IllegalArgumentException("Error! Buffer is too small.");
+		}
+
+		int flags = 0;
+		if (this.activePlayer.getColor() == 'W') {
+			flags |= FLAG_WHITE;
+		}
+		if (this.gameStarted) {
+			flags |= FLAG_STARTED;
+		}
+		buffer.put(SAVE_MAGIC[0]);
+		buffer.put(SAVE_MAGIC[1]);
+		buffer.put(SAVE_VERSION);
+		buffer.put((byte) board.getLines());
+		buffer.put((byte) board.getColumns());
+		buffer.put((byte) flags);
+		board.pack(buffer);
+	}
+
+	/**
+	 * Loads a game saved by {@link #save(ByteBuffer)} from the buffer at its
+	 * position.
+	 * @param buffer buffer with the saved game
+	 */
+	public void load(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("Error! Buffer is missing.");
+		} else if (this.gameIsActive()) {
+			throw new IllegalArgumentException(
+					"Error! There is already an active game.");
+		} else if (buffer.remaining() < SAVE_HEADER || buffer.get(buffer.position()) != SAVE_MAGIC[0]
+				|| buffer.get(buffer.position() + 1) != SAVE_MAGIC[1]
+				|| buffer.get(buffer.position() + 2) != SAVE_VERSION) {
+			throw new IllegalArgumentException("Error! Invalid saved game.");
+		}
+
+		int start = buffer.position();
+		int lines = buffer.get(start + 3) & 0xFF;
+		int columns = buffer.get(start + 4) & 0xFF;
+		int flags = buffer.get(start + 5);
+		if ((flags & ~(FLAG_WHITE | FLAG_STARTED)) != 0) {
+			throw new IllegalArgumentException("Error! Invalid saved game.");
+		}
+		buffer.position(start + SAVE_HEADER);
+		try {
+			this.board = Board.unpack(lines, columns, buffer);
+		} catch (IllegalArgumentException e) {
+			buffer.position(start);
+			throw e;
+		}
+
+		this.playerOne = new Player("Black", 'B');
+		this.playerTwo = new Player("White", 'W');
+		this.activePlayer = playerOne;
+		if ((flags & FLAG_WHITE) != 0) {
+			this.activePlayer = playerTwo;
+		}
+		this.gameStarted = (flags & FLAG_STARTED) != 0;
+		this.possibleMoves = new MoveList(lines * columns);
+		board.fillMoves(this.activePlayer.getColor(), this.possibleMoves);
+		if (this.record != null) {
+			record.clear();
+		}
+	}
+
+	/**
+	 * Returns a compact snapshot of the active game. If the game is recorded
+	 * for the archive, the snapshot holds the moves recorded so far.
+	 * @return snapshot of the active game
+	 */
+	public GameSnapshot snapshot() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(savedSize(board.getLines(), board.getColumns()));
+		this.save(buffer);
+		byte[] recorded = new byte[0];
+		if (this.record != null) {
+			recorded = new byte[record.position()];
+			System.arraycopy(record.array(), 0, recorded, 0, recorded.length);
+		}
+		return new GameSnapshot(buffer.array(), recorded);
+	}
+
+	/**
+	 * Continues the game of a snapshot. The recorded moves of the snapshot
+	 * are kept if an archive is set, so that the game is archived in full
+	 * when it ends.
+	 * @param snapshot snapshot of the game
+	 */
+	public void restore(GameSnapshot snapshot) {
+		if (snapshot == null) {
+			throw new IllegalArgumentException("Error! Snapshot is missing.");
+		}
+
+		this.load(snapshot.buffer());
+		if (this.record != null) {
+			record.put(snapshot.record());
+		}
+	}
+
 	/**
 	 * Check whether an active game is currently running.
 	 * @return {@code true} if an active game is currently running, {@code false} otherwise
 	 */
 	public boolean gameIsActive() {
-		return board != null;
+		return board != null || sparseBoard != null;
+	}
+
+	/**
+	 * Check whether the active game is played on a {@link SparseBoard}.
+	 * @return {@code true} if the game is on a sparse board, {@code false} otherwise
+	 */
+	public boolean gameIsSparse() {
+		return sparseBoard != null;
 	}
 
 	/**
@@ -90,6 +381,21 @@ public class Othello {
 		return gameStarted;
 	}
 
+	/**
+	 * Returns the hash of the current position including the active player.
+	 * Equal positions have equal keys, so the key can be used in maps.
+	 * @return 64 bit key of the current position
+	 */
+	public long positionKey() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		return board.getHash(this.activePlayer.getColor());
+	}
+
 	/**
 	 * Checks whether a move is possible.
 	 * @param column column of the move
@@ -97,22 +403,39 @@ public class Othello {
 	 * @return {@code true} if a move is possible, {@code false} otherwise
 	 */
 	public boolean moveIsPossible(char column, int line) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		return board.isPossibleMove(column, line, this.activePlayer.getColor());
+	}
+
+	/**
+	 * Checks whether a move is possible. The column is named as the columns
+	 * of a {@link SparseBoard}, so it can have more than one letter.
+	 * @param column name of the column of the move
+	 * @param line line of the move
+	 * @return {@code true} if a move is possible, {@code false} otherwise
+	 */
+	public boolean moveIsPossible(String column, int line) {
 		if (!this.gameIsActive()) {
 			throw new IllegalArgumentException("Error! No active game.");
 		}
 
 		boolean result = false;
-		PossibleMove posMove = new PossibleMove(column, line);
-		for (PossibleMove p : this.possibleMoves) {
-			if (p.equals(posMove)) {
-				result = true;
-			}
+		if (this.gameIsSparse()) {
+			result = sparseBoard.isPossibleMove(column, line, this.activePlayer.getColor());
+		} else if (this.boardContainsPoint(column, line)) {
+			result = this.moveIsPossible(column.charAt(0), line);
 		}
 		return result;
 	}
 
 	/**
-	 * Prints the playing board and the active player.
+	 * Prints the playing board and the active player. A sparse board is too
+	 * large to print, so its size and its stones are printed instead.
 	 * @return playing board with active player
 	 */
 	public List<String> print() {
@@ -120,7 +443,17 @@ public class Othello {
 			throw new IllegalArgumentException("Error! No active game.");
 		}
 
-		List<String> result = board.getField();
+		List<String> result;
+		if (this.gameIsSparse()) {
+			result = new ArrayList<String>();
+			result.add("sparse board: " + Integer.toString(sparseBoard.getLines()) + " lines, "
+					+ Integer.toString(sparseBoard.getColumns()) + " columns");
+			result.add("black: " + Long.toString(sparseBoard.countStones('B')) + ", white: "
+					+ Long.toString(sparseBoard.countStones('W')) + ", holes: "
+					+ Long.toString(sparseBoard.countHoles()));
+		} else {
+			result = board.getField();
+		}
 		result.add("turn: " + this.activePlayer.getName().toLowerCase());
 		return result;
 	}
@@ -135,6 +468,8 @@ public class Othello {
 	public void hole(char colOne, int lineOne, char colTwo, int lineTwo) {
 		if (!this.gameIsActive()) {
 			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
 		} else if (gameStarted) {
 			throw new IllegalArgumentException(
 					"Error! Cannot add hole area. Game has already started!");
@@ -153,6 +488,37 @@ public class Othello {
 		}
 
 		board.setHole(colOne, lineOne, colTwo, lineTwo);
+		board.fillMoves(this.activePlayer.getColor(), this.possibleMoves);
+	}
+
+	/**
+	 * Set of rectangular holes on the playing board. The columns are named
+	 * as the columns of a {@link SparseBoard}, so they can have more than
+	 * one letter.
+	 * @param colOne name of the column of the first position
+	 * @param lineOne line of the first position
+	 * @param colTwo name of the column of the second position
+	 * @param lineTwo line of the second position
+	 */
+	public void hole(String colOne, int lineOne, String colTwo, int lineTwo) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (gameStarted) {
+			throw new IllegalArgumentException(
+					"Error! Cannot add hole area. Game has already started!");
+		} else if (!this.boardContainsPoint(colOne, lineOne)) {
+			throw new IllegalArgumentException("Error! Point: " + colOne
+					+ Integer.toString(lineOne) + " does not exist.");
+		} else if (!this.boardContainsPoint(colTwo, lineTwo)) {
+			throw new IllegalArgumentException("Error! Point: " + colTwo
+					+ Integer.toString(lineTwo) + " does not exist.");
+		}
+
+		if (this.gameIsSparse()) {
+			sparseBoard.setHole(colOne, lineOne, colTwo, lineTwo);
+		} else {
+			this.hole(colOne.charAt(0), lineOne, colTwo.charAt(0), lineTwo);
+		}
 	}
 	
 	/**
@@ -166,6 +532,8 @@ public class Othello {
 	public boolean boardHoleIsAllowed(char columnOne, int lineOne, char columnTwo, int lineTwo) {
 		if (!this.gameIsActive()) {
 			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
 		}
 		
 		return board.holeIsAllowed(columnOne, lineOne, columnTwo, lineTwo);
@@ -180,11 +548,36 @@ public class Othello {
 	public boolean boardContainsPoint(char column, int line) {
 		if (!this.gameIsActive()) {
 			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
 		}
 		
 		return board.containsPoint(column, line);
 	}
 
+	/**
+	 * Check whether the board contains this point. The column is named as
+	 * the columns of a {@link SparseBoard}, so it can have more than one
+	 * letter.
+	 * @param column name of the column of the point
+	 * @param line line of the point
+	 * @return {@code true} if there exists the point, {@code false} otherwise
+	 */
+	public boolean boardContainsPoint(String column, int line) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		}
+
+		boolean result;
+		if (this.gameIsSparse()) {
+			result = sparseBoard.containsPoint(column, line);
+		} else {
+			result = column != null && column.length() == 1
+					&& board.containsPoint(column.charAt(0), line);
+		}
+		return result;
+	}
+
 	/**
 	 * Check whether the positions form a rectangle.
 	 * @param colOne column of the first position
@@ -197,6 +590,8 @@ public class Othello {
 			int lineTwo) {
 		if (!this.gameIsActive()) {
 			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
 		}
 
 		return board.isRectangle(colOne, lineOne, colTwo, lineTwo);
@@ -211,24 +606,426 @@ public class Othello {
 	public String move(char column, int line) {
 		if (!this.gameIsActive()) {
 			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
 		} else if (!board.containsPoint(column, line)) {
 			throw new IllegalArgumentException("Error! Point does not exist.");
 		}
 
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
 		String result = null;
 		this.gameStarted = true;
 
 		if (this.moveIsPossible(column, line)) {
+			if (this.archive != null) {
+				if (record.position() == 0) {
+					GameArchive.begin(record, board, this.activePlayer.getColor());
+				}
+				GameArchive.addMove(record, board.cellIndex(column, line));
+			}
 			board.moveStone(column, line, this.activePlayer.getColor());
 			this.changePlayer();
-			this.possibleMoves = board.getPossibleMoves(this.activePlayer.getColor());
+			board.fillMoves(this.activePlayer.getColor(), this.possibleMoves);
 			result = this.checkPossibleMoves();
+			this.ponder();
 		} else {
 			result = "Move not possible.";
 		}
+		MOVE_METRIC.record(started, allocated);
+		return result;
+	}
+
+	/**
+	 * Moves a stone of the player to the position of the board. The column
+	 * is named as the columns of a {@link SparseBoard}, so it can have more
+	 * than one letter. A game on a sparse board is neither archived nor
+	 * pondered.
+	 * @param column name of the column of the position
+	 * @param line line of the position
+	 * @return message if one or both players can make no move after this one
+	 */
+	public String move(String column, int line) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (!this.boardContainsPoint(column, line)) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		}
+
+		String result;
+		if (this.gameIsSparse()) {
+			long started = Metrics.start();
+			long allocated = Metrics.allocated();
+			this.gameStarted = true;
+			if (sparseBoard.isPossibleMove(column, line, this.activePlayer.getColor())) {
+				sparseBoard.moveStone(column, line, this.activePlayer.getColor());
+				this.changePlayer();
+				result = this.checkPossibleMoves();
+			} else {
+				result = "Move not possible.";
+			}
+			MOVE_METRIC.record(started, allocated);
+		} else {
+			result = this.move(column.charAt(0), line);
+		}
+		return result;
+	}
+
+	/**
+	 * Searches the best move of the active player within the budget. If the
+	 * end of the game is not solved within the time, the search gets the
+	 * time which is left.
+	 * @param milliseconds time budget of the search
+	 * @param nodes node budget of the search
+	 * @return result with the best move
+	 */
+	public SearchResult bestMove(long milliseconds, long nodes) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		long start = System.nanoTime();
+		this.stopPondering();
+		SearchResult result = null;
+		if (this.book != null) {
+			for (BookMove move : book.lookup(board, this.activePlayer.getColor())) {
+				PossibleMove possible = move.getMove();
+				if (result == null && this.moveIsPossible(possible.getColumn(), possible.getLine())) {
+					result = new SearchResult(possible, (int) Math.round(move.getScore()), 0, 0, 0);
+				}
+			}
+		}
+		if (result == null && board.countEmpty() <= SOLVE_EMPTIES) {
+			result = this.solve(milliseconds);
+		}
+		if (result == null) {
+			if (this.engine == null) {
+				this.engine = new ParallelSearch(this.threads, this.engineTable());
+				engine.setStopSignal(stopSignal);
+			}
+			long remaining = milliseconds - (System.nanoTime() - start) / 1000000L;
+			result = this.engine.search(board, this.activePlayer.getColor(),
+					Math.max(1, remaining), nodes);
+		}
+		return result;
+	}
+
+	/**
+	 * Solves the end of the game exactly.
+	 * @param milliseconds time budget
+	 * @return result with the best move and the final stone difference for
+	 *         the active player, null if it is not solved within the time
+	 */
+	public SearchResult solve(long milliseconds) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		this.stopPondering();
+		if (this.solver == null) {
+			this.solver = new EndgameSolver();
+			solver.setStopSignal(stopSignal);
+		}
+		return solver.solve(board, this.activePlayer.getColor(), milliseconds);
+	}
+
+	/**
+	 * Scores all possible moves of the active player in the background with
+	 * the set number of threads. The analysis works on a copy of the board,
+	 * so the game can go on meanwhile.
+	 * @param milliseconds time budget of the analysis
+	 * @param listener listener of the ranking of each completed depth, null
+	 *        for none
+	 * @return the running analysis
+	 */
+	public Analysis analyze(long milliseconds, AnalysisListener listener) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		this.stopPondering();
+		Analysis result = new Analysis(board, this.activePlayer.getColor(), this.threads,
+				milliseconds, Search.MAX_DEPTH, listener, stopSignal);
+		result.start();
+		return result;
+	}
+
+	/**
+	 * Sets the opening book. As long as the position is in the book, the
+	 * best move is its most played move instead of a search. The previous
+	 * book is closed.
+	 * @param book opening book, null for none
+	 */
+	public void setBook(OpeningBook book) {
+		if (this.book != null && this.book != book) {
+			this.book.close();
+		}
+		this.book = book;
+	}
+
+	/**
+	 * Returns the opening book.
+	 * @return the opening book, null if there is none
+	 */
+	public OpeningBook getBook() {
+		return this.book;
+	}
+
+	/**
+	 * Returns the moves of the opening book for the active player.
+	 * @return moves of the book, the most played move first
+	 */
+	public List<BookMove> bookMoves() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		} else if (this.book == null) {
+			throw new IllegalArgumentException("Error! No opening book.");
+		}
+
+		return book.lookup(board, this.activePlayer.getColor());
+	}
+
+	/**
+	 * Searches the best move of the active player with the search, for
+	 * example to let several engines play against each other.
+	 * @param search search to use
+	 * @param milliseconds time budget of the search
+	 * @param nodes node budget of the search
+	 * @param maxDepth maximum depth of the search
+	 * @return result with the best move
+	 */
+	public SearchResult bestMove(Search search, long milliseconds, long nodes, int maxDepth) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		} else if (search == null) {
+			throw new IllegalArgumentException("Error! Search is missing.");
+		}
+
+		return search.search(board, this.activePlayer.getColor(), milliseconds, nodes, maxDepth);
+	}
+
+	/**
+	 * Sets the number of threads of the search for the best move.
+	 * @param threads number of search threads
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1 || threads > ParallelSearch.MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		}
+
+		if (threads != this.threads && this.engine != null) {
+			this.engine.shutdown();
+			this.engine = null;
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Returns the number of threads of the search for the best move.
+	 * @return the number of search threads
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * Switches pondering on or off. While it is on, a background thread
+	 * searches after each move until the next move or search, so that the
+	 * search for the best move finds the likely reply and its best answer in
+	 * the shared transposition table.
+	 * @param on {@code true} to ponder, {@code false} to stop pondering
+	 */
+	public void setPonder(boolean on) {
+		this.pondering = on;
+		this.ponderPredictions = 0;
+		this.ponderHits = 0;
+		this.stopPondering();
+		if (on && this.gameIsActive() && !this.gameIsSparse()) {
+			this.startPondering();
+		}
+	}
+
+	/**
+	 * Check whether pondering is on.
+	 * @return {@code true} if it is on, {@code false} otherwise
+	 */
+	public boolean isPondering() {
+		return this.pondering;
+	}
+
+	/**
+	 * Returns the number of ponder searches which predicted the reply since
+	 * pondering was switched on.
+	 * @return the number of predictions
+	 */
+	public int getPonderPredictions() {
+		return this.ponderPredictions;
+	}
+
+	/**
+	 * Returns the number of predicted replies which were played since
+	 * pondering was switched on.
+	 * @return the number of hits
+	 */
+	public int getPonderHits() {
+		return this.ponderHits;
+	}
+
+	/**
+	 * Stops the running search, solver or analysis of the game within a few
+	 * thousand nodes, and every later one after its first iteration until
+	 * {@link #resume()} is called. Unlike the other methods it may be called
+	 * from any thread, for example when the client of the game disconnects.
+	 */
+	public void stop() {
+		stopSignal.set(true);
+	}
+
+	/**
+	 * Lets the searches of the game run to their budget again after
+	 * {@link #stop()}.
+	 */
+	public void resume() {
+		stopSignal.set(false);
+	}
+
+	/**
+	 * Check whether the searches of the game are stopped.
+	 * @return {@code true} if they are stopped, {@code false} otherwise
+	 */
+	public boolean isStopped() {
+		return stopSignal.get();
+	}
+
+	/**
+	 * Stops the threads of the search for the best move and the ponder search
+	 * and frees the tables of the search and the endgame solver. They are
+	 * created again by the next search.
+	 */
+	public void release() {
+		this.stopPondering();
+		if (this.engine != null) {
+			this.engine.shutdown();
+			this.engine = null;
+		}
+		this.solver = null;
+		this.table = null;
+		this.ponderSearch = null;
+	}
+
+	/**
+	 * Searches the current position to the depth with up to the set number of
+	 * threads and reports the nodes per second and speedup of each number.
+	 * @param depth depth of the searches
+	 * @return one line per number of threads
+	 */
+	public List<String> speedup(int depth) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		} else if (depth < 1 || depth > Search.MAX_DEPTH) {
+			throw new IllegalArgumentException("Error! Invalid search depth.");
+		}
+
+		return ParallelSearch.speedup(board, this.activePlayer.getColor(), depth, this.threads);
+	}
+
+	/**
+	 * Counts the leaf nodes of the game tree of the current position.
+	 * @param depth depth of the count
+	 * @param threads number of threads, the moves are split over them
+	 * @return number of leaf nodes
+	 */
+	public long perft(int depth, int threads) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		long result;
+		if (threads == 1) {
+			result = Perft.count(board, this.activePlayer.getColor(), depth);
+		} else {
+			result = Perft.countParallel(board, this.activePlayer.getColor(), depth, threads);
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the leaf nodes of the game tree of the current position for each
+	 * possible move.
+	 * @param depth depth of the count
+	 * @return number of leaf nodes by the name of each move
+	 */
+	public Map<String, Long> divide(int depth) {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		return Perft.divide(board, this.activePlayer.getColor(), depth);
+	}
+
+	/**
+	 * Returns the number of stones of a player at the end of the last game,
+	 * so that the result can be read after the game is over.
+	 * @param color color of the player
+	 * @return number of stones
+	 */
+	public int countFinalStones(char color) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		} else if (finalBlack < 0) {
+			throw new IllegalArgumentException("Error! No game has ended.");
+		}
+
+		int result = this.finalBlack;
+		if (color == 'W') {
+			result = this.finalWhite;
+		}
 		return result;
 	}
 
+	/**
+	 * Returns the color of the active player.
+	 * @return the color of the active player
+	 */
+	public char getActiveColor() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		}
+
+		return this.activePlayer.getColor();
+	}
+
+	/**
+	 * Returns all possible moves for the current player as objects.
+	 * @return new list of all possible moves
+	 */
+	public List<PossibleMove> getPossibleMoves() {
+		if (!this.gameIsActive()) {
+			throw new IllegalArgumentException("Error! No active game.");
+		} else if (this.gameIsSparse()) {
+			throw new IllegalArgumentException("Error! Not possible on a sparse board.");
+		}
+
+		return this.possibleMoves.toList();
+	}
+
 	/**
 	 * Returns all possible moves for the current player.
 	 * @return list of all possible moves
@@ -238,19 +1035,28 @@ public class Othello {
 			throw new IllegalArgumentException("Error! No active game.");
 		}
 
-		List<PossibleMove> possibleMoves = board.getPossibleMoves(this.activePlayer.getColor());
-		String posMoves = null;
-		boolean flag = false;
-		for (PossibleMove p : possibleMoves) {
-			if (!flag) {
-				posMoves = p.toString();
-				flag = true;
-			} else {
-				posMoves = p.toString() + "," + posMoves;
+		StringBuilder posMoves = new StringBuilder("Possible moves: ");
+		if (this.countPossibleMoves() == 0) {
+			posMoves.append("null");
+		}
+		if (this.gameIsSparse()) {
+			List<String> names = sparseBoard.getPossibleMoves(this.activePlayer.getColor());
+			for (int i = 0; i < names.size(); i++) {
+				if (i > 0) {
+					posMoves.append(',');
+				}
+				posMoves.append(names.get(i));
+			}
+		} else {
+			for (int i = this.possibleMoves.size() - 1; i >= 0; i--) {
+				posMoves.append(this.possibleMoves.getColumn(i));
+				posMoves.append(this.possibleMoves.getLine(i));
+				if (i > 0) {
+					posMoves.append(',');
+				}
 			}
 		}
-		posMoves = "Possible moves: " + posMoves;
-		return posMoves;
+		return posMoves.toString();
 	}
 
 	/**
@@ -262,15 +1068,132 @@ public class Othello {
 			throw new IllegalArgumentException("Error! No active game.");
 		}
 
+		this.stopPondering();
 		String result = this.gameEnded();
 		this.board = null;
+		this.sparseBoard = null;
 		this.activePlayer = null;
 		this.playerOne = null;
 		this.playerTwo = null;
 		this.possibleMoves.clear();
+		if (this.archive != null && record.position() > 0) {
+			record.flip();
+			try {
+				archive.append(record);
+			} catch (IOException e) {
+				throw new IllegalStateException("Error! Game cannot be archived.", e);
+			} finally {
+				record.clear();
+			}
+		}
 		return result;
 	}
 
+	/**
+	 * Sets the archive the finished games are appended to. A game is
+	 * recorded from the first move after the archive is set, with the
+	 * position before that move as its start position.
+	 * @param archive archive of the finished games, null to stop archiving
+	 */
+	public void setArchive(GameArchive archive) {
+		this.archive = archive;
+		if (archive != null && this.record == null) {
+			this.record = ByteBuffer.allocate(GameArchive.MAX_GAME);
+		}
+		if (this.record != null) {
+			record.clear();
+		}
+	}
+
+	/**
+	 * Returns the archive the finished games are appended to.
+	 * @return the archive, null if the games are not archived
+	 */
+	public GameArchive getArchive() {
+		return this.archive;
+	}
+
+	/**
+	 * Starts a new game on the board.
+	 * @param board playing board of the new game
+	 * @param color color of the player to move
+	 * @return message if one or both players can make no move
+	 */
+	private String start(Board board, char color) {
+		this.playerOne = new Player("Black", 'B');
+		this.playerTwo = new Player("White", 'W');
+		this.activePlayer = playerOne;
+		if (color == 'W') {
+			this.activePlayer = playerTwo;
+		}
+		this.board = board;
+		this.gameStarted = false;
+		this.possibleMoves = new MoveList(board.getLines() * board.getColumns());
+		board.fillMoves(this.activePlayer.getColor(), this.possibleMoves);
+		if (this.record != null) {
+			record.clear();
+		}
+		return this.checkPossibleMoves();
+	}
+
+	/**
+	 * Stops the ponder search of the last move, counts whether its prediction
+	 * was played and starts the ponder search of the new position. The end
+	 * of the game is left to the endgame solver, so it is not pondered.
+	 */
+	private void ponder() {
+		if (this.ponder != null) {
+			this.ponder.stop();
+			if (this.ponder.hasPrediction()) {
+				this.ponderPredictions++;
+				if (this.gameIsActive() && this.ponder.isHit(this.positionKey())) {
+					this.ponderHits++;
+				}
+			}
+			this.ponder = null;
+		}
+		if (this.pondering && this.gameIsActive()) {
+			this.startPondering();
+		}
+	}
+
+	/**
+	 * Starts the ponder search of the current position if it is not solved
+	 * by the endgame solver after the next move.
+	 */
+	private void startPondering() {
+		if (board.countEmpty() > SOLVE_EMPTIES + 1) {
+			if (this.ponderSearch == null) {
+				this.ponderSearch = new Search(this.engineTable());
+				ponderSearch.setStopSignal(stopSignal);
+			}
+			this.ponder = new Ponder(board, this.activePlayer.getColor(), this.ponderSearch,
+					this.engineTable());
+			this.ponder.start();
+		}
+	}
+
+	/**
+	 * Stops the ponder search and waits for its thread.
+	 */
+	private void stopPondering() {
+		if (this.ponder != null) {
+			this.ponder.stop();
+			this.ponder = null;
+		}
+	}
+
+	/**
+	 * Returns the transposition table of the engine and creates it first.
+	 * @return the transposition table
+	 */
+	private TranspositionTable engineTable() {
+		if (this.table == null) {
+			this.table = new TranspositionTable(TABLE_SIZE);
+		}
+		return this.table;
+	}
+
 	/**
 	 * Changes the active player.
 	 */
@@ -282,18 +1205,33 @@ public class Othello {
 		}
 	}
 
+	/**
+	 * Returns the number of possible moves of the active player. A sparse
+	 * board counts them itself.
+	 * @return the number of possible moves
+	 */
+	private int countPossibleMoves() {
+		int result = this.possibleMoves.size();
+		if (this.gameIsSparse()) {
+			result = sparseBoard.countMoves(this.activePlayer.getColor());
+		}
+		return result;
+	}
+
 	/**
 	 * Checks all possible moves and finish the game if no one can move more.
 	 * @return passes or winner of the match
 	 */
 	private String checkPossibleMoves() {
 		String result = null;
-		if (this.possibleMoves.size() == 0) {
+		if (this.countPossibleMoves() == 0) {
 			result = this.activePlayer.getName().toLowerCase() + " passes.";
 			this.activePlayer = playerTwo;
-			this.possibleMoves = board.getPossibleMoves(this.activePlayer.getColor());
+			if (!this.gameIsSparse()) {
+				board.fillMoves(this.activePlayer.getColor(), this.possibleMoves);
+			}
 			
-			if (this.possibleMoves.size() == 0) {
+			if (this.countPossibleMoves() == 0) {
 				result = this.abort();
 			}
 		}
@@ -306,17 +1244,26 @@ public class Othello {
 	 */
 	private String gameEnded() {
 		String result;
-		int stonesPlayerOne = board.countStones(playerOne.getColor());
-		int stonesPlayerTwo = board.countStones(playerTwo.getColor());
+		long stonesPlayerOne;
+		long stonesPlayerTwo;
+		if (this.gameIsSparse()) {
+			stonesPlayerOne = sparseBoard.countStones(playerOne.getColor());
+			stonesPlayerTwo = sparseBoard.countStones(playerTwo.getColor());
+		} else {
+			stonesPlayerOne = board.countStones(playerOne.getColor());
+			stonesPlayerTwo = board.countStones(playerTwo.getColor());
+		}
+		this.finalBlack = (int) Math.min(stonesPlayerOne, Integer.MAX_VALUE);
+		this.finalWhite = (int) Math.min(stonesPlayerTwo, Integer.MAX_VALUE);
 
 		if (stonesPlayerOne < stonesPlayerTwo) {
 			result = "Game Over! " + playerTwo.getName().toLowerCase()
-					+ " has won (" + Integer.toString(stonesPlayerTwo) + ":"
-					+ Integer.toString(stonesPlayerOne) + ")!";
+					+ " has won (" + Long.toString(stonesPlayerTwo) + ":"
+					+ Long.toString(stonesPlayerOne) + ")!";
 		} else if (stonesPlayerOne > stonesPlayerTwo) {
 			result = "Game Over! " + playerOne.getName().toLowerCase()
-					+ " has won (" + Integer.toString(stonesPlayerOne) + ":"
-					+ Integer.toString(stonesPlayerTwo) + ")!";
+					+ " has won (" + Long.toString(stonesPlayerOne) + ":"
+					+ Long.toString(stonesPlayerTwo) + ")!";
 		} else {
 			result = "Game has ended in a draw.";
 		}
@@ -0,0 +1,221 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class implements the parallel search for the best move (Lazy SMP).
+ * The main search runs on the calling thread, the helpers run on a pool. All
+ * of them search the same position on their own copy of the board and share
+ * one transposition table, so the helpers fill the table for the main search.
+ * @author Florian Mueller
+ */
+public class ParallelSearch {
+
+	/** maximum number of threads */
+	public static final int MAX_THREADS = 256;
+
+	/** time budget of a search to a fixed depth in milliseconds */
+	private static final long DEPTH_TIME = 3600000L;
+
+	/** metric of the parallel searches */
+	private static final Metric SEARCH_METRIC = Metrics.get("search.parallel", true);
+
+	/** searches of the threads, the first one is the main search */
+	private Search[] searches;
+
+	/** pool of the helper threads, null for a single thread */
+	private ExecutorService helpers;
+
+	/**
+	 * Constructs a new parallel search with its own transposition table.
+	 * @param threads number of threads
+	 */
+	public ParallelSearch(int threads) {
+		this(threads, new TranspositionTable(64));
+	}
+
+	/**
+	 * Constructs a new parallel search with the transposition table.
+	 * @param threads number of threads
+	 * @param table transposition table of all threads
+	 */
+	public ParallelSearch(int threads, TranspositionTable table) {
+		if (threads < 1 || threads > MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		} else if (table == null) {
+			throw new IllegalArgumentException(
+					"Error! Transposition table is missing.");
+		}
+
+		this.searches = new Search[threads];
+		for (int i = 0; i < threads; i++) {
+			searches[i] = new Search(table);
+		}
+		if (threads > 1) {
+			this.helpers = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "search-helper");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the number of threads.
+	 * @return the number of threads
+	 */
+	public int getThreads() {
+		return searches.length;
+	}
+
+	/**
+	 * Sets the signal of the owner which stops the searches of all threads.
+	 * @param stopSignal signal to stop the searches, null for none
+	 */
+	void setStopSignal(AtomicBoolean stopSignal) {
+		for (Search search : searches) {
+			search.setStopSignal(stopSignal);
+		}
+	}
+
+	/**
+	 * Searches the best move of the player with all threads.
+	 * @param board board to search on
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param nodeLimit node budget of each thread
+	 * @return result with the best move and the nodes of all threads
+	 */
+	public SearchResult search(Board board, char color, long milliseconds, long nodeLimit) {
+		return this.search(board, color, milliseconds, nodeLimit, Search.MAX_DEPTH);
+	}
+
+	/**
+	 * Searches the best move of the player with all threads up to the depth.
+	 * The helpers are stopped as soon as the main search is finished.
+	 * @param board board to search on
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param nodeLimit node budget of each thread
+	 * @param maxDepth maximum depth of the search
+	 * @return result with the best move and the nodes of all threads
+	 */
+	public SearchResult search(final Board board, final char color, final long milliseconds,
+			final long nodeLimit, final int maxDepth) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		}
+
+		long start = System.nanoTime();
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		final AtomicBoolean signal = new AtomicBoolean(false);
+		List<Future<SearchResult>> futures = new ArrayList<Future<SearchResult>>();
+		for (int i = 1; i < searches.length; i++) {
+			final Search helper = searches[i];
+			final Board copy = new Board(board);
+			final int number = i;
+			futures.add(helpers.submit(new Callable<SearchResult>() {
+				public SearchResult call() {
+					return helper.help(copy, color, milliseconds, nodeLimit, maxDepth,
+							number, signal);
+				}
+			}));
+		}
+
+		SearchResult main;
+		try {
+			main = searches[0].search(board, color, milliseconds, nodeLimit, maxDepth);
+		} finally {
+			signal.set(true);
+		}
+
+		long nodes = main.getNodes();
+		for (Future<SearchResult> future : futures) {
+			nodes += this.await(future).getNodes();
+		}
+		long time = (System.nanoTime() - start) / 1000000L;
+		SEARCH_METRIC.record(started, allocated);
+		return new SearchResult(main.getMove(), main.getScore(), main.getDepth(), nodes, time);
+	}
+
+	/**
+	 * Stops the helper threads. The search cannot be used afterwards.
+	 */
+	public void shutdown() {
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Searches the position to the depth with 1, 2, 4, ... up to the maximum
+	 * number of threads and reports the nodes per second and the speedup of
+	 * the time to depth against one thread.
+	 * @param board board to search on
+	 * @param color color of the player to move
+	 * @param depth depth of the searches
+	 * @param maxThreads maximum number of threads
+	 * @return one line per number of threads
+	 */
+	public static List<String> speedup(Board board, char color, int depth, int maxThreads) {
+		if (maxThreads < 1 || maxThreads > MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		}
+
+		List<String> result = new ArrayList<String>();
+		long single = 0;
+		int threads = 1;
+		while (threads <= maxThreads) {
+			ParallelSearch search = new ParallelSearch(threads);
+			SearchResult r;
+			try {
+				r = search.search(board, color, DEPTH_TIME, Long.MAX_VALUE, depth);
+			} finally {
+				search.shutdown();
+			}
+			long time = Math.max(1, r.getTime());
+			if (threads == 1) {
+				single = time;
+			}
+			result.add("threads " + Integer.toString(threads) + ": depth "
+					+ Integer.toString(r.getDepth()) + " in " + Long.toString(time)
+					+ " ms, " + Long.toString(r.getNodesPerSecond()) + " nodes/s, speedup "
+					+ String.format("%.2f", (double) single / time));
+
+			if (threads < maxThreads && threads * 2 > maxThreads) {
+				threads = maxThreads;
+			} else {
+				threads *= 2;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Waits for the result of a helper.
+	 * @param future result of the helper
+	 * @return result of the helper search
+	 */
+	private SearchResult await(Future<SearchResult> future) {
+		SearchResult result;
+		try {
+			result = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Error! Search was interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error! Helper search failed.", e.getCause());
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,382 @@
+import java.util.Arrays;
+
+/**
+ * This class evaluates positions by patterns of cells with the weights of
+ * {@link PatternWeights}. The patterns start at the cells which can never be
+ * flipped, the corners of the board and the corners made by holes: the 3x3
+ * square between two open edges, the straight lines along the edges and the
+ * diagonal line, each up to eight cells and cut off at the edge or a hole.
+ * So the same weights fit every board size and hole layout. The base-3 code
+ * of a pattern has one digit for each cell, 0 for empty, 1 for black and 2
+ * for white, and is updated on each move through
+ * {@link #makeMove(int, char)} and {@link #unmakeMove(long)}.
+ * @author Florian Mueller
+ */
+public class PatternEvaluator {
+
+	/** line steps of the eight directions, clockwise from the upper left */
+	private static final int[] DIRECTION_LINE = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+	/** column steps of the eight directions, clockwise from the upper left */
+	private static final int[] DIRECTION_COLUMN = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+	/** maximum number of cells of a line pattern */
+	private static final int MAX_LENGTH = 8;
+
+	/** maximum number of patterns of a corner, eight lines and four squares */
+	private static final int MAX_PATTERNS = 12;
+
+	/** code with black and white swapped for each code */
+	private static final int[] SWAPPED = new int[PatternWeights.size(PatternWeights.CORNER)];
+
+	static {
+		for (int i = 0; i < SWAPPED.length; i++) {
+			int code = i;
+			int power = 1;
+			while (code > 0) {
+				int digit = code % 3;
+				if (digit != 0) {
+					SWAPPED[i] += (3 - digit) * power;
+				}
+				code /= 3;
+				power *= 3;
+			}
+		}
+	}
+
+	/** weights of the patterns */
+	private final PatternWeights weights;
+
+	/** board of the evaluated positions */
+	private Board board;
+
+	/** number of cells which are no holes */
+	private int playable;
+
+	/** number of patterns */
+	private int count;
+
+	/** kind of each pattern */
+	private int[] kinds;
+
+	/** code of each pattern */
+	private int[] codes;
+
+	/** first entry of each cell, the entries of a cell end at the first entry of the next cell */
+	private int[] firstEntry;
+
+	/** pattern of each entry */
+	private int[] entryPattern;
+
+	/** power of three of the cell in the pattern of each entry */
+	private int[] entryPower;
+
+	/** buffer for the flipped stones of a move */
+	private int[] flipped;
+
+	/**
+	 * Constructs a new evaluator.
+	 * @param weights weights of the patterns
+	 */
+	public PatternEvaluator(PatternWeights weights) {
+		if (weights == null) {
+			throw new IllegalArgumentException("Error! Weights are missing.");
+		}
+
+		this.weights = weights;
+	}
+
+	/**
+	 * Sets up the patterns for the size and holes of the board and computes
+	 * their codes. It has to be called again when holes were added.
+	 * @param board board of the evaluated positions
+	 */
+	public void attach(Board board) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		}
+
+		this.board = board;
+		int lines = board.getLines();
+		int columns = board.getColumns();
+		int cells = lines * columns;
+		this.playable = cells - board.countHoles();
+		this.flipped = new int[cells];
+		boolean[] corners = Search.corners(board);
+
+		int[][] patterns = new int[MAX_PATTERNS * cells][];
+		this.kinds = new int[MAX_PATTERNS * cells];
+		this.count = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			if (corners[cell]) {
+				int line = cell / columns;
+				int column = cell % columns;
+				int[] lengths = new int[8];
+				for (int direction = 0; direction < 8; direction++) {
+					int[] ray = this.ray(line, column, direction);
+					lengths[direction] = ray.length;
+					if (ray.length > 1) {
+						patterns[count] = ray;
+						kinds[count] = PatternWeights.EDGE;
+						if (DIRECTION_LINE[direction] != 0 && DIRECTION_COLUMN[direction] != 0) {
+							kinds[count] = PatternWeights.DIAGONAL;
+						}
+						count++;
+					}
+				}
+				for (int direction = 1; direction < 8; direction += 2) {
+					int next = (direction + 2) % 8;
+					if (lengths[direction] > 1 && lengths[next] > 1) {
+						patterns[count] = this.square(line, column, direction, next);
+						kinds[count] = PatternWeights.CORNER;
+						count++;
+					}
+				}
+			}
+		}
+		this.index(patterns, cells);
+		this.codes = new int[count];
+		this.refresh();
+	}
+
+	/**
+	 * Computes the codes of the patterns from the cells of the board.
+	 */
+	public void refresh() {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! No board attached.");
+		}
+
+		Arrays.fill(codes, 0);
+		for (int cell = 0; cell < firstEntry.length - 1; cell++) {
+			char content = board.getCell(cell);
+			if (content == 'B' || content == 'W') {
+				this.change(cell, digit(content));
+			}
+		}
+	}
+
+	/**
+	 * Makes a move on the board and updates the codes.
+	 * @param cell index of the cell or {@link Board#PASS}
+	 * @param color color of the current player
+	 * @return record of the move from {@link Board#makeMove(int, char)}
+	 */
+	public long makeMove(int cell, char color) {
+		long record = board.makeMove(cell, color);
+		this.update(record, 1);
+		return record;
+	}
+
+	/**
+	 * Takes back the last move on the board and updates the codes.
+	 * @param record record of the move from {@link #makeMove(int, char)}
+	 */
+	public void unmakeMove(long record) {
+		this.update(record, -1);
+		board.unmakeMove(record);
+	}
+
+	/**
+	 * Evaluates the position for the player to move.
+	 * @param color color of the player to move
+	 * @return score in units of {@link PatternWeights#SCALE} per stone
+	 */
+	public int evaluate(char color) {
+		int phase = this.getPhase();
+		int result = 0;
+		for (int i = 0; i < count; i++) {
+			result += weights.table(phase, kinds[i])[this.getCode(i, color)];
+		}
+		return result + weights.getMobility(phase) * this.getMobility(color);
+	}
+
+	/**
+	 * Returns the phase of the game by the share of the filled cells.
+	 * @return phase between 0 and {@link PatternWeights#PHASES} - 1
+	 */
+	int getPhase() {
+		int stones = board.countStones('B') + board.countStones('W');
+		return stones * PatternWeights.PHASES / (playable + 1);
+	}
+
+	/**
+	 * Returns the number of possible moves of the player minus those of the
+	 * opponent.
+	 * @param color color of the player
+	 * @return difference of the possible moves
+	 */
+	int getMobility(char color) {
+		char opponent = 'B';
+		if (color == 'B') {
+			opponent = 'W';
+		}
+		return board.countMoves(color) - board.countMoves(opponent);
+	}
+
+	/**
+	 * Returns the number of patterns.
+	 * @return the number of patterns
+	 */
+	int countPatterns() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the kind of a pattern.
+	 * @param pattern index of the pattern
+	 * @return kind of the pattern
+	 */
+	int getKind(int pattern) {
+		return this.kinds[pattern];
+	}
+
+	/**
+	 * Returns the code of a pattern from the view of the player, so that the
+	 * digit 1 stands for the stones of the player.
+	 * @param pattern index of the pattern
+	 * @param color color of the player
+	 * @return code of the pattern
+	 */
+	int getCode(int pattern, char color) {
+		int result = codes[pattern];
+		if (color == 'W') {
+			result = SWAPPED[result];
+		}
+		return result;
+	}
+
+	/**
+	 * Updates the codes for the stones of a made or taken back move.
+	 * @param record record of the move
+	 * @param sign 1 for a made move, -1 for a taken back move
+	 */
+	private void update(long record, int sign) {
+		int cell = Board.recordCell(record);
+		if (cell != Board.PASS) {
+			int own = digit(Board.recordColor(record));
+			this.change(cell, sign * own);
+			int flips = board.listFlipped(record, flipped);
+			for (int i = 0; i < flips; i++) {
+				this.change(flipped[i], sign * (2 * own - 3));
+			}
+		}
+	}
+
+	/**
+	 * Changes the digit of a cell in the codes of its patterns.
+	 * @param cell index of the cell
+	 * @param delta change of the digit
+	 */
+	private void change(int cell, int delta) {
+		for (int i = firstEntry[cell]; i < firstEntry[cell + 1]; i++) {
+			codes[entryPattern[i]] += delta * entryPower[i];
+		}
+	}
+
+	/**
+	 * Returns the cells of a line from a cell up to the edge or a hole.
+	 * @param line line of the first cell
+	 * @param column column of the first cell
+	 * @param direction direction of the line
+	 * @return cell indices of the line, -1 for no cell
+	 */
+	private int[] ray(int line, int column, int direction) {
+		int length = 0;
+		while (length < MAX_LENGTH && this.isOpen(line + length * DIRECTION_LINE[direction],
+				column + length * DIRECTION_COLUMN[direction])) {
+			length++;
+		}
+		int[] result = new int[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = (line + i * DIRECTION_LINE[direction]) * board.getColumns()
+					+ column + i * DIRECTION_COLUMN[direction];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cells of the 3x3 square between two straight directions,
+	 * row by row from the corner. Missing cells are -1 and stay empty.
+	 * @param line line of the corner
+	 * @param column column of the corner
+	 * @param first direction of the rows
+	 * @param second direction of the columns, clockwise after the first
+	 * @return cell indices of the square
+	 */
+	private int[] square(int line, int column, int first, int second) {
+		int[] result = new int[9];
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				int cellLine = line + i * DIRECTION_LINE[first] + j * DIRECTION_LINE[second];
+				int cellColumn = column + i * DIRECTION_COLUMN[first] + j * DIRECTION_COLUMN[second];
+				result[3 * i + j] = -1;
+				if (this.isOpen(cellLine, cellColumn)) {
+					result[3 * i + j] = cellLine * board.getColumns() + cellColumn;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Check whether a cell is on the board and no hole.
+	 * @param line line of the cell
+	 * @param column column of the cell
+	 * @return {@code true} if stones can be on the cell, {@code false} otherwise
+	 */
+	private boolean isOpen(int line, int column) {
+		return line >= 0 && line < board.getLines() && column >= 0 && column < board.getColumns()
+				&& board.getCell(line * board.getColumns() + column) != '#';
+	}
+
+	/**
+	 * Builds the entries of the cells, so that a changed cell finds its
+	 * patterns without a search.
+	 * @param patterns cells of the patterns
+	 * @param cells number of cells of the board
+	 */
+	private void index(int[][] patterns, int cells) {
+		this.firstEntry = new int[cells + 1];
+		for (int i = 0; i < count; i++) {
+			for (int cell : patterns[i]) {
+				if (cell >= 0) {
+					firstEntry[cell + 1]++;
+				}
+			}
+		}
+		for (int cell = 0; cell < cells; cell++) {
+			firstEntry[cell + 1] += firstEntry[cell];
+		}
+
+		this.entryPattern = new int[firstEntry[cells]];
+		this.entryPower = new int[firstEntry[cells]];
+		int[] next = new int[cells];
+		System.arraycopy(firstEntry, 0, next, 0, cells);
+		for (int i = 0; i < count; i++) {
+			int power = 1;
+			for (int cell : patterns[i]) {
+				if (cell >= 0) {
+					entryPattern[next[cell]] = i;
+					entryPower[next[cell]] = power;
+					next[cell]++;
+				}
+				power *= 3;
+			}
+		}
+	}
+
+	/**
+	 * Returns the digit of a color.
+	 * @param color {@code 'B'} or {@code 'W'}
+	 * @return 1 for black, 2 for white
+	 */
+	private static int digit(char color) {
+		int result = 1;
+		if (color == 'W') {
+			result = 2;
+		}
+		return result;
+	}
+
+}
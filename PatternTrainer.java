@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * This class fits the weights of the {@link PatternEvaluator} to the games of
+ * an archive. Each position of a game is a sample whose target is the stone
+ * difference at the end of the game from the view of the player to move.
+ * The weights are fitted by normalized least mean squares: after each sample
+ * every used weight moves by the same share of the error, so the rate does
+ * not depend on the number of patterns of the board.
+ * @author Florian Mueller
+ */
+public class PatternTrainer {
+
+	/** default number of passes over the archive */
+	public static final int DEFAULT_EPOCHS = 4;
+
+	/** default share of the error which is corrected after each sample */
+	public static final double DEFAULT_RATE = 0.05;
+
+	/** weights of the patterns for each phase and kind by code */
+	private final double[][][] tables;
+
+	/** weights of the mobility for each phase */
+	private final double[] mobility;
+
+	/** sum of the squared errors of the current epoch */
+	private double errors;
+
+	/** number of samples of the current epoch */
+	private long samples;
+
+	/**
+	 * Constructs a new trainer with all weights zero.
+	 */
+	public PatternTrainer() {
+		this.tables = new double[PatternWeights.PHASES][PatternWeights.KINDS][];
+		this.mobility = new double[PatternWeights.PHASES];
+		for (int i = 0; i < PatternWeights.PHASES; i++) {
+			for (int j = 0; j < PatternWeights.KINDS; j++) {
+				tables[i][j] = new double[PatternWeights.size(j)];
+			}
+		}
+	}
+
+	/**
+	 * Fits the weights to all positions of the games of an archive once.
+	 * @param archive archive of the games
+	 * @param rate share of the error which is corrected after each sample
+	 * @return root mean squared error of the epoch in stones
+	 * @throws IOException if the archive cannot be read
+	 */
+	public double train(Path archive, double rate) throws IOException {
+		if (archive == null) {
+			throw new IllegalArgumentException("Error! Archive file is missing.");
+		} else if (rate <= 0 || rate >= 1) {
+			throw new IllegalArgumentException("Error! Invalid learning rate.");
+		}
+
+		this.errors = 0;
+		this.samples = 0;
+		PatternEvaluator evaluator = new PatternEvaluator(new PatternWeights());
+		GameArchiveReader reader = new GameArchiveReader(archive);
+		try {
+			while (reader.next()) {
+				while (reader.nextMove()) {
+					// plays the game to its end for the result
+				}
+				Board board = reader.getBoard();
+				int difference = board.countStones('B') - board.countStones('W');
+				reader.restart();
+				evaluator.attach(board);
+				while (reader.getActiveColor() != 0 && reader.getPlayedMoves() < reader.getMoveCount()) {
+					char color = reader.getActiveColor();
+					int target = difference;
+					if (color == 'W') {
+						target = -difference;
+					}
+					evaluator.refresh();
+					this.fit(evaluator, color, target, rate);
+					reader.nextMove();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return Math.sqrt(errors / Math.max(1, samples));
+	}
+
+	/**
+	 * Returns the fitted weights rounded to the units of the weights.
+	 * @return the fitted weights
+	 */
+	public PatternWeights getWeights() {
+		PatternWeights result = new PatternWeights();
+		for (int i = 0; i < PatternWeights.PHASES; i++) {
+			for (int j = 0; j < PatternWeights.KINDS; j++) {
+				for (int k = 0; k < tables[i][j].length; k++) {
+					result.set(i, j, k, (int) Math.round(tables[i][j][k]));
+				}
+			}
+			result.setMobility(i, (int) Math.round(mobility[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Fits the weights to one sample.
+	 * @param evaluator evaluator with the codes of the position
+	 * @param color color of the player to move
+	 * @param target stone difference at the end of the game for the player
+	 * @param rate share of the error which is corrected
+	 */
+	private void fit(PatternEvaluator evaluator, char color, int target, double rate) {
+		int phase = evaluator.getPhase();
+		int moves = evaluator.getMobility(color);
+		double prediction = mobility[phase] * moves;
+		for (int i = 0; i < evaluator.countPatterns(); i++) {
+			prediction += tables[phase][evaluator.getKind(i)][evaluator.getCode(i, color)];
+		}
+		double error = PatternWeights.SCALE * target - prediction;
+		errors += error * error / (PatternWeights.SCALE * PatternWeights.SCALE);
+		samples++;
+
+		double step = rate * error / (evaluator.countPatterns() + moves * moves);
+		for (int i = 0; i < evaluator.countPatterns(); i++) {
+			tables[phase][evaluator.getKind(i)][evaluator.getCode(i, color)] += step;
+		}
+		mobility[phase] += step * moves;
+	}
+
+	/**
+	 * main method - fits weights with arguments like {@code games.oa
+	 * weights.ow 4 0.05}
+	 * @param args archive, weight file, optional number of epochs and rate
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2 || args.length > 4) {
+			System.out.println("Error! Expected archive, weight file, epochs and rate.");
+		} else {
+			try {
+				int epochs = DEFAULT_EPOCHS;
+				double rate = DEFAULT_RATE;
+				if (args.length > 2) {
+					epochs = Integer.parseInt(args[2]);
+				}
+				if (args.length > 3) {
+					rate = Double.parseDouble(args[3]);
+				}
+				if (epochs < 1) {
+					throw new IllegalArgumentException("Error! Invalid number of epochs.");
+				}
+				PatternTrainer trainer = new PatternTrainer();
+				for (int i = 1; i <= epochs; i++) {
+					long start = System.nanoTime();
+					double error = trainer.train(Paths.get(args[0]), rate);
+					System.out.println(String.format("epoch %d: %d positions, error %.2f stones, %.1f s",
+							i, trainer.samples, error, (System.nanoTime() - start) / 1e9));
+				}
+				trainer.getWeights().save(Paths.get(args[1]));
+			} catch (NumberFormatException e) {
+				System.out.println("Error! Invalid number: " + e.getMessage());
+			} catch (IOException e) {
+				System.out.println("Error! " + e.getMessage());
+			} catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage());
+			}
+		}
+	}
+
+}
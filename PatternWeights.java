@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class holds the weights of the {@link PatternEvaluator}. There is a
+ * table for each kind of pattern which is indexed by the base-3 code of the
+ * pattern from the view of the player to move, and a weight of the mobility.
+ * All weights exist once for each phase of the game. A weight file starts
+ * with the bytes 'O', 'W', the format version and the number of phases and
+ * holds the tables and the mobility weight of each phase as big endian
+ * shorts.
+ * @author Florian Mueller
+ */
+public class PatternWeights {
+
+	/** number of game phases with their own weights */
+	public static final int PHASES = 4;
+
+	/** score of one stone in the units of the weights */
+	public static final int SCALE = 100;
+
+	/** kind of the 3x3 square at a corner */
+	static final int CORNER = 0;
+
+	/** kind of the straight line along an edge from a corner */
+	static final int EDGE = 1;
+
+	/** kind of the diagonal line from a corner */
+	static final int DIAGONAL = 2;
+
+	/** number of kinds of patterns */
+	static final int KINDS = 3;
+
+	/** number of cells of each kind of pattern */
+	static final int[] LENGTH = {9, 8, 8};
+
+	/** first bytes of a weight file */
+	private static final byte[] MAGIC = {'O', 'W'};
+
+	/** format version of a weight file */
+	private static final byte VERSION = 1;
+
+	/** number of bytes of the file header */
+	private static final int HEADER = 4;
+
+	/** weights of the patterns for each phase and kind by code */
+	private final short[][][] tables;
+
+	/** weights of the mobility for each phase */
+	private final short[] mobility;
+
+	/**
+	 * Constructs new weights which are all zero.
+	 */
+	public PatternWeights() {
+		this.tables = new short[PHASES][KINDS][];
+		this.mobility = new short[PHASES];
+		for (int i = 0; i < PHASES; i++) {
+			for (int j = 0; j < KINDS; j++) {
+				tables[i][j] = new short[size(j)];
+			}
+		}
+	}
+
+	/**
+	 * Loads weights from a file.
+	 * @param file weight file
+	 * @return the loaded weights
+	 * @throws IOException if the file cannot be read
+	 */
+	public static PatternWeights load(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("Error! Weight file is missing.");
+		}
+
+		PatternWeights result = new PatternWeights();
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			if (channel.size() != fileSize()) {
+				throw new IllegalArgumentException("Error! File is no weight file.");
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(fileSize());
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// reads until the buffer is full
+			}
+			buffer.flip();
+			if (buffer.remaining() != fileSize() || buffer.get() != MAGIC[0]
+					|| buffer.get() != MAGIC[1] || buffer.get() != VERSION
+					|| buffer.get() != PHASES) {
+				throw new IllegalArgumentException("Error! File is no weight file.");
+			}
+			for (int i = 0; i < PHASES; i++) {
+				for (int j = 0; j < KINDS; j++) {
+					buffer.asShortBuffer().get(result.tables[i][j]);
+					buffer.position(buffer.position() + 2 * size(j));
+				}
+				result.mobility[i] = buffer.getShort();
+			}
+		} finally {
+			channel.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Saves the weights to a file.
+	 * @param file weight file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("Error! Weight file is missing.");
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(fileSize());
+		buffer.put(MAGIC[0]).put(MAGIC[1]).put(VERSION).put((byte) PHASES);
+		for (int i = 0; i < PHASES; i++) {
+			for (int j = 0; j < KINDS; j++) {
+				buffer.asShortBuffer().put(tables[i][j]);
+				buffer.position(buffer.position() + 2 * size(j));
+			}
+			buffer.putShort(mobility[i]);
+		}
+		buffer.flip();
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the weight table of a kind of pattern.
+	 * @param phase phase of the game
+	 * @param kind kind of the pattern
+	 * @return weights by the code of the pattern
+	 */
+	short[] table(int phase, int kind) {
+		return this.tables[phase][kind];
+	}
+
+	/**
+	 * Returns the weight of the mobility.
+	 * @param phase phase of the game
+	 * @return weight of one possible move more than the opponent
+	 */
+	int getMobility(int phase) {
+		return this.mobility[phase];
+	}
+
+	/**
+	 * Sets the weight of the mobility.
+	 * @param phase phase of the game
+	 * @param weight weight of one possible move more than the opponent
+	 */
+	void setMobility(int phase, int weight) {
+		this.mobility[phase] = clamp(weight);
+	}
+
+	/**
+	 * Sets a weight of a pattern.
+	 * @param phase phase of the game
+	 * @param kind kind of the pattern
+	 * @param code code of the pattern
+	 * @param weight new weight
+	 */
+	void set(int phase, int kind, int code, int weight) {
+		this.tables[phase][kind][code] = clamp(weight);
+	}
+
+	/**
+	 * Returns the number of codes of a kind of pattern.
+	 * @param kind kind of the pattern
+	 * @return three to the power of the number of cells
+	 */
+	static int size(int kind) {
+		int result = 1;
+		for (int i = 0; i < LENGTH[kind]; i++) {
+			result *= 3;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes of a weight file.
+	 * @return size of a weight file
+	 */
+	private static int fileSize() {
+		int result = 0;
+		for (int i = 0; i < KINDS; i++) {
+			result += 2 * size(i);
+		}
+		return HEADER + PHASES * (result + 2);
+	}
+
+	/**
+	 * Limits a weight to the range of a short.
+	 * @param weight the weight
+	 * @return the limited weight
+	 */
+	private static short clamp(int weight) {
+		return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, weight));
+	}
+
+}
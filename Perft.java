@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class counts the leaf nodes of the game tree to a depth (perft). It
+ * validates the move generation and measures its throughput. A pass counts as
+ * a move and a finished game as a leaf. As in the Othello game, black passes if
+ * it cannot move, and the game is over if white cannot move.
+ * @author Florian Mueller
+ */
+public class Perft {
+
+	/** maximum perft depth */
+	public static final int MAX_DEPTH = 60;
+
+	/** board to count on */
+	private Board board;
+
+	/** possible moves of each ply */
+	private int[][] moves;
+
+	/**
+	 * Constructs a new perft on the board.
+	 * @param board board to count on
+	 */
+	private Perft(Board board) {
+		int cells = board.getLines() * board.getColumns();
+		this.board = board;
+		this.moves = new int[MAX_DEPTH][cells];
+	}
+
+	/**
+	 * Counts the leaf nodes to the depth.
+	 * @param board board to count on, it is the same again afterwards
+	 * @param color color of the player to move
+	 * @param depth depth of the count
+	 * @return number of leaf nodes
+	 */
+	public static long count(Board board, char color, int depth) {
+		checkParameters(board, color, depth);
+		return new Perft(board).count(color, depth, 0);
+	}
+
+	/**
+	 * Counts the leaf nodes to the depth for each possible move.
+	 * @param board board to count on, it is the same again afterwards
+	 * @param color color of the player to move
+	 * @param depth depth of the count
+	 * @return number of leaf nodes by the name of each move, in the order of
+	 *         the cells
+	 */
+	public static Map<String, Long> divide(Board board, char color, int depth) {
+		checkParameters(board, color, depth);
+
+		Perft perft = new Perft(board);
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		int[] cells = perft.moves[0];
+		int count = board.listMoves(color, cells);
+		if (count == 0) {
+			count = 1;
+			cells[0] = Board.PASS;
+		}
+		for (int i = 0; i < count; i++) {
+			long nodes = 1;
+			if (cells[i] != Board.PASS || color != 'W') {
+				long record = board.makeMove(cells[i], color);
+				nodes = perft.count(invertColor(color), depth - 1, 1);
+				board.unmakeMove(record);
+			}
+			result.put(moveName(board, cells[i]), Long.valueOf(nodes));
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the leaf nodes to the depth in parallel. The possible moves are
+	 * split over the threads, each thread counts on its own copy of the board.
+	 * @param board board to count on
+	 * @param color color of the player to move
+	 * @param depth depth of the count
+	 * @param threads number of threads
+	 * @return number of leaf nodes
+	 */
+	public static long countParallel(Board board, final char color, final int depth,
+			int threads) {
+		checkParameters(board, color, depth);
+		if (threads < 1 || threads > ParallelSearch.MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		}
+
+		int[] cells = new int[board.getLines() * board.getColumns()];
+		int count = board.listMoves(color, cells);
+		long result = 0;
+		if (count == 0 || depth == 1) {
+			result = count(board, color, depth);
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Long>> futures = new ArrayList<Future<Long>>();
+				for (int i = 0; i < count; i++) {
+					final Board copy = new Board(board);
+					final int cell = cells[i];
+					futures.add(pool.submit(new Callable<Long>() {
+						public Long call() {
+							copy.makeMove(cell, color);
+							return Long.valueOf(new Perft(copy).count(invertColor(color), depth - 1, 1));
+						}
+					}));
+				}
+				for (Future<Long> future : futures) {
+					result += future.get().longValue();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Error! Perft was interrupted.", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Error! Perft failed.", e.getCause());
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the leaf nodes of the position to the depth.
+	 * @param color color of the player to move
+	 * @param depth remaining depth
+	 * @param ply distance to the root
+	 * @return number of leaf nodes
+	 */
+	private long count(char color, int depth, int ply) {
+		assert color == 'B' || color == 'W';
+
+		long result = 1;
+		if (depth > 0) {
+			int[] cells = moves[ply];
+			int count = board.listMoves(color, cells);
+			if (count == 0) {
+				if (color == 'B') {
+					long record = board.makeMove(Board.PASS, color);
+					result = this.count('W', depth - 1, ply + 1);
+					board.unmakeMove(record);
+				}
+			} else if (depth == 1) {
+				result = count;
+			} else {
+				result = 0;
+				char opponent = invertColor(color);
+				for (int i = 0; i < count; i++) {
+					long record = board.makeMove(cells[i], color);
+					result += this.count(opponent, depth - 1, ply + 1);
+					board.unmakeMove(record);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the parameters of a count.
+	 * @param board board to count on
+	 * @param color color of the player to move
+	 * @param depth depth of the count
+	 */
+	private static void checkParameters(Board board, char color, int depth) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		} else if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		} else if (depth < 1 || depth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Error! Invalid perft depth.");
+		}
+	}
+
+	/**
+	 * Returns the name of the move of a cell.
+	 * @param board board of the move
+	 * @param cell cell of the move or {@link Board#PASS}
+	 * @return name of the move
+	 */
+	private static String moveName(Board board, int cell) {
+		String result = "pass";
+		if (cell != Board.PASS) {
+			int columns = board.getColumns();
+			result = (char) ('A' + cell % columns) + Integer.toString(cell / columns + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Inverts the color of the player
+	 * @param color of the player
+	 * @return inverted color of the player
+	 */
+	private static char invertColor(char color) {
+		char invertedColor = 'W';
+		if (color == 'W') {
+			invertedColor = 'B';
+		}
+		return invertedColor;
+	}
+
+}
@@ -0,0 +1,157 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class searches on a background thread while the game waits for the
+ * move of the opponent (pondering). The reply of the opponent is predicted by
+ * the move of the transposition table, which the last search left there as
+ * its principal variation, and the position after it is searched for the
+ * player who moves next. When the predicted reply is played, the next search
+ * finds the deep entries and the best move of this position in the shared
+ * table. Without a prediction the current position is searched, which fills
+ * the table for all replies.
+ * @author Florian Mueller
+ */
+class Ponder {
+
+	/** time budget of the search in milliseconds, it runs until it is stopped */
+	private static final long PONDER_TIME = 3600000L;
+
+	/** own copy of the board */
+	private final Board board;
+
+	/** color of the player to move in the searched position */
+	private final char color;
+
+	/** search of the thread */
+	private final Search search;
+
+	/** key of the position after the predicted reply, 0 without prediction */
+	private final long prediction;
+
+	/** signal to stop the search */
+	private final AtomicBoolean signal;
+
+	/** thread of the search */
+	private final Thread thread;
+
+	/**
+	 * Constructs a new ponder search of the position.
+	 * @param board board of the game, it is copied
+	 * @param color color of the player to move, the opponent of the engine
+	 * @param search search which shares the table of the engine
+	 * @param table transposition table of the engine
+	 */
+	Ponder(Board board, char color, Search search, TranspositionTable table) {
+		assert color == 'B' || color == 'W';
+
+		this.board = new Board(board);
+		this.search = search;
+		this.signal = new AtomicBoolean(false);
+
+		int reply = this.predict(color, table);
+		char next = invertColor(color);
+		long key = 0L;
+		if (reply != TranspositionTable.NO_MOVE) {
+			this.board.makeMove(reply, color);
+			key = this.board.getHash(next);
+		}
+		this.prediction = key;
+		if (key != 0L) {
+			this.color = next;
+		} else {
+			this.color = color;
+		}
+
+		this.thread = new Thread(new Runnable() {
+			public void run() {
+				Ponder.this.search.ponder(Ponder.this.board, Ponder.this.color, PONDER_TIME,
+						signal);
+			}
+		}, "ponder");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts the search on its own thread.
+	 */
+	void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops the search and waits until its thread has ended. The search
+	 * checks the signal every few thousand nodes.
+	 */
+	void stop() {
+		signal.set(true);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Error! Ponder search was interrupted.", e);
+		}
+	}
+
+	/**
+	 * Check whether the reply of the opponent was predicted.
+	 * @return {@code true} if there is a prediction, {@code false} otherwise
+	 */
+	boolean hasPrediction() {
+		return prediction != 0L;
+	}
+
+	/**
+	 * Check whether the position is the predicted one.
+	 * @param key key of the position including the player to move
+	 * @return {@code true} if the reply was predicted, {@code false} otherwise
+	 */
+	boolean isHit(long key) {
+		return prediction != 0L && prediction == key;
+	}
+
+	/**
+	 * Predicts the reply by the move of the transposition table. There is no
+	 * prediction if the move is not possible, or if the player after the
+	 * reply cannot move, so that passes need not be followed.
+	 * @param color color of the player to move
+	 * @param table transposition table of the engine
+	 * @return cell of the predicted reply, {@link TranspositionTable#NO_MOVE}
+	 *         if there is none
+	 */
+	private int predict(char color, TranspositionTable table) {
+		int result = TranspositionTable.NO_MOVE;
+		long entry = table.probe(board.getHash(color));
+		if (entry != 0L) {
+			int move = TranspositionTable.move(entry);
+			int[] cells = new int[board.getLines() * board.getColumns()];
+			int count = board.listMoves(color, cells);
+			for (int i = 0; i < count; i++) {
+				if (cells[i] == move) {
+					result = move;
+				}
+			}
+		}
+		if (result != TranspositionTable.NO_MOVE) {
+			long record = board.makeMove(result, color);
+			if (board.countMoves(invertColor(color)) == 0) {
+				result = TranspositionTable.NO_MOVE;
+			}
+			board.unmakeMove(record);
+		}
+		return result;
+	}
+
+	/**
+	 * Inverts the color of the player
+	 * @param color of the player
+	 * @return inverted color of the player
+	 */
+	private static char invertColor(char color) {
+		char invertedColor = 'W';
+		if (color == 'W') {
+			invertedColor = 'B';
+		}
+		return invertedColor;
+	}
+
+}
@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * This class streams positions from a text with one position per line as
+ * {@link Othello#getPosition()} writes them: the notation of the board of
+ * {@link Board#toNotation()}, a space and the color of the player to move.
+ * Empty lines are skipped. The characters are read in large blocks and
+ * parsed straight into one board which is reused as long as the board size
+ * stays the same, so no string or list is built per line. {@link #next()}
+ * moves to the next position and the getters describe it.
+ * @author Florian Mueller
+ */
+public class PositionReader {
+
+	/** number of characters read at once */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** reader of the text */
+	private final Reader in;
+
+	/** block of read characters */
+	private final char[] buffer;
+
+	/** position of the next character in the block */
+	private int next;
+
+	/** number of characters in the block */
+	private int limit;
+
+	/** current line */
+	private final StringBuilder line;
+
+	/** number of the current line */
+	private long lineNumber;
+
+	/** board of the current position, null before the first position */
+	private Board board;
+
+	/** color of the player to move */
+	private char color;
+
+	/** number of positions read so far */
+	private long positions;
+
+	/**
+	 * Constructs a new reader of positions.
+	 * @param in reader of the text
+	 */
+	public PositionReader(Reader in) {
+		if (in == null) {
+			throw new IllegalArgumentException("Error! Stream is missing.");
+		}
+
+		this.in = in;
+		this.buffer = new char[BUFFER_SIZE];
+		this.line = new StringBuilder();
+	}
+
+	/**
+	 * Moves to the next position.
+	 * @return {@code true} if there is a next position, {@code false} at the
+	 *         end of the text
+	 * @throws IOException if the text cannot be read
+	 */
+	public boolean next() throws IOException {
+		boolean result = this.readLine();
+		while (result && line.length() == 0) {
+			result = this.readLine();
+		}
+		if (result) {
+			int space = line.length() - 2;
+			if (space < 1 || line.charAt(space) != ' '
+					|| (line.charAt(space + 1) != 'B' && line.charAt(space + 1) != 'W')) {
+				throw new IllegalArgumentException("Error! Invalid position in line "
+						+ lineNumber + ".");
+			}
+
+			int lines = Board.notationLines(line, 0, space);
+			int columns = Board.notationColumns(line, 0, space);
+			try {
+				if (board != null && board.getLines() == lines && board.getColumns() == columns) {
+					board.readNotation(line, 0, space);
+				} else {
+					this.board = Board.parse(line.subSequence(0, space), lines, columns);
+				}
+			} catch (IllegalArgumentException e) {
+				this.board = null;
+				throw new IllegalArgumentException("Error! Invalid position in line "
+						+ lineNumber + ".", e);
+			}
+			this.color = line.charAt(space + 1);
+			positions++;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the board of the current position. The board is reused for the
+	 * next position of the same size.
+	 * @return the board of the current position
+	 */
+	public Board getBoard() {
+		return this.board;
+	}
+
+	/**
+	 * Returns the color of the player to move of the current position.
+	 * @return {@code 'B'} or {@code 'W'}
+	 */
+	public char getColor() {
+		return this.color;
+	}
+
+	/**
+	 * Returns the number of positions read so far.
+	 * @return the number of positions
+	 */
+	public long getPositions() {
+		return this.positions;
+	}
+
+	/**
+	 * Closes the text.
+	 * @throws IOException if the text cannot be closed
+	 */
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Reads the next line without its line break.
+	 * @return {@code true} if there is a next line, {@code false} at the end
+	 *         of the text
+	 * @throws IOException if the text cannot be read
+	 */
+	private boolean readLine() throws IOException {
+		line.setLength(0);
+		boolean end = false;
+		boolean result = false;
+		while (!end) {
+			if (next == limit) {
+				this.limit = Math.max(0, in.read(buffer));
+				this.next = 0;
+			}
+			if (limit == 0) {
+				end = true;
+			} else {
+				int start = next;
+				while (next < limit && buffer[next] != '\n') {
+					next++;
+				}
+				line.append(buffer, start, next - start);
+				result = true;
+				if (next < limit) {
+					next++;
+					end = true;
+				}
+			}
+		}
+		if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+			line.setLength(line.length() - 1);
+		}
+		if (result) {
+			lineNumber++;
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,781 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class implements the search for the best move of a player. It is a
+ * negamax alpha-beta search with iterative deepening and aspiration windows.
+ * The moves are ordered by the transposition table, killer moves and a
+ * history table. The search stops at a time or node budget and returns the
+ * best move of the last completed iteration.
+ * @author Florian Mueller
+ */
+public class Search {
+
+	/** maximum search depth */
+	public static final int MAX_DEPTH = 60;
+
+	/** score of a won game, the stone difference is added */
+	public static final int WIN = 10000000;
+
+	/** score above all other scores */
+	private static final int INFINITY = 2 * WIN;
+
+	/** half width of the aspiration window */
+	private static final int ASPIRATION = 40;
+
+	/** maximum number of plies including passes */
+	private static final int MAX_PLY = 2 * MAX_DEPTH + 2;
+
+	/** number of nodes between two checks of the time */
+	private static final int CHECK_INTERVAL = 1024;
+
+	/** weight of a cell which can never be flipped */
+	private static final int CORNER_WEIGHT = 40;
+
+	/** weight of a cell next to a cell which can never be flipped */
+	private static final int NEXT_TO_CORNER_WEIGHT = -12;
+
+	/** weight of a cell on the edge of the board or of a hole */
+	private static final int EDGE_WEIGHT = 4;
+
+	/** weight of a possible move */
+	private static final int MOBILITY_WEIGHT = 8;
+
+	/** metric of the searches */
+	private static final Metric SEARCH_METRIC = Metrics.get("search.search", true);
+
+	/** line offsets of the four lines through a cell */
+	private static final int[] AXIS_LINE = {0, 1, 1, 1};
+
+	/** column offsets of the four lines through a cell */
+	private static final int[] AXIS_COLUMN = {1, 0, 1, -1};
+
+	/** transposition table of the search */
+	private TranspositionTable table;
+
+	/** board to search on */
+	private Board board;
+
+	/** possible moves of each ply */
+	private int[][] moves;
+
+	/** order scores of the possible moves of each ply */
+	private int[][] orders;
+
+	/** two killer moves of each ply */
+	private int[][] killers;
+
+	/** history scores of the cells for black and white */
+	private int[][] history;
+
+	/** weights of the cells for the evaluation */
+	private int[] weights;
+
+	/** number of searched nodes */
+	private long nodes;
+
+	/** maximum number of nodes */
+	private long nodeLimit;
+
+	/** time in nanoseconds to stop the search */
+	private long deadline;
+
+	/** flag if the search may be stopped */
+	private boolean stoppable;
+
+	/** flag if the search has been stopped */
+	private boolean stopped;
+
+	/** signal to stop a helper search, null for a main search */
+	private AtomicBoolean signal;
+
+	/** signal of the owner to stop every search, null if there is none */
+	private AtomicBoolean stopSignal;
+
+	/** best move of the root of the current iteration */
+	private int rootMove;
+
+	/** pattern evaluator of the positions, null for the weighted stones */
+	private PatternEvaluator evaluator;
+
+	/**
+	 * Constructs a new search with its own transposition table.
+	 */
+	public Search() {
+		this(new TranspositionTable(16));
+	}
+
+	/**
+	 * Constructs a new search with the transposition table.
+	 * @param table transposition table of the search
+	 */
+	public Search(TranspositionTable table) {
+		if (table == null) {
+			throw new IllegalArgumentException(
+					"Error! Transposition table is missing.");
+		}
+
+		this.table = table;
+		this.killers = new int[MAX_PLY][2];
+		this.moves = new int[MAX_PLY][0];
+		this.orders = new int[MAX_PLY][0];
+		this.history = new int[2][0];
+	}
+
+	/**
+	 * Sets the weights of a pattern evaluation. Without weights the positions
+	 * are evaluated by the weighted stones and the number of possible moves.
+	 * @param weights weights of the patterns, null for none
+	 */
+	public void setWeights(PatternWeights weights) {
+		this.evaluator = null;
+		if (weights != null) {
+			this.evaluator = new PatternEvaluator(weights);
+		}
+	}
+
+	/**
+	 * Sets the signal of the owner which stops every search after the first
+	 * iteration, for example when the client of the game disconnects.
+	 * @param stopSignal signal to stop the searches, null for none
+	 */
+	void setStopSignal(AtomicBoolean stopSignal) {
+		this.stopSignal = stopSignal;
+	}
+
+	/**
+	 * Searches the best move of the player. The board is changed during the
+	 * search, but is the same again afterwards. The first iteration is always
+	 * completed, so there is a move even for a tiny budget.
+	 * @param board board to search on
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param nodeLimit node budget of the search
+	 * @return result with the best move
+	 */
+	public SearchResult search(Board board, char color, long milliseconds, long nodeLimit) {
+		return this.search(board, color, milliseconds, nodeLimit, MAX_DEPTH);
+	}
+
+	/**
+	 * Searches the best move of the player up to the depth.
+	 * @param board board to search on
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param nodeLimit node budget of the search
+	 * @param maxDepth maximum depth of the search
+	 * @return result with the best move
+	 */
+	public SearchResult search(Board board, char color, long milliseconds, long nodeLimit,
+			int maxDepth) {
+		if (board == null) {
+			throw new IllegalArgumentException("Error! Board is missing.");
+		} else if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		} else if (milliseconds < 1 || nodeLimit < 1) {
+			throw new IllegalArgumentException("Error! Invalid search budget.");
+		} else if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Error! Invalid search depth.");
+		}
+
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
+		this.signal = null;
+		table.newSearch();
+		SearchResult result = this.iterate(board, color, milliseconds, nodeLimit, maxDepth, 1);
+		SEARCH_METRIC.record(started, allocated);
+		return result;
+	}
+
+	/**
+	 * Searches as helper of a parallel search. Helpers share the
+	 * transposition table with the main search and run until the main search
+	 * raises the signal. Every second helper starts one iteration deeper, so
+	 * the helpers do not all search the same depth at the same time.
+	 * @param board own copy of the board
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param nodeLimit node budget of the search
+	 * @param maxDepth maximum depth of the search
+	 * @param helper number of the helper, starting with 1
+	 * @param signal signal to stop the search
+	 * @return result of the helper search
+	 */
+	SearchResult help(Board board, char color, long milliseconds, long nodeLimit,
+			int maxDepth, int helper, AtomicBoolean signal) {
+		assert helper > 0;
+		assert signal != null;
+
+		this.signal = signal;
+		return this.iterate(board, color, milliseconds, nodeLimit, maxDepth, 1 + helper % 2);
+	}
+
+	/**
+	 * Searches the position until the signal is raised, while the opponent
+	 * thinks. The search leaves its entries in the transposition table for
+	 * the following searches.
+	 * @param board own copy of the board
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param signal signal to stop the search
+	 * @return result of the ponder search
+	 */
+	SearchResult ponder(Board board, char color, long milliseconds, AtomicBoolean signal) {
+		assert signal != null;
+
+		this.signal = signal;
+		return this.iterate(board, color, milliseconds, Long.MAX_VALUE, MAX_DEPTH, 1);
+	}
+
+	/**
+	 * Scores one possible move of the player with a full window, so that the
+	 * scores of all moves of a position can be ranked. The cell weights are
+	 * prepared only when the board is new to the search.
+	 * @param board board to search on, the same again afterwards
+	 * @param color color of the player to move
+	 * @param cell cell of the move
+	 * @param depth depth of the search including the move
+	 * @param deadline time in nanoseconds to stop the search
+	 * @param signal signal to stop the search
+	 * @return result with the move and its score, depth 0 if the search was
+	 *         stopped
+	 */
+	SearchResult scoreMove(Board board, char color, int cell, int depth, long deadline,
+			AtomicBoolean signal) {
+		assert depth > 0;
+		assert signal != null;
+
+		long start = System.nanoTime();
+		if (this.board != board) {
+			this.prepare(board);
+		}
+		this.deadline = deadline;
+		this.nodeLimit = Long.MAX_VALUE;
+		this.nodes = 0;
+		this.stoppable = true;
+		this.stopped = false;
+		this.signal = signal;
+
+		long record = this.makeMove(cell, color);
+		int score = -this.negamax(depth - 1, -INFINITY, INFINITY, 1, invertColor(color));
+		this.unmakeMove(record);
+
+		int completed = depth;
+		if (stopped) {
+			completed = 0;
+		}
+		long time = (System.nanoTime() - start) / 1000000L;
+		return new SearchResult(this.toMove(cell), score, completed, nodes, time);
+	}
+
+	/**
+	 * Searches with iterative deepening and aspiration windows.
+	 * @param board board to search on
+	 * @param color color of the player to move
+	 * @param milliseconds time budget of the search
+	 * @param nodeLimit node budget of the search
+	 * @param limit maximum depth of the search
+	 * @param firstDepth depth of the first iteration
+	 * @return result with the best move
+	 */
+	private SearchResult iterate(Board board, char color, long milliseconds, long nodeLimit,
+			int limit, int firstDepth) {
+		long start = System.nanoTime();
+		this.prepare(board);
+		this.deadline = start + milliseconds * 1000000L;
+		this.nodeLimit = nodeLimit;
+		this.nodes = 0;
+		this.stoppable = signal != null;
+		this.stopped = false;
+
+		int empties = board.countEmpty();
+		int maxDepth = Math.max(1, Math.min(limit, empties));
+		int bestMove = TranspositionTable.NO_MOVE;
+		int bestScore = 0;
+		int completed = 0;
+
+		for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth && !stopped; depth++) {
+			int alpha = -INFINITY;
+			int beta = INFINITY;
+			if (depth > 2) {
+				alpha = bestScore - ASPIRATION;
+				beta = bestScore + ASPIRATION;
+			}
+
+			boolean searching = true;
+			int score = 0;
+			while (searching && !stopped) {
+				rootMove = TranspositionTable.NO_MOVE;
+				score = this.negamax(depth, alpha, beta, 0, color);
+				if (score <= alpha) {
+					alpha = -INFINITY;
+				} else if (score >= beta) {
+					beta = INFINITY;
+				} else {
+					searching = false;
+				}
+			}
+
+			if (!stopped) {
+				bestMove = rootMove;
+				bestScore = score;
+				completed = depth;
+				stoppable = true;
+				if (signal == null && System.nanoTime() - start > milliseconds * 500000L) {
+					stopped = true;
+				}
+			}
+		}
+
+		long time = (System.nanoTime() - start) / 1000000L;
+		return new SearchResult(this.toMove(bestMove), bestScore, completed, nodes, time);
+	}
+
+	/**
+	 * Clears the transposition table, the history and the killer moves.
+	 */
+	public void clear() {
+		table.clear();
+		for (int[] h : history) {
+			for (int i = 0; i < h.length; i++) {
+				h[i] = 0;
+			}
+		}
+		for (int[] k : killers) {
+			k[0] = TranspositionTable.NO_MOVE;
+			k[1] = TranspositionTable.NO_MOVE;
+		}
+	}
+
+	/**
+	 * Negamax alpha-beta search of the position. As in the Othello game, black
+	 * passes if it cannot move, and the game is over if white cannot move.
+	 * @param depth remaining depth
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param ply distance to the root
+	 * @param color color of the player to move
+	 * @return score of the position for the player to move
+	 */
+	private int negamax(int depth, int alpha, int beta, int ply, char color) {
+		assert color == 'B' || color == 'W';
+		assert alpha < beta;
+
+		nodes++;
+		if (stoppable && (nodes >= nodeLimit || ((nodes & (CHECK_INTERVAL - 1)) == 0
+				&& (System.nanoTime() > deadline || (signal != null && signal.get())
+				|| (stopSignal != null && stopSignal.get()))))) {
+			stopped = true;
+		}
+
+		int result = 0;
+		if (stopped) {
+			result = 0;
+		} else if (depth <= 0) {
+			result = this.evaluate(color);
+		} else {
+			long key = board.getHash(color);
+			long entry = table.probe(key);
+			int hashMove = TranspositionTable.NO_MOVE;
+			boolean cutoff = false;
+			if (entry != 0L) {
+				hashMove = TranspositionTable.move(entry);
+				if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+					int score = TranspositionTable.score(entry);
+					int flag = TranspositionTable.flag(entry);
+					if (flag == TranspositionTable.EXACT
+							|| (flag == TranspositionTable.LOWER && score >= beta)
+							|| (flag == TranspositionTable.UPPER && score <= alpha)) {
+						result = score;
+						cutoff = true;
+					}
+				}
+			}
+
+			if (!cutoff) {
+				result = this.searchMoves(depth, alpha, beta, ply, color, key, hashMove);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Searches all possible moves of the position.
+	 * @param depth remaining depth
+	 * @param alpha lower bound of the score
+	 * @param beta upper bound of the score
+	 * @param ply distance to the root
+	 * @param color color of the player to move
+	 * @param key hash of the position
+	 * @param hashMove move of the transposition table
+	 * @return score of the position for the player to move
+	 */
+	private int searchMoves(int depth, int alpha, int beta, int ply, char color,
+			long key, int hashMove) {
+		int[] cells = moves[ply];
+		int count = board.listMoves(color, cells);
+		int best = -INFINITY;
+
+		if (count == 0) {
+			if (color == 'W') {
+				best = this.finalScore(color);
+			} else {
+				long record = this.makeMove(Board.PASS, color);
+				best = -this.negamax(depth, -beta, -alpha, ply + 1, 'W');
+				this.unmakeMove(record);
+			}
+		} else {
+			this.orderMoves(cells, count, ply, color, hashMove);
+			char opponent = invertColor(color);
+			int bestMove = TranspositionTable.NO_MOVE;
+			int low = alpha;
+			for (int i = 0; i < count && low < beta && !stopped; i++) {
+				int cell = this.nextMove(cells, orders[ply], i, count);
+				long record = this.makeMove(cell, color);
+				int score = -this.negamax(depth - 1, -beta, -low, ply + 1, opponent);
+				this.unmakeMove(record);
+
+				if (!stopped && score > best) {
+					best = score;
+					bestMove = cell;
+					if (score > low) {
+						low = score;
+						if (ply == 0) {
+							rootMove = cell;
+						}
+					}
+				}
+			}
+
+			if (!stopped) {
+				int flag = TranspositionTable.EXACT;
+				if (best >= beta) {
+					flag = TranspositionTable.LOWER;
+					this.rememberCutoff(bestMove, depth, ply, color);
+				} else if (best <= alpha) {
+					flag = TranspositionTable.UPPER;
+				}
+				table.store(key, bestMove, depth, flag, best);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Makes a move on the board, through the evaluator if there is one.
+	 * @param cell index of the cell or {@link Board#PASS}
+	 * @param color color of the player to move
+	 * @return record of the move
+	 */
+	private long makeMove(int cell, char color) {
+		long result;
+		if (evaluator != null) {
+			result = evaluator.makeMove(cell, color);
+		} else {
+			result = board.makeMove(cell, color);
+		}
+		return result;
+	}
+
+	/**
+	 * Takes back the last move on the board, through the evaluator if there
+	 * is one.
+	 * @param record record of the move
+	 */
+	private void unmakeMove(long record) {
+		if (evaluator != null) {
+			evaluator.unmakeMove(record);
+		} else {
+			board.unmakeMove(record);
+		}
+	}
+
+	/**
+	 * Gives each move an order score. The move of the transposition table
+	 * comes first, then the killer moves and then the moves by history.
+	 * @param cells possible moves
+	 * @param count number of possible moves
+	 * @param ply distance to the root
+	 * @param color color of the player to move
+	 * @param hashMove move of the transposition table
+	 */
+	private void orderMoves(int[] cells, int count, int ply, char color, int hashMove) {
+		int[] order = orders[ply];
+		int[] scores = history[colorIndex(color)];
+		for (int i = 0; i < count; i++) {
+			int cell = cells[i];
+			if (cell == hashMove) {
+				order[i] = 1 << 30;
+			} else if (cell == killers[ply][0]) {
+				order[i] = 1 << 29;
+			} else if (cell == killers[ply][1]) {
+				order[i] = 1 << 28;
+			} else {
+				order[i] = scores[cell] + weights[cell];
+			}
+		}
+	}
+
+	/**
+	 * Moves the move with the highest order score of the remaining moves to
+	 * the index.
+	 * @param cells possible moves
+	 * @param order order scores of the possible moves
+	 * @param index index of the next move
+	 * @param count number of possible moves
+	 * @return cell of the next move
+	 */
+	private int nextMove(int[] cells, int[] order, int index, int count) {
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (order[i] > order[best]) {
+				best = i;
+			}
+		}
+		int cell = cells[best];
+		int score = order[best];
+		cells[best] = cells[index];
+		order[best] = order[index];
+		cells[index] = cell;
+		order[index] = score;
+		return cell;
+	}
+
+	/**
+	 * Remembers a move which caused a cutoff as killer move and in the
+	 * history.
+	 * @param cell cell of the move
+	 * @param depth remaining depth
+	 * @param ply distance to the root
+	 * @param color color of the player to move
+	 */
+	private void rememberCutoff(int cell, int depth, int ply, char color) {
+		if (killers[ply][0] != cell) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = cell;
+		}
+
+		int[] scores = history[colorIndex(color)];
+		scores[cell] += depth * depth;
+		if (scores[cell] > (1 << 20)) {
+			for (int i = 0; i < scores.length; i++) {
+				scores[i] /= 2;
+			}
+		}
+	}
+
+	/**
+	 * Evaluates the position for the player to move by the patterns if there
+	 * are weights, otherwise by the weighted stones and the number of
+	 * possible moves.
+	 * @param color color of the player to move
+	 * @return score of the position
+	 */
+	private int evaluate(char color) {
+		int result;
+		if (evaluator != null) {
+			result = evaluator.evaluate(color);
+		} else {
+			char opponent = invertColor(color);
+			int stones = board.weightStones(color, weights)
+					- board.weightStones(opponent, weights);
+			int mobility = board.countMoves(color) - board.countMoves(opponent);
+			result = stones + MOBILITY_WEIGHT * mobility;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the score of a finished game for the player.
+	 * @param color color of the player
+	 * @return score of the finished game
+	 */
+	private int finalScore(char color) {
+		int difference = board.countStones(color) - board.countStones(invertColor(color));
+		int result = difference;
+		if (difference > 0) {
+			result = WIN + difference;
+		} else if (difference < 0) {
+			result = -WIN + difference;
+		}
+		return result;
+	}
+
+	/**
+	 * Prepares the buffers and cell weights for the board.
+	 * @param board board to search on
+	 */
+	private void prepare(Board board) {
+		int cells = board.getLines() * board.getColumns();
+		this.board = board;
+		if (moves[0].length < cells) {
+			for (int i = 0; i < MAX_PLY; i++) {
+				moves[i] = new int[cells];
+				orders[i] = new int[cells];
+			}
+			history[0] = new int[cells];
+			history[1] = new int[cells];
+		}
+		for (int[] h : history) {
+			for (int i = 0; i < h.length; i++) {
+				h[i] /= 2;
+			}
+		}
+		for (int[] k : killers) {
+			k[0] = TranspositionTable.NO_MOVE;
+			k[1] = TranspositionTable.NO_MOVE;
+		}
+		this.weights = cellWeights(board);
+		if (evaluator != null) {
+			evaluator.attach(board);
+		}
+	}
+
+	/**
+	 * Returns the possible move of a cell.
+	 * @param cell cell of the move
+	 * @return possible move, null if there is none
+	 */
+	private PossibleMove toMove(int cell) {
+		PossibleMove result = null;
+		if (cell != TranspositionTable.NO_MOVE) {
+			int columns = board.getColumns();
+			result = new PossibleMove((char) ('A' + cell % columns), cell / columns + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the weights of the cells. A cell which is closed by the edge or
+	 * a hole on all four lines through it can never be flipped, like a corner.
+	 * Cells next to such a cell give it away, cells closed on some lines are
+	 * edge cells.
+	 * @param board board to weight
+	 * @return weight of each cell
+	 */
+	static int[] cellWeights(Board board) {
+		List<String> field = board.getField();
+		int lines = board.getLines();
+		int columns = board.getColumns();
+		int[] result = new int[lines * columns];
+		boolean[] corner = corners(board);
+
+		for (int i = 0; i < lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				int closed = 0;
+				for (int k = 0; k < 4; k++) {
+					if (isClosed(field, i, j, AXIS_LINE[k], AXIS_COLUMN[k])) {
+						closed++;
+					}
+				}
+				if (closed == 4) {
+					result[i * columns + j] = CORNER_WEIGHT;
+				} else if (closed > 0) {
+					result[i * columns + j] = EDGE_WEIGHT;
+				} else {
+					result[i * columns + j] = 1;
+				}
+			}
+		}
+
+		for (int i = 0; i < lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				if (!corner[i * columns + j]) {
+					for (int k = -1; k <= 1; k++) {
+						for (int l = -1; l <= 1; l++) {
+							int line = i + k;
+							int column = j + l;
+							if (line >= 0 && line < lines && column >= 0 && column < columns
+									&& corner[line * columns + column]) {
+								result[i * columns + j] = NEXT_TO_CORNER_WEIGHT;
+							}
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the cells which can never be flipped, because the edge or a hole
+	 * closes all four lines through them, like the corners of the board.
+	 * Holes are no such cells.
+	 * @param board board to check
+	 * @return flag of each cell whether it is a corner
+	 */
+	static boolean[] corners(Board board) {
+		List<String> field = board.getField();
+		int lines = board.getLines();
+		int columns = board.getColumns();
+		boolean[] result = new boolean[lines * columns];
+
+		for (int i = 0; i < lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				boolean closed = field.get(i).charAt(j) != '#';
+				for (int k = 0; k < 4 && closed; k++) {
+					closed = isClosed(field, i, j, AXIS_LINE[k], AXIS_COLUMN[k]);
+				}
+				result[i * columns + j] = closed;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Check whether a line through the cell is closed on one side by the edge
+	 * of the board or a hole.
+	 * @param field fields of the board
+	 * @param line line of the cell
+	 * @param column column of the cell
+	 * @param vectorL vertical vector of the line
+	 * @param vectorC horizontal vector of the line
+	 * @return {@code true} if the line is closed, {@code false} otherwise
+	 */
+	private static boolean isClosed(List<String> field, int line, int column,
+			int vectorL, int vectorC) {
+		return isBlocked(field, line + vectorL, column + vectorC)
+				|| isBlocked(field, line - vectorL, column - vectorC);
+	}
+
+	/**
+	 * Check whether a cell is outside of the board or a hole.
+	 * @param field fields of the board
+	 * @param line line of the cell
+	 * @param column column of the cell
+	 * @return {@code true} if no stone can be placed, {@code false} otherwise
+	 */
+	private static boolean isBlocked(List<String> field, int line, int column) {
+		return line < 0 || line >= field.size() || column < 0
+				|| column >= field.get(0).length()
+				|| field.get(line).charAt(column) == '#';
+	}
+
+	/**
+	 * Returns the index of the color in the history table.
+	 * @param color color of the player
+	 * @return 0 for black, 1 for white
+	 */
+	private static int colorIndex(char color) {
+		int result = 1;
+		if (color == 'B') {
+			result = 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Inverts the color of the player
+	 * @param color of the player
+	 * @return inverted color of the player
+	 */
+	private static char invertColor(char color) {
+		char invertedColor = 'W';
+		if (color == 'W') {
+			invertedColor = 'B';
+		}
+		return invertedColor;
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * This class represents the result of a search. It stores the best move and
+ * the statistics of the search.
+ * @author Florian Mueller
+ */
+public class SearchResult {
+
+	/** best move, null if the player has to pass */
+	private PossibleMove move;
+
+	/** score of the best move for the player */
+	private int score;
+
+	/** depth of the last completed iteration */
+	private int depth;
+
+	/** number of searched nodes */
+	private long nodes;
+
+	/** search time in milliseconds */
+	private long time;
+
+	/**
+	 * Constructs a new search result.
+	 * @param move best move, null if the player has to pass
+	 * @param score score of the best move for the player
+	 * @param depth depth of the last completed iteration
+	 * @param nodes number of searched nodes
+	 * @param time search time in milliseconds
+	 */
+	public SearchResult(PossibleMove move, int score, int depth, long nodes, long time) {
+		this.move = move;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.time = time;
+	}
+
+	/**
+	 * Returns the best move.
+	 * @return the best move, null if the player has to pass
+	 */
+	public PossibleMove getMove() {
+		return this.move;
+	}
+
+	/**
+	 * Returns the score of the best move.
+	 * @return the score of the best move for the player
+	 */
+	public int getScore() {
+		return this.score;
+	}
+
+	/**
+	 * Returns the depth of the last completed iteration.
+	 * @return the depth of the last completed iteration
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Returns the number of searched nodes.
+	 * @return the number of searched nodes
+	 */
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Returns the search time.
+	 * @return the search time in milliseconds
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * Returns the searched nodes per second.
+	 * @return the searched nodes per second
+	 */
+	public long getNodesPerSecond() {
+		return this.nodes * 1000 / Math.max(1, this.time);
+	}
+
+	/**
+	 * Returns the result of the search.
+	 * @return the result of the search
+	 */
+	public String toString() {
+		String result = "pass";
+		if (this.move != null) {
+			result = this.move.toString();
+		}
+		return "Best move: " + result + " (score " + Integer.toString(score)
+				+ ", depth " + Integer.toString(depth) + ", "
+				+ Long.toString(nodes) + " nodes, " + Long.toString(time)
+				+ " ms)";
+	}
+
+}
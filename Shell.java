@@ -1,5 +1,15 @@
-import java.util.ArrayList;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * This class implements a simple shell to test the functionalities of the
@@ -9,11 +19,14 @@ import java.util.List;
 public class Shell {
 
 	/** the prompt of this shell */
-	private static final String PROMPT = "othello> ";
+	static final String PROMPT = "othello> ";
 
 	/** command to start a new Othello game */
 	private static final String CMD_NEW_GAME = "newGame";
 
+	/** command to start a new Othello game on a sparse board */
+	private static final String CMD_NEW_SPARSE_GAME = "newSparseGame";
+
 	/** command to add a hole range to the playing board */
 	private static final String CMD_HOLE = "hole";
 
@@ -29,9 +42,107 @@ public class Shell {
 	/** command displays the possible moves of the current player */
 	private static final String CMD_POSSIBLE_MOVES = "possibleMoves";
 
+	/** command searches the best move of the current player */
+	private static final String CMD_THINK = "think";
+
+	/** default search time of the think command in milliseconds */
+	private static final long THINK_TIME = 100;
+
+	/** command scores all possible moves of the current player */
+	private static final String CMD_ANALYZE = "analyze";
+
+	/**
+	 * command to stop the searches. A front end which reads while a command
+	 * runs, like the shell server, stops the searches of the game as soon as
+	 * it reads it, so that the running search and the searches queued before
+	 * end. When its own turn comes it lets the searches run again.
+	 */
+	static final String CMD_STOP = "stop";
+
+	/** maximum number of digits of a length of a sparse board */
+	private static final int LENGTH_DIGITS = 7;
+
+	/** maximum number of digits of a time parameter */
+	private static final int TIME_DIGITS = 9;
+
+	/** default time of the analyze command in milliseconds */
+	private static final long ANALYZE_TIME = 1000;
+
+	/** command solves the end of the game exactly */
+	private static final String CMD_SOLVE = "solve";
+
+	/** default time of the solve command in milliseconds */
+	private static final long SOLVE_TIME = 10000;
+
+	/** command sets the number of search threads */
+	private static final String CMD_THREADS = "threads";
+
+	/** command reports the parallel search speedup to a depth */
+	private static final String CMD_SPEEDUP = "speedup";
+
+	/** command counts the leaf nodes of the game tree to a depth */
+	private static final String CMD_PERFT = "perft";
+
+	/** perft mode which counts the leaf nodes per move */
+	private static final String PERFT_DIVIDE = "divide";
+
+	/** perft mode which counts on all cores */
+	private static final String PERFT_PARALLEL = "parallel";
+
+	/** command saves the active game to a file */
+	private static final String CMD_SAVE = "save";
+
+	/** command loads a saved game from a file */
+	private static final String CMD_LOAD = "load";
+
+	/** command opens an opening book or lists its moves */
+	private static final String CMD_BOOK = "book";
+
+	/** command prints the position of the active game or starts a game at a position */
+	private static final String CMD_POSITION = "position";
+
+	/** command prints the metrics of the hot paths or switches them on or off */
+	private static final String CMD_STATS = "stats";
+
+	/** stats mode which switches the metrics on */
+	private static final String STATS_ON = "on";
+
+	/** stats mode which switches the metrics off */
+	private static final String STATS_OFF = "off";
+
+	/** stats mode which removes all counts */
+	private static final String STATS_RESET = "reset";
+
+	/** command switches pondering on or off or prints its predictions */
+	private static final String CMD_PONDER = "ponder";
+
+	/** ponder mode which searches while waiting for a move */
+	private static final String PONDER_ON = "on";
+
+	/** ponder mode which stops searching while waiting for a move */
+	private static final String PONDER_OFF = "off";
+
 	/** command to terminate the shell */
 	private static final String CMD_QUIT = "quit";
 
+	/** commands which need the dense board and are refused on a sparse board */
+	private static final List<String> DENSE_COMMANDS = Arrays.asList(CMD_THINK, CMD_ANALYZE,
+			CMD_SOLVE, CMD_SPEEDUP, CMD_PERFT, CMD_SAVE, CMD_BOOK, CMD_POSITION);
+
+	/** commands which search for the best move until their time budget is spent */
+	private static final List<String> SEARCH_COMMANDS = Arrays.asList(CMD_THINK, CMD_ANALYZE,
+			CMD_SOLVE);
+
+	/** point on a sparse board, the name of the column and the line */
+	private static final Pattern SPARSE_POINT = Pattern.compile("([A-Z]{1,4})([0-9]{1,7})");
+
+	/** hole range on a sparse board, two points separated by a colon */
+	private static final Pattern SPARSE_HOLE = Pattern.compile(
+			"([A-Z]{1,4})([0-9]{1,7}):([A-Z]{1,4})([0-9]{1,7})");
+
+	/** metric of the executed commands */
+	private static final Metric COMMAND_METRIC = Metrics.get("shell.execute", true);
+
 	/**
 	 * Private Constructor. This is a Utility class that should not be
 	 * instantiated.
@@ -40,82 +151,237 @@ public class Shell {
 	}
 
 	/**
-	 * main method - realizes the shell
-	 * @param args command line arguments - not used here !
+	 * main method - realizes the shell. With arguments the commands are run
+	 * without a terminal by {@link ShellScript#main(String[])}.
+	 * @param args command line arguments of the script mode, none for the
+	 *        interactive shell
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0) {
+			ShellScript.main(args);
+		} else {
+			boolean quit = false;
+			Othello othello = new Othello();
+			final StringBuilder out = new StringBuilder();
+			Flushable flusher = new Flushable() {
+				public void flush() {
+					System.out.print(out);
+					System.out.flush();
+					out.setLength(0);
+				}
+			};
+
+			while (!quit) {
+				quit = execute(Terminal.askString(PROMPT), othello, out, ShellPolicy.LOCAL, flusher);
+				System.out.print(out);
+				out.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Executes one command line on the Othello game. The output is appended
+	 * to the buffer with one {@code '\n'} after each line, so that the shell
+	 * can serve other front ends than the terminal.
+	 * @param command command line
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @return {@code true} if the command quits the shell, {@code false} otherwise
+	 */
+	public static boolean execute(String command, Othello othello, StringBuilder out) {
+		return execute(command, othello, out, ShellPolicy.LOCAL);
+	}
+
+	/**
+	 * Executes one command line on the Othello game if the policy allows it.
+	 * @param command command line
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy allowed commands and limits of the front end
+	 * @return {@code true} if the command quits the shell, {@code false} otherwise
+	 */
+	public static boolean execute(String command, Othello othello, StringBuilder out,
+			ShellPolicy policy) {
+		return execute(command, othello, out, policy, null);
+	}
+
+	/**
+	 * Executes one command line on the Othello game if the policy allows it.
+	 * A command which reports progress, like analyze with the ranking of
+	 * each depth, appends it to the buffer and flushes it while it runs. The
+	 * flusher is called on another thread while the calling thread waits for
+	 * the command, and has to take the output out of the buffer.
+	 * @param command command line
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy allowed commands and limits of the front end
+	 * @param flusher writer of the progress in the buffer, null to leave the
+	 *        progress in the buffer until the command ends
+	 * @return {@code true} if the command quits the shell, {@code false} otherwise
+	 */
+	public static boolean execute(String command, Othello othello, StringBuilder out,
+			ShellPolicy policy, Flushable flusher) {
+		long started = Metrics.start();
+		long allocated = Metrics.allocated();
 		boolean quit = false;
-		Othello othello = new Othello();
+		final String tokens[] = command.trim().split("\\s+");
+		final String cmd = tokens[0];
 
-		while (!quit) {
-			final String tokens[] = Terminal.askString(PROMPT).trim().split("\\s+");
-			final String cmd = tokens[0];
+		if (!policy.allows(cmd)) {
+			error(out, "Command not allowed: '" + cmd + "'");
 
-			if (CMD_NEW_GAME.equals(cmd)) {
-				newGame(tokens, othello);
+		} else if (othello.gameIsSparse() && DENSE_COMMANDS.contains(cmd)) {
+			error(out, "Not possible on a sparse board.");
 
-			} else if (CMD_HOLE.equals(cmd)) {
-				hole(tokens, othello);
+		} else if (CMD_NEW_GAME.equals(cmd)) {
+			newGame(tokens, othello, out);
 
-			} else if (CMD_MOVE.equals(cmd)) {
-				move(tokens, othello);
+		} else if (CMD_NEW_SPARSE_GAME.equals(cmd)) {
+			newSparseGame(tokens, othello, out);
 
-			} else if (CMD_PRINT.equals(cmd)) {
-				if (tokens.length == 1) {
-					if (othello.gameIsActive()) {
-						for (String s : othello.print()) {
-							println(s);
-						}
-					} else {
-						error("No active game.");
+		} else if (CMD_HOLE.equals(cmd)) {
+			hole(tokens, othello, out);
+
+		} else if (CMD_MOVE.equals(cmd)) {
+			move(tokens, othello, out);
+
+		} else if (CMD_PRINT.equals(cmd)) {
+			if (tokens.length == 1) {
+				if (othello.gameIsActive()) {
+					for (String s : othello.print()) {
+						println(out, s);
 					}
 				} else {
-					error("Wrong number of parameters. One parameter expected.");
+					error(out, "No active game.");
 				}
+			} else {
+				error(out, "Wrong number of parameters. One parameter expected.");
+			}
 
-			} else if (CMD_POSSIBLE_MOVES.equals(cmd)) {
-				if (tokens.length == 1) {
-					if (othello.gameIsActive()) {
-						println(othello.possibleMoves());
-					} else {
-						error("No active game.");
-					}
+		} else if (CMD_POSSIBLE_MOVES.equals(cmd)) {
+			if (tokens.length == 1) {
+				if (othello.gameIsActive()) {
+					println(out, othello.possibleMoves());
 				} else {
-					error("Wrong number of parameters. One parameter expected.");
+					error(out, "No active game.");
 				}
+			} else {
+				error(out, "Wrong number of parameters. One parameter expected.");
+			}
+
+		} else if (CMD_THINK.equals(cmd)) {
+			think(tokens, othello, out, policy);
+
+		} else if (CMD_ANALYZE.equals(cmd)) {
+			analyze(tokens, othello, out, policy, flusher);
 
-			} else if (CMD_ABORT.equals(cmd)) {
-				if (tokens.length == 1) {
-					if (othello.gameIsActive()) {
-						String out = othello.abort();
-						if (out != null) {
-							println(out);
+		} else if (CMD_SOLVE.equals(cmd)) {
+			solve(tokens, othello, out, policy);
+
+		} else if (CMD_THREADS.equals(cmd)) {
+			if (tokens.length == 2) {
+				if (tokens[1].matches("[0-9]{1,3}") && Integer.parseInt(tokens[1]) > 0
+						&& Integer.parseInt(tokens[1]) <= ParallelSearch.MAX_THREADS) {
+					othello.setThreads(Integer.parseInt(tokens[1]));
+				} else {
+					error(out, "Expected a thread number between 1-"
+							+ ParallelSearch.MAX_THREADS + ".");
+				}
+			} else {
+				error(out, "Wrong number of parameters. Two parameters expected.");
+			}
+
+		} else if (CMD_SPEEDUP.equals(cmd)) {
+			if (tokens.length == 2) {
+				if (othello.gameIsActive()) {
+					if (tokens[1].matches("[0-9]{1,2}") && Integer.parseInt(tokens[1]) > 0
+							&& Integer.parseInt(tokens[1]) <= Search.MAX_DEPTH) {
+						for (String s : othello.speedup(Integer.parseInt(tokens[1]))) {
+							println(out, s);
 						}
 					} else {
-						error("No active game.");
+						error(out, "Expected a depth between 1-" + Search.MAX_DEPTH + ".");
 					}
 				} else {
-					error("Wrong number of parameters. One parameter expected.");
+					error(out, "No active game.");
 				}
+			} else {
+				error(out, "Wrong number of parameters. Two parameters expected.");
+			}
+
+		} else if (CMD_PERFT.equals(cmd)) {
+			perft(tokens, othello, out);
 
-			} else if (CMD_QUIT.equals(cmd)) {
-				if (tokens.length == 1) {
-					quit = true;
+		} else if (CMD_ABORT.equals(cmd)) {
+			if (tokens.length == 1) {
+				if (othello.gameIsActive()) {
+					String message = othello.abort();
+					if (message != null) {
+						println(out, message);
+					}
 				} else {
-					error("Wrong number of parameters. One parameter expected.");
+					error(out, "No active game.");
 				}
 			} else {
-				error("Unknown command: '" + cmd + "'");
+				error(out, "Wrong number of parameters. One parameter expected.");
+			}
+
+		} else if (CMD_SAVE.equals(cmd)) {
+			save(tokens, othello, out, policy);
+
+		} else if (CMD_LOAD.equals(cmd)) {
+			load(tokens, othello, out, policy);
+
+		} else if (CMD_BOOK.equals(cmd)) {
+			book(tokens, othello, out, policy);
+
+		} else if (CMD_POSITION.equals(cmd)) {
+			position(tokens, othello, out);
+
+		} else if (CMD_STATS.equals(cmd)) {
+			stats(tokens, out, policy);
+
+		} else if (CMD_PONDER.equals(cmd)) {
+			ponder(tokens, othello, out);
+
+		} else if (CMD_STOP.equals(cmd)) {
+			if (tokens.length == 1) {
+				othello.resume();
+			} else {
+				error(out, "Wrong number of parameters. One parameter expected.");
 			}
+
+		} else if (CMD_QUIT.equals(cmd)) {
+			if (tokens.length == 1) {
+				quit = true;
+			} else {
+				error(out, "Wrong number of parameters. One parameter expected.");
+			}
+		} else {
+			error(out, "Unknown command: '" + cmd + "'");
 		}
+		COMMAND_METRIC.record(started, allocated);
+		return quit;
+	}
+
+	/**
+	 * Check whether a command line searches for the best move, so that it
+	 * may keep a worker busy for its whole time budget.
+	 * @param command command line
+	 * @return {@code true} if the command is think, analyze or solve,
+	 *         {@code false} otherwise
+	 */
+	static boolean isSearch(String command) {
+		return SEARCH_COMMANDS.contains(command.trim().split("\\s+")[0]);
 	}
 
 	/**
 	 * Performs the newGame command on the given Othello game.
 	 * @param tokens command and parameters
 	 * @param othello othello to operate on
+	 * @param out buffer for the output
 	 */
-	private static void newGame(String[] tokens, Othello othello) {
+	private static void newGame(String[] tokens, Othello othello, StringBuilder out) {
 		if (tokens.length == 3 || tokens.length == 4) {
 			if (!othello.gameIsActive()) {
 				String strColumns = tokens[1];
@@ -130,30 +396,64 @@ public class Shell {
 							if (columns % 2 == 0 && columns > 1 && columns < 27) {
 								if (tokens.length == 4) {
 									String board = tokens[3];
-									boardSetting(lines, columns, board, othello);
+									boardSetting(lines, columns, board, othello, out);
 								} else {
-									String out = othello.newGame(lines, columns, null);
-									if (out != null) {
-										println(out);
+									String message = othello.newGame(lines, columns, null);
+									if (message != null) {
+										println(out, message);
 									}
 								}
 							} else {
-								error("Expected an even column number between 2-26.");
+								error(out, "Expected an even column number between 2-26.");
 							}
 						} else {
-							error("Expected an even line number between 2-98.");
+							error(out, "Expected an even line number between 2-98.");
 						}
 					} else {
-						error("Invalid columns number for character.");
+						error(out, "Invalid columns number for character.");
+					}
+				} else {
+					error(out, "Invalid lines number for character.");
+				}
+			} else {
+				error(out, "There is already an active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. Three or four parameters expected.");
+		}
+	}
+
+	/**
+	 * Performs the newSparseGame command on the given Othello game. As for
+	 * newGame the column length comes first, but both lengths may go up to
+	 * {@link SparseBoard#MAX_LENGTH}.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 */
+	private static void newSparseGame(String[] tokens, Othello othello, StringBuilder out) {
+		if (tokens.length == 3) {
+			if (!othello.gameIsActive()) {
+				long columns = parseNumber(tokens[1], LENGTH_DIGITS);
+				long lines = parseNumber(tokens[2], LENGTH_DIGITS);
+				if (columns >= 0 && lines >= 0) {
+					try {
+						String message = othello.newSparseGame((int) lines, (int) columns);
+						if (message != null) {
+							println(out, message);
+						}
+					} catch (IllegalArgumentException e) {
+						println(out, e.getMessage());
 					}
 				} else {
-					error("Invalid lines number for character.");
+					error(out, "Expected an even column and line number between 2-"
+							+ SparseBoard.MAX_LENGTH + ".");
 				}
 			} else {
-				error("There is already an active game.");
+				error(out, "There is already an active game.");
 			}
 		} else {
-			error("Wrong number of parameters. Three or four parameters expected.");
+			error(out, "Wrong number of parameters. Three parameters expected.");
 		}
 	}
 
@@ -161,26 +461,29 @@ public class Shell {
 	 * Performs the hole command on the given Othello game.
 	 * @param tokens command and parameters
 	 * @param othello othello to operate on
+	 * @param out buffer for the output
 	 */
-	private static void hole(String[] tokens, Othello othello) {
+	private static void hole(String[] tokens, Othello othello, StringBuilder out) {
 		if (tokens.length == 2) {
 			if (othello.gameIsActive()) {
 				if (!othello.gameHasStarted()) {
 					String holes = tokens[1];
-					if (holes.matches("[A-Z]{1}[0-9]{0,1}[0-9]{1}[:]{1}"
+					if (othello.gameIsSparse()) {
+						sparseHole(holes, othello, out);
+					} else if (holes.matches("[A-Z]{1}[0-9]{0,1}[0-9]{1}[:]{1}"
 							+ "[A-Z]{1}[0-9]{0,1}[0-9]{1}")) {
-						setHole(holes, othello);
+						setHole(holes, othello, out);
 					} else {
-						error("Invalid hole parameters.");
+						error(out, "Invalid hole parameters.");
 					}
 				} else {
-					error("Cannot add hole area. Game has already started!");
+					error(out, "Cannot add hole area. Game has already started!");
 				}
 			} else {
-				error("No active game.");
+				error(out, "No active game.");
 			}
 		} else {
-			error("Wrong number of parameters. Two parameters expected.");
+			error(out, "Wrong number of parameters. Two parameters expected.");
 		}
 	}
 
@@ -188,37 +491,418 @@ public class Shell {
 	 * Performs the move command on the given Othello game.
 	 * @param tokens command and parameters
 	 * @param othello othello to operate on
+	 * @param out buffer for the output
 	 */
-	private static void move(String[] tokens, Othello othello) {
+	private static void move(String[] tokens, Othello othello, StringBuilder out) {
 		if (tokens.length == 2) {
 			if (othello.gameIsActive()) {
 				String point = tokens[1];
-				if (point.matches("[A-Z]{1}[0-9]{0,1}[0-9]{1}")) {
+				if (othello.gameIsSparse()) {
+					sparseMove(point, othello, out);
+				} else if (point.matches("[A-Z]{1}[0-9]{0,1}[0-9]{1}")) {
 					char column = point.charAt(0);
 					int line = getLinePoint(point);
 					if (othello.boardContainsPoint(column, line)) {
 						if (othello.moveIsPossible(column, line)) {
-							String out = othello.move(column, line);
-							if (out != null) {
-								println(out);
+							String message = othello.move(column, line);
+							if (message != null) {
+								println(out, message);
 							}
 						} else {
-							println("Move not possible.");
+							println(out, "Move not possible.");
+						}
+
+					} else {
+						error(out, "Point does not exist.");
+					}
+
+				} else {
+					error(out, "Invalid move parameters.");
+				}
+
+			} else {
+				error(out, "No active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. Two parameters expected.");
+		}
+	}
+
+	/**
+	 * Performs the think command on the given Othello game.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy limits of the front end
+	 */
+	private static void think(String[] tokens, Othello othello, StringBuilder out,
+			ShellPolicy policy) {
+		if (tokens.length == 1 || tokens.length == 2) {
+			if (othello.gameIsActive()) {
+				long time = searchTime(tokens, THINK_TIME, policy, out);
+				if (time > 0) {
+					println(out, othello.bestMove(time, Long.MAX_VALUE).toString());
+				}
+			} else {
+				error(out, "No active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. One or two parameters expected.");
+		}
+	}
+
+	/**
+	 * Performs the analyze command on the given Othello game. The ranking of
+	 * each completed depth is written as one line and flushed at once, the
+	 * final ranking with one line per move. A front end which reads during
+	 * the command stops the analysis when it reads the stop command, see
+	 * {@link #CMD_STOP}, and keeps the last completed ranking.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy limits of the front end
+	 * @param flusher writer of the rankings of the depths, null for none
+	 */
+	private static void analyze(String[] tokens, Othello othello, final StringBuilder out,
+			ShellPolicy policy, final Flushable flusher) {
+		if (tokens.length == 1 || tokens.length == 2) {
+			if (othello.gameIsActive()) {
+				long time = searchTime(tokens, ANALYZE_TIME, policy, out);
+				if (time > 0) {
+					List<SearchResult> ranking = othello.analyze(time, new AnalysisListener() {
+						public void ranked(List<SearchResult> ranking) {
+							progress(ranking, out, flusher);
+						}
+					}).await();
+					if (ranking.isEmpty()) {
+						println(out, "No move analyzed.");
+					}
+					for (int i = 0; i < ranking.size(); i++) {
+						SearchResult result = ranking.get(i);
+						println(out, Integer.toString(i + 1) + ". " + result.getMove()
+								+ " (score " + Integer.toString(result.getScore()) + ", depth "
+								+ Integer.toString(result.getDepth()) + ")");
+					}
+				}
+			} else {
+				error(out, "No active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. One or two parameters expected.");
+		}
+	}
+
+	/**
+	 * Writes the ranking of a completed depth of the analyze command as one
+	 * line and flushes it.
+	 * @param ranking results of all possible moves, the best move first
+	 * @param out buffer for the output
+	 * @param flusher writer of the buffer, null for none
+	 */
+	private static void progress(List<SearchResult> ranking, StringBuilder out,
+			Flushable flusher) {
+		StringBuilder line = new StringBuilder("depth ");
+		line.append(ranking.get(0).getDepth()).append(':');
+		for (int i = 0; i < ranking.size(); i++) {
+			if (i > 0) {
+				line.append(',');
+			}
+			line.append(' ').append(ranking.get(i).getMove()).append(" (")
+					.append(ranking.get(i).getScore()).append(')');
+		}
+		println(out, line.toString());
+		if (flusher != null) {
+			try {
+				flusher.flush();
+			} catch (IOException e) {
+				throw new IllegalStateException("Error! Output cannot be written.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the time budget of the think, analyze and solve commands: the
+	 * time parameter if there is one, otherwise the default time, at most the
+	 * limit of the policy. The parameter is checked digit by digit, as it
+	 * comes with every search.
+	 * @param tokens command and parameters
+	 * @param defaultTime time without a parameter in milliseconds
+	 * @param policy limits of the front end
+	 * @param out buffer for the error message
+	 * @return the time in milliseconds, 0 if the parameter is invalid
+	 */
+	private static long searchTime(String[] tokens, long defaultTime, ShellPolicy policy,
+			StringBuilder out) {
+		long result = Math.min(defaultTime, policy.getMaxTime());
+		if (tokens.length == 2) {
+			long time = parseNumber(tokens[1], TIME_DIGITS);
+			if (time < 1) {
+				result = 0;
+				error(out, "Invalid time parameter.");
+			} else if (time > policy.getMaxTime()) {
+				result = 0;
+				error(out, "Time exceeds the limit of " + policy.getMaxTime() + " ms.");
+			} else {
+				result = time;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of a parameter with up to the number of digits.
+	 * @param token parameter
+	 * @param digits maximum number of digits
+	 * @return the number, -1 if the parameter is no number or too long
+	 */
+	private static long parseNumber(String token, int digits) {
+		long result = -1;
+		if (token.length() > 0 && token.length() <= digits) {
+			result = 0;
+			for (int i = 0; i < token.length() && result >= 0; i++) {
+				char c = token.charAt(i);
+				if (c < '0' || c > '9') {
+					result = -1;
+				} else {
+					result = result * 10 + (c - '0');
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Performs the solve command on the given Othello game.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy limits of the front end
+	 */
+	private static void solve(String[] tokens, Othello othello, StringBuilder out,
+			ShellPolicy policy) {
+		if (tokens.length == 1 || tokens.length == 2) {
+			if (othello.gameIsActive()) {
+				long time = searchTime(tokens, SOLVE_TIME, policy, out);
+				if (time > 0) {
+					try {
+						SearchResult result = othello.solve(time);
+						if (result == null) {
+							error(out, "Position not solved in time.");
+						} else {
+							println(out, result.toString());
 						}
+					} catch (IllegalArgumentException e) {
+						println(out, e.getMessage());
+					}
+				}
+			} else {
+				error(out, "No active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. One or two parameters expected.");
+		}
+	}
+
+	/**
+	 * Performs the save command on the given Othello game. The file is
+	 * written to the directory of the files of the policy.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy policy with the directory of the files
+	 */
+	private static void save(String[] tokens, Othello othello, StringBuilder out,
+			ShellPolicy policy) {
+		if (tokens.length == 2) {
+			if (othello.gameIsActive()) {
+				try {
+					Path path = policy.resolve(tokens[1]);
+					if (path == null) {
+						error(out, "File not allowed: " + tokens[1]);
+					} else {
+						write(path, othello);
+					}
+				} catch (IOException e) {
+					error(out, "File cannot be written: " + tokens[1]);
+				} catch (InvalidPathException e) {
+					error(out, "Invalid file name: " + tokens[1]);
+				}
+			} else {
+				error(out, "No active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. Two parameters expected.");
+		}
+	}
+
+	/**
+	 * Writes the active game of the given Othello game to a file.
+	 * @param path path of the file
+	 * @param othello othello to save
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void write(Path path, Othello othello) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(othello.savedSize());
+		othello.save(buffer);
+		buffer.flip();
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+	}
 
+	/**
+	 * Performs the load command on the given Othello game. The file is read
+	 * from the directory of the files of the policy.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy policy with the directory of the files
+	 */
+	private static void load(String[] tokens, Othello othello, StringBuilder out,
+			ShellPolicy policy) {
+		if (tokens.length == 2) {
+			if (!othello.gameIsActive()) {
+				try {
+					Path path = policy.resolve(tokens[1]);
+					if (path == null) {
+						error(out, "File not allowed: " + tokens[1]);
 					} else {
-						error("Point does not exist.");
+						read(path, othello, out);
 					}
+				} catch (IOException e) {
+					error(out, "File cannot be read: " + tokens[1]);
+				} catch (InvalidPathException e) {
+					error(out, "Invalid file name: " + tokens[1]);
+				} catch (IllegalArgumentException e) {
+					println(out, e.getMessage());
+				}
+			} else {
+				error(out, "There is already an active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. Two parameters expected.");
+		}
+	}
+
+	/**
+	 * Reads a saved game from a file into the given Othello game.
+	 * @param path path of the file
+	 * @param othello othello to load into
+	 * @param out buffer for the output
+	 * @throws IOException if the file cannot be read
+	 */
+	private static void read(Path path, Othello othello, StringBuilder out) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			if (channel.size() > Othello.savedSize(98, 26)) {
+				error(out, "Invalid saved game.");
+			} else {
+				ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// reads until the buffer is full
+				}
+				buffer.flip();
+				othello.load(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+	}
 
+	/**
+	 * Performs the book command on the given Othello game. With a file from
+	 * the directory of the files of the policy the book is opened, without
+	 * the book moves of the active player are printed.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 * @param policy policy with the directory of the files
+	 */
+	private static void book(String[] tokens, Othello othello, StringBuilder out,
+			ShellPolicy policy) {
+		if (tokens.length == 2) {
+			try {
+				Path path = policy.resolve(tokens[1]);
+				if (path == null) {
+					error(out, "File not allowed: " + tokens[1]);
 				} else {
-					error("Invalid move parameters.");
+					othello.setBook(new OpeningBook(path));
 				}
+			} catch (IOException e) {
+				error(out, "File cannot be read: " + tokens[1]);
+			} catch (InvalidPathException e) {
+				error(out, "Invalid file name: " + tokens[1]);
+			} catch (IllegalArgumentException e) {
+				println(out, e.getMessage());
+			}
+		} else if (tokens.length == 1) {
+			if (othello.gameIsActive()) {
+				try {
+					List<BookMove> moves = othello.bookMoves();
+					if (moves.isEmpty()) {
+						println(out, "No book moves.");
+					}
+					for (BookMove move : moves) {
+						println(out, move.toString());
+					}
+				} catch (IllegalArgumentException e) {
+					println(out, e.getMessage());
+				}
+			} else {
+				error(out, "No active game.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. One or two parameters expected.");
+		}
+	}
 
+	/**
+	 * Performs the perft command on the given Othello game.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 */
+	private static void perft(String[] tokens, Othello othello, StringBuilder out) {
+		if (tokens.length == 2 || tokens.length == 3) {
+			if (othello.gameIsActive()) {
+				String mode = "";
+				if (tokens.length == 3) {
+					mode = tokens[2];
+				}
+				if (!tokens[1].matches("[0-9]{1,2}") || Integer.parseInt(tokens[1]) < 1
+						|| Integer.parseInt(tokens[1]) > Perft.MAX_DEPTH) {
+					error(out, "Expected a depth between 1-" + Perft.MAX_DEPTH + ".");
+				} else if (mode.equals(PERFT_DIVIDE)) {
+					long nodes = 0;
+					for (Map.Entry<String, Long> entry : othello.divide(Integer.parseInt(tokens[1]))
+							.entrySet()) {
+						println(out, entry.getKey() + ": " + entry.getValue().toString());
+						nodes += entry.getValue().longValue();
+					}
+					println(out, "Nodes: " + nodes);
+				} else if (mode.equals(PERFT_PARALLEL)) {
+					int threads = Runtime.getRuntime().availableProcessors();
+					long start = System.nanoTime();
+					long nodes = othello.perft(Integer.parseInt(tokens[1]), threads);
+					long time = Math.max(1, (System.nanoTime() - start) / 1000000L);
+					println(out, "Nodes: " + nodes + " (" + time + " ms, " + nodes * 1000 / time
+							+ " nodes/s, " + threads + " threads)");
+				} else if (mode.isEmpty()) {
+					println(out, "Nodes: " + othello.perft(Integer.parseInt(tokens[1]), 1));
+				} else {
+					error(out, "Invalid perft mode. Expected: divide, parallel");
+				}
 			} else {
-				error("No active game.");
+				error(out, "No active game.");
 			}
 		} else {
-			error("Wrong number of parameters. Two parameters expected.");
+			error(out, "Wrong number of parameters. Two or three parameters expected.");
 		}
 	}
 
@@ -228,67 +912,138 @@ public class Shell {
 	 * @param columns column length of the new board
 	 * @param board board settings
 	 * @param othello othello to operate on
+	 * @param out buffer for the output
 	 */
-	private static void boardSetting(int lines, int columns, String board, Othello othello) {
+	private static void boardSetting(int lines, int columns, String board, Othello othello,
+			StringBuilder out) {
 		assert othello != null;
 		assert board != null;
 		assert lines > 1 && lines < 100 && lines % 2 == 0;
 		assert columns > 1 && columns < 27 && columns % 2 == 0;
 
-		boolean result = true;
-		List<String> playBoard = toList(board);
-		
-		if (board.matches("[W,B,#,,-]+")) {
-			for (String s : playBoard) {
-				if (s.length() % 2 != 0 || s.length() != columns) {
-					result = false;
-				}
+		int status = Board.checkNotation(board, lines, columns);
+		if (status == Board.NOTATION_CHARACTER) {
+			error(out, "Invalid board parameters. Expected: B, W, #, -, ,");
+		} else if (status == Board.NOTATION_COLUMNS) {
+			error(out, "Invalid column length.");
+		} else if (status == Board.NOTATION_LINES) {
+			error(out, "Invalid line length.");
+		} else {
+			String message = othello.newGame(lines, columns, board, 'B');
+			if (message != null) {
+				println(out, message);
 			}
-			
-			if (!result) {
-				error("Invalid column length.");				
+		}
+	}
+
+	/**
+	 * Performs the position command on the given Othello game. Without a
+	 * parameter it prints the position of the active game, with the notation
+	 * of a board and the color of the player to move it starts a new game at
+	 * that position.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 */
+	private static void position(String[] tokens, Othello othello, StringBuilder out) {
+		if (tokens.length == 1) {
+			if (othello.gameIsActive()) {
+				println(out, othello.getPosition());
+			} else {
+				error(out, "No active game.");
 			}
-			if (playBoard.size() % 2 != 0 || playBoard.size() != lines) {
-				if (result) {
-					error("Invalid line length.");
+		} else if (tokens.length == 3) {
+			if (!othello.gameIsActive()) {
+				try {
+					String message = othello.newGame(tokens[1] + " " + tokens[2]);
+					if (message != null) {
+						println(out, message);
+					}
+				} catch (IllegalArgumentException e) {
+					println(out, e.getMessage());
 				}
-				result = false;
+			} else {
+				error(out, "There is already an active game.");
 			}
 		} else {
-			result = false;
-			error("Invalid board parameters. Expected: B, W, #, -, ,");
+			error(out, "Wrong number of parameters. One or three parameters expected.");
 		}
-		if (result) {
-			String out = othello.newGame(lines, columns, playBoard);
-			if (out != null) {
-				println(out);
+	}
+
+	/**
+	 * Performs the stats command. Without a parameter it prints the calls per
+	 * second, the latencies and the allocation rate of each counted
+	 * operation, with {@code on}, {@code off} or {@code reset} it switches
+	 * the metrics on or off or removes their counts. The metrics are shared
+	 * by all games of the process, so only an administrating front end may
+	 * change them.
+	 * @param tokens command and parameters
+	 * @param out buffer for the output
+	 * @param policy rights of the front end
+	 */
+	private static void stats(String[] tokens, StringBuilder out, ShellPolicy policy) {
+		if (tokens.length == 1) {
+			List<MetricSnapshot> snapshots = Metrics.snapshot();
+			if (!Metrics.isEnabled()) {
+				println(out, "Metrics are off.");
+			} else if (snapshots.isEmpty()) {
+				println(out, "No calls counted.");
+			}
+			for (MetricSnapshot snapshot : snapshots) {
+				println(out, snapshot.toString());
 			}
+		} else if (tokens.length == 2) {
+			if (!policy.isAdmin()) {
+				error(out, "Command not allowed: '" + tokens[0] + " " + tokens[1] + "'");
+			} else if (STATS_ON.equals(tokens[1])) {
+				Metrics.setEnabled(true);
+			} else if (STATS_OFF.equals(tokens[1])) {
+				Metrics.setEnabled(false);
+			} else if (STATS_RESET.equals(tokens[1])) {
+				Metrics.reset();
+			} else {
+				error(out, "Expected on, off or reset.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. One or two parameters expected.");
 		}
 	}
 
 	/**
-	 * Split and add a string to the list.
-	 * @param board board setting
-	 * @return list with board settings
+	 * Performs the ponder command on the given Othello game.
+	 * @param tokens command and parameters
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
 	 */
-	private static List<String> toList(String board) {
-		assert board != null;
-		assert board.matches("[W,B,#,-,,]+");
-		
-		List<String> toList = new ArrayList<String>();
-		String tokens[] = board.trim().split(",");
-		for (String s : tokens) {
-			toList.add(s);
+	private static void ponder(String[] tokens, Othello othello, StringBuilder out) {
+		if (tokens.length == 1) {
+			if (othello.isPondering()) {
+				println(out, "Ponder is on, " + Integer.toString(othello.getPonderHits())
+						+ " of " + Integer.toString(othello.getPonderPredictions())
+						+ " predicted replies played.");
+			} else {
+				println(out, "Ponder is off.");
+			}
+		} else if (tokens.length == 2) {
+			if (PONDER_ON.equals(tokens[1])) {
+				othello.setPonder(true);
+			} else if (PONDER_OFF.equals(tokens[1])) {
+				othello.setPonder(false);
+			} else {
+				error(out, "Expected on or off.");
+			}
+		} else {
+			error(out, "Wrong number of parameters. One or two parameters expected.");
 		}
-		return toList;
 	}
 
 	/**
 	 * Set of rectangular holes on the playing board.
 	 * @param holes hole rectangle
 	 * @param othello othello to operate on
+	 * @param out buffer for the output
 	 */
-	private static void setHole(String holes, Othello othello) {
+	private static void setHole(String holes, Othello othello, StringBuilder out) {
 		assert holes.matches("[A-Z]{1}[0-9]{0,1}[0-9]{1}[:]{1}"
 				+ "[A-Z]{1}[0-9]{0,1}[0-9]{1}");
 
@@ -304,21 +1059,70 @@ public class Shell {
 					if (othello.boardHoleIsAllowed(colOne, lineOne, colTwo, lineTwo)) {
 						othello.hole(colOne, lineOne, colTwo, lineTwo);
 					} else {
-						error("Hole is not allowed. Stones between the hole!");
+						error(out, "Hole is not allowed. Stones between the hole!");
 					}
 				} else {
-					error("The entry is not a rectangle.");
+					error(out, "The entry is not a rectangle.");
 				}
 			} else {
-				error("Point: " + colTwo + Integer.toString(lineTwo)
+				error(out, "Point: " + colTwo + Integer.toString(lineTwo)
 						+ " does not exist.");
 			}
 		} else {
-			error("Point: " + colOne + Integer.toString(lineOne)
+			error(out, "Point: " + colOne + Integer.toString(lineOne)
 					+ " does not exist.");
 		}
 	}
 
+	/**
+	 * Sets a hole range on a sparse board, whose columns can have more than
+	 * one letter.
+	 * @param holes hole range of two points separated by a colon
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 */
+	private static void sparseHole(String holes, Othello othello, StringBuilder out) {
+		Matcher matcher = SPARSE_HOLE.matcher(holes);
+		if (matcher.matches()) {
+			try {
+				othello.hole(matcher.group(1), Integer.parseInt(matcher.group(2)),
+						matcher.group(3), Integer.parseInt(matcher.group(4)));
+			} catch (IllegalArgumentException e) {
+				println(out, e.getMessage());
+			}
+		} else {
+			error(out, "Invalid hole parameters.");
+		}
+	}
+
+	/**
+	 * Moves on a sparse board, whose columns can have more than one letter.
+	 * @param point point of the move
+	 * @param othello othello to operate on
+	 * @param out buffer for the output
+	 */
+	private static void sparseMove(String point, Othello othello, StringBuilder out) {
+		Matcher matcher = SPARSE_POINT.matcher(point);
+		if (matcher.matches()) {
+			String column = matcher.group(1);
+			int line = Integer.parseInt(matcher.group(2));
+			if (othello.boardContainsPoint(column, line)) {
+				if (othello.moveIsPossible(column, line)) {
+					String message = othello.move(column, line);
+					if (message != null) {
+						println(out, message);
+					}
+				} else {
+					println(out, "Move not possible.");
+				}
+			} else {
+				error(out, "Point does not exist.");
+			}
+		} else {
+			error(out, "Invalid move parameters.");
+		}
+	}
+
 	/**
 	 * Returns line parameter of the given string.
 	 * @param tokens string included line parameter
@@ -357,18 +1161,20 @@ public class Shell {
 
 	/**
 	 * Prints an error message.
+	 * @param out buffer for the output
 	 * @param err error message to print
 	 */
-	private static void error(String err) {
-		println("Error! " + err);
+	private static void error(StringBuilder out, String err) {
+		println(out, "Error! " + err);
 	}
 
 	/**
 	 * Prints a message.
+	 * @param out buffer for the output
 	 * @param s string to print
 	 */
-	private static void println(String s) {
-		System.out.println(s);
+	private static void println(StringBuilder out, String s) {
+		out.append(s).append('\n');
 	}
 
 }
@@ -0,0 +1,135 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class implements a client of the shell server, for example to test the
+ * server on the loopback address. It sends the commands and reads the output
+ * of each command up to the line with a single dot.
+ * @author Florian Mueller
+ */
+public class ShellClient {
+
+	/** socket of the connection */
+	private Socket socket;
+
+	/** reader of the output */
+	private BufferedReader reader;
+
+	/** writer of the commands */
+	private Writer writer;
+
+	/**
+	 * Constructs a new client which is connected to the server.
+	 * @param host host of the server
+	 * @param port port of the server
+	 * @throws IOException if the connection fails
+	 */
+	public ShellClient(String host, int port) throws IOException {
+		this.socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+				StandardCharsets.ISO_8859_1));
+		this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+				StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Executes one command.
+	 * @param command command line
+	 * @return output lines of the command
+	 * @throws IOException if the connection fails
+	 */
+	public List<String> execute(String command) throws IOException {
+		return this.pipeline(Collections.singletonList(command)).get(0);
+	}
+
+	/**
+	 * Sends all commands at once and then reads their output.
+	 * @param commands command lines
+	 * @return output lines of each command
+	 * @throws IOException if the connection fails
+	 */
+	public List<List<String>> pipeline(List<String> commands) throws IOException {
+		for (String command : commands) {
+			if (command.indexOf('\n') >= 0) {
+				throw new IllegalArgumentException("Error! Command contains a line break.");
+			}
+			writer.write(command);
+			writer.write('\n');
+		}
+		writer.flush();
+
+		List<List<String>> result = new ArrayList<List<String>>();
+		for (int i = 0; i < commands.size(); i++) {
+			List<String> output = new ArrayList<String>();
+			String line = reader.readLine();
+			while (line != null && !line.equals(ShellConnection.END)) {
+				output.add(line);
+				line = reader.readLine();
+			}
+			if (line == null) {
+				throw new IOException("Error! Connection closed.");
+			}
+			result.add(output);
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the connection.
+	 * @throws IOException if the socket cannot be closed
+	 */
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	/**
+	 * main method - sends the lines of the standard input to the server and
+	 * prints the output
+	 * @param args optional host and port of the server
+	 */
+	public static void main(String[] args) {
+		String host = "localhost";
+		int port = ShellServer.DEFAULT_PORT;
+		try {
+			if (args.length > 0) {
+				host = args[0];
+			}
+			if (args.length > 1) {
+				port = Integer.parseInt(args[1]);
+			}
+			ShellClient client = new ShellClient(host, port);
+			try {
+				BufferedReader in = new BufferedReader(new InputStreamReader(System.in,
+						StandardCharsets.ISO_8859_1));
+				String line = in.readLine();
+				boolean quit = false;
+				while (line != null && !quit) {
+					for (String s : client.execute(line)) {
+						System.out.println(s);
+					}
+					quit = line.trim().equals("quit");
+					if (!quit) {
+						line = in.readLine();
+					}
+				}
+			} finally {
+				client.close();
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Error! Invalid number: " + e.getMessage());
+		} catch (IOException e) {
+			System.out.println("Error! " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,376 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Function;
+
+/**
+ * This class represents a client connection of the shell server with its own
+ * Othello game in the game registry of the server. The selector thread reads
+ * the command lines and writes the output, a worker executes the commands in
+ * their order. Each command answers with its output lines and a line with a
+ * single dot. A client which sends commands faster than it reads their
+ * output is held back: the server stops reading while too many commands or
+ * too many bytes of output are queued, and the worker pauses while the
+ * output is not written. A client which queues too many searches is
+ * disconnected.
+ * @author Florian Mueller
+ */
+class ShellConnection {
+
+	/** line which ends the output of a command */
+	static final String END = ".";
+
+	/** maximum length of a command line */
+	private static final int MAX_LINE = 65536;
+
+	/** number of queued commands from which on no more commands are read */
+	private static final int MAX_COMMANDS = 1024;
+
+	/** number of output bytes from which on no more commands are read or executed */
+	private static final int MAX_OUTPUT = 1 << 20;
+
+	/** maximum number of queued searches */
+	private static final int MAX_SEARCHES = 16;
+
+	/** channel of the client */
+	private final SocketChannel channel;
+
+	/** registry of the game of the client */
+	private final GameRegistry registry;
+
+	/** id of the game of the client in the registry */
+	private final String game;
+
+	/** allowed commands and limits of the client */
+	private final ShellPolicy policy;
+
+	/** buffer of the read bytes */
+	private final ByteBuffer input;
+
+	/** current command line which is not complete yet */
+	private final StringBuilder line;
+
+	/** complete command lines which are not executed yet */
+	private final Deque<String> commands;
+
+	/** output which is not written yet */
+	private final StringBuilder output;
+
+	/** buffer of the output which is written */
+	private ByteBuffer pending;
+
+	/** number of bytes of the output buffer which are not written yet */
+	private int unsent;
+
+	/** number of queued searches */
+	private int searches;
+
+	/** flag if a worker executes the commands */
+	private boolean busy;
+
+	/** flag if the client has quit or closed its output, so that nothing more is read */
+	private boolean closing;
+
+	/** flag if the channel is closed, so that the game is released when no worker uses it */
+	private boolean closed;
+
+	/** flag if the game is removed from the registry */
+	private boolean released;
+
+	/**
+	 * Constructs a new connection with a new game in the registry.
+	 * @param channel channel of the client
+	 * @param registry registry of the games of the server
+	 * @param policy allowed commands and limits of the client
+	 */
+	ShellConnection(SocketChannel channel, GameRegistry registry, ShellPolicy policy) {
+		this.channel = channel;
+		this.registry = registry;
+		this.policy = policy;
+		this.game = registry.create();
+		this.input = ByteBuffer.allocate(8192);
+		this.line = new StringBuilder();
+		this.commands = new ArrayDeque<String>();
+		this.output = new StringBuilder();
+	}
+
+	/**
+	 * Returns the channel of the client.
+	 * @return the channel of the client
+	 */
+	SocketChannel getChannel() {
+		return this.channel;
+	}
+
+	/**
+	 * Reads the available bytes and queues the complete command lines. At the
+	 * end of the input the connection is closing and the searches of the game
+	 * are stopped, because a client which has closed its output cannot be
+	 * told apart from a client which is gone. The queued commands are still
+	 * executed, but their searches end after the first iteration. The stop
+	 * command stops the searches as soon as it is read, if the policy allows
+	 * it, and is queued to let the searches run again when its turn comes.
+	 * @return {@code true} if a worker has to be started, {@code false} otherwise
+	 * @throws IOException if the channel fails, the line is too long or too
+	 *         many searches are queued
+	 */
+	boolean read() throws IOException {
+		boolean result = false;
+		boolean ended = false;
+		boolean stop = false;
+		int count = channel.read(input);
+
+		input.flip();
+		synchronized (this) {
+			if (count < 0 && !closing) {
+				this.closing = true;
+				ended = true;
+			}
+			while (input.hasRemaining()) {
+				char c = (char) (input.get() & 0xFF);
+				if (c == '\n') {
+					if (!closing) {
+						String command = line.toString();
+						if (command.trim().equals(Shell.CMD_STOP) && policy.allows(Shell.CMD_STOP)) {
+							stop = true;
+						} else if (Shell.isSearch(command)) {
+							this.searches++;
+							if (searches > MAX_SEARCHES) {
+								throw new IOException("Error! Too many queued searches.");
+							}
+						}
+						commands.add(command);
+					}
+					line.setLength(0);
+				} else if (c != '\r') {
+					if (line.length() >= MAX_LINE) {
+						throw new IOException("Error! Command line is too long.");
+					}
+					line.append(c);
+				}
+			}
+			result = this.startWorker();
+		}
+		input.clear();
+		if (ended || stop) {
+			registry.stop(game);
+		}
+		return result;
+	}
+
+	/**
+	 * Executes the queued commands and collects their output. The output of
+	 * all commands which are queued meanwhile is written as one batch, the
+	 * progress of a running command, like the rankings of an analysis, as
+	 * soon as it is flushed. The worker ends while too much output is not
+	 * written and is started again by {@link #resume()}. If a command fails
+	 * with an error, the connection is closing.
+	 * @param written notifies the server of new output
+	 */
+	void execute(final Runnable written) {
+		final StringBuilder out = new StringBuilder();
+		final Flushable flusher = new Flushable() {
+			public void flush() {
+				synchronized (ShellConnection.this) {
+					output.append(out);
+				}
+				out.setLength(0);
+				written.run();
+			}
+		};
+		String command = this.nextCommand();
+		try {
+			while (command != null) {
+				final String line = command;
+				boolean quit = false;
+				try {
+					quit = registry.execute(game, new Function<Othello, Boolean>() {
+						public Boolean apply(Othello othello) {
+							if (!isReading()) {
+								othello.stop();
+							}
+							return Boolean.valueOf(Shell.execute(line, othello, out, policy, flusher));
+						}
+					}).booleanValue();
+				} catch (RuntimeException e) {
+					out.append(e.getMessage()).append('\n');
+				}
+				out.append(END).append('\n');
+				synchronized (this) {
+					output.append(out);
+					if (quit) {
+						this.closing = true;
+						commands.clear();
+						this.searches = 0;
+					}
+				}
+				out.setLength(0);
+				command = this.nextCommand();
+			}
+		} finally {
+			if (command != null) {
+				synchronized (this) {
+					this.closing = true;
+					this.busy = false;
+					commands.clear();
+					this.searches = 0;
+				}
+			}
+			this.releaseIfClosed();
+		}
+	}
+
+	/**
+	 * Writes as much of the output as the channel takes.
+	 * @return {@code true} if all output is written, {@code false} otherwise
+	 * @throws IOException if the channel is closed
+	 */
+	boolean write() throws IOException {
+		if (pending == null || !pending.hasRemaining()) {
+			synchronized (this) {
+				if (output.length() > 0) {
+					this.pending = ByteBuffer.wrap(output.toString().getBytes(StandardCharsets.ISO_8859_1));
+					output.setLength(0);
+				}
+			}
+		}
+		if (pending != null && pending.hasRemaining()) {
+			channel.write(pending);
+		}
+		boolean result;
+		synchronized (this) {
+			if (pending == null) {
+				this.unsent = 0;
+			} else {
+				this.unsent = pending.remaining();
+			}
+			result = unsent == 0 && output.length() == 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Check whether so many commands or so much output are queued, that no
+	 * more commands are read until the worker and the client have caught up.
+	 * @return {@code true} if reading has to pause, {@code false} otherwise
+	 */
+	synchronized boolean isBlocked() {
+		return commands.size() >= MAX_COMMANDS || this.isOutputFull();
+	}
+
+	/**
+	 * Starts the worker again if it has ended because of too much output
+	 * and the output is written meanwhile.
+	 * @return {@code true} if a worker has to be started, {@code false} otherwise
+	 */
+	synchronized boolean resume() {
+		return this.startWorker();
+	}
+
+	/**
+	 * Check whether more commands are read from the client.
+	 * @return {@code true} if the client has not quit, {@code false} otherwise
+	 */
+	synchronized boolean isReading() {
+		return !closing;
+	}
+
+	/**
+	 * Check whether the client has quit, all commands are executed and all
+	 * output is written, so that the connection can be closed.
+	 * @return {@code true} if the connection is finished, {@code false} otherwise
+	 */
+	synchronized boolean isFinished() {
+		return closing && !busy && output.length() == 0
+				&& (pending == null || !pending.hasRemaining());
+	}
+
+	/**
+	 * Closes the channel and stops the searches of the game, so that a
+	 * running command ends soon. The game is removed from the registry at
+	 * once if no worker executes a command, otherwise by the worker when it
+	 * ends, because the game must not be used by two threads.
+	 * @throws IOException if the channel cannot be closed
+	 */
+	void close() throws IOException {
+		boolean first;
+		synchronized (this) {
+			first = !closed;
+			this.closing = true;
+			this.closed = true;
+			commands.clear();
+			this.searches = 0;
+		}
+		if (first) {
+			registry.stop(game);
+		}
+		try {
+			channel.close();
+		} finally {
+			this.releaseIfClosed();
+		}
+	}
+
+	/**
+	 * Removes the game from the registry once if the channel is closed and no
+	 * worker executes a command.
+	 */
+	private void releaseIfClosed() {
+		boolean release;
+		synchronized (this) {
+			release = closed && !busy && !released;
+			if (release) {
+				this.released = true;
+			}
+		}
+		if (release) {
+			registry.remove(game);
+		}
+	}
+
+	/**
+	 * Marks the worker as busy if there are commands to execute and the
+	 * output is not full.
+	 * @return {@code true} if a worker has to be started, {@code false} otherwise
+	 */
+	private boolean startWorker() {
+		boolean result = false;
+		if (!busy && !commands.isEmpty() && !this.isOutputFull()) {
+			this.busy = true;
+			result = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Check whether so much output is not written, that no more commands are
+	 * executed.
+	 * @return {@code true} if the output is full, {@code false} otherwise
+	 */
+	private boolean isOutputFull() {
+		return output.length() + unsent >= MAX_OUTPUT;
+	}
+
+	/**
+	 * Takes the next command or ends the work of the worker, if there is
+	 * none or the output is full.
+	 * @return next command, null if there is none
+	 */
+	private synchronized String nextCommand() {
+		String result = null;
+		if (!this.isOutputFull()) {
+			result = commands.poll();
+		}
+		if (result == null) {
+			this.busy = false;
+		} else if (Shell.isSearch(result)) {
+			this.searches--;
+		}
+		return result;
+	}
+
+}
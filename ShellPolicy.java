@@ -0,0 +1,137 @@
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class represents what a front end of the {@link Shell} may do: the
+ * commands it may execute, the longest time budget of a search and the
+ * directory of the files it may read and write. The terminal and the scripts
+ * may execute all commands on the files below the directory given by the
+ * system property {@code othello.files}, by default the working directory.
+ * The clients of the shell server may only execute the commands which play a
+ * game and have no files. Only an administrating front end like the terminal
+ * may change the settings of the whole process, like switching the metrics
+ * on or off.
+ * @author Florian Mueller
+ */
+public final class ShellPolicy {
+
+	/** longest time budget of a search in milliseconds which can be given */
+	public static final long MAX_TIME = 999999999L;
+
+	/** system property with the directory of the files of the local policy */
+	public static final String FILES_PROPERTY = "othello.files";
+
+	/** policy of the terminal and the scripts, all commands without a limit */
+	public static final ShellPolicy LOCAL = new ShellPolicy(null, MAX_TIME,
+			Paths.get(System.getProperty(FILES_PROPERTY, "")), true);
+
+	/** allowed commands, null if all commands are allowed */
+	private final Set<String> commands;
+
+	/** longest time budget of a search in milliseconds */
+	private final long maxTime;
+
+	/** absolute directory of the files, null if no file may be used */
+	private final Path directory;
+
+	/** flag if the settings of the whole process may be changed */
+	private final boolean admin;
+
+	/**
+	 * Constructs a new policy without files.
+	 * @param commands names of the allowed commands, null for all commands
+	 * @param maxTime longest time budget of a search in milliseconds
+	 */
+	public ShellPolicy(String[] commands, long maxTime) {
+		this(commands, maxTime, null);
+	}
+
+	/**
+	 * Constructs a new policy which may not change the settings of the whole
+	 * process.
+	 * @param commands names of the allowed commands, null for all commands
+	 * @param maxTime longest time budget of a search in milliseconds
+	 * @param directory directory of the files, null if no file may be used
+	 */
+	public ShellPolicy(String[] commands, long maxTime, Path directory) {
+		this(commands, maxTime, directory, false);
+	}
+
+	/**
+	 * Constructs a new policy.
+	 * @param commands names of the allowed commands, null for all commands
+	 * @param maxTime longest time budget of a search in milliseconds
+	 * @param directory directory of the files, null if no file may be used
+	 * @param admin {@code true} if the settings of the whole process may be
+	 *        changed, {@code false} otherwise
+	 */
+	public ShellPolicy(String[] commands, long maxTime, Path directory, boolean admin) {
+		if (maxTime < 1 || maxTime > MAX_TIME) {
+			throw new IllegalArgumentException("Error! Invalid time limit.");
+		}
+
+		Set<String> allowed = null;
+		if (commands != null) {
+			allowed = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(commands)));
+		}
+		this.commands = allowed;
+		this.maxTime = maxTime;
+		if (directory != null) {
+			this.directory = directory.toAbsolutePath().normalize();
+		} else {
+			this.directory = null;
+		}
+		this.admin = admin;
+	}
+
+	/**
+	 * Check whether a command may be executed.
+	 * @param command name of the command
+	 * @return {@code true} if it is allowed, {@code false} otherwise
+	 */
+	public boolean allows(String command) {
+		return commands == null || commands.contains(command);
+	}
+
+	/**
+	 * Check whether the settings of the whole process may be changed, like
+	 * the metrics which are shared by all games.
+	 * @return {@code true} if they may be changed, {@code false} otherwise
+	 */
+	public boolean isAdmin() {
+		return this.admin;
+	}
+
+	/**
+	 * Returns the longest time budget of a search.
+	 * @return the longest time budget in milliseconds
+	 */
+	public long getMaxTime() {
+		return this.maxTime;
+	}
+
+	/**
+	 * Resolves the name of a file against the directory of the files. Names
+	 * which leave the directory, like absolute names or names with
+	 * {@code ".."}, are not resolved.
+	 * @param name name of the file
+	 * @return path of the file, null if the file may not be used
+	 * @throws InvalidPathException if the name is not a valid path
+	 */
+	public Path resolve(String name) {
+		Path result = null;
+		if (directory != null) {
+			Path path = directory.resolve(name).normalize();
+			if (path.startsWith(directory) && !path.equals(directory)) {
+				result = path;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,286 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+
+/**
+ * This class runs the commands of the {@link Shell} without a terminal. The
+ * commands are streamed from a file or the standard input through one
+ * buffered reader and the output goes through one buffered writer, so that
+ * millions of commands run without a prompt and a flush per line. A
+ * transcript like {@code Tests.txt}, whose commands follow the prompt and
+ * are followed by their expected output, can be replayed and compared with
+ * the actual output. The latency of each command is counted in a histogram.
+ * @author Florian Mueller
+ */
+public class ShellScript {
+
+	/** mode which runs the commands of a script */
+	private static final String MODE_RUN = "run";
+
+	/** mode which replays a transcript and compares the output */
+	private static final String MODE_CHECK = "check";
+
+	/** option of the run mode which writes a transcript */
+	private static final String OPTION_ECHO = "echo";
+
+	/** option of the run mode which adds the latencies */
+	private static final String OPTION_TIMING = "timing";
+
+	/** name of the standard input as file */
+	private static final String STANDARD = "-";
+
+	/** size of the buffers of the reader and the writer */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** game the commands operate on */
+	private final Othello othello;
+
+	/** output of the current command */
+	private final StringBuilder out;
+
+	/** latencies of the commands */
+	private final LatencyHistogram latencies;
+
+	/** flag whether the last command quit the shell */
+	private boolean quit;
+
+	/**
+	 * Constructs a new script runner with a new game.
+	 */
+	public ShellScript() {
+		this.othello = new Othello();
+		this.out = new StringBuilder();
+		this.latencies = new LatencyHistogram();
+	}
+
+	/**
+	 * Runs the commands until the end of the input or the quit command.
+	 * @param in reader of the commands, one per line
+	 * @param writer writer of the output
+	 * @param echo flag whether each command is written with the prompt in
+	 *        front of its output, so that the output is a transcript
+	 * @return number of run commands
+	 * @throws IOException if the input cannot be read or the output cannot be
+	 *         written
+	 */
+	public long run(BufferedReader in, Writer writer, boolean echo) throws IOException {
+		if (in == null || writer == null) {
+			throw new IllegalArgumentException("Error! Stream is missing.");
+		}
+
+		long result = 0;
+		String line = in.readLine();
+		while (line != null && !quit) {
+			if (echo) {
+				writer.write(Shell.PROMPT);
+				writer.write(line);
+				writer.write('\n');
+			}
+			this.execute(line);
+			writer.append(out);
+			result++;
+			if (!quit) {
+				line = in.readLine();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Replays a transcript until its end or the quit command and writes each
+	 * difference between the expected and the actual output. Each
+	 * difference names the line of the transcript and the command, and
+	 * lists the expected lines with {@code '-'} and the actual lines with
+	 * {@code '+'} in front.
+	 * @param transcript reader of the transcript
+	 * @param writer writer of the differences
+	 * @return number of commands with a different output
+	 * @throws IOException if the transcript cannot be read or the differences
+	 *         cannot be written
+	 */
+	public long check(BufferedReader transcript, Writer writer) throws IOException {
+		if (transcript == null || writer == null) {
+			throw new IllegalArgumentException("Error! Stream is missing.");
+		}
+
+		long result = 0;
+		long number = 1;
+		String line = transcript.readLine();
+		while (line != null && !line.startsWith(Shell.PROMPT)) {
+			line = transcript.readLine();
+			number++;
+		}
+		StringBuilder expected = new StringBuilder();
+		while (line != null && !quit) {
+			String command = line.substring(Shell.PROMPT.length());
+			long commandNumber = number;
+			expected.setLength(0);
+			line = transcript.readLine();
+			number++;
+			while (line != null && !line.startsWith(Shell.PROMPT)) {
+				expected.append(line).append('\n');
+				line = transcript.readLine();
+				number++;
+			}
+
+			this.execute(command);
+			if (!this.matches(expected)) {
+				result++;
+				writer.write("line " + commandNumber + ": " + Shell.PROMPT + command + "\n");
+				writeLines(writer, '-', expected);
+				writeLines(writer, '+', out);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the latencies of the commands run so far.
+	 * @return histogram of the latencies
+	 */
+	public LatencyHistogram getLatencies() {
+		return this.latencies;
+	}
+
+	/**
+	 * Executes one command and counts its latency.
+	 * @param command command line
+	 */
+	private void execute(String command) {
+		out.setLength(0);
+		long start = System.nanoTime();
+		this.quit = Shell.execute(command, othello, out);
+		latencies.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Check whether the output of the last command is the expected output.
+	 * @param expected expected output with a {@code '\n'} after each line
+	 * @return {@code true} if the output is the same, {@code false} otherwise
+	 */
+	private boolean matches(StringBuilder expected) {
+		boolean result = expected.length() == out.length();
+		for (int i = 0; i < out.length() && result; i++) {
+			result = expected.charAt(i) == out.charAt(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the lines of an output with a mark in front of each.
+	 * @param writer writer of the lines
+	 * @param mark mark in front of each line
+	 * @param lines lines with a {@code '\n'} after each
+	 * @throws IOException if the lines cannot be written
+	 */
+	private static void writeLines(Writer writer, char mark, CharSequence lines) throws IOException {
+		boolean start = true;
+		for (int i = 0; i < lines.length(); i++) {
+			if (start) {
+				writer.write(mark);
+				writer.write(' ');
+			}
+			writer.write(lines.charAt(i));
+			start = lines.charAt(i) == '\n';
+		}
+	}
+
+	/**
+	 * Opens a file or the standard input to read.
+	 * @param file name of the file, {@code "-"} for the standard input
+	 * @return buffered reader of the file
+	 */
+	private static BufferedReader open(String file) {
+		InputStream stream = System.in;
+		if (!file.equals(STANDARD)) {
+			try {
+				stream = Files.newInputStream(Paths.get(file));
+			} catch (InvalidPathException e) {
+				throw new IllegalArgumentException("Error! Invalid file name: " + file);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Error! File cannot be read: " + file);
+			}
+		}
+		return new BufferedReader(new InputStreamReader(stream, StandardCharsets.ISO_8859_1),
+				BUFFER_SIZE);
+	}
+
+	/**
+	 * main method - runs a script with arguments like {@code run script.txt
+	 * echo timing} or replays a transcript with {@code check Tests.txt}. The
+	 * file {@code -} is the standard input. A check with differences and
+	 * every error, like a missing file or wrong arguments, exits with status
+	 * 1, so that the build fails. The errors are written to the standard
+	 * error stream.
+	 * @param args mode, file and the options of the run mode
+	 */
+	public static void main(String[] args) {
+		boolean failed = false;
+		if (args.length < 2 || (args[0].equals(MODE_CHECK) && args.length != 2)
+				|| (!args[0].equals(MODE_RUN) && !args[0].equals(MODE_CHECK))) {
+			System.err.println("Error! Expected run <file> [echo] [timing] or check <file>.");
+			failed = true;
+		} else {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(System.out,
+					StandardCharsets.ISO_8859_1), BUFFER_SIZE);
+			try {
+				boolean echo = false;
+				boolean timing = false;
+				for (int i = 2; i < args.length; i++) {
+					if (args[i].equals(OPTION_ECHO)) {
+						echo = true;
+					} else if (args[i].equals(OPTION_TIMING)) {
+						timing = true;
+					} else {
+						throw new IllegalArgumentException("Error! Invalid option: " + args[i]);
+					}
+				}
+
+				ShellScript script = new ShellScript();
+				BufferedReader in = open(args[1]);
+				try {
+					if (args[0].equals(MODE_RUN)) {
+						script.run(in, writer, echo);
+						if (timing) {
+							writer.write(script.getLatencies().getCount() + " commands, "
+									+ script.getLatencies().toString() + "\n");
+						}
+					} else {
+						long differences = script.check(in, writer);
+						writer.write(script.getLatencies().getCount() + " commands, "
+								+ script.getLatencies().toString() + "\n");
+						writer.write(differences + " differences\n");
+						failed = differences > 0;
+					}
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				System.err.println("Error! " + e.getMessage());
+				failed = true;
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				failed = true;
+			} finally {
+				try {
+					writer.flush();
+				} catch (IOException e) {
+					System.err.println("Error! " + e.getMessage());
+					failed = true;
+				}
+			}
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class serves the shell commands over a line based TCP protocol. One
+ * selector thread accepts the clients, reads their command lines and writes
+ * the output without blocking, so it serves thousands of clients. The
+ * commands are executed on a pool of workers, those of one client in their
+ * order. A client may send many commands without waiting for the output
+ * (pipelining), but the server stops reading from a client which is too far
+ * ahead of its output. Each command answers with its output lines and a line with a
+ * single dot. The games of the clients live in a {@link GameRegistry}, which
+ * evicts the games of idle clients to compact snapshots. The clients may only
+ * execute the commands of the {@link ShellPolicy} of the server, by default
+ * those which play a game with searches of up to ten seconds.
+ * @author Florian Mueller
+ */
+public class ShellServer {
+
+	/** default port of the server */
+	public static final int DEFAULT_PORT = 4711;
+
+	/** idle time in milliseconds after which the game of a client is evicted */
+	private static final long IDLE_TIME = 300000;
+
+	/** time between two evictions in milliseconds */
+	private static final long EVICTION_PERIOD = 30000;
+
+	/**
+	 * default policy of the clients: the commands which play a game and
+	 * searches of up to ten seconds
+	 */
+	public static final ShellPolicy DEFAULT_POLICY = new ShellPolicy(new String[] {"newGame",
+		"hole", "move", "print", "possibleMoves", "abort", "think", "analyze", "solve", "stop",
+		"quit"}, 10000);
+
+	/** selector of the channels */
+	private final Selector selector;
+
+	/** channel of the server */
+	private final ServerSocketChannel server;
+
+	/** pool of the workers which execute the commands */
+	private final ExecutorService workers;
+
+	/** connections with new output */
+	private final ConcurrentLinkedQueue<ShellConnection> written;
+
+	/** games of the clients */
+	private final GameRegistry registry;
+
+	/** allowed commands and limits of the clients */
+	private final ShellPolicy policy;
+
+	/** thread of the selector, null if the server is not started */
+	private Thread loop;
+
+	/** flag if the server is stopped */
+	private volatile boolean stopped;
+
+	/**
+	 * Constructs a new server on the loopback address.
+	 * @param port port of the server, 0 for any free port
+	 * @param threads number of worker threads
+	 * @throws IOException if the port cannot be bound
+	 */
+	public ShellServer(int port, int threads) throws IOException {
+		this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads);
+	}
+
+	/**
+	 * Constructs a new server on the address.
+	 * @param address address of the server
+	 * @param threads number of worker threads
+	 * @throws IOException if the address cannot be bound
+	 */
+	public ShellServer(InetSocketAddress address, int threads) throws IOException {
+		this(address, threads, DEFAULT_POLICY);
+	}
+
+	/**
+	 * Constructs a new server on the address with a policy for the clients.
+	 * @param address address of the server
+	 * @param threads number of worker threads
+	 * @param policy allowed commands and limits of the clients
+	 * @throws IOException if the address cannot be bound
+	 */
+	public ShellServer(InetSocketAddress address, int threads, ShellPolicy policy)
+			throws IOException {
+		if (address == null) {
+			throw new IllegalArgumentException("Error! Address is missing.");
+		} else if (threads < 1 || threads > ParallelSearch.MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		} else if (policy == null) {
+			throw new IllegalArgumentException("Error! Policy is missing.");
+		}
+
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		server.bind(address, 1024);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		this.workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "shell-worker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.written = new ConcurrentLinkedQueue<ShellConnection>();
+		this.registry = new GameRegistry();
+		this.policy = policy;
+	}
+
+	/**
+	 * Returns the port of the server.
+	 * @return the port of the server
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * Returns the registry of the games of the clients.
+	 * @return the registry of the games
+	 */
+	public GameRegistry getRegistry() {
+		return this.registry;
+	}
+
+	/**
+	 * Starts the selector thread and the eviction of idle games.
+	 */
+	public synchronized void start() {
+		if (loop != null) {
+			throw new IllegalArgumentException("Error! Server is already started.");
+		}
+
+		registry.startEviction(IDLE_TIME, EVICTION_PERIOD);
+		this.loop = new Thread(new Runnable() {
+			public void run() {
+				serve();
+			}
+		}, "shell-server");
+		loop.start();
+	}
+
+	/**
+	 * Stops the server, closes all connections and stops the search threads
+	 * of the remaining games.
+	 */
+	public synchronized void shutdown() {
+		this.stopped = true;
+		selector.wakeup();
+		if (loop != null) {
+			try {
+				loop.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		workers.shutdownNow();
+		registry.shutdown();
+	}
+
+	/**
+	 * Serves the clients until the server is stopped.
+	 */
+	private void serve() {
+		try {
+			while (!stopped) {
+				selector.select();
+				ShellConnection connection = written.poll();
+				while (connection != null) {
+					this.write(connection);
+					connection = written.poll();
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (key.isValid() && key.isAcceptable()) {
+						this.accept();
+					} else if (key.isValid()) {
+						connection = (ShellConnection) key.attachment();
+						if (key.isReadable()) {
+							this.read(connection);
+						}
+						if (key.isValid() && key.isWritable()) {
+							this.write(connection);
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error! Server failed.", e);
+		} finally {
+			this.closeAll();
+		}
+	}
+
+	/**
+	 * Closes all connections, the server channel and the selector.
+	 */
+	private void closeAll() {
+		for (SelectionKey key : selector.keys()) {
+			if (key.attachment() != null) {
+				this.close((ShellConnection) key.attachment());
+			}
+		}
+		try {
+			server.close();
+			selector.close();
+		} catch (IOException e) {
+			throw new IllegalStateException("Error! Server cannot be closed.", e);
+		}
+	}
+
+	/**
+	 * Accepts a new client.
+	 * @throws IOException if the selector fails
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel != null) {
+			channel.configureBlocking(false);
+			channel.register(selector, SelectionKey.OP_READ, new ShellConnection(channel, registry,
+					policy));
+		}
+	}
+
+	/**
+	 * Reads the commands of a client and starts a worker if there is none.
+	 * @param connection connection of the client
+	 */
+	private void read(ShellConnection connection) {
+		try {
+			if (connection.read()) {
+				this.execute(connection);
+			}
+			if (!connection.isReading() || connection.isBlocked()) {
+				this.write(connection);
+			}
+		} catch (IOException e) {
+			this.close(connection);
+		}
+	}
+
+	/**
+	 * Starts a worker which executes the queued commands of a client.
+	 * @param connection connection of the client
+	 */
+	private void execute(final ShellConnection connection) {
+		final Runnable notifier = new Runnable() {
+			public void run() {
+				written.add(connection);
+				selector.wakeup();
+			}
+		};
+		workers.execute(new Runnable() {
+			public void run() {
+				try {
+					connection.execute(notifier);
+				} finally {
+					notifier.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes the output of a client, starts its worker again if it has
+	 * paused for the output and closes the connection if the client has quit
+	 * and all output is written. The commands of the client are only read
+	 * while it is not too far ahead of its output.
+	 * @param connection connection of the client
+	 */
+	private void write(ShellConnection connection) {
+		SelectionKey key = connection.getChannel().keyFor(selector);
+		if (key != null && key.isValid()) {
+			try {
+				boolean done = connection.write();
+				if (connection.resume()) {
+					this.execute(connection);
+				}
+				int reading = 0;
+				if (connection.isReading() && !connection.isBlocked()) {
+					reading = SelectionKey.OP_READ;
+				}
+				if (!done) {
+					key.interestOps(reading | SelectionKey.OP_WRITE);
+				} else if (connection.isFinished()) {
+					this.close(connection);
+				} else {
+					key.interestOps(reading);
+				}
+			} catch (IOException e) {
+				this.close(connection);
+			} catch (CancelledKeyException e) {
+				this.close(connection);
+			}
+		}
+	}
+
+	/**
+	 * Closes the connection of a client.
+	 * @param connection connection of the client
+	 */
+	private void close(ShellConnection connection) {
+		try {
+			connection.close();
+		} catch (IOException e) {
+			// the client is gone, there is nothing left to release
+		}
+	}
+
+	/**
+	 * main method - runs the server
+	 * @param args optional port and number of worker threads
+	 */
+	public static void main(String[] args) {
+		try {
+			int port = DEFAULT_PORT;
+			int threads = Runtime.getRuntime().availableProcessors();
+			if (args.length > 0) {
+				port = Integer.parseInt(args[0]);
+			}
+			if (args.length > 1) {
+				threads = Integer.parseInt(args[1]);
+			}
+			ShellServer server = new ShellServer(port, threads);
+			server.start();
+			System.out.println("Listening on port " + server.getPort());
+		} catch (NumberFormatException e) {
+			System.out.println("Error! Invalid number: " + e.getMessage());
+		} catch (IOException e) {
+			System.out.println("Error! " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,747 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a board of the Othello game which is too large for
+ * the {@link Board}, up to {@link #MAX_LENGTH} lines and columns. Only the
+ * stones and holes are stored, in a {@link CellMap}, so the memory follows
+ * the number of stones and not the size of the board. The possible moves are
+ * kept for the frontier: the empty cells next to a stone, which are the only
+ * cells a move can go to. A move checks again only the frontier cells whose
+ * lines run over a changed stone, so its cost follows the flipped stones and
+ * listing the moves follows the size of the frontier. The columns are named
+ * A to Z, then AA, AB and so on; the lines are numbered from 1.
+ * @author Florian Mueller
+ */
+public class SparseBoard {
+
+	/** maximum number of lines and of columns */
+	public static final int MAX_LENGTH = 1 << 20;
+
+	/** value of a cell with a black stone */
+	private static final byte BLACK = 1;
+
+	/** value of a cell with a white stone */
+	private static final byte WHITE = 2;
+
+	/** value of a cell with a hole */
+	private static final byte HOLE = 3;
+
+	/** value of a frontier cell where no player can move */
+	private static final byte FRONTIER = 1;
+
+	/** flag of a frontier cell where black can move */
+	private static final byte BLACK_MOVE = 2;
+
+	/** flag of a frontier cell where white can move */
+	private static final byte WHITE_MOVE = 4;
+
+	/** line vector of the eight directions */
+	private static final int[] DIRECTION_LINE = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+	/** column vector of the eight directions */
+	private static final int[] DIRECTION_COLUMN = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+	/** number of letters of the column names */
+	private static final int LETTERS = 26;
+
+	/** line length of the board */
+	private final int lines;
+
+	/** column length of the board */
+	private final int columns;
+
+	/** stones and holes by cell */
+	private final CellMap cells;
+
+	/** empty cells next to a stone with the flags of the possible moves */
+	private final CellMap frontier;
+
+	/** frontier cells to check again after a move */
+	private final CellMap dirty;
+
+	/** cells flipped by the current move */
+	private long[] flipped;
+
+	/** number of cells flipped by the current move up to each direction */
+	private final int[] flipEnd;
+
+	/** number of black stones */
+	private long blackStones;
+
+	/** number of white stones */
+	private long whiteStones;
+
+	/** number of holes */
+	private long holeCount;
+
+	/** number of possible moves of black */
+	private int blackMoves;
+
+	/** number of possible moves of white */
+	private int whiteMoves;
+
+	/**
+	 * Constructs a new board with the four stones of the start in the middle.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 */
+	public SparseBoard(int lines, int columns) {
+		if (lines % 2 != 0 || lines < 2 || lines > MAX_LENGTH) {
+			throw new IllegalArgumentException("Error! Line length is invalid.");
+		} else if (columns % 2 != 0 || columns < 2 || columns > MAX_LENGTH) {
+			throw new IllegalArgumentException(
+					"Error! Column length is invalid.");
+		}
+
+		this.lines = lines;
+		this.columns = columns;
+		this.cells = new CellMap();
+		this.frontier = new CellMap();
+		this.dirty = new CellMap();
+		this.flipped = new long[64];
+		this.flipEnd = new int[8];
+
+		int linePos = lines / 2;
+		int columnPos = columns / 2;
+		this.setStone(this.cell(linePos - 1, columnPos - 1), WHITE);
+		this.setStone(this.cell(linePos - 1, columnPos), BLACK);
+		this.setStone(this.cell(linePos, columnPos), WHITE);
+		this.setStone(this.cell(linePos, columnPos - 1), BLACK);
+		this.resetFrontier();
+	}
+
+	/**
+	 * Returns the name of a column: A to Z, then AA to AZ, BA and so on.
+	 * @param column column counted from 0
+	 * @return name of the column
+	 */
+	public static String columnName(int column) {
+		if (column < 0) {
+			throw new IllegalArgumentException("Error! Invalid column.");
+		}
+
+		StringBuilder result = new StringBuilder();
+		int rest = column + 1;
+		while (rest > 0) {
+			rest--;
+			result.append((char) ('A' + rest % LETTERS));
+			rest /= LETTERS;
+		}
+		return result.reverse().toString();
+	}
+
+	/**
+	 * Returns the column of a name of {@link #columnName(int)}.
+	 * @param name name of the column
+	 * @return column counted from 0, -1 if the name is no column name or
+	 *         the column is beyond {@link #MAX_LENGTH}
+	 */
+	public static int columnNumber(CharSequence name) {
+		long result = -1;
+		if (name != null && name.length() > 0) {
+			long number = 0;
+			for (int i = 0; i < name.length() && number <= MAX_LENGTH; i++) {
+				char c = name.charAt(i);
+				if (c < 'A' || c > 'Z') {
+					number = MAX_LENGTH + 1;
+				} else {
+					number = number * LETTERS + (c - 'A' + 1);
+				}
+			}
+			if (number <= MAX_LENGTH) {
+				result = number - 1;
+			}
+		}
+		return (int) result;
+	}
+
+	/**
+	 * Returns the line length of the board.
+	 * @return the line length
+	 */
+	public int getLines() {
+		return this.lines;
+	}
+
+	/**
+	 * Returns the column length of the board.
+	 * @return the column length
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Check whether the board contains this point.
+	 * @param column name of the column of the point
+	 * @param line line of the point
+	 * @return {@code true} if there exists the point, {@code false} otherwise
+	 */
+	public boolean containsPoint(String column, int line) {
+		int columnIndex = columnNumber(column);
+		return line >= 1 && line <= lines && columnIndex >= 0 && columnIndex < columns;
+	}
+
+	/**
+	 * Returns the index of a cell which is used by
+	 * {@link #moveStone(long, char)}.
+	 * @param column name of the column of the position
+	 * @param line line of the position
+	 * @return index of the cell
+	 */
+	public long cellIndex(String column, int line) {
+		if (!this.containsPoint(column, line)) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		}
+
+		return this.cell(line - 1, columnNumber(column));
+	}
+
+	/**
+	 * Returns the name of a cell like {@code AB12}.
+	 * @param cell index of the cell
+	 * @return name of the column followed by the line
+	 */
+	public String pointName(long cell) {
+		this.checkCell(cell);
+		return columnName((int) (cell % columns)) + Long.toString(cell / columns + 1);
+	}
+
+	/**
+	 * Returns the content of a cell.
+	 * @param column name of the column of the cell
+	 * @param line line of the cell
+	 * @return {@code 'B'} or {@code 'W'} for a stone, {@code '#'} for a hole
+	 *         and {@code '-'} for an empty cell
+	 */
+	public char getCell(String column, int line) {
+		byte value = cells.get(this.cellIndex(column, line));
+		char result = '-';
+		if (value == BLACK) {
+			result = 'B';
+		} else if (value == WHITE) {
+			result = 'W';
+		} else if (value == HOLE) {
+			result = '#';
+		}
+		return result;
+	}
+
+	/**
+	 * Check whether the positions form a rectangle.
+	 * @param columnOne column of the first position
+	 * @param lineOne line of the first position
+	 * @param columnTwo column of the second position
+	 * @param lineTwo line of the second position
+	 * @return {@code true} if it is a rectangle, {@code false} otherwise
+	 */
+	public boolean isRectangle(String columnOne, int lineOne, String columnTwo, int lineTwo) {
+		int colOne = columnNumber(columnOne);
+		int colTwo = columnNumber(columnTwo);
+		return colOne >= 0 && colOne <= colTwo && lineOne >= 1 && lineOne <= lineTwo;
+	}
+
+	/**
+	 * Check if hole is allowed at this position. The smaller one of the
+	 * rectangle and the stored cells is searched for a stone.
+	 * @param columnOne column of the first position
+	 * @param lineOne line of the first position
+	 * @param columnTwo column of the second position
+	 * @param lineTwo line of the second position
+	 * @return {@code true} if hole is allowed, {@code false} otherwise
+	 */
+	public boolean holeIsAllowed(String columnOne, int lineOne, String columnTwo, int lineTwo) {
+		boolean allowed = this.containsPoint(columnOne, lineOne)
+				&& this.containsPoint(columnTwo, lineTwo)
+				&& this.isRectangle(columnOne, lineOne, columnTwo, lineTwo);
+		if (allowed) {
+			int colOne = columnNumber(columnOne);
+			int colTwo = columnNumber(columnTwo);
+			long area = (long) (lineTwo - lineOne + 1) * (colTwo - colOne + 1);
+			if (area <= cells.size()) {
+				for (int i = lineOne - 1; i < lineTwo && allowed; i++) {
+					for (int j = colOne; j <= colTwo && allowed; j++) {
+						allowed = !this.isStone(cells.get(this.cell(i, j)));
+					}
+				}
+			} else {
+				for (int k = 0; k < cells.capacity() && allowed; k++) {
+					if (this.isStone(cells.valueAt(k))) {
+						long line = cells.cellAt(k) / columns;
+						long column = cells.cellAt(k) % columns;
+						allowed = line < lineOne - 1 || line >= lineTwo
+								|| column < colOne || column > colTwo;
+					}
+				}
+			}
+		}
+		return allowed;
+	}
+
+	/**
+	 * Set of rectangular holes on the playing board. Each hole is stored, so
+	 * the cost follows the area of the rectangle. The frontier is built
+	 * again afterwards.
+	 * @param columnOne column of the first position
+	 * @param lineOne line of the first position
+	 * @param columnTwo column of the second position
+	 * @param lineTwo line of the second position
+	 */
+	public void setHole(String columnOne, int lineOne, String columnTwo, int lineTwo) {
+		if (!this.containsPoint(columnOne, lineOne)) {
+			throw new IllegalArgumentException("Error! Point: " + columnOne
+					+ Integer.toString(lineOne) + " does not exist.");
+		} else if (!this.containsPoint(columnTwo, lineTwo)) {
+			throw new IllegalArgumentException("Error! Point: " + columnTwo
+					+ Integer.toString(lineTwo) + " does not exist.");
+		} else if (!this.isRectangle(columnOne, lineOne, columnTwo, lineTwo)) {
+			throw new IllegalArgumentException(
+					"Error! The entry is not a rectangle.");
+		} else if (!this.holeIsAllowed(columnOne, lineOne, columnTwo, lineTwo)) {
+			throw new IllegalArgumentException(
+					"Error! Hole is not allowed. Stones between the hole!");
+		}
+
+		int colOne = columnNumber(columnOne);
+		int colTwo = columnNumber(columnTwo);
+		for (int i = lineOne - 1; i < lineTwo; i++) {
+			for (int j = colOne; j <= colTwo; j++) {
+				long cell = this.cell(i, j);
+				if (cells.get(cell) != HOLE) {
+					cells.put(cell, HOLE);
+					holeCount++;
+				}
+			}
+		}
+		this.resetFrontier();
+	}
+
+	/**
+	 * Check whether the player can move to the position.
+	 * @param column name of the column of the position
+	 * @param line line of the position
+	 * @param color color of the current player
+	 * @return {@code true} if the move is possible, {@code false} otherwise
+	 */
+	public boolean isPossibleMove(String column, int line, char color) {
+		byte flag = moveFlag(color);
+		boolean result = false;
+		if (this.containsPoint(column, line)) {
+			result = (frontier.get(this.cell(line - 1, columnNumber(column))) & flag) != 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Moves a stone of the player to the position of the board.
+	 * @param column name of the column of the position
+	 * @param line line of the position
+	 * @param color color of the current player
+	 */
+	public void moveStone(String column, int line, char color) {
+		this.moveStone(this.cellIndex(column, line), color);
+	}
+
+	/**
+	 * Moves a stone of the player to a cell. The enclosed stones are flipped,
+	 * the empty cells next to the stone join the frontier and the frontier
+	 * cells whose lines run over the stone or a flipped stone are checked
+	 * again. The runs along the line of a flip end where the runs from the
+	 * placed stone end, so they are not followed from the flipped stones.
+	 * @param cell index of the cell
+	 * @param color color of the current player
+	 */
+	public void moveStone(long cell, char color) {
+		byte own = stoneValue(color);
+		this.checkCell(cell);
+		if (cells.get(cell) != 0) {
+			throw new IllegalArgumentException("Error! Cell is not empty.");
+		}
+
+		int line = (int) (cell / columns);
+		int column = (int) (cell % columns);
+		this.setStone(cell, own);
+		this.countMoves(frontier.remove(cell), -1);
+		int flips = 0;
+		for (int direction = 0; direction < 8; direction++) {
+			flips = this.flipStones(line, column, own, direction, flips);
+			flipEnd[direction] = flips;
+		}
+		this.addStones(own, flips);
+		this.addStones(opponent(own), -flips);
+
+		for (int direction = 0; direction < 8; direction++) {
+			int i = line + DIRECTION_LINE[direction];
+			int j = column + DIRECTION_COLUMN[direction];
+			if (this.inside(i, j) && cells.get(this.cell(i, j)) == 0
+					&& frontier.get(this.cell(i, j)) == 0) {
+				frontier.put(this.cell(i, j), FRONTIER);
+			}
+		}
+
+		dirty.clear();
+		this.markDirty(line, column, -1);
+		int k = 0;
+		for (int direction = 0; direction < 8; direction++) {
+			while (k < flipEnd[direction]) {
+				this.markDirty((int) (flipped[k] / columns), (int) (flipped[k] % columns), direction);
+				k++;
+			}
+		}
+		for (k = 0; k < dirty.capacity(); k++) {
+			if (dirty.valueAt(k) != 0) {
+				this.checkFrontier(dirty.cellAt(k));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of possible moves of a player.
+	 * @param color color of the player
+	 * @return the number of possible moves
+	 */
+	public int countMoves(char color) {
+		int result = this.blackMoves;
+		if (moveFlag(color) == WHITE_MOVE) {
+			result = this.whiteMoves;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cells of the possible moves of a player, which are used by
+	 * {@link #moveStone(long, char)}. The frontier is searched, so the cost
+	 * follows its size.
+	 * @param color color of the player
+	 * @return indexes of the cells line by line
+	 */
+	public long[] getMoveCells(char color) {
+		byte flag = moveFlag(color);
+		long[] result = new long[this.countMoves(color)];
+		int counter = 0;
+		for (int k = 0; k < frontier.capacity(); k++) {
+			if ((frontier.valueAt(k) & flag) != 0) {
+				result[counter] = frontier.cellAt(k);
+				counter++;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns all possible moves of a player.
+	 * @param color color of the player
+	 * @return names of the cells of the moves line by line
+	 */
+	public List<String> getPossibleMoves(char color) {
+		long[] moves = this.getMoveCells(color);
+		List<String> result = new ArrayList<String>(moves.length);
+		for (long cell : moves) {
+			result.add(this.pointName(cell));
+		}
+		return result;
+	}
+
+	/**
+	 * Count the stones of a player.
+	 * @param color color of the player
+	 * @return number of stones of the player
+	 */
+	public long countStones(char color) {
+		long counter = this.blackStones;
+		if (stoneValue(color) == WHITE) {
+			counter = this.whiteStones;
+		}
+		return counter;
+	}
+
+	/**
+	 * Count the empty cells.
+	 * @return number of cells without stone or hole
+	 */
+	public long countEmpty() {
+		return (long) lines * columns - blackStones - whiteStones - holeCount;
+	}
+
+	/**
+	 * Count the holes.
+	 * @return number of holes on the board
+	 */
+	public long countHoles() {
+		return this.holeCount;
+	}
+
+	/**
+	 * Returns the size of the frontier.
+	 * @return number of empty cells next to a stone
+	 */
+	public int getFrontierSize() {
+		return this.frontier.size();
+	}
+
+	/**
+	 * Flips the stones of the opponent in one direction which are enclosed
+	 * between the placed stone and another stone of the player, and adds
+	 * them to the flipped cells.
+	 * @param line line of the placed stone
+	 * @param column column of the placed stone
+	 * @param own value of a stone of the player
+	 * @param direction index of the direction
+	 * @param flips number of flipped cells so far
+	 * @return number of flipped cells afterwards
+	 */
+	private int flipStones(int line, int column, byte own, int direction, int flips) {
+		int counter = this.countFlips(line, column, own, direction);
+		if (flipped.length < flips + counter) {
+			this.flipped = Arrays.copyOf(flipped, Math.max(flips + counter, 2 * flipped.length));
+		}
+		for (int k = 1; k <= counter; k++) {
+			long cell = this.cell(line + DIRECTION_LINE[direction] * k,
+					column + DIRECTION_COLUMN[direction] * k);
+			cells.put(cell, own);
+			flipped[flips + k - 1] = cell;
+		}
+		return flips + counter;
+	}
+
+	/**
+	 * Counts the stones of the opponent in one direction which are enclosed
+	 * between the cell and another stone of the player.
+	 * @param line line of the cell
+	 * @param column column of the cell
+	 * @param own value of a stone of the player
+	 * @param direction index of the direction
+	 * @return number of enclosed stones, 0 if there are none
+	 */
+	private int countFlips(int line, int column, byte own, int direction) {
+		byte other = opponent(own);
+		int counter = 0;
+		int i = line + DIRECTION_LINE[direction];
+		int j = column + DIRECTION_COLUMN[direction];
+		byte value = 0;
+		if (this.inside(i, j)) {
+			value = cells.get(this.cell(i, j));
+		}
+		while (value == other) {
+			counter++;
+			i += DIRECTION_LINE[direction];
+			j += DIRECTION_COLUMN[direction];
+			value = 0;
+			if (this.inside(i, j)) {
+				value = cells.get(this.cell(i, j));
+			}
+		}
+		if (value != own) {
+			counter = 0;
+		}
+		return counter;
+	}
+
+	/**
+	 * Check whether a stone placed on the empty cell would flip stones.
+	 * @param line line of the cell
+	 * @param column column of the cell
+	 * @param own value of a stone of the player
+	 * @return {@code true} if at least one stone would flip, {@code false} otherwise
+	 */
+	private boolean canFlip(int line, int column, byte own) {
+		boolean result = false;
+		for (int direction = 0; direction < 8 && !result; direction++) {
+			result = this.countFlips(line, column, own, direction) > 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the first empty cell behind the run of stones in each direction
+	 * from a changed stone. It is next to a stone, so it is in the frontier.
+	 * @param line line of the changed stone
+	 * @param column column of the changed stone
+	 * @param skipped direction which is skipped with its opposite, -1 for none
+	 */
+	private void markDirty(int line, int column, int skipped) {
+		for (int direction = 0; direction < 8; direction++) {
+			if (skipped < 0 || (direction & 3) != (skipped & 3)) {
+				int i = line + DIRECTION_LINE[direction];
+				int j = column + DIRECTION_COLUMN[direction];
+				while (this.inside(i, j) && this.isStone(cells.get(this.cell(i, j)))) {
+					i += DIRECTION_LINE[direction];
+					j += DIRECTION_COLUMN[direction];
+				}
+				if (this.inside(i, j) && cells.get(this.cell(i, j)) == 0) {
+					dirty.put(this.cell(i, j), FRONTIER);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks a frontier cell for the possible moves of both players again.
+	 * @param cell index of the frontier cell
+	 */
+	private void checkFrontier(long cell) {
+		int line = (int) (cell / columns);
+		int column = (int) (cell % columns);
+		byte flags = FRONTIER;
+		if (this.canFlip(line, column, BLACK)) {
+			flags |= BLACK_MOVE;
+		}
+		if (this.canFlip(line, column, WHITE)) {
+			flags |= WHITE_MOVE;
+		}
+		this.countMoves(frontier.get(cell), -1);
+		this.countMoves(flags, 1);
+		frontier.put(cell, flags);
+	}
+
+	/**
+	 * Builds the frontier from the stones and checks all its cells.
+	 */
+	private void resetFrontier() {
+		frontier.clear();
+		this.blackMoves = 0;
+		this.whiteMoves = 0;
+		for (int k = 0; k < cells.capacity(); k++) {
+			if (this.isStone(cells.valueAt(k))) {
+				int line = (int) (cells.cellAt(k) / columns);
+				int column = (int) (cells.cellAt(k) % columns);
+				for (int direction = 0; direction < 8; direction++) {
+					int i = line + DIRECTION_LINE[direction];
+					int j = column + DIRECTION_COLUMN[direction];
+					if (this.inside(i, j) && cells.get(this.cell(i, j)) == 0) {
+						frontier.put(this.cell(i, j), FRONTIER);
+					}
+				}
+			}
+		}
+		for (int k = 0; k < frontier.capacity(); k++) {
+			if (frontier.valueAt(k) != 0) {
+				this.checkFrontier(frontier.cellAt(k));
+			}
+		}
+	}
+
+	/**
+	 * Adds the possible moves of the flags of a frontier cell to the counts.
+	 * @param flags flags of the frontier cell, 0 if it is none
+	 * @param sign 1 to add, -1 to subtract
+	 */
+	private void countMoves(byte flags, int sign) {
+		if ((flags & BLACK_MOVE) != 0) {
+			blackMoves += sign;
+		}
+		if ((flags & WHITE_MOVE) != 0) {
+			whiteMoves += sign;
+		}
+	}
+
+	/**
+	 * Places a stone on an empty cell without flipping.
+	 * @param cell index of the cell
+	 * @param value value of the stone
+	 */
+	private void setStone(long cell, byte value) {
+		cells.put(cell, value);
+		this.addStones(value, 1);
+	}
+
+	/**
+	 * Adds to the stone count of a player.
+	 * @param value value of a stone of the player
+	 * @param count number of added stones, negative to subtract
+	 */
+	private void addStones(byte value, int count) {
+		if (value == BLACK) {
+			blackStones += count;
+		} else {
+			whiteStones += count;
+		}
+	}
+
+	/**
+	 * Check whether a cell value is a stone.
+	 * @param value value of the cell
+	 * @return {@code true} for a black or white stone, {@code false} otherwise
+	 */
+	private boolean isStone(byte value) {
+		return value == BLACK || value == WHITE;
+	}
+
+	/**
+	 * Check whether a position is on the board.
+	 * @param line line counted from 0
+	 * @param column column counted from 0
+	 * @return {@code true} if it is on the board, {@code false} otherwise
+	 */
+	private boolean inside(int line, int column) {
+		return line >= 0 && line < lines && column >= 0 && column < columns;
+	}
+
+	/**
+	 * Returns the index of a cell.
+	 * @param line line counted from 0
+	 * @param column column counted from 0
+	 * @return index of the cell
+	 */
+	private long cell(int line, int column) {
+		return (long) line * columns + column;
+	}
+
+	/**
+	 * Checks the index of a cell.
+	 * @param cell index of the cell
+	 */
+	private void checkCell(long cell) {
+		if (cell < 0 || cell >= (long) lines * columns) {
+			throw new IllegalArgumentException("Error! Point does not exist.");
+		}
+	}
+
+	/**
+	 * Returns the value of a stone of a color.
+	 * @param color color of the player
+	 * @return value of the stone
+	 */
+	private static byte stoneValue(char color) {
+		if (color != 'B' && color != 'W') {
+			throw new IllegalArgumentException(
+					"Error! Invalid color. Expected B or W.");
+		}
+
+		byte result = BLACK;
+		if (color == 'W') {
+			result = WHITE;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the frontier flag of the possible moves of a color.
+	 * @param color color of the player
+	 * @return flag of the possible moves
+	 */
+	private static byte moveFlag(char color) {
+		byte result = BLACK_MOVE;
+		if (stoneValue(color) == WHITE) {
+			result = WHITE_MOVE;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of a stone of the opponent.
+	 * @param value value of a stone of the player
+	 * @return value of a stone of the opponent
+	 */
+	private static byte opponent(byte value) {
+		byte result = BLACK;
+		if (value == BLACK) {
+			result = WHITE;
+		}
+		return result;
+	}
+
+}
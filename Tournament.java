@@ -0,0 +1,508 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class plays a tournament between two engines without the shell. The
+ * games are played in pairs from the same start position with swapped colors
+ * on a fixed pool of worker threads, each game with its own Othello game and
+ * each worker with its own searches. The results are added to the match
+ * statistics as they arrive, and the tournament stops early as soon as the
+ * SPRT has a decision.
+ * @author Florian Mueller
+ */
+public class Tournament {
+
+	/** first engine, whose strength is tested */
+	private EngineSettings first;
+
+	/** second engine, the reference */
+	private EngineSettings second;
+
+	/** board sizes as lines and columns */
+	private List<int[]> sizes;
+
+	/** hole layouts, rectangles like {@code A1:B2} joined by {@code +} */
+	private List<String> layouts;
+
+	/** opening moves like {@code D3-C5} */
+	private List<String> openings;
+
+	/** number of random moves after the opening moves */
+	private int randomPlies;
+
+	/** size of the transposition table of each search in megabytes */
+	private int tableSize;
+
+	/** seed of the random moves */
+	private long seed;
+
+	/** archive of the played games, null if they are not archived */
+	private GameArchive archive;
+
+	/** pattern weights of the first engine, null for the default evaluation */
+	private PatternWeights weights;
+
+	/**
+	 * Constructs a new tournament on an 8x8 board without holes and openings
+	 * and with four random moves.
+	 * @param first first engine, whose strength is tested
+	 * @param second second engine, the reference
+	 */
+	public Tournament(EngineSettings first, EngineSettings second) {
+		if (first == null || second == null) {
+			throw new IllegalArgumentException("Error! Engine is missing.");
+		}
+
+		this.first = first;
+		this.second = second;
+		this.sizes = new ArrayList<int[]>();
+		this.layouts = new ArrayList<String>();
+		this.openings = new ArrayList<String>();
+		this.randomPlies = 4;
+		this.tableSize = 4;
+	}
+
+	/**
+	 * Adds a board size. The games of the pairs cycle through the sizes.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 */
+	public void addSize(int lines, int columns) {
+		if (lines % 2 != 0 || lines < 2 || lines > 98) {
+			throw new IllegalArgumentException("Error! Line length is invalid.");
+		} else if (columns % 2 != 0 || columns < 2 || columns > 26) {
+			throw new IllegalArgumentException(
+					"Error! Column length is invalid.");
+		}
+
+		sizes.add(new int[] {lines, columns});
+	}
+
+	/**
+	 * Adds a hole layout. The games cycle through the layouts after all sizes.
+	 * @param layout rectangles like {@code A1:B2} joined by {@code +}, empty
+	 *        for no holes
+	 */
+	public void addLayout(String layout) {
+		if (layout == null) {
+			throw new IllegalArgumentException("Error! Hole layout is missing.");
+		}
+
+		this.parseLayout(layout);
+		layouts.add(layout);
+	}
+
+	/**
+	 * Adds opening moves. The games of the pairs cycle through the openings.
+	 * @param opening moves like {@code D3-C5}
+	 */
+	public void addOpening(String opening) {
+		if (opening == null || opening.isEmpty()) {
+			throw new IllegalArgumentException("Error! Opening is missing.");
+		}
+
+		for (String move : opening.split("-")) {
+			parsePoint(move);
+		}
+		openings.add(opening);
+	}
+
+	/**
+	 * Sets the number of random moves after the opening moves.
+	 * @param randomPlies number of random moves
+	 */
+	public void setRandomPlies(int randomPlies) {
+		if (randomPlies < 0) {
+			throw new IllegalArgumentException("Error! Invalid number of random moves.");
+		}
+
+		this.randomPlies = randomPlies;
+	}
+
+	/**
+	 * Sets the size of the transposition table of each search.
+	 * @param tableSize size in megabytes
+	 */
+	public void setTableSize(int tableSize) {
+		if (tableSize < 1 || tableSize > 16384) {
+			throw new IllegalArgumentException("Error! Table size is invalid.");
+		}
+
+		this.tableSize = tableSize;
+	}
+
+	/**
+	 * Sets the seed of the random moves.
+	 * @param seed seed of the random moves
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the archive the played games are appended to.
+	 * @param archive archive of the played games, null for none
+	 */
+	public void setArchive(GameArchive archive) {
+		this.archive = archive;
+	}
+
+	/**
+	 * Sets the pattern weights of the first engine, so that a pattern
+	 * evaluation can be tested against the default evaluation.
+	 * @param weights pattern weights of the first engine, null for none
+	 */
+	public void setWeights(PatternWeights weights) {
+		this.weights = weights;
+	}
+
+	/**
+	 * Plays the games of the tournament until all are played or the SPRT has
+	 * a decision. Games which finish after the decision are not counted.
+	 * @param games maximum number of games
+	 * @param threads number of worker threads
+	 * @param statistics statistics the results are added to
+	 * @param out stream for the progress, null for none
+	 * @param interval number of games between two progress lines
+	 */
+	public void run(int games, int threads, final MatchStatistics statistics, PrintStream out,
+			int interval) {
+		if (games < 1) {
+			throw new IllegalArgumentException("Error! Invalid number of games.");
+		} else if (threads < 1 || threads > ParallelSearch.MAX_THREADS) {
+			throw new IllegalArgumentException("Error! Invalid number of threads.");
+		} else if (statistics == null) {
+			throw new IllegalArgumentException("Error! Match statistics are missing.");
+		} else if (interval < 1) {
+			throw new IllegalArgumentException("Error! Invalid report interval.");
+		}
+
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final ThreadLocal<Search[]> searches = new ThreadLocal<Search[]>() {
+			protected Search[] initialValue() {
+				Search[] result = {new Search(new TranspositionTable(tableSize)),
+						new Search(new TranspositionTable(tableSize))};
+				result[0].setWeights(weights);
+				return result;
+			}
+		};
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<Double> results = new ExecutorCompletionService<Double>(pool);
+		try {
+			for (int i = 0; i < games; i++) {
+				final int game = i;
+				results.submit(new Callable<Double>() {
+					public Double call() {
+						Double result = null;
+						if (!stop.get()) {
+							result = Double.valueOf(playGame(game, searches.get()));
+						}
+						return result;
+					}
+				});
+			}
+			for (int i = 0; i < games; i++) {
+				Double score = this.await(results.take());
+				if (score != null && !stop.get()) {
+					statistics.add(score.doubleValue());
+					if (out != null && statistics.getGames() % interval == 0) {
+						out.println(statistics.toString());
+					}
+					if (statistics.getDecision() != null) {
+						stop.set(true);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Error! Tournament was interrupted.", e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Plays one game. The even games of a pair start with the first engine
+	 * as black, the odd games with the first engine as white.
+	 * @param game number of the game
+	 * @param searches search of the first and of the second engine
+	 * @return score of the first engine
+	 */
+	private double playGame(int game, Search[] searches) {
+		int pair = game / 2;
+		boolean swapped = game % 2 != 0;
+		int[] size = {8, 8};
+		if (!sizes.isEmpty()) {
+			size = sizes.get(pair % sizes.size());
+		}
+
+		Othello othello = new Othello();
+		othello.setArchive(archive);
+		othello.newGame(size[0], size[1], null);
+		if (!layouts.isEmpty()) {
+			String layout = layouts.get(pair / Math.max(1, sizes.size()) % layouts.size());
+			for (String[] rectangle : this.parseLayout(layout)) {
+				othello.hole(rectangle[0].charAt(0), Integer.parseInt(rectangle[0].substring(1)),
+						rectangle[1].charAt(0), Integer.parseInt(rectangle[1].substring(1)));
+			}
+		}
+		if (!openings.isEmpty()) {
+			for (String move : openings.get(pair % openings.size()).split("-")) {
+				if (othello.gameIsActive()) {
+					this.play(othello, move.charAt(0), Integer.parseInt(move.substring(1)));
+				}
+			}
+		}
+		Random random = new Random(seed + pair);
+		for (int i = 0; i < randomPlies && othello.gameIsActive(); i++) {
+			List<PossibleMove> moves = othello.getPossibleMoves();
+			if (moves.isEmpty()) {
+				othello.abort();
+			} else {
+				PossibleMove move = moves.get(random.nextInt(moves.size()));
+				this.play(othello, move.getColumn(), move.getLine());
+			}
+		}
+
+		searches[0].clear();
+		searches[1].clear();
+		while (othello.gameIsActive()) {
+			EngineSettings engine = first;
+			Search search = searches[0];
+			if ((othello.getActiveColor() == 'B') == swapped) {
+				engine = second;
+				search = searches[1];
+			}
+			PossibleMove move = othello.bestMove(search, engine.getMilliseconds(),
+					engine.getNodes(), engine.getDepth()).getMove();
+			if (move == null) {
+				othello.abort();
+			} else {
+				this.play(othello, move.getColumn(), move.getLine());
+			}
+		}
+
+		char firstColor = 'B';
+		if (swapped) {
+			firstColor = 'W';
+		}
+		return score(othello, firstColor);
+	}
+
+	/**
+	 * Plays a move which has to be possible.
+	 * @param othello game to play in
+	 * @param column column of the move
+	 * @param line line of the move
+	 */
+	private void play(Othello othello, char column, int line) {
+		if (!othello.moveIsPossible(column, line)) {
+			throw new IllegalArgumentException("Error! Move not possible: " + column
+					+ Integer.toString(line));
+		}
+		othello.move(column, line);
+	}
+
+	/**
+	 * Waits for the result of a game.
+	 * @param future result of the game
+	 * @return score of the first engine, null if the game was skipped
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	private Double await(Future<Double> future) throws InterruptedException {
+		Double result;
+		try {
+			result = future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IllegalArgumentException) {
+				throw (IllegalArgumentException) e.getCause();
+			}
+			throw new IllegalStateException("Error! Tournament game failed.", e.getCause());
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a hole layout.
+	 * @param layout rectangles like {@code A1:B2} joined by {@code +}
+	 * @return first and second point of each rectangle
+	 */
+	private List<String[]> parseLayout(String layout) {
+		List<String[]> result = new ArrayList<String[]>();
+		if (!layout.isEmpty()) {
+			for (String rectangle : layout.split("\\+")) {
+				String[] points = rectangle.split(":");
+				if (points.length != 2) {
+					throw new IllegalArgumentException("Error! Invalid hole layout.");
+				}
+				parsePoint(points[0]);
+				parsePoint(points[1]);
+				result.add(points);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks a point like {@code D3}.
+	 * @param point point to check
+	 */
+	private static void parsePoint(String point) {
+		if (!point.matches("[A-Z][1-9][0-9]?")) {
+			throw new IllegalArgumentException("Error! Invalid point: " + point);
+		}
+	}
+
+	/**
+	 * Returns the score of a player from the stones at the end of the game.
+	 * @param othello game which has ended
+	 * @param color color of the player
+	 * @return 1 for a win, 0.5 for a draw and 0 for a loss
+	 */
+	private static double score(Othello othello, char color) {
+		char opponent = 'W';
+		if (color == 'W') {
+			opponent = 'B';
+		}
+		int own = othello.countFinalStones(color);
+		int other = othello.countFinalStones(opponent);
+		double result = 0.5;
+		if (own > other) {
+			result = 1;
+		} else if (own < other) {
+			result = 0;
+		}
+		return result;
+	}
+
+	/**
+	 * main method - runs a tournament with arguments like {@code games=1000
+	 * threads=4 first=20000 second=10000:8 sizes=8x8,10x10 holes=none,C3:D4
+	 * openings=D3-C5,F5 plies=4 elo0=0 elo1=10 alpha=0.05 beta=0.05 table=4
+	 * seed=1 report=100 archive=games.oa weights=weights.ow}. The engines are
+	 * given as {@code nodes[:depth[:milliseconds]]}, sizes as lines x columns
+	 * and the weights are the pattern weights of the first engine.
+	 * @param args arguments of the tournament
+	 */
+	public static void main(String[] args) {
+		int games = 1000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int interval = 100;
+		double elo0 = 0;
+		double elo1 = 10;
+		double alpha = 0.05;
+		double beta = 0.05;
+		String firstSettings = "20000";
+		String secondSettings = "10000";
+		String archiveFile = null;
+		List<String> options = new ArrayList<String>();
+		try {
+			for (String arg : args) {
+				String[] option = arg.split("=", 2);
+				if (option.length != 2) {
+					throw new IllegalArgumentException("Error! Invalid argument: " + arg);
+				} else if (option[0].equals("games")) {
+					games = Integer.parseInt(option[1]);
+				} else if (option[0].equals("threads")) {
+					threads = Integer.parseInt(option[1]);
+				} else if (option[0].equals("report")) {
+					interval = Integer.parseInt(option[1]);
+				} else if (option[0].equals("elo0")) {
+					elo0 = Double.parseDouble(option[1]);
+				} else if (option[0].equals("elo1")) {
+					elo1 = Double.parseDouble(option[1]);
+				} else if (option[0].equals("alpha")) {
+					alpha = Double.parseDouble(option[1]);
+				} else if (option[0].equals("beta")) {
+					beta = Double.parseDouble(option[1]);
+				} else if (option[0].equals("first")) {
+					firstSettings = option[1];
+				} else if (option[0].equals("second")) {
+					secondSettings = option[1];
+				} else if (option[0].equals("archive")) {
+					archiveFile = option[1];
+				} else {
+					options.add(arg);
+				}
+			}
+
+			Tournament tournament = new Tournament(EngineSettings.parse("first", firstSettings),
+					EngineSettings.parse("second", secondSettings));
+			for (String arg : options) {
+				String[] option = arg.split("=", 2);
+				if (option[0].equals("sizes")) {
+					for (String size : option[1].split(",")) {
+						String[] parts = size.split("x");
+						if (parts.length != 2) {
+							throw new IllegalArgumentException("Error! Invalid board size: " + size);
+						}
+						tournament.addSize(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+					}
+				} else if (option[0].equals("holes")) {
+					for (String layout : option[1].split(",")) {
+						if (layout.equals("none")) {
+							layout = "";
+						}
+						tournament.addLayout(layout);
+					}
+				} else if (option[0].equals("openings")) {
+					for (String opening : option[1].split(",")) {
+						tournament.addOpening(opening);
+					}
+				} else if (option[0].equals("plies")) {
+					tournament.setRandomPlies(Integer.parseInt(option[1]));
+				} else if (option[0].equals("table")) {
+					tournament.setTableSize(Integer.parseInt(option[1]));
+				} else if (option[0].equals("seed")) {
+					tournament.setSeed(Long.parseLong(option[1]));
+				} else if (option[0].equals("weights")) {
+					try {
+						tournament.setWeights(PatternWeights.load(Paths.get(option[1])));
+					} catch (IOException e) {
+						throw new IllegalArgumentException("Error! Weight file cannot be read: "
+								+ option[1]);
+					}
+				} else {
+					throw new IllegalArgumentException("Error! Invalid argument: " + arg);
+				}
+			}
+
+			MatchStatistics statistics = new MatchStatistics(elo0, elo1, alpha, beta);
+			System.out.println(tournament.first.toString() + " vs " + tournament.second.toString());
+			if (archiveFile != null) {
+				tournament.setArchive(new GameArchive(Paths.get(archiveFile)));
+			}
+			long start = System.nanoTime();
+			try {
+				tournament.run(games, threads, statistics, System.out, interval);
+			} finally {
+				if (tournament.archive != null) {
+					tournament.archive.close();
+				}
+			}
+			double seconds = Math.max(1e-3, (System.nanoTime() - start) / 1e9);
+			System.out.println(statistics.toString());
+			System.out.println(String.format("%.1f games/s with %d threads",
+					statistics.getGames() / seconds, threads));
+		} catch (NumberFormatException e) {
+			System.out.println("Error! Invalid number: " + e.getMessage());
+		} catch (IOException e) {
+			System.out.println("Error! Archive cannot be written: " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+
+}
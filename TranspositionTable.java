@@ -0,0 +1,143 @@
+/**
+ * This class represents the transposition table of the search. It stores the
+ * results of searched positions by their Zobrist hash. An entry is a pair of
+ * longs, the key is stored xor the data, so a torn entry is never accepted.
+ * @author Florian Mueller
+ */
+public class TranspositionTable {
+
+	/** flag of an exact score */
+	public static final int EXACT = 1;
+
+	/** flag of a score which is a lower bound */
+	public static final int LOWER = 2;
+
+	/** flag of a score which is an upper bound */
+	public static final int UPPER = 3;
+
+	/** move of an entry without move */
+	public static final int NO_MOVE = 0xFFF;
+
+	/** keys of the entries, xor the data */
+	private long[] keys;
+
+	/** data of the entries */
+	private long[] data;
+
+	/** mask of the index of an entry */
+	private int mask;
+
+	/** generation of the current search */
+	private int generation;
+
+	/**
+	 * Constructs a new transposition table with the size in megabytes.
+	 * @param megabytes size of the table
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1 || megabytes > 16384) {
+			throw new IllegalArgumentException(
+					"Error! Table size is invalid.");
+		}
+
+		int entries = Integer.highestOneBit(megabytes * 65536);
+		this.keys = new long[entries];
+		this.data = new long[entries];
+		this.mask = entries - 1;
+	}
+
+	/**
+	 * Returns the data of the entry of the position.
+	 * @param key hash of the position
+	 * @return data of the entry, 0 if there is no entry
+	 */
+	public long probe(long key) {
+		int index = (int) key & mask;
+		long entry = data[index];
+		long result = 0L;
+		if ((keys[index] ^ entry) == key) {
+			result = entry;
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the result of a searched position. An entry of another position
+	 * or of an older search is replaced, an entry of the same position only by
+	 * a deeper search.
+	 * @param key hash of the position
+	 * @param move best move cell, {@link #NO_MOVE} if there is none
+	 * @param depth searched depth
+	 * @param flag {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+	 * @param score score of the position
+	 */
+	public void store(long key, int move, int depth, int flag, int score) {
+		assert flag == EXACT || flag == LOWER || flag == UPPER;
+		assert depth >= 0 && depth < 256;
+
+		int index = (int) key & mask;
+		long old = data[index];
+		if ((keys[index] ^ old) != key || depth >= depth(old)
+				|| ((old >>> 22) & 0xFFL) != generation) {
+			long entry = (move & 0xFFFL) | ((long) depth << 12)
+					| ((long) flag << 20) | ((long) generation << 22)
+					| ((long) score << 32);
+			data[index] = entry;
+			keys[index] = key ^ entry;
+		}
+	}
+
+	/**
+	 * Starts a new search, the entries of older searches are replaced first.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & 0xFF;
+	}
+
+	/**
+	 * Clears all entries.
+	 */
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = 0L;
+			data[i] = 0L;
+		}
+	}
+
+	/**
+	 * Returns the move of an entry.
+	 * @param entry data of the entry
+	 * @return best move cell, {@link #NO_MOVE} if there is none
+	 */
+	public static int move(long entry) {
+		return (int) (entry & 0xFFFL);
+	}
+
+	/**
+	 * Returns the searched depth of an entry.
+	 * @param entry data of the entry
+	 * @return searched depth
+	 */
+	public static int depth(long entry) {
+		return (int) ((entry >>> 12) & 0xFFL);
+	}
+
+	/**
+	 * Returns the flag of an entry.
+	 * @param entry data of the entry
+	 * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+	 */
+	public static int flag(long entry) {
+		return (int) ((entry >>> 20) & 0x3L);
+	}
+
+	/**
+	 * Returns the score of an entry.
+	 * @param entry data of the entry
+	 * @return score of the position
+	 */
+	public static int score(long entry) {
+		return (int) (entry >> 32);
+	}
+
+}
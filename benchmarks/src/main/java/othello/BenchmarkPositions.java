@@ -0,0 +1,139 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class creates the positions of the benchmarks: boards of a size with
+ * random holes, filled by random moves up to a game phase.
+ * @author Florian Mueller
+ */
+final class BenchmarkPositions {
+
+	/** number of positions of each configuration */
+	static final int POSITIONS = 64;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private BenchmarkPositions() {
+	}
+
+	/**
+	 * Returns the line length of a size like {@code 8x8}.
+	 * @param size lines, {@code 'x'} and columns
+	 * @return the line length
+	 */
+	static int lines(String size) {
+		return Integer.parseInt(size.substring(0, size.indexOf('x')));
+	}
+
+	/**
+	 * Returns the column length of a size like {@code 8x8}.
+	 * @param size lines, {@code 'x'} and columns
+	 * @return the column length
+	 */
+	static int columns(String size) {
+		return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+	}
+
+	/**
+	 * Returns the share of the empty cells which are filled in a game phase.
+	 * @param phase opening, midgame or endgame
+	 * @return share of the empty cells
+	 */
+	static double share(String phase) {
+		double result;
+		if (phase.equals("opening")) {
+			result = 0.1;
+		} else if (phase.equals("midgame")) {
+			result = 0.5;
+		} else if (phase.equals("endgame")) {
+			result = 0.9;
+		} else {
+			throw new IllegalArgumentException("Error! Unknown phase: " + phase);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a board with holes.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param holes holes of the board
+	 * @return new board
+	 */
+	static Board createBoard(int lines, int columns, List<String> holes) {
+		Board board = new Board(lines, columns, null);
+		for (String hole : holes) {
+			char column = hole.charAt(0);
+			int line = Integer.parseInt(hole.substring(1));
+			board.setHole(column, line, column, line);
+		}
+		return board;
+	}
+
+	/**
+	 * Chooses random empty cells as holes.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param density share of the empty cells which are holes
+	 * @param random random numbers
+	 * @return holes as cell names
+	 */
+	static List<String> randomHoles(int lines, int columns, double density, Random random) {
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				boolean center = (i == lines / 2 - 1 || i == lines / 2)
+						&& (j == columns / 2 - 1 || j == columns / 2);
+				if (!center && random.nextDouble() < density) {
+					result.add((char) ('A' + j) + Integer.toString(i + 1));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Plays random moves until a share of the empty cells is filled or the
+	 * game is over. As in the Othello game, black passes if it cannot move,
+	 * and the game is over if white cannot move.
+	 * @param board board to play on
+	 * @param share share of the empty cells to fill
+	 * @param random random numbers
+	 * @param game list for the played moves, may be null
+	 * @return color of the player to move
+	 */
+	static char playRandom(Board board, double share, Random random, List<PossibleMove> game) {
+		int empties = board.countEmpty();
+		int plies = (int) (empties * share);
+		char color = 'B';
+		boolean over = false;
+		for (int i = 0; i < plies && !over; i++) {
+			List<PossibleMove> possible = board.getPossibleMoves(color);
+			if (possible.isEmpty() && color == 'B') {
+				color = 'W';
+				possible = board.getPossibleMoves(color);
+			}
+			if (possible.isEmpty()) {
+				over = true;
+			} else {
+				PossibleMove move = possible.get(random.nextInt(possible.size()));
+				board.moveStone(move.getColumn(), move.getLine(), color);
+				if (game != null) {
+					game.add(move);
+				}
+				if (color == 'B') {
+					color = 'W';
+				} else {
+					color = 'B';
+				}
+			}
+		}
+		return color;
+	}
+
+}
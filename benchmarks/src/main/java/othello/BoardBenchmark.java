@@ -0,0 +1,161 @@
+package othello;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the hot paths of the board for every board size,
+ * hole density and game phase. Each call takes the next of a fixed set of
+ * random positions. The copy of a board is the baseline of
+ * {@link #moveStone()}, which moves on a copy. Run it with
+ * {@code java -jar benchmarks/target/benchmarks.jar BoardBenchmark -prof gc}
+ * for the bytes allocated per operation.
+ * @author Florian Mueller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	/** size of the board as lines and columns */
+	@Param({"4x4", "8x8", "26x26", "98x26"})
+	public String size;
+
+	/** share of the empty cells which are holes */
+	@Param({"0.0", "0.1", "0.25"})
+	public double holes;
+
+	/** game phase of the positions */
+	@Param({"opening", "midgame", "endgame"})
+	public String phase;
+
+	/** positions of the configuration */
+	private Board[] boards;
+
+	/** players to move in the positions */
+	private char[] colors;
+
+	/** a possible move in each position, null if there is none */
+	private PossibleMove[] moves;
+
+	/** list for the possible moves */
+	private MoveList list;
+
+	/** index of the current position */
+	private int index;
+
+	/**
+	 * Creates the positions of the configuration.
+	 */
+	@Setup
+	public void setUp() {
+		int lines = BenchmarkPositions.lines(size);
+		int columns = BenchmarkPositions.columns(size);
+		Random random = new Random(lines * 1000L + columns + phase.hashCode() + (long) (holes * 100));
+		this.boards = new Board[BenchmarkPositions.POSITIONS];
+		this.colors = new char[BenchmarkPositions.POSITIONS];
+		this.moves = new PossibleMove[BenchmarkPositions.POSITIONS];
+		this.list = new MoveList(lines * columns);
+		for (int i = 0; i < BenchmarkPositions.POSITIONS; i++) {
+			Board board = BenchmarkPositions.createBoard(lines, columns,
+					BenchmarkPositions.randomHoles(lines, columns, holes, random));
+			char color = BenchmarkPositions.playRandom(board, BenchmarkPositions.share(phase),
+					random, null);
+			boards[i] = board;
+			colors[i] = color;
+			List<PossibleMove> possible = board.getPossibleMoves(color);
+			if (!possible.isEmpty()) {
+				moves[i] = possible.get(random.nextInt(possible.size()));
+			}
+		}
+	}
+
+	/**
+	 * Lists the possible moves as objects.
+	 * @return number of possible moves
+	 */
+	@Benchmark
+	public int getPossibleMoves() {
+		int i = this.next();
+		return boards[i].getPossibleMoves(colors[i]).size();
+	}
+
+	/**
+	 * Fills the possible moves into a move list.
+	 * @return number of possible moves
+	 */
+	@Benchmark
+	public int fillMoves() {
+		int i = this.next();
+		boards[i].fillMoves(colors[i], list);
+		return list.size();
+	}
+
+	/**
+	 * Moves a stone on a copy of the position.
+	 * @return hash of the position after the move
+	 */
+	@Benchmark
+	public long moveStone() {
+		int i = this.next();
+		Board board = new Board(boards[i]);
+		if (moves[i] != null) {
+			board.moveStone(moves[i].getColumn(), moves[i].getLine(), colors[i]);
+		}
+		return board.getHash('B');
+	}
+
+	/**
+	 * Copies the position, the baseline of {@link #moveStone()}.
+	 * @return hash of the copy
+	 */
+	@Benchmark
+	public long copy() {
+		return new Board(boards[this.next()]).getHash('B');
+	}
+
+	/**
+	 * Counts the stones of both players.
+	 * @return number of stones
+	 */
+	@Benchmark
+	public int countStones() {
+		int i = this.next();
+		return boards[i].countStones('B') + boards[i].countStones('W');
+	}
+
+	/**
+	 * Prints the board.
+	 * @return number of lines
+	 */
+	@Benchmark
+	public int getField() {
+		return boards[this.next()].getField().size();
+	}
+
+	/**
+	 * Returns the index of the next position.
+	 * @return the index of the next position
+	 */
+	private int next() {
+		this.index = (index + 1) % BenchmarkPositions.POSITIONS;
+		return this.index;
+	}
+
+}
@@ -0,0 +1,84 @@
+package othello;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the {@link EndgameSolver} on fixed positions of
+ * random games on the 8x8 board with 20 and 24 empty cells, black to move.
+ * Each call solves the position with an empty transposition table, so a
+ * call takes seconds and is timed alone. Run it with
+ * {@code java -jar benchmarks/target/benchmarks.jar EndgameBenchmark}
+ * for the time of each position.
+ * @author Florian Mueller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EndgameBenchmark {
+
+	/** position to solve, its number of empty cells and a letter */
+	@Param({"20a", "20b", "24a", "24b"})
+	public String position;
+
+	/** board of the position */
+	private Board board;
+
+	/** solver of the position */
+	private EndgameSolver solver;
+
+	/**
+	 * Creates the board of the position.
+	 */
+	@Setup
+	public void setUp() {
+		String field;
+		if (position.equals("20a")) {
+			field = "---WWW-B,B---WWBB,BBBWWBWB,BBBWBBBB,-WWWWB-W,BWWWB-B-,W-BWW--B,--B--W--";
+		} else if (position.equals("20b")) {
+			field = "----B---,--BBBWWB,-BBBBWW-,-BBBBBW-,WWWWWBWW,--BBBBWW,--WBBBBW,-W-BBB-B";
+		} else if (position.equals("24a")) {
+			field = "WB-WB---,WBBBBW--,-BBBB---,BBWWBB--,BBWWBWB-,WWWBWWW-,WWW-B---,-BW-----";
+		} else if (position.equals("24b")) {
+			field = "W-W-BBB-,W--WBBW-,WWWBBWWW,--BBBB--,--WWWWW-,---W-WBW,--BBW-BB,-B-B-WB-";
+		} else {
+			throw new IllegalArgumentException("Error! Unknown position: " + position);
+		}
+		this.board = new Board(8, 8, Arrays.asList(field.split(",")));
+		this.solver = new EndgameSolver();
+	}
+
+	/**
+	 * Empties the transposition table before each call.
+	 */
+	@Setup(Level.Invocation)
+	public void clear() {
+		solver.clear();
+	}
+
+	/**
+	 * Solves the position.
+	 * @return final stone difference for black
+	 */
+	@Benchmark
+	public int solve() {
+		return solver.solve(board, 'B', 600000L).getScore();
+	}
+
+}
@@ -0,0 +1,126 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks whole games for every board size and hole density:
+ * the replay of random games through {@link Othello#move(char, int)} and
+ * random games on the board. Run it with
+ * {@code java -jar benchmarks/target/benchmarks.jar GameBenchmark -prof gc}
+ * for the bytes allocated per game.
+ * @author Florian Mueller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+	/** size of the board as lines and columns */
+	@Param({"4x4", "8x8", "26x26", "98x26"})
+	public String size;
+
+	/** share of the empty cells which are holes */
+	@Param({"0.0", "0.1", "0.25"})
+	public double holes;
+
+	/** line length of the board */
+	private int lines;
+
+	/** column length of the board */
+	private int columns;
+
+	/** holes of each game */
+	private List<List<String>> holeLists;
+
+	/** moves of each game */
+	private List<List<PossibleMove>> games;
+
+	/** random numbers of the random games */
+	private Random random;
+
+	/** index of the current game */
+	private int index;
+
+	/**
+	 * Plays the random games of the configuration.
+	 */
+	@Setup
+	public void setUp() {
+		this.lines = BenchmarkPositions.lines(size);
+		this.columns = BenchmarkPositions.columns(size);
+		Random setup = new Random(lines * 1000L + columns + (long) (holes * 100));
+		this.holeLists = new ArrayList<List<String>>();
+		this.games = new ArrayList<List<PossibleMove>>();
+		for (int i = 0; i < BenchmarkPositions.POSITIONS; i++) {
+			List<String> holeList = BenchmarkPositions.randomHoles(lines, columns, holes, setup);
+			List<PossibleMove> game = new ArrayList<PossibleMove>();
+			BenchmarkPositions.playRandom(BenchmarkPositions.createBoard(lines, columns, holeList),
+					1.0, setup, game);
+			holeLists.add(holeList);
+			games.add(game);
+		}
+		this.random = new Random(42);
+	}
+
+	/**
+	 * Replays a game with the Othello game.
+	 * @return number of moves
+	 */
+	@Benchmark
+	public int othelloMove() {
+		int i = this.next();
+		Othello othello = new Othello();
+		othello.newGame(lines, columns, null);
+		for (String hole : holeLists.get(i)) {
+			char column = hole.charAt(0);
+			int line = Integer.parseInt(hole.substring(1));
+			othello.hole(column, line, column, line);
+		}
+		for (PossibleMove move : games.get(i)) {
+			othello.move(move.getColumn(), move.getLine());
+		}
+		if (othello.gameIsActive()) {
+			othello.abort();
+		}
+		return games.get(i).size();
+	}
+
+	/**
+	 * Plays a random game on the board.
+	 * @return number of black stones at the end
+	 */
+	@Benchmark
+	public int randomGame() {
+		Board board = BenchmarkPositions.createBoard(lines, columns, holeLists.get(this.next()));
+		BenchmarkPositions.playRandom(board, 1.0, random, null);
+		return board.countStones('B');
+	}
+
+	/**
+	 * Returns the index of the next game.
+	 * @return the index of the next game
+	 */
+	private int next() {
+		this.index = (index + 1) % BenchmarkPositions.POSITIONS;
+		return this.index;
+	}
+
+}
@@ -0,0 +1,87 @@
+package othello;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the streaming of positions by
+ * {@link PositionReader} for every board size and game phase. Each call
+ * reads a text of random positions, one per line, and counts the possible
+ * moves of each position, so the positions per second are the operations
+ * per second times {@link BenchmarkPositions#POSITIONS}. Run it with
+ * {@code java -jar benchmarks/target/benchmarks.jar PositionReaderBenchmark -prof gc}
+ * for the bytes allocated per text.
+ * @author Florian Mueller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionReaderBenchmark {
+
+	/** size of the board as lines and columns */
+	@Param({"4x4", "8x8", "26x26", "98x26"})
+	public String size;
+
+	/** game phase of the positions */
+	@Param({"opening", "midgame", "endgame"})
+	public String phase;
+
+	/** text of the positions */
+	private String text;
+
+	/**
+	 * Creates the text of the positions of the configuration.
+	 */
+	@Setup
+	public void setUp() {
+		int lines = BenchmarkPositions.lines(size);
+		int columns = BenchmarkPositions.columns(size);
+		Random random = new Random(lines * 1000L + columns + phase.hashCode());
+		StringBuilder positions = new StringBuilder();
+		for (int i = 0; i < BenchmarkPositions.POSITIONS; i++) {
+			Board board = BenchmarkPositions.createBoard(lines, columns,
+					BenchmarkPositions.randomHoles(lines, columns, 0.1, random));
+			char color = BenchmarkPositions.playRandom(board, BenchmarkPositions.share(phase),
+					random, null);
+			positions.append(board.toNotation()).append(' ').append(color).append('\n');
+		}
+		this.text = positions.toString();
+	}
+
+	/**
+	 * Reads all positions and counts their possible moves.
+	 * @return number of possible moves
+	 * @throws IOException never for a text in memory
+	 */
+	@Benchmark
+	public long read() throws IOException {
+		long result = 0;
+		PositionReader reader = new PositionReader(new StringReader(text));
+		try {
+			while (reader.next()) {
+				result += reader.getBoard().countMoves(reader.getColor());
+			}
+		} finally {
+			reader.close();
+		}
+		return result;
+	}
+
+}
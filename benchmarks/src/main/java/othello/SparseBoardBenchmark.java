@@ -0,0 +1,90 @@
+package othello;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks random games on the {@link SparseBoard} for boards
+ * up to far beyond the size of the {@link Board}. Each call lists the moves
+ * of the player and plays a random one, and a new game starts when no
+ * player can move, so the cost of a move follows the frontier of the
+ * game. Run it with
+ * {@code java -jar benchmarks/target/benchmarks.jar SparseBoardBenchmark -prof gc}
+ * for the bytes allocated per move.
+ * @author Florian Mueller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SparseBoardBenchmark {
+
+	/** size of the board as lines and columns */
+	@Param({"98x26", "1000x1000", "100000x100000"})
+	public String size;
+
+	/** line length of the board */
+	private int lines;
+
+	/** column length of the board */
+	private int columns;
+
+	/** board of the current game */
+	private SparseBoard board;
+
+	/** color of the player to move */
+	private char color;
+
+	/** random numbers of the games */
+	private Random random;
+
+	/**
+	 * Starts the first game of the configuration.
+	 */
+	@Setup
+	public void setUp() {
+		this.lines = BenchmarkPositions.lines(size);
+		this.columns = BenchmarkPositions.columns(size);
+		this.board = new SparseBoard(lines, columns);
+		this.color = 'B';
+		this.random = new Random(1);
+	}
+
+	/**
+	 * Plays a random move, passes or starts a new game.
+	 * @return size of the frontier
+	 */
+	@Benchmark
+	public int move() {
+		if (board.countMoves('B') == 0 && board.countMoves('W') == 0) {
+			this.board = new SparseBoard(lines, columns);
+			this.color = 'B';
+		} else {
+			if (board.countMoves(color) > 0) {
+				long[] cells = board.getMoveCells(color);
+				board.moveStone(cells[random.nextInt(cells.length)], color);
+			}
+			if (color == 'B') {
+				this.color = 'W';
+			} else {
+				this.color = 'B';
+			}
+		}
+		return board.getFrontierSize();
+	}
+
+}
@@ -0,0 +1,43 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * This class replaces the Terminal class of the interactive shell in the
+ * build. It reads the lines of the standard input; at the end of the input
+ * it answers with the quit command, so that the shell ends.
+ * @author Florian Mueller
+ */
+public final class Terminal {
+
+	/** reader of the standard input */
+	private static final BufferedReader IN = new BufferedReader(new InputStreamReader(System.in));
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private Terminal() {
+	}
+
+	/**
+	 * Prints the prompt and reads a line.
+	 * @param prompt prompt to print
+	 * @return the read line, {@code "quit"} at the end of the input
+	 */
+	public static String askString(String prompt) {
+		System.out.print(prompt);
+		System.out.flush();
+		String result = null;
+		try {
+			result = IN.readLine();
+		} catch (IOException e) {
+			System.out.println("Error! " + e.getMessage());
+		}
+		if (result == null) {
+			result = "quit";
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,159 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link EndgameSolver} against a plain minimax search: random
+ * games with random holes are played until few empty cells are left, and
+ * the solved score has to be the score of the minimax search. The best move
+ * has to reach the score, and the board has to be the same afterwards.
+ * Boards with at most 64 cells are solved on words, larger boards on the
+ * {@link Board}.
+ * @author Florian Mueller
+ */
+class EndgameSolverTest {
+
+	/** sizes of the boards with at most 64 cells as lines and columns */
+	private static final int[][] WORD_SIZES = {{4, 4}, {6, 6}, {8, 8}, {6, 10}, {10, 4}};
+
+	/** sizes of the boards with more than 64 cells as lines and columns */
+	private static final int[][] BOARD_SIZES = {{10, 8}, {8, 10}, {4, 26}};
+
+	/** number of games of each size */
+	private static final int GAMES = 6;
+
+	/** number of empty cells of the solved positions */
+	private static final int EMPTIES = 10;
+
+	/** time budget of the solver */
+	private static final long BUDGET = 60000L;
+
+	/**
+	 * Positions on boards with at most 64 cells are solved like minimax.
+	 */
+	@Test
+	void solvesWordsLikeMinimax() {
+		Random random = new Random(1);
+		for (int[] size : WORD_SIZES) {
+			for (int game = 0; game < GAMES; game++) {
+				this.solve(size[0], size[1], random);
+			}
+		}
+	}
+
+	/**
+	 * Positions on boards with more than 64 cells are solved like minimax.
+	 */
+	@Test
+	void solvesBoardLikeMinimax() {
+		Random random = new Random(2);
+		for (int[] size : BOARD_SIZES) {
+			for (int game = 0; game < GAMES; game++) {
+				this.solve(size[0], size[1], random);
+			}
+		}
+	}
+
+	/**
+	 * Plays random games with random holes until one leaves few empty cells
+	 * and compares the solved position with a minimax search.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param random random numbers
+	 */
+	private void solve(int lines, int columns, Random random) {
+		Board board = null;
+		char color = 'B';
+		while (board == null) {
+			board = new Board(lines, columns, null);
+			for (int i = 1; i <= lines; i++) {
+				for (int j = 0; j < columns; j++) {
+					char column = (char) ('A' + j);
+					if (random.nextDouble() < 0.15 && board.holeIsAllowed(column, i, column, i)) {
+						board.setHole(column, i, column, i);
+					}
+				}
+			}
+
+			color = 'B';
+			while (board != null && board.countEmpty() > EMPTIES) {
+				List<PossibleMove> moves = board.getPossibleMoves(color);
+				if (!moves.isEmpty()) {
+					PossibleMove move = moves.get(random.nextInt(moves.size()));
+					board.moveStone(move.getColumn(), move.getLine(), color);
+					color = opponent(color);
+				} else if (color == 'B') {
+					color = 'W';
+				} else {
+					board = null;
+				}
+			}
+		}
+
+		List<String> field = board.getField();
+		int expected = minimax(board, color);
+		EndgameSolver solver = new EndgameSolver(new TranspositionTable(1));
+		SearchResult result = solver.solve(board, color, BUDGET);
+		String position = lines + "x" + columns + " " + color + " " + field;
+		assertNotNull(result, position);
+		assertEquals(expected, result.getScore(), position);
+		assertEquals(field, board.getField(), position);
+
+		PossibleMove move = result.getMove();
+		if (board.getPossibleMoves(color).isEmpty()) {
+			assertNull(move, position);
+		} else {
+			assertNotNull(move, position);
+			long record = board.makeMove(board.cellIndex(move.getColumn(), move.getLine()), color);
+			assertEquals(expected, -minimax(board, opponent(color)), position + " " + move);
+			board.unmakeMove(record);
+		}
+	}
+
+	/**
+	 * Searches all moves to the end of the game. As in the Othello game,
+	 * black passes if it cannot move, and the game is over if white cannot
+	 * move.
+	 * @param board the position
+	 * @param color color of the player to move
+	 * @return final stone difference for the player to move
+	 */
+	private static int minimax(Board board, char color) {
+		List<PossibleMove> moves = board.getPossibleMoves(color);
+		int result = Integer.MIN_VALUE;
+		if (!moves.isEmpty()) {
+			for (PossibleMove move : moves) {
+				long record = board.makeMove(board.cellIndex(move.getColumn(), move.getLine()),
+						color);
+				result = Math.max(result, -minimax(board, opponent(color)));
+				board.unmakeMove(record);
+			}
+		} else if (color == 'W') {
+			result = board.countStones(color) - board.countStones(opponent(color));
+		} else {
+			long record = board.makeMove(Board.PASS, color);
+			result = -minimax(board, 'W');
+			board.unmakeMove(record);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the color of the opponent.
+	 * @param color color of the player
+	 * @return color of the opponent
+	 */
+	private static char opponent(char color) {
+		char result = 'B';
+		if (color == 'B') {
+			result = 'W';
+		}
+		return result;
+	}
+
+}
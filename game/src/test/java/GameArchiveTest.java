@@ -0,0 +1,222 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link GameArchive} with the {@link GameArchiveReader}: random
+ * games with random holes are played by {@link Othello} with an archive,
+ * some to their end and some aborted, and read back. The moves, their
+ * colors, the cells and the final counts have to be the same.
+ * @author Florian Mueller
+ */
+class GameArchiveTest {
+
+	/** sizes of the boards as lines and columns */
+	private static final int[][] SIZES = {{4, 4}, {8, 8}, {6, 10}, {10, 4}, {26, 26}, {98, 26}};
+
+	/** number of games of each size */
+	private static final int GAMES = 6;
+
+	/** directory of the archives */
+	@TempDir
+	Path directory;
+
+	/**
+	 * The games read back are the games played.
+	 * @throws IOException if the archive fails
+	 */
+	@Test
+	void readsPlayedGames() throws IOException {
+		Path file = directory.resolve("games.oa");
+		List<PlayedGame> games = this.play(file, new Random(1));
+
+		int passes = 0;
+		int ended = 0;
+		GameArchiveReader reader = new GameArchiveReader(file);
+		try {
+			for (PlayedGame game : games) {
+				assertTrue(reader.next());
+				assertEquals(game.cells.size(), reader.getMoveCount());
+				for (int i = 0; i < game.cells.size(); i++) {
+					assertTrue(reader.nextMove());
+					assertEquals(game.cells.get(i).intValue(), reader.getMoveCell());
+					assertEquals(game.colors.get(i).charValue(), reader.getMoveColor());
+					if (i > 0 && game.colors.get(i).equals(game.colors.get(i - 1))) {
+						passes++;
+					}
+				}
+				assertFalse(reader.nextMove());
+				assertEquals(game.board.getField(), reader.getBoard().getField());
+				assertEquals(game.black, reader.getBoard().countStones('B'));
+				assertEquals(game.white, reader.getBoard().countStones('W'));
+				if (game.ended) {
+					assertEquals(0, reader.getActiveColor());
+					ended++;
+				}
+			}
+			assertFalse(reader.next());
+			assertEquals(games.size(), reader.getGames());
+		} finally {
+			reader.close();
+		}
+		assertTrue(passes > 0);
+		assertTrue(ended > 0);
+	}
+
+	/**
+	 * A file which ends within a game is truncated.
+	 * @throws IOException if the archive fails
+	 */
+	@Test
+	void rejectsTruncatedArchive() throws IOException {
+		Path file = directory.resolve("games.oa");
+		this.play(file, new Random(2));
+		byte[] bytes = Files.readAllBytes(file);
+
+		for (int size : new int[] {bytes.length - 1, GameArchive.FILE_HEADER + 3,
+			GameArchive.FILE_HEADER + GameArchive.GAME_HEADER + 1}) {
+			Path truncated = directory.resolve("truncated" + size + ".oa");
+			Files.write(truncated, Arrays.copyOf(bytes, size));
+			final GameArchiveReader reader = new GameArchiveReader(truncated);
+			try {
+				IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+					while (reader.next()) {
+						while (reader.nextMove()) {
+							// replays the game
+						}
+					}
+				});
+				assertEquals("Error! Archive is truncated.", e.getMessage());
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Plays random games of all sizes into an archive.
+	 * @param file archive file
+	 * @param random random numbers
+	 * @return the played games in their order
+	 * @throws IOException if the archive fails
+	 */
+	private List<PlayedGame> play(Path file, Random random) throws IOException {
+		List<PlayedGame> result = new ArrayList<PlayedGame>();
+		GameArchive archive = new GameArchive(file);
+		try {
+			Othello othello = new Othello();
+			othello.setArchive(archive);
+			for (int[] size : SIZES) {
+				for (int game = 0; game < GAMES; game++) {
+					PlayedGame played = this.play(othello, size[0], size[1], random);
+					if (!played.cells.isEmpty()) {
+						result.add(played);
+					}
+				}
+			}
+		} finally {
+			archive.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Plays a random game with random holes, which is aborted after a random
+	 * number of moves in every third game, and mirrors it on a board.
+	 * @param othello othello with the archive
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param random random numbers
+	 * @return the played game
+	 */
+	private PlayedGame play(Othello othello, int lines, int columns, Random random) {
+		PlayedGame result = new PlayedGame(new Board(lines, columns, null));
+		othello.newGame(lines, columns, null);
+		for (int i = 1; i <= lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				char column = (char) ('A' + j);
+				if (random.nextDouble() < 0.15 && othello.boardHoleIsAllowed(column, i, column, i)) {
+					othello.hole(column, i, column, i);
+					result.board.setHole(column, i, column, i);
+				}
+			}
+		}
+
+		int limit = Integer.MAX_VALUE;
+		if (random.nextInt(3) == 0) {
+			limit = random.nextInt(lines * columns);
+		}
+		while (othello.gameIsActive() && result.cells.size() < limit
+				&& !othello.getPossibleMoves().isEmpty()) {
+			List<String> field = othello.print();
+			char color = 'B';
+			if (field.get(field.size() - 1).endsWith("white")) {
+				color = 'W';
+			}
+			List<PossibleMove> moves = othello.getPossibleMoves();
+			PossibleMove move = moves.get(random.nextInt(moves.size()));
+			result.cells.add(Integer.valueOf(result.board.cellIndex(move.getColumn(),
+					move.getLine())));
+			result.colors.add(Character.valueOf(color));
+			result.board.moveStone(move.getColumn(), move.getLine(), color);
+			othello.move(move.getColumn(), move.getLine());
+		}
+		result.ended = !othello.gameIsActive();
+		if (othello.gameIsActive()) {
+			othello.abort();
+		}
+		result.black = othello.countFinalStones('B');
+		result.white = othello.countFinalStones('W');
+		assertEquals(result.board.countStones('B'), result.black);
+		assertEquals(result.board.countStones('W'), result.white);
+		return result;
+	}
+
+	/**
+	 * This class holds a played game: its moves and its final board.
+	 */
+	private static class PlayedGame {
+
+		/** final board of the game */
+		private final Board board;
+
+		/** cell indexes of the moves */
+		private final List<Integer> cells;
+
+		/** colors of the moves */
+		private final List<Character> colors;
+
+		/** final number of black stones */
+		private int black;
+
+		/** final number of white stones */
+		private int white;
+
+		/** flag if no player could move at the end */
+		private boolean ended;
+
+		/**
+		 * Constructs a new game without moves.
+		 * @param board start board of the game
+		 */
+		PlayedGame(Board board) {
+			this.board = board;
+			this.cells = new ArrayList<Integer>();
+			this.colors = new ArrayList<Character>();
+		}
+
+	}
+
+}
@@ -0,0 +1,197 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the eviction of idle games of the {@link GameRegistry} and their
+ * restore on the next access.
+ * @author Florian Mueller
+ */
+class GameRegistryTest {
+
+	/** directory of the archives */
+	@TempDir
+	Path directory;
+
+	/**
+	 * An evicted game is restored with its position and its search threads.
+	 */
+	@Test
+	void evictsAndRestoresGame() {
+		GameRegistry registry = new GameRegistry();
+		String id = registry.create();
+		final String position = registry.execute(id, othello -> {
+			othello.newGame(8, 8, null);
+			othello.move('D', 3);
+			othello.setThreads(2);
+			return othello.getPosition();
+		});
+
+		assertEquals(1, registry.evictIdle(0));
+		assertEquals(0, registry.countLive());
+		assertEquals(position, registry.execute(id, othello -> othello.getPosition()));
+		assertEquals(2, registry.execute(id, othello -> othello.getThreads()).intValue());
+		assertEquals(1, registry.countLive());
+		registry.shutdown();
+	}
+
+	/**
+	 * An evicted game which ponders ponders again after it is restored.
+	 */
+	@Test
+	void evictionKeepsPondering() {
+		GameRegistry registry = new GameRegistry();
+		String id = registry.create();
+		registry.execute(id, othello -> {
+			othello.newGame(8, 8, null);
+			othello.setPonder(true);
+			return null;
+		});
+
+		assertEquals(1, registry.evictIdle(0));
+		assertTrue(registry.execute(id, othello -> othello.isPondering()).booleanValue());
+		registry.shutdown();
+	}
+
+	/**
+	 * An evicted game keeps its opening book.
+	 * @throws IOException if the archive or the book fails
+	 */
+	@Test
+	void evictionKeepsBook() throws IOException {
+		Path archiveFile = directory.resolve("games.oa");
+		Path bookFile = directory.resolve("games.ob");
+		Othello played = new Othello();
+		GameArchive archive = new GameArchive(archiveFile);
+		played.setArchive(archive);
+		played.newGame(8, 8, null);
+		played.move('D', 3);
+		played.abort();
+		archive.close();
+		OpeningBook.build(archiveFile, bookFile, OpeningBook.DEFAULT_PLIES, 1);
+
+		final OpeningBook book = new OpeningBook(bookFile);
+		GameRegistry registry = new GameRegistry();
+		String id = registry.create();
+		registry.execute(id, othello -> {
+			othello.setBook(book);
+			othello.newGame(8, 8, null);
+			return null;
+		});
+
+		assertEquals(1, registry.evictIdle(0));
+		assertSame(book, registry.execute(id, othello -> othello.getBook()));
+		assertEquals("D3", registry.execute(id, othello -> {
+			PossibleMove move = othello.bookMoves().get(0).getMove();
+			return move.getColumn() + Integer.toString(move.getLine());
+		}));
+		registry.shutdown();
+		book.close();
+	}
+
+	/**
+	 * A stop which arrives while the game is evicted stops the searches of
+	 * the restored game, and a stopped game stays stopped when it is evicted.
+	 */
+	@Test
+	void evictionKeepsStop() {
+		GameRegistry registry = new GameRegistry();
+		String id = registry.create();
+		registry.execute(id, othello -> {
+			othello.newGame(8, 8, null);
+			return null;
+		});
+
+		assertEquals(1, registry.evictIdle(0));
+		registry.stop(id);
+		assertTrue(registry.execute(id, othello -> {
+			boolean stopped = othello.isStopped();
+			othello.resume();
+			return stopped;
+		}).booleanValue());
+
+		assertEquals(1, registry.evictIdle(0));
+		assertFalse(registry.execute(id, othello -> othello.isStopped()).booleanValue());
+		registry.stop(id);
+		assertEquals(1, registry.evictIdle(0));
+		assertTrue(registry.execute(id, othello -> othello.isStopped()).booleanValue());
+		registry.shutdown();
+	}
+
+	/**
+	 * A game which is recorded for an archive is archived with all its moves
+	 * even if it was evicted in between.
+	 * @throws IOException if the archive fails
+	 */
+	@Test
+	void evictionKeepsRecordedMoves() throws IOException {
+		Path file = directory.resolve("games.oa");
+		final GameArchive archive = new GameArchive(file);
+		GameRegistry registry = new GameRegistry();
+		String id = registry.create();
+		registry.execute(id, othello -> {
+			othello.setArchive(archive);
+			othello.newGame(8, 8, null);
+			othello.move('D', 3);
+			othello.move('C', 3);
+			return null;
+		});
+
+		assertEquals(1, registry.evictIdle(0));
+		registry.execute(id, othello -> {
+			othello.move('C', 4);
+			othello.abort();
+			return null;
+		});
+		registry.shutdown();
+		archive.close();
+
+		GameArchiveReader reader = new GameArchiveReader(file);
+		try {
+			assertTrue(reader.next());
+			assertEquals(3, reader.getMoveCount());
+			assertFalse(reader.next());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * The games of the clients of the shell server live in its registry and
+	 * are removed when the client disconnects.
+	 * @throws IOException if the connection fails
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	void serverHostsGamesInRegistry() throws IOException, InterruptedException {
+		ShellServer server = new ShellServer(0, 2);
+		server.start();
+		try {
+			ShellClient client = new ShellClient("localhost", server.getPort());
+			client.execute("newGame 8 8");
+			client.execute("move D3");
+			assertEquals(1, server.getRegistry().size());
+
+			assertEquals(1, server.getRegistry().evictIdle(0));
+			assertEquals(Arrays.asList("--------", "--------", "---B----", "---BB---", "---BW---",
+					"--------", "--------", "--------", "turn: white"), client.execute("print"));
+			client.close();
+
+			for (int i = 0; i < 100 && server.getRegistry().size() > 0; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, server.getRegistry().size());
+		} finally {
+			server.shutdown();
+		}
+	}
+
+}
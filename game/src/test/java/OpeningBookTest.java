@@ -0,0 +1,185 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link OpeningBook} with a book built from an archive of known
+ * games. The symmetric copies of a position share their entries, so every
+ * rotated and reflected copy has to find the same counts with its moves
+ * mapped by the symmetry.
+ * @author Florian Mueller
+ */
+class OpeningBookTest {
+
+	/** known games, the moves of each game */
+	private static final String[][] GAMES = {{"D3", "C3"}, {"D3", "C3", "C4"}, {"D3", "C3"},
+		{"D3", "E3"}, {"D3", "E3", "F2"}, {"D3", "C5"}, {"F5", "F6"}};
+
+	/** directory of the archive and the book */
+	@TempDir
+	Path directory;
+
+	/** book of the known games */
+	private OpeningBook book;
+
+	/**
+	 * Builds the book from an archive of the known games.
+	 * @throws IOException if the archive or the book fails
+	 */
+	@BeforeEach
+	void build() throws IOException {
+		Path archiveFile = directory.resolve("games.oa");
+		Path bookFile = directory.resolve("games.ob");
+		GameArchive archive = new GameArchive(archiveFile);
+		try {
+			Othello othello = new Othello();
+			othello.setArchive(archive);
+			for (String[] game : GAMES) {
+				othello.newGame(8, 8, null);
+				for (String move : game) {
+					othello.move(move.charAt(0), Integer.parseInt(move.substring(1)));
+				}
+				othello.abort();
+			}
+		} finally {
+			archive.close();
+		}
+		OpeningBook.build(archiveFile, bookFile, OpeningBook.DEFAULT_PLIES, 1);
+		this.book = new OpeningBook(bookFile);
+	}
+
+	/**
+	 * Closes the book.
+	 */
+	@AfterEach
+	void close() {
+		book.close();
+	}
+
+	/**
+	 * The four symmetric first moves share one entry, which counts all games
+	 * and is found at one of their cells.
+	 */
+	@Test
+	void sharesSymmetricMoves() {
+		List<BookMove> moves = book.lookup(new Board(8, 8, null), 'B');
+		assertEquals(1, moves.size());
+		assertEquals(GAMES.length, moves.get(0).getCount());
+		assertTrue(Arrays.asList("D3", "C4", "F5", "E6").contains(name(moves.get(0).getMove())));
+	}
+
+	/**
+	 * The moves after D3 are found in their order, the game after F5 counts
+	 * for its mirror image C3.
+	 */
+	@Test
+	void findsMovesOfPosition() {
+		Board board = new Board(8, 8, null);
+		board.moveStone('D', 3, 'B');
+		assertEquals(Arrays.asList("C3 4", "E3 2", "C5 1"), describe(book.lookup(board, 'W')));
+
+		board.moveStone('C', 3, 'W');
+		assertEquals(Arrays.asList("C4 1"), describe(book.lookup(board, 'B')));
+		assertEquals(0, book.lookup(board, 'W').size());
+	}
+
+	/**
+	 * Every rotated or reflected copy of a position finds the same counts
+	 * with the moves mapped by the symmetry.
+	 */
+	@Test
+	void findsSymmetricPositions() {
+		Board board = new Board(8, 8, null);
+		board.moveStone('D', 3, 'B');
+		assertSymmetric(board, 'W', 3);
+		board.moveStone('E', 3, 'W');
+		assertSymmetric(board, 'B', 1);
+	}
+
+	/**
+	 * Asserts that each symmetric copy of a position finds the moves of the
+	 * position mapped by the symmetry, with the same counts.
+	 * @param board the position
+	 * @param color color of the player to move
+	 * @param size number of moves of the position
+	 */
+	private void assertSymmetric(Board board, char color, int size) {
+		List<BookMove> moves = book.lookup(board, color);
+		assertEquals(size, moves.size());
+		assertEquals(8, board.countSymmetries());
+		for (int symmetry = 0; symmetry < board.countSymmetries(); symmetry++) {
+			List<String> mapped = new ArrayList<String>();
+			for (BookMove move : moves) {
+				int cell = board.symmetricCell(board.cellIndex(move.getMove().getColumn(),
+						move.getMove().getLine()), symmetry);
+				mapped.add(name(cell) + " " + move.getCount());
+			}
+			assertEquals(mapped, describe(book.lookup(transform(board, symmetry), color)),
+					"symmetry " + symmetry);
+		}
+	}
+
+	/**
+	 * Returns a copy of a board moved by a symmetry.
+	 * @param board the board
+	 * @param symmetry symmetry of {@link Board#symmetricCell(int, int)}
+	 * @return the moved copy
+	 */
+	private static Board transform(Board board, int symmetry) {
+		List<String> field = board.getField();
+		char[][] cells = new char[8][8];
+		for (int i = 0; i < 8; i++) {
+			for (int j = 0; j < 8; j++) {
+				int cell = board.symmetricCell(i * 8 + j, symmetry);
+				cells[cell / 8][cell % 8] = field.get(i).charAt(j);
+			}
+		}
+		List<String> moved = new ArrayList<String>();
+		for (char[] line : cells) {
+			moved.add(new String(line));
+		}
+		return new Board(8, 8, moved);
+	}
+
+	/**
+	 * Describes the moves of the book with their counts.
+	 * @param moves moves of the book
+	 * @return the names of the moves with their counts
+	 */
+	private static List<String> describe(List<BookMove> moves) {
+		List<String> result = new ArrayList<String>();
+		for (BookMove move : moves) {
+			result.add(name(move.getMove()) + " " + move.getCount());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the name of a move.
+	 * @param move the move
+	 * @return column and line of the move
+	 */
+	private static String name(PossibleMove move) {
+		return move.getColumn() + Integer.toString(move.getLine());
+	}
+
+	/**
+	 * Returns the name of a cell of a board with eight columns.
+	 * @param cell index of the cell
+	 * @return column and line of the cell
+	 */
+	private static String name(int cell) {
+		return (char) ('A' + cell % 8) + Integer.toString(cell / 8 + 1);
+	}
+
+}
@@ -0,0 +1,184 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link PatternEvaluator} and the {@link PatternWeights}: the
+ * codes updated on each move have to be the codes computed from the cells
+ * in random games with random holes, also when the moves are taken back,
+ * and saved weights have to load the same.
+ * @author Florian Mueller
+ */
+class PatternEvaluatorTest {
+
+	/** sizes of the boards as lines and columns */
+	private static final int[][] SIZES = {{4, 4}, {8, 8}, {6, 10}, {10, 4}, {26, 26}, {98, 26}};
+
+	/** number of games of each size */
+	private static final int GAMES = 4;
+
+	/** directory of the weight files */
+	@TempDir
+	Path directory;
+
+	/**
+	 * The codes updated by the moves and by taking them back are the codes
+	 * computed from the cells.
+	 */
+	@Test
+	void updatesCodesLikeRefresh() {
+		Random random = new Random(1);
+		PatternWeights weights = randomWeights(random);
+		for (int[] size : SIZES) {
+			for (int game = 0; game < GAMES; game++) {
+				this.play(size[0], size[1], weights, random);
+			}
+		}
+	}
+
+	/**
+	 * Saved weights load with the same weights.
+	 * @throws IOException if the file fails
+	 */
+	@Test
+	void loadsSavedWeights() throws IOException {
+		PatternWeights weights = randomWeights(new Random(2));
+		weights.set(0, PatternWeights.CORNER, 0, Integer.MAX_VALUE);
+		weights.set(PatternWeights.PHASES - 1, PatternWeights.DIAGONAL, 1, Integer.MIN_VALUE);
+		Path file = directory.resolve("weights.ow");
+		weights.save(file);
+
+		PatternWeights loaded = PatternWeights.load(file);
+		for (int phase = 0; phase < PatternWeights.PHASES; phase++) {
+			for (int kind = 0; kind < PatternWeights.KINDS; kind++) {
+				assertArrayEquals(weights.table(phase, kind), loaded.table(phase, kind));
+			}
+			assertEquals(weights.getMobility(phase), loaded.getMobility(phase));
+		}
+		assertEquals(Short.MAX_VALUE, loaded.table(0, PatternWeights.CORNER)[0]);
+		assertEquals(Short.MIN_VALUE, loaded.table(PatternWeights.PHASES - 1,
+				PatternWeights.DIAGONAL)[1]);
+	}
+
+	/**
+	 * A file which is cut off is no weight file.
+	 * @throws IOException if the file fails
+	 */
+	@Test
+	void rejectsTruncatedWeights() throws IOException {
+		Path file = directory.resolve("weights.ow");
+		new PatternWeights().save(file);
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> PatternWeights.load(file));
+		assertEquals("Error! File is no weight file.", e.getMessage());
+	}
+
+	/**
+	 * Plays a random game with random holes and takes all its moves back.
+	 * After each move the codes and the evaluations have to be those of an
+	 * evaluator which computes them from the cells.
+	 * @param lines line length of the board
+	 * @param columns column length of the board
+	 * @param weights weights of the evaluators
+	 * @param random random numbers
+	 */
+	private void play(int lines, int columns, PatternWeights weights, Random random) {
+		Board board = new Board(lines, columns, null);
+		for (int i = 1; i <= lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				char column = (char) ('A' + j);
+				if (random.nextDouble() < 0.15 && board.holeIsAllowed(column, i, column, i)) {
+					board.setHole(column, i, column, i);
+				}
+			}
+		}
+		PatternEvaluator evaluator = new PatternEvaluator(weights);
+		evaluator.attach(board);
+		PatternEvaluator expected = new PatternEvaluator(weights);
+		expected.attach(board);
+
+		List<Long> records = new ArrayList<Long>();
+		char color = 'B';
+		int passes = 0;
+		while (passes < 2) {
+			List<PossibleMove> moves = board.getPossibleMoves(color);
+			int cell = Board.PASS;
+			passes++;
+			if (!moves.isEmpty()) {
+				PossibleMove move = moves.get(random.nextInt(moves.size()));
+				cell = board.cellIndex(move.getColumn(), move.getLine());
+				passes = 0;
+			}
+			records.add(Long.valueOf(evaluator.makeMove(cell, color)));
+			this.compare(evaluator, expected);
+			color = opponent(color);
+		}
+		for (int i = records.size() - 1; i >= 0; i--) {
+			evaluator.unmakeMove(records.get(i).longValue());
+			this.compare(evaluator, expected);
+		}
+	}
+
+	/**
+	 * Compares the codes and evaluations of an evaluator with those of an
+	 * evaluator which computes them from the cells of the same board.
+	 * @param evaluator evaluator which updates its codes
+	 * @param expected evaluator which refreshes its codes
+	 */
+	private void compare(PatternEvaluator evaluator, PatternEvaluator expected) {
+		expected.refresh();
+		assertEquals(expected.countPatterns(), evaluator.countPatterns());
+		for (int i = 0; i < expected.countPatterns(); i++) {
+			assertEquals(expected.getCode(i, 'B'), evaluator.getCode(i, 'B'), "pattern " + i);
+			assertEquals(expected.getCode(i, 'W'), evaluator.getCode(i, 'W'), "pattern " + i);
+		}
+		assertEquals(expected.evaluate('B'), evaluator.evaluate('B'));
+		assertEquals(expected.evaluate('W'), evaluator.evaluate('W'));
+	}
+
+	/**
+	 * Returns weights with random values.
+	 * @param random random numbers
+	 * @return the weights
+	 */
+	private static PatternWeights randomWeights(Random random) {
+		PatternWeights result = new PatternWeights();
+		for (int phase = 0; phase < PatternWeights.PHASES; phase++) {
+			for (int kind = 0; kind < PatternWeights.KINDS; kind++) {
+				for (int code = 0; code < PatternWeights.size(kind); code++) {
+					result.set(phase, kind, code, random.nextInt(2001) - 1000);
+				}
+			}
+			result.setMobility(phase, random.nextInt(201) - 100);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the color of the opponent.
+	 * @param color color of the player
+	 * @return color of the opponent
+	 */
+	private static char opponent(char color) {
+		char result = 'B';
+		if (color == 'B') {
+			result = 'W';
+		}
+		return result;
+	}
+
+}
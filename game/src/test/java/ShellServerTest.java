@@ -0,0 +1,313 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the limits of the clients of the {@link ShellServer}.
+ * @author Florian Mueller
+ */
+class ShellServerTest {
+
+	/** server of the tests */
+	private ShellServer server;
+
+	/**
+	 * Starts the server.
+	 * @throws IOException if the server cannot be started
+	 */
+	@BeforeEach
+	void start() throws IOException {
+		this.server = new ShellServer(0, 2);
+		server.start();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@AfterEach
+	void stop() {
+		server.shutdown();
+	}
+
+	/**
+	 * The clients may only execute the commands of the policy.
+	 * @throws IOException if the connection fails
+	 */
+	@Test
+	void rejectsCommandsOutsidePolicy() throws IOException {
+		ShellClient client = new ShellClient("localhost", server.getPort());
+		try {
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'threads'"),
+					client.execute("threads 256"));
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'perft'"),
+					client.execute("perft 12 parallel"));
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'save'"),
+					client.execute("save game.og"));
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'stats'"),
+					client.execute("stats reset"));
+			assertEquals(Arrays.asList("----", "-WB-", "-BW-", "----", "turn: black"),
+					client.pipeline(Arrays.asList("newGame 4 4", "print")).get(1));
+		} finally {
+			client.close();
+		}
+	}
+
+	/**
+	 * A client may print the metrics if its policy allows the stats command,
+	 * but it may not switch or reset them for the whole process.
+	 * @throws IOException if the connection fails
+	 */
+	@Test
+	void rejectsMetricSettings() throws IOException {
+		ShellServer statsServer = new ShellServer(new InetSocketAddress(
+				InetAddress.getLoopbackAddress(), 0), 1, new ShellPolicy(new String[] {"stats"},
+				1000));
+		statsServer.start();
+		ShellClient client = new ShellClient("localhost", statsServer.getPort());
+		boolean enabled = Metrics.isEnabled();
+		try {
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'stats on'"),
+					client.execute("stats on"));
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'stats off'"),
+					client.execute("stats off"));
+			assertEquals(Collections.singletonList("Error! Command not allowed: 'stats reset'"),
+					client.execute("stats reset"));
+			assertEquals(enabled, Metrics.isEnabled());
+			assertFalse(client.execute("stats").isEmpty());
+		} finally {
+			client.close();
+			statsServer.shutdown();
+		}
+	}
+
+	/**
+	 * The time budget of a search is limited.
+	 * @throws IOException if the connection fails
+	 */
+	@Test
+	void limitsSearchTime() throws IOException {
+		ShellClient client = new ShellClient("localhost", server.getPort());
+		try {
+			client.execute("newGame 8 8");
+			assertEquals(Collections.singletonList("Error! Time exceeds the limit of 10000 ms."),
+					client.execute("analyze 999999999"));
+			assertEquals(Collections.singletonList("Error! Time exceeds the limit of 10000 ms."),
+					client.execute("think 10001"));
+		} finally {
+			client.close();
+		}
+	}
+
+	/**
+	 * The analysis sends the ranking of each depth while it runs, the stop
+	 * command ends it at once and later searches run to their budget again.
+	 * @throws IOException if the connection fails
+	 */
+	@Test
+	void streamsAndStopsAnalysis() throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		try {
+			OutputStream output = socket.getOutputStream();
+			BufferedReader input = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.ISO_8859_1));
+			output.write("newGame 8 8\nanalyze 10000\n".getBytes(StandardCharsets.ISO_8859_1));
+			output.flush();
+			assertEquals(ShellConnection.END, input.readLine());
+			assertTrue(input.readLine().startsWith("depth 1: "));
+
+			long start = System.nanoTime();
+			output.write("stop\nanalyze 500\n".getBytes(StandardCharsets.ISO_8859_1));
+			output.flush();
+			String line = input.readLine();
+			while (!ShellConnection.END.equals(line)) {
+				line = input.readLine();
+			}
+			assertTrue(System.nanoTime() - start < 2000000000L);
+			assertEquals(ShellConnection.END, input.readLine());
+
+			start = System.nanoTime();
+			line = input.readLine();
+			while (!ShellConnection.END.equals(line)) {
+				line = input.readLine();
+			}
+			assertTrue(System.nanoTime() - start >= 400000000L);
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * A client which disconnects during a search stops the search, so that
+	 * its worker and its game are released long before the budget is spent.
+	 * @throws IOException if the connection fails
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	void disconnectStopsSearch() throws IOException, InterruptedException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		OutputStream output = socket.getOutputStream();
+		output.write("newGame 8 8\nanalyze 10000\n".getBytes(StandardCharsets.ISO_8859_1));
+		output.flush();
+		for (int i = 0; i < 100 && server.getRegistry().size() == 0; i++) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(200);
+		long start = System.nanoTime();
+		socket.close();
+
+		for (int i = 0; i < 500 && server.getRegistry().size() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, server.getRegistry().size());
+		assertTrue(System.nanoTime() - start < 2000000000L);
+	}
+
+	/**
+	 * A client which pipelines thousands of slow commands is held back once
+	 * too many commands are queued.
+	 * @throws IOException if the connection fails
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	void boundsQueuedCommands() throws IOException, InterruptedException {
+		ShellServer perftServer = new ShellServer(new InetSocketAddress(
+				InetAddress.getLoopbackAddress(), 0), 1, new ShellPolicy(new String[] {"newGame",
+				"perft"}, 1000));
+		perftServer.start();
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), perftServer.getPort());
+		try {
+			this.pipelineWithoutReading(socket, "newGame 8 8", "perft 7", 20000);
+		} finally {
+			socket.close();
+			perftServer.shutdown();
+		}
+	}
+
+	/**
+	 * A client which pipelines thousands of commands with a large output
+	 * without reading it is held back once too much output is queued, and
+	 * still gets the output of all commands when it reads.
+	 * @throws IOException if the connection fails
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	void boundsPendingOutput() throws IOException, InterruptedException {
+		final int count = 20000;
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		try {
+			Thread writer = this.pipelineWithoutReading(socket, "newGame 26 26", "print", count);
+			BufferedReader input = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.ISO_8859_1));
+			int ends = 0;
+			while (ends <= count) {
+				String answer = input.readLine();
+				assertTrue(answer != null);
+				if (ShellConnection.END.equals(answer)) {
+					ends++;
+				}
+			}
+			writer.join(10000);
+			assertFalse(writer.isAlive());
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * A client which queues too many searches is disconnected and its game
+	 * is released.
+	 * @throws IOException if the connection fails
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	void disconnectsTooManySearches() throws IOException, InterruptedException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		socket.setSoTimeout(5000);
+		try {
+			OutputStream output = socket.getOutputStream();
+			BufferedReader input = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.ISO_8859_1));
+			StringBuilder commands = new StringBuilder("newGame 8 8\n");
+			for (int i = 0; i < 100; i++) {
+				commands.append("think 10000\n");
+			}
+			long start = System.nanoTime();
+			output.write(commands.toString().getBytes(StandardCharsets.ISO_8859_1));
+			output.flush();
+			String line = input.readLine();
+			while (line != null) {
+				line = input.readLine();
+			}
+			assertTrue(System.nanoTime() - start < 5000000000L);
+		} finally {
+			socket.close();
+		}
+		for (int i = 0; i < 500 && server.getRegistry().size() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, server.getRegistry().size());
+	}
+
+	/**
+	 * Sends a command many times on another thread without reading the
+	 * output, until the server stops reading. Each command line is padded
+	 * with spaces, so that the lines are far more than the buffers of the
+	 * sockets take. The writer has to be held back before it has sent all
+	 * commands.
+	 * @param socket socket of the client
+	 * @param setup first command
+	 * @param command command which is pipelined
+	 * @param count number of pipelined commands
+	 * @return thread which writes the commands
+	 * @throws IOException if the connection fails
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	private Thread pipelineWithoutReading(Socket socket, String setup, String command,
+			final int count) throws IOException, InterruptedException {
+		final OutputStream output = socket.getOutputStream();
+		output.write((setup + "\n").getBytes(StandardCharsets.ISO_8859_1));
+		StringBuilder padded = new StringBuilder(command);
+		while (padded.length() < 2000) {
+			padded.append(' ');
+		}
+		final byte[] line = padded.append('\n').toString().getBytes(StandardCharsets.ISO_8859_1);
+		final AtomicInteger sent = new AtomicInteger();
+		Thread result = new Thread(() -> {
+			try {
+				for (int i = 0; i < count; i++) {
+					output.write(line);
+					sent.incrementAndGet();
+				}
+			} catch (IOException e) {
+				// the socket is closed by the test
+			}
+		});
+		result.start();
+
+		int last = -1;
+		for (int i = 0; i < 50 && sent.get() != last; i++) {
+			last = sent.get();
+			Thread.sleep(200);
+		}
+		assertTrue(result.isAlive());
+		assertTrue(sent.get() < count);
+		return result;
+	}
+
+}
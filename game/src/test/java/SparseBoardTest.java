@@ -0,0 +1,142 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link SparseBoard} against the {@link Board}: random games with
+ * random holes are played on both. After each move the stones and the
+ * possible moves of both players have to be equal, at the end of the game
+ * all cells.
+ * @author Florian Mueller
+ */
+class SparseBoardTest {
+
+	/** sizes of the boards as lines and columns */
+	private static final int[][] SIZES = {{2, 2}, {4, 4}, {8, 8}, {6, 10}, {10, 4}, {4, 26},
+		{26, 26}, {98, 4}};
+
+	/** number of games of each size */
+	private static final int GAMES = 5;
+
+	/**
+	 * Random games without holes play the same on both boards.
+	 */
+	@Test
+	void playsLikeBoard() {
+		Random random = new Random(1);
+		for (int[] size : SIZES) {
+			for (int game = 0; game < GAMES; game++) {
+				this.play(size[0], size[1], 0.0, random);
+			}
+		}
+	}
+
+	/**
+	 * Random games with holes play the same on both boards.
+	 */
+	@Test
+	void playsLikeBoardWithHoles() {
+		Random random = new Random(2);
+		for (int[] size : SIZES) {
+			for (int game = 0; game < GAMES; game++) {
+				this.play(size[0], size[1], 0.15, random);
+			}
+		}
+	}
+
+	/**
+	 * Plays a random game on both boards and compares them after each move.
+	 * @param lines line length of the boards
+	 * @param columns column length of the boards
+	 * @param holes share of the cells which are holes
+	 * @param random random numbers
+	 */
+	private void play(int lines, int columns, double holes, Random random) {
+		Board board = new Board(lines, columns, null);
+		SparseBoard sparse = new SparseBoard(lines, columns);
+		for (int i = 1; i <= lines; i++) {
+			for (int j = 0; j < columns; j++) {
+				char column = (char) ('A' + j);
+				if (random.nextDouble() < holes && board.holeIsAllowed(column, i, column, i)) {
+					board.setHole(column, i, column, i);
+					sparse.setHole(String.valueOf(column), i, String.valueOf(column), i);
+				}
+			}
+		}
+
+		char color = 'B';
+		boolean over = false;
+		while (!over) {
+			this.compareMoves(board, sparse);
+			if (sparse.countMoves(color) == 0) {
+				color = opponent(color);
+			}
+			List<PossibleMove> moves = board.getPossibleMoves(color);
+			if (moves.isEmpty()) {
+				over = true;
+			} else {
+				PossibleMove move = moves.get(random.nextInt(moves.size()));
+				board.moveStone(move.getColumn(), move.getLine(), color);
+				sparse.moveStone(String.valueOf(move.getColumn()), move.getLine(), color);
+				color = opponent(color);
+			}
+		}
+		this.compareCells(board, sparse);
+	}
+
+	/**
+	 * Compares the cells of both boards.
+	 * @param board dense board
+	 * @param sparse sparse board
+	 */
+	private void compareCells(Board board, SparseBoard sparse) {
+		List<String> field = board.getField();
+		for (int i = 0; i < field.size(); i++) {
+			for (int j = 0; j < field.get(i).length(); j++) {
+				assertEquals(field.get(i).charAt(j),
+						sparse.getCell(SparseBoard.columnName(j), i + 1),
+						SparseBoard.columnName(j) + (i + 1));
+			}
+		}
+		assertEquals(board.countHoles(), sparse.countHoles());
+	}
+
+	/**
+	 * Compares the stones and the possible moves of both boards.
+	 * @param board dense board
+	 * @param sparse sparse board
+	 */
+	private void compareMoves(Board board, SparseBoard sparse) {
+		for (char color : new char[] {'B', 'W'}) {
+			assertEquals(board.countStones(color), sparse.countStones(color));
+			List<String> expected = new ArrayList<String>();
+			for (PossibleMove move : board.getPossibleMoves(color)) {
+				expected.add(move.getColumn() + Integer.toString(move.getLine()));
+			}
+			List<String> actual = new ArrayList<String>(sparse.getPossibleMoves(color));
+			Collections.sort(expected);
+			Collections.sort(actual);
+			assertEquals(expected, actual);
+			assertEquals(expected.size(), sparse.countMoves(color));
+		}
+	}
+
+	/**
+	 * Returns the color of the opponent.
+	 * @param color color of the player
+	 * @return color of the opponent
+	 */
+	private static char opponent(char color) {
+		char result = 'B';
+		if (color == 'B') {
+			result = 'W';
+		}
+		return result;
+	}
+
+}